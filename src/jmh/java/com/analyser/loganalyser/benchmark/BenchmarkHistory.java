@@ -0,0 +1,214 @@
+package com.analyser.loganalyser.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Appends a JMH JSON result to the CSV history (one row per benchmark and parameter set, tagged
+ * with the git commit) and compares every score with the most recent run of an earlier commit.
+ * Time-per-operation scores that grew, or throughput scores that shrank, by more than the threshold
+ * are reported as regressions and fail the build if requested.
+ *
+ * <p>Arguments: {@code <jmh-result.json> <history.csv> <threshold-percent> <fail-on-regression>}.
+ */
+public final class BenchmarkHistory {
+
+    static final String HEADER = "commit,recordedAt,benchmark,params,score,error,unit";
+
+    private BenchmarkHistory() {}
+
+    record Score(
+            String commit,
+            String recordedAt,
+            String benchmark,
+            String params,
+            double score,
+            double error,
+            String unit) {
+
+        String key() {
+            return benchmark + " " + params;
+        }
+
+        String toCsv() {
+            return String.join(
+                    ",",
+                    commit,
+                    recordedAt,
+                    benchmark,
+                    params,
+                    Double.toString(score),
+                    Double.toString(error),
+                    unit);
+        }
+
+        static Score fromCsv(String line) {
+            String[] columns = line.split(",", -1);
+            return new Score(
+                    columns[0],
+                    columns[1],
+                    columns[2],
+                    columns[3],
+                    Double.parseDouble(columns[4]),
+                    Double.parseDouble(columns[5]),
+                    columns[6]);
+        }
+
+        boolean lowerIsBetter() {
+            return unit.endsWith("/op");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            throw new IllegalArgumentException(
+                    "Usage: BenchmarkHistory <jmh-result.json> <history.csv>"
+                            + " <threshold-percent> <fail-on-regression>");
+        }
+        Path result = Paths.get(args[0]);
+        Path history = Paths.get(args[1]);
+        double threshold = Double.parseDouble(args[2]);
+        boolean failOnRegression = Boolean.parseBoolean(args[3]);
+
+        List<Score> scores = read(result, commit(), Instant.now().toString());
+        Map<String, Score> baseline = baseline(history, scores.getFirst().commit());
+        List<String> regressions = new ArrayList<>();
+        for (Score score : scores) {
+            Score previous = baseline.get(score.key());
+            String change = "new";
+            if (previous != null && previous.score() > 0 && previous.unit().equals(score.unit())) {
+                double percent = (score.score() - previous.score()) / previous.score() * 100;
+                change = String.format("%+.1f%% vs %s", percent, previous.commit());
+                double worse = score.lowerIsBetter() ? percent : -percent;
+                if (worse > threshold) {
+                    regressions.add(score.key() + " " + change);
+                }
+            }
+            System.out.printf(
+                    "%-70s %12.3f %-8s %s%n", score.key(), score.score(), score.unit(), change);
+        }
+        append(history, scores);
+        System.out.printf("Recorded %d scores in %s%n", scores.size(), history);
+
+        if (!regressions.isEmpty()) {
+            System.out.printf("Regressions above %.1f%%:%n", threshold);
+            regressions.forEach(regression -> System.out.println("  " + regression));
+            if (failOnRegression) {
+                System.exit(1);
+            }
+        }
+    }
+
+    static List<Score> read(Path result, String commit, String recordedAt) throws IOException {
+        JsonNode runs = JsonMapper.builder().build().readTree(Files.readString(result));
+        List<Score> scores = new ArrayList<>();
+        for (JsonNode run : runs) {
+            StringJoiner params = new StringJoiner(";");
+            JsonNode paramNode = run.path("params");
+            for (String name : paramNode.propertyNames()) {
+                params.add(name + "=" + paramNode.get(name).asString());
+            }
+            JsonNode metric = run.path("primaryMetric");
+            scores.add(
+                    new Score(
+                            commit,
+                            recordedAt,
+                            simpleName(run.path("benchmark").asString()),
+                            params.toString(),
+                            number(metric.path("score")),
+                            number(metric.path("scoreError")),
+                            metric.path("scoreUnit").asString()));
+        }
+        if (scores.isEmpty()) {
+            throw new IllegalArgumentException("No benchmark results in " + result);
+        }
+        return scores;
+    }
+
+    /** JMH writes {@code "NaN"} as a string, e.g. for the error of a single iteration. */
+    private static double number(JsonNode node) {
+        return node.isNumber() ? node.asDouble() : Double.parseDouble(node.asString("NaN"));
+    }
+
+    /** {@code com.example.FooBenchmark.bar} becomes {@code FooBenchmark.bar}. */
+    private static String simpleName(String benchmark) {
+        return benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+    }
+
+    /** The latest score of every benchmark recorded for a commit other than {@code commit}. */
+    static Map<String, Score> baseline(Path history, String commit) throws IOException {
+        Map<String, Score> baseline = new LinkedHashMap<>();
+        if (!Files.exists(history)) {
+            return baseline;
+        }
+        for (String line : Files.readAllLines(history, StandardCharsets.UTF_8)) {
+            if (line.isBlank() || line.equals(HEADER)) {
+                continue;
+            }
+            Score score = Score.fromCsv(line);
+            if (!score.commit().equals(commit)) {
+                baseline.put(score.key(), score);
+            }
+        }
+        return baseline;
+    }
+
+    private static void append(Path history, List<Score> scores) throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (!Files.exists(history)) {
+            if (history.getParent() != null) {
+                Files.createDirectories(history.getParent());
+            }
+            lines.add(HEADER);
+        }
+        scores.forEach(score -> lines.add(score.toCsv()));
+        Files.write(
+                history,
+                lines,
+                StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    /** Short hash of {@code HEAD}, suffixed with {@code -dirty} for uncommitted changes. */
+    private static String commit() {
+        String head = git("rev-parse", "--short", "HEAD");
+        if (head.isEmpty()) {
+            return "unknown";
+        }
+        return git("status", "--porcelain", "--untracked-files=no").isEmpty()
+                ? head
+                : head + "-dirty";
+    }
+
+    private static String git(String... args) {
+        List<String> command = new ArrayList<>(List.of("git"));
+        command.addAll(List.of(args));
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            String output;
+            try (InputStream in = process.getInputStream()) {
+                output = new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+            }
+            return process.waitFor() == 0 ? output : "";
+        } catch (IOException e) {
+            return "";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "";
+        }
+    }
+}
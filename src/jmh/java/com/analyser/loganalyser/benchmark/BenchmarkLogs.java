@@ -0,0 +1,59 @@
+package com.analyser.loganalyser.benchmark;
+
+import com.analyser.loganalyser.util.LogStreamGenerator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+/**
+ * Benchmark inputs generated by {@link LogStreamGenerator} with a fixed seed. Files are written
+ * once to {@code target/benchmark-logs} and reused by later runs, so a 1 GB input costs its
+ * generation time only on the first run.
+ */
+final class BenchmarkLogs {
+
+    static final long SEED = 42;
+    private static final Path DIRECTORY = Paths.get("target", "benchmark-logs");
+
+    private BenchmarkLogs() {}
+
+    /** The generated log file of the given size, e.g. {@code 1MB}, {@code 100MB} or {@code 1GB}. */
+    static Path file(String size) {
+        long bytes = bytes(size);
+        Path file = DIRECTORY.resolve("dummy-" + size + ".log");
+        try {
+            if (Files.isRegularFile(file) && Files.size(file) >= bytes) {
+                return file;
+            }
+            Files.createDirectories(DIRECTORY);
+            Path partial = DIRECTORY.resolve(file.getFileName() + ".partial");
+            LogStreamGenerator.writeStructuredLogs(partial, bytes, SEED);
+            return Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not generate benchmark logs " + file, e);
+        }
+    }
+
+    static String read(String size) {
+        try {
+            return Files.readString(file(size));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static long bytes(String size) {
+        String normalized = size.trim().toUpperCase(Locale.ROOT);
+        if (normalized.endsWith("GB")) {
+            return Long.parseLong(normalized.substring(0, normalized.length() - 2)) << 30;
+        }
+        if (normalized.endsWith("MB")) {
+            return Long.parseLong(normalized.substring(0, normalized.length() - 2)) << 20;
+        }
+        throw new IllegalArgumentException("Unknown benchmark size: " + size + ". Use MB or GB.");
+    }
+}
@@ -0,0 +1,110 @@
+package com.analyser.loganalyser.benchmark;
+
+import com.analyser.loganalyser.service.LogBatch;
+import com.analyser.loganalyser.service.LogDeduplicator;
+import com.analyser.loganalyser.service.LogFilter;
+import com.analyser.loganalyser.service.LogStreamIngestor;
+import com.analyser.loganalyser.service.StructuredLogParser;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing, filtering and deduplication of generated {@code dummy.log}-style files, streamed from
+ * disk the way uploads and fetched logs are, at 1 MB, 100 MB and 1 GB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(
+        value = 1,
+        jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class LogPipelineBenchmark {
+
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    @Param({"1MB", "100MB", "1GB"})
+    public String size;
+
+    private Path file;
+    private StructuredLogParser parser;
+    private LogStreamIngestor ingestor;
+    private LogDeduplicator deduplicator;
+
+    @Setup
+    public void setUp() {
+        file = BenchmarkLogs.file(size);
+        // no row cap, so the 1 GB input is parsed in full like the smaller ones
+        parser = new StructuredLogParser(Integer.MAX_VALUE, 10);
+        deduplicator = new LogDeduplicator(10_000);
+        ingestor = new LogStreamIngestor(deduplicator, parser, 1_000_000, 16_384);
+    }
+
+    @Benchmark
+    public LogBatch parse() throws IOException {
+        LogBatch.Builder columns = parser.newColumnsBuilder();
+        byte[] buffer = new byte[CHUNK_SIZE];
+        int carried = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer, carried, buffer.length - carried)) > 0) {
+                int end = carried + read;
+                int lastNewline = end - 1;
+                while (lastNewline >= 0 && buffer[lastNewline] != '\n') {
+                    lastNewline--;
+                }
+                if (lastNewline < 0) {
+                    carried = end;
+                    continue;
+                }
+                columns.addLines(buffer, 0, lastNewline + 1);
+                carried = end - lastNewline - 1;
+                System.arraycopy(buffer, lastNewline + 1, buffer, 0, carried);
+            }
+        }
+        columns.addLines(buffer, 0, carried);
+        return columns.build();
+    }
+
+    @Benchmark
+    public long filter() throws IOException {
+        LogFilter filter =
+                LogFilter.of("WARN", "order-service", LogBatch.NO_TIMESTAMP, "latencyMs>=500");
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            return lines.filter(filter).count();
+        }
+    }
+
+    @Benchmark
+    public String deduplicate() throws IOException {
+        LogDeduplicator.Aggregator aggregator = deduplicator.newAggregator();
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            lines.forEach(aggregator);
+        }
+        return aggregator.render();
+    }
+
+    @Benchmark
+    public LogStreamIngestor.IngestedLogs ingest() throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return ingestor.ingest(in, null);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.analyser.loganalyser.benchmark;
+
+import com.analyser.loganalyser.service.AnalysisOutputStore;
+import com.analyser.loganalyser.service.AnalysisTableMerger;
+import com.analyser.loganalyser.service.ExceptionExtractor;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link AnalysisOutputStore#save} of the table extracted from 1 MB of generated logs. The store
+ * writes to a temporary directory, emptied after every iteration so the file count does not skew
+ * later iterations and deleted at the end; the application's output directory is left alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputStoreBenchmark {
+
+    private Path outputDirectory;
+    private AnalysisOutputStore outputStore;
+    private String table;
+
+    @Setup
+    public void setUp() throws IOException {
+        outputDirectory = Files.createTempDirectory("output-store-benchmark");
+        outputStore = new AnalysisOutputStore(outputDirectory);
+        table = new ExceptionExtractor(new AnalysisTableMerger()).table(BenchmarkLogs.read("1MB"));
+    }
+
+    @Benchmark
+    public void save() {
+        outputStore.save(table);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteOutputs() throws IOException {
+        try (Stream<Path> files = Files.list(outputDirectory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteOutputDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(outputDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
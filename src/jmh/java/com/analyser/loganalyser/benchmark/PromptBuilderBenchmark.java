@@ -0,0 +1,70 @@
+package com.analyser.loganalyser.benchmark;
+
+import com.analyser.loganalyser.config.AnalysisProperties;
+import com.analyser.loganalyser.model.LogAnalysisRequest;
+import com.analyser.loganalyser.service.AnalysisMetrics;
+import com.analyser.loganalyser.service.AnalysisTableMerger;
+import com.analyser.loganalyser.service.ExceptionExtractor;
+import com.analyser.loganalyser.service.LogAnalysisPromptBuilder;
+import com.analyser.loganalyser.service.SourceContextIndex;
+import com.analyser.loganalyser.service.TokenEstimator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link LogAnalysisPromptBuilder#buildAnalysisPrompt} over 1 MB of generated logs: with a large
+ * context window the logs fit, with Ollama's they are trimmed; seeded mode adds the local
+ * extraction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromptBuilderBenchmark {
+
+    @Param({"openai", "ollama"})
+    public String provider;
+
+    @Param({"llm", "seeded"})
+    public String mode;
+
+    private LogAnalysisPromptBuilder promptBuilder;
+    private LogAnalysisRequest request;
+    private String logs;
+
+    @Setup
+    public void setUp() {
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.setContextWindow(Map.of("openai", 1_047_576, "ollama", 8_192));
+        TokenEstimator tokenEstimator = new TokenEstimator(properties, provider);
+        promptBuilder =
+                new LogAnalysisPromptBuilder(
+                        new SourceContextIndex(6, 5, 8_000, 8),
+                        tokenEstimator,
+                        new ExceptionExtractor(new AnalysisTableMerger()),
+                        new AnalysisMetrics(new SimpleMeterRegistry(), tokenEstimator, provider));
+        logs = BenchmarkLogs.read("1MB");
+        request =
+                new LogAnalysisRequest(
+                        null, null, null, "ERROR", 1, "order-service", "prd", null, mode);
+    }
+
+    @Benchmark
+    public String buildAnalysisPrompt() {
+        return promptBuilder.buildAnalysisPrompt(request, logs);
+    }
+}
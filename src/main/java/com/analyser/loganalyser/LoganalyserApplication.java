@@ -1,12 +1,20 @@
 package com.analyser.loganalyser;
 
+import com.analyser.loganalyser.config.AnalysisProperties;
+import com.analyser.loganalyser.config.FakeChatProperties;
 import com.analyser.loganalyser.config.LogProperties;
+import com.analyser.loganalyser.config.RoutingProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
-@EnableConfigurationProperties(LogProperties.class)
+@EnableConfigurationProperties({
+    LogProperties.class,
+    AnalysisProperties.class,
+    RoutingProperties.class,
+    FakeChatProperties.class
+})
 public class LoganalyserApplication {
 
     public static void main(String[] args) {
@@ -1,5 +1,10 @@
 package com.analyser.loganalyser.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
@@ -7,8 +12,9 @@ import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.google.genai.GoogleGenAiChatModel;
 import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.ObjectProvider;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -32,6 +38,10 @@ public class AiConfig {
      *   <li>If {@code ai.provider=google} and Google GenAI is available, return that.
      *   <li>If {@code ai.provider=ollama} and Ollama is available, return that.
      *   <li>If {@code ai.provider=openai} and OpenAI is available, return that.
+     *   <li>If {@code ai.provider=routing}, return a {@link RoutingChatModel} over every available
+     *       provider listed in {@code ai.routing.providers}.
+     *   <li>If {@code ai.provider=fake}, return a {@link FakeChatModel} that answers offline with
+     *       the latency, token rate and error rate of {@code ai.fake}.
      *   <li>If {@code ai.provider} has an unsupported value, throw {@link IllegalStateException}.
      *   <li>If the selected provider is unavailable or unconfigured, throw {@link
      *       IllegalStateException}.
@@ -42,6 +52,10 @@ public class AiConfig {
      * @param ollamaProvider optional provider for {@link
      *     org.springframework.ai.ollama.OllamaChatModel}
      * @param openaiProvider optional provider for {@link OpenAiChatModel}
+     * @param routingProperties provider order, circuit breaker and hedging settings for routing
+     * @param analysisProperties context windows used to skip providers a prompt does not fit
+     * @param fakeProperties latency, token rate and error rate of the offline fake provider
+     * @param meterRegistry registry of the per-provider call timers of routing
      * @return the selected {@link ChatModel} implementation
      * @throws IllegalStateException if provider is invalid or unavailable
      */
@@ -51,9 +65,57 @@ public class AiConfig {
             Environment env,
             ObjectProvider<GoogleGenAiChatModel> googleProvider,
             ObjectProvider<org.springframework.ai.ollama.OllamaChatModel> ollamaProvider,
-            ObjectProvider<OpenAiChatModel> openaiProvider) {
+            ObjectProvider<OpenAiChatModel> openaiProvider,
+            RoutingProperties routingProperties,
+            AnalysisProperties analysisProperties,
+            FakeChatProperties fakeProperties,
+            MeterRegistry meterRegistry) {
         String providerPref = env.getProperty("ai.provider", "ollama");
 
+        if ("fake".equalsIgnoreCase(providerPref)) {
+            logger.warn(
+                    "Using the fake chat model: latency {} (+{} jitter), {} tokens/s, error rate {}",
+                    fakeProperties.getLatency(),
+                    fakeProperties.getLatencyJitter(),
+                    fakeProperties.getTokensPerSecond(),
+                    fakeProperties.getErrorRate());
+            return new FakeChatModel(fakeProperties);
+        }
+
+        if ("routing".equalsIgnoreCase(providerPref)) {
+            Map<String, ObjectProvider<? extends ChatModel>> providers =
+                    Map.of(
+                            "google", googleProvider,
+                            "ollama", ollamaProvider,
+                            "openai", openaiProvider);
+            Map<String, ChatModel> models = new LinkedHashMap<>();
+            for (String name : routingProperties.getProviders()) {
+                ObjectProvider<? extends ChatModel> provider =
+                        providers.get(name.toLowerCase(Locale.ROOT));
+                if (provider == null) {
+                    throw new IllegalStateException(
+                            "Invalid ai.routing.providers entry: '"
+                                    + name
+                                    + "'. Supported values: 'google', 'ollama', 'openai'");
+                }
+                try {
+                    ChatModel model = provider.getIfAvailable();
+                    if (model != null) {
+                        models.put(name.toLowerCase(Locale.ROOT), model);
+                    }
+                } catch (BeansException e) {
+                    logger.warn("Skipping chat provider {} for routing: {}", name, e.getMessage());
+                }
+            }
+            logger.info("Routing chat calls across {}", models.keySet());
+            return new RoutingChatModel(
+                    models,
+                    routingProperties,
+                    analysisProperties,
+                    meterRegistry,
+                    Clock.systemUTC());
+        }
+
         if ("google".equalsIgnoreCase(providerPref)) {
             GoogleGenAiChatModel g = googleProvider.getIfAvailable();
             if (g != null) {
@@ -73,7 +135,8 @@ public class AiConfig {
             throw new IllegalStateException(
                     "Invalid ai.provider: '"
                             + providerPref
-                            + "'. Supported values: 'google', 'ollama', 'openai'");
+                            + "'. Supported values: 'google', 'ollama', 'openai', 'routing',"
+                            + " 'fake'");
         }
 
         throw new IllegalStateException(
@@ -88,7 +151,8 @@ public class AiConfig {
     }
 
     @Bean
-    @ConditionalOnProperty(name = "ai.provider", havingValue = "openai")
+    @ConditionalOnExpression(
+            "'${ai.provider:ollama}' == 'openai' or '${ai.provider:ollama}' == 'routing'")
     public OpenAiApi openAiApi(Environment env) {
         String apiKey = resolveApiKey(env);
 
@@ -113,6 +177,26 @@ public class AiConfig {
                 .build();
     }
 
+    /**
+     * Resolves the model name configured for {@code provider}, e.g. {@code gpt-4.1} for {@code
+     * openai}. Used wherever results depend on the selected model, such as cache keys.
+     *
+     * @param env the Spring Environment holding the provider options
+     * @param provider one of {@code google}, {@code ollama}, {@code openai}
+     * @return the configured model name, or {@code "default"} when none is set
+     */
+    public static String resolveModelName(Environment env, String provider) {
+        String key =
+                switch (provider == null ? "" : provider.toLowerCase(Locale.ROOT)) {
+                    case "google" -> "spring.ai.google.chat.options.model";
+                    case "ollama" -> "spring.ai.ollama.chat.options.model";
+                    case "openai" -> "spring.ai.openai.chat.options.model";
+                    default -> null;
+                };
+        String model = key == null ? null : env.getProperty(key);
+        return model == null || model.isBlank() ? "default" : model;
+    }
+
     private String resolveApiKey(Environment env) {
         String apiKey = env.getProperty("spring.ai.openai.api-key");
         if (apiKey == null || apiKey.isBlank()) {
@@ -0,0 +1,163 @@
+package com.analyser.loganalyser.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "analysis")
+public class AnalysisProperties {
+
+    /** Approximate token budget of a single log chunk sent to the model. */
+    private int chunkMaxTokens = 8_000;
+
+    /** Concurrent chunk calls when no provider specific value is configured. */
+    private int defaultParallelism = 4;
+
+    /** Concurrent chunk calls keyed by {@code ai.provider} value. */
+    private Map<String, Integer> parallelism = new HashMap<>();
+
+    /** Context window in tokens when no provider specific value is configured. */
+    private int defaultContextWindow = 8_192;
+
+    /** Context window of the configured model in tokens, keyed by {@code ai.provider} value. */
+    private Map<String, Integer> contextWindow = new HashMap<>();
+
+    /** Characters per token of words and numbers when no provider specific value is configured. */
+    private double defaultCharsPerToken = 4.0;
+
+    /** Characters per token of words and numbers, keyed by {@code ai.provider} value. */
+    private Map<String, Double> charsPerToken = new HashMap<>();
+
+    /** Tokens of the context window kept free for the system prompt and the model's answer. */
+    private int reservedTokens = 2_048;
+
+    /** Model calls in flight across all requests when no provider specific value is configured. */
+    private int defaultMaxInFlight = 8;
+
+    /** Model calls in flight across all requests, keyed by {@code ai.provider} value. */
+    private Map<String, Integer> maxInFlight = new HashMap<>();
+
+    /** Model calls that may wait for a free slot; further calls are rejected immediately. */
+    private int maxQueuedCalls = 50;
+
+    /** Longest wait for a free slot before a queued call is rejected. */
+    private Duration queueTimeout = Duration.ofSeconds(30);
+
+    public int getChunkMaxTokens() {
+        return chunkMaxTokens;
+    }
+
+    public void setChunkMaxTokens(int chunkMaxTokens) {
+        this.chunkMaxTokens = chunkMaxTokens;
+    }
+
+    public int getDefaultParallelism() {
+        return defaultParallelism;
+    }
+
+    public void setDefaultParallelism(int defaultParallelism) {
+        this.defaultParallelism = defaultParallelism;
+    }
+
+    public Map<String, Integer> getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(Map<String, Integer> parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getDefaultContextWindow() {
+        return defaultContextWindow;
+    }
+
+    public void setDefaultContextWindow(int defaultContextWindow) {
+        this.defaultContextWindow = defaultContextWindow;
+    }
+
+    public Map<String, Integer> getContextWindow() {
+        return contextWindow;
+    }
+
+    public void setContextWindow(Map<String, Integer> contextWindow) {
+        this.contextWindow = contextWindow;
+    }
+
+    public double getDefaultCharsPerToken() {
+        return defaultCharsPerToken;
+    }
+
+    public void setDefaultCharsPerToken(double defaultCharsPerToken) {
+        this.defaultCharsPerToken = defaultCharsPerToken;
+    }
+
+    public Map<String, Double> getCharsPerToken() {
+        return charsPerToken;
+    }
+
+    public void setCharsPerToken(Map<String, Double> charsPerToken) {
+        this.charsPerToken = charsPerToken;
+    }
+
+    public int getReservedTokens() {
+        return reservedTokens;
+    }
+
+    public void setReservedTokens(int reservedTokens) {
+        this.reservedTokens = reservedTokens;
+    }
+
+    public int getDefaultMaxInFlight() {
+        return defaultMaxInFlight;
+    }
+
+    public void setDefaultMaxInFlight(int defaultMaxInFlight) {
+        this.defaultMaxInFlight = defaultMaxInFlight;
+    }
+
+    public Map<String, Integer> getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(Map<String, Integer> maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public int getMaxQueuedCalls() {
+        return maxQueuedCalls;
+    }
+
+    public void setMaxQueuedCalls(int maxQueuedCalls) {
+        this.maxQueuedCalls = maxQueuedCalls;
+    }
+
+    public Duration getQueueTimeout() {
+        return queueTimeout;
+    }
+
+    public void setQueueTimeout(Duration queueTimeout) {
+        this.queueTimeout = queueTimeout;
+    }
+
+    public int maxInFlightFor(String provider) {
+        Integer configured = provider == null ? null : maxInFlight.get(provider);
+        return Math.max(1, configured != null ? configured : defaultMaxInFlight);
+    }
+
+    public int contextWindowFor(String provider) {
+        Integer configured = provider == null ? null : contextWindow.get(provider);
+        return Math.max(1, configured != null ? configured : defaultContextWindow);
+    }
+
+    public double charsPerTokenFor(String provider) {
+        Double configured = provider == null ? null : charsPerToken.get(provider);
+        double value = configured != null ? configured : defaultCharsPerToken;
+        return value > 0 ? value : 4.0;
+    }
+
+    public int parallelismFor(String provider) {
+        Integer configured = provider == null ? null : parallelism.get(provider);
+        return Math.max(1, configured != null ? configured : defaultParallelism);
+    }
+}
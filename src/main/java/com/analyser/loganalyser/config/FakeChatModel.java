@@ -0,0 +1,134 @@
+package com.analyser.loganalyser.config;
+
+import com.analyser.loganalyser.service.AnalysisTableMerger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Chat model that answers without a provider, for load tests and offline runs ({@code
+ * ai.provider=fake}). Each call waits {@code ai.fake.latency} plus a random share of {@code
+ * latency-jitter}, then emits a small analysis table at {@code tokens-per-second}; a share of
+ * {@code error-rate} calls fails after the latency like an unavailable provider would.
+ */
+public class FakeChatModel implements ChatModel {
+
+    private static final double CHARS_PER_TOKEN = 4.0;
+    private static final String WORD_BREAK = " ";
+
+    private final FakeChatProperties properties;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public FakeChatModel(FakeChatProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        calls.incrementAndGet();
+        sleep(firstTokenDelay());
+        if (fails()) {
+            throw failure();
+        }
+        String answer = answer(prompt);
+        sleep(outputDuration(answer));
+        return response(answer);
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        calls.incrementAndGet();
+        Duration firstToken = firstTokenDelay();
+        if (fails()) {
+            return Mono.delay(firstToken).then(Mono.<ChatResponse>error(failure())).flux();
+        }
+        String answer = answer(prompt);
+        List<String> chunks = new ArrayList<>();
+        for (String word : answer.split(WORD_BREAK)) {
+            chunks.add(chunks.isEmpty() ? word : WORD_BREAK + word);
+        }
+        Duration perChunk = outputDuration(answer).dividedBy(Math.max(1, chunks.size()));
+        Flux<String> paced =
+                perChunk.isZero()
+                        ? Flux.fromIterable(chunks)
+                        : Flux.fromIterable(chunks).delayElements(perChunk);
+        return Mono.delay(firstToken).thenMany(paced).map(FakeChatModel::response);
+    }
+
+    public long calls() {
+        return calls.get();
+    }
+
+    public long failures() {
+        return failures.get();
+    }
+
+    private String answer(Prompt prompt) {
+        StringBuilder table =
+                new StringBuilder(AnalysisTableMerger.HEADER)
+                        .append('\n')
+                        .append(AnalysisTableMerger.SEPARATOR);
+        int promptChars = prompt.getContents().length();
+        for (int row = 1; row <= Math.max(1, properties.getResponseRows()); row++) {
+            table.append("\n| com.example.FakeException")
+                    .append(row)
+                    .append(" | com.example.FakeService | Simulated finding ")
+                    .append(row)
+                    .append(" for a prompt of ")
+                    .append(promptChars)
+                    .append(" characters | None: answered by ai.provider=fake |");
+        }
+        return table.toString();
+    }
+
+    private Duration firstTokenDelay() {
+        long jitter = properties.getLatencyJitter().toMillis();
+        return properties
+                .getLatency()
+                .plusMillis(jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0);
+    }
+
+    private Duration outputDuration(String answer) {
+        double tokensPerSecond = properties.getTokensPerSecond();
+        if (tokensPerSecond <= 0) {
+            return Duration.ZERO;
+        }
+        double tokens = Math.ceil(answer.length() / CHARS_PER_TOKEN);
+        return Duration.ofMillis((long) (tokens / tokensPerSecond * 1_000));
+    }
+
+    private boolean fails() {
+        return ThreadLocalRandom.current().nextDouble() < properties.getErrorRate();
+    }
+
+    private IllegalStateException failure() {
+        failures.incrementAndGet();
+        return new IllegalStateException("503 Service Unavailable (simulated by ai.provider=fake)");
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero() || duration.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during simulated model call.", e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.analyser.loganalyser.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Behaviour of the offline chat model used with {@code ai.provider=fake}. */
+@ConfigurationProperties(prefix = "ai.fake")
+public class FakeChatProperties {
+
+    /** Time to the first token of every call. */
+    private Duration latency = Duration.ofMillis(800);
+
+    /** Random extra time to the first token, between zero and this value. */
+    private Duration latencyJitter = Duration.ofMillis(400);
+
+    /** Output rate after the first token; {@code 0} returns the whole answer at once. */
+    private double tokensPerSecond = 50;
+
+    /** Share of calls, between 0 and 1, that fail like an unavailable provider. */
+    private double errorRate;
+
+    /** Rows of the returned analysis table, which sets the answer size. */
+    private int responseRows = 3;
+
+    public Duration getLatency() {
+        return latency;
+    }
+
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    public Duration getLatencyJitter() {
+        return latencyJitter;
+    }
+
+    public void setLatencyJitter(Duration latencyJitter) {
+        this.latencyJitter = latencyJitter;
+    }
+
+    public double getTokensPerSecond() {
+        return tokensPerSecond;
+    }
+
+    public void setTokensPerSecond(double tokensPerSecond) {
+        this.tokensPerSecond = tokensPerSecond;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public int getResponseRows() {
+        return responseRows;
+    }
+
+    public void setResponseRows(int responseRows) {
+        this.responseRows = responseRows;
+    }
+}
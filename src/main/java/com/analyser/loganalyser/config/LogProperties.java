@@ -1,5 +1,7 @@
 package com.analyser.loganalyser.config;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
@@ -8,6 +10,11 @@ public class LogProperties {
 
     private Map<String, String> envUrls;
 
+    /** {@code mock} returns canned lines, {@code http} calls {@code <env-url>/api/logs}. */
+    private String fetcher = "mock";
+
+    private final Http http = new Http();
+
     public Map<String, String> getEnvUrls() {
         return envUrls;
     }
@@ -15,4 +22,106 @@ public class LogProperties {
     public void setEnvUrls(Map<String, String> envUrls) {
         this.envUrls = envUrls;
     }
+
+    public String getFetcher() {
+        return fetcher;
+    }
+
+    public void setFetcher(String fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    public Http getHttp() {
+        return http;
+    }
+
+    /** Settings of the HTTP log fetcher. */
+    public static class Http {
+
+        private Duration connectTimeout = Duration.ofSeconds(5);
+
+        /** Timeout of a single page request when no environment specific value is configured. */
+        private Duration defaultRequestTimeout = Duration.ofSeconds(30);
+
+        /** Page request timeouts keyed by environment. */
+        private Map<String, Duration> requestTimeout = new HashMap<>();
+
+        /** Concurrent page requests per environment when no specific value is configured. */
+        private int defaultMaxConcurrency = 4;
+
+        /** Concurrent page requests keyed by environment. */
+        private Map<String, Integer> maxConcurrency = new HashMap<>();
+
+        /** Records requested per page. */
+        private int pageSize = 1_000;
+
+        /** Upper bound on pages fetched for one request. */
+        private int maxPages = 1_000;
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getDefaultRequestTimeout() {
+            return defaultRequestTimeout;
+        }
+
+        public void setDefaultRequestTimeout(Duration defaultRequestTimeout) {
+            this.defaultRequestTimeout = defaultRequestTimeout;
+        }
+
+        public Map<String, Duration> getRequestTimeout() {
+            return requestTimeout;
+        }
+
+        public void setRequestTimeout(Map<String, Duration> requestTimeout) {
+            this.requestTimeout = requestTimeout;
+        }
+
+        public int getDefaultMaxConcurrency() {
+            return defaultMaxConcurrency;
+        }
+
+        public void setDefaultMaxConcurrency(int defaultMaxConcurrency) {
+            this.defaultMaxConcurrency = defaultMaxConcurrency;
+        }
+
+        public Map<String, Integer> getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(Map<String, Integer> maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public void setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        public int getMaxPages() {
+            return maxPages;
+        }
+
+        public void setMaxPages(int maxPages) {
+            this.maxPages = maxPages;
+        }
+
+        public Duration requestTimeoutFor(String env) {
+            Duration configured = env == null ? null : requestTimeout.get(env);
+            return configured != null ? configured : defaultRequestTimeout;
+        }
+
+        public int maxConcurrencyFor(String env) {
+            Integer configured = env == null ? null : maxConcurrency.get(env);
+            return Math.max(1, configured != null ? configured : defaultMaxConcurrency);
+        }
+    }
 }
@@ -0,0 +1,132 @@
+package com.analyser.loganalyser.config;
+
+import com.analyser.loganalyser.service.AlertPipeline;
+import com.analyser.loganalyser.service.AnalysisHistoryStore;
+import com.analyser.loganalyser.service.AnalysisJobService;
+import com.analyser.loganalyser.service.AnalysisResultCache;
+import com.analyser.loganalyser.service.LlmBulkhead;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Gauges and counters read from the components that already keep their own statistics: result
+ * cache, analysis history, job and alert queues, the model call bulkhead and, with {@code
+ * ai.provider=routing}, the health of every routed provider. Stage timers are recorded by {@code
+ * AnalysisMetrics}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder analysisResultCacheMetrics(AnalysisResultCache cache) {
+        return registry -> {
+            FunctionCounter.builder("loganalyser.cache.hits", cache, c -> c.stats().hits())
+                    .description("Analysis results served from the cache")
+                    .register(registry);
+            FunctionCounter.builder("loganalyser.cache.disk.hits", cache, c -> c.stats().diskHits())
+                    .description("Cache hits loaded from the disk tier")
+                    .register(registry);
+            FunctionCounter.builder("loganalyser.cache.misses", cache, c -> c.stats().misses())
+                    .register(registry);
+            FunctionCounter.builder(
+                            "loganalyser.cache.evictions", cache, c -> c.stats().evictions())
+                    .register(registry);
+            Gauge.builder("loganalyser.cache.size", cache, c -> c.stats().size())
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder analysisHistoryMetrics(AnalysisHistoryStore history) {
+        return registry -> {
+            Gauge.builder("loganalyser.history.entries", history, AnalysisHistoryStore::size)
+                    .description("Analyses kept in the history store")
+                    .register(registry);
+            Gauge.builder(
+                            "loganalyser.history.segments",
+                            history,
+                            AnalysisHistoryStore::segmentCount)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder queueMetrics(AnalysisJobService jobs, AlertPipeline alerts) {
+        return registry -> {
+            Gauge.builder("loganalyser.jobs.pending", jobs, AnalysisJobService::pendingJobs)
+                    .description("Asynchronous analysis jobs queued or running")
+                    .register(registry);
+            Gauge.builder("loganalyser.alerts.queue.depth", alerts, AlertPipeline::queueDepth)
+                    .description("Alerts waiting to be delivered")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder llmBulkheadMetrics(LlmBulkhead bulkhead) {
+        return registry -> {
+            Gauge.builder("loganalyser.llm.in.flight", bulkhead, LlmBulkhead::inFlight)
+                    .register(registry);
+            Gauge.builder("loganalyser.llm.max.in.flight", bulkhead, LlmBulkhead::maxInFlight)
+                    .register(registry);
+            Gauge.builder("loganalyser.llm.queued", bulkhead, LlmBulkhead::queued)
+                    .description("Model calls waiting for a bulkhead slot")
+                    .register(registry);
+            FunctionCounter.builder("loganalyser.llm.rejected", bulkhead, LlmBulkhead::rejected)
+                    .description("Model calls rejected by the bulkhead")
+                    .register(registry);
+            FunctionCounter.builder("loganalyser.llm.coalesced", bulkhead, LlmBulkhead::coalesced)
+                    .description("Calls that joined an identical prompt already in flight")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder providerHealthMetrics(ChatModel chatModel) {
+        return registry -> {
+            if (!(chatModel instanceof RoutingChatModel routing)) {
+                return;
+            }
+            for (Map.Entry<String, ProviderHealth> entry : routing.health().entrySet()) {
+                ProviderHealth health = entry.getValue();
+                Gauge.builder(
+                                "loganalyser.llm.provider.error.rate",
+                                health,
+                                ProviderHealth::errorRate)
+                        .tag("provider", entry.getKey())
+                        .register(registry);
+                Gauge.builder(
+                                "loganalyser.llm.provider.circuit.open",
+                                health,
+                                h -> h.state() == ProviderHealth.State.CLOSED ? 0 : 1)
+                        .description("1 while the provider's circuit is open or half-open")
+                        .tag("provider", entry.getKey())
+                        .register(registry);
+                Gauge.builder(
+                                "loganalyser.llm.provider.in.flight",
+                                routing,
+                                r -> r.inFlight(entry.getKey()))
+                        .description("Calls holding a slot of the provider, hedges included")
+                        .tag("provider", entry.getKey())
+                        .register(registry);
+                Gauge.builder(
+                                "loganalyser.llm.provider.latency.p95",
+                                health,
+                                h -> seconds(h.latencyPercentile(95)))
+                        .baseUnit("seconds")
+                        .tag("provider", entry.getKey())
+                        .register(registry);
+            }
+        };
+    }
+
+    private static double seconds(Duration duration) {
+        return duration == null ? Double.NaN : duration.toNanos() / 1e9;
+    }
+}
@@ -0,0 +1,142 @@
+package com.analyser.loganalyser.config;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Rolling latency and error statistics of one chat provider plus its circuit breaker. The last
+ * {@code window} calls are kept; once at least {@code minimumCalls} of them are recorded and their
+ * failure rate reaches {@code failureRateThreshold} the circuit opens. After {@code openDuration} a
+ * single trial call is let through: success closes the circuit, failure opens it again.
+ */
+public final class ProviderHealth {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final long FAILED = -1;
+
+    private final String provider;
+    private final long[] outcomes;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+    private int size;
+    private int next;
+    private State state = State.CLOSED;
+    private Instant openedAt;
+    private boolean trialInFlight;
+
+    public ProviderHealth(
+            String provider,
+            int window,
+            int minimumCalls,
+            double failureRateThreshold,
+            Duration openDuration,
+            Clock clock) {
+        this.provider = provider;
+        this.outcomes = new long[Math.max(1, window)];
+        this.minimumCalls = Math.max(1, minimumCalls);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    public String provider() {
+        return provider;
+    }
+
+    /** Whether a call may be routed here, without claiming the half-open trial. */
+    public synchronized boolean isAvailable() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> !clock.instant().isBefore(openedAt.plus(openDuration));
+            case HALF_OPEN -> !trialInFlight;
+        };
+    }
+
+    /** Claims a call; an open circuit past its open duration admits exactly one trial call. */
+    public synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (!isAvailable()) {
+            return false;
+        }
+        state = State.HALF_OPEN;
+        trialInFlight = true;
+        return true;
+    }
+
+    public synchronized void recordSuccess(Duration latency) {
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            trialInFlight = false;
+            size = 0;
+            next = 0;
+        }
+        record(Math.max(0, latency.toMillis()));
+    }
+
+    public synchronized void recordFailure() {
+        record(FAILED);
+        if (state == State.HALF_OPEN
+                || (size >= minimumCalls && errorRate() >= failureRateThreshold)) {
+            state = State.OPEN;
+            openedAt = clock.instant();
+            trialInFlight = false;
+        }
+    }
+
+    /** Releases a claimed call that was cancelled before it produced an outcome. */
+    public synchronized void release() {
+        trialInFlight = false;
+    }
+
+    public synchronized State state() {
+        if (state == State.OPEN && isAvailable()) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized int calls() {
+        return size;
+    }
+
+    public synchronized double errorRate() {
+        if (size == 0) {
+            return 0;
+        }
+        int failures = 0;
+        for (int i = 0; i < size; i++) {
+            if (outcomes[i] == FAILED) {
+                failures++;
+            }
+        }
+        return (double) failures / size;
+    }
+
+    /** Latency percentile of the successful calls in the window, or {@code null} without any. */
+    public synchronized Duration latencyPercentile(double percentile) {
+        long[] latencies = Arrays.stream(outcomes, 0, size).filter(l -> l != FAILED).toArray();
+        if (latencies.length == 0) {
+            return null;
+        }
+        Arrays.sort(latencies);
+        int index = (int) Math.ceil(percentile / 100.0 * latencies.length) - 1;
+        return Duration.ofMillis(latencies[Math.clamp(index, 0, latencies.length - 1)]);
+    }
+
+    private void record(long outcome) {
+        outcomes[next] = outcome;
+        next = (next + 1) % outcomes.length;
+        size = Math.min(size + 1, outcomes.length);
+    }
+}
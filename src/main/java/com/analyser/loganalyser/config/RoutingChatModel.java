@@ -0,0 +1,414 @@
+package com.analyser.loganalyser.config;
+
+import com.analyser.loganalyser.service.AnalysisTrace;
+import com.analyser.loganalyser.service.LlmBusyException;
+import com.analyser.loganalyser.service.TokenEstimator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link ChatModel} that keeps several providers live and picks one per call. Providers whose
+ * circuit is open or whose context window is too small for the prompt are skipped; small prompts
+ * prefer the local provider, the others go to the provider with the lowest expected latency
+ * (rolling median divided by success rate, configured order while unknown). A call that takes
+ * longer than the provider's p95 latency is hedged with the next provider and the first response
+ * wins; failed calls fail over to the next provider. Streams fail over until their first response.
+ * Every call, hedges included, holds one of the provider's {@code
+ * analysis.max-in-flight.<provider>} slots; a provider without a free slot is skipped like an open
+ * circuit. Each provider tried by a blocking call is added to the request's {@link AnalysisTrace}
+ * and every call is timed per provider as {@code loganalyser.llm.provider.call}.
+ */
+public class RoutingChatModel implements ChatModel, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutingChatModel.class);
+    private static final double MIN_SUCCESS_RATE = 0.05;
+
+    private final List<Route> routes = new ArrayList<>();
+    private final RoutingProperties properties;
+    private final ExecutorService executor;
+
+    public RoutingChatModel(
+            Map<String, ChatModel> models,
+            RoutingProperties properties,
+            AnalysisProperties analysisProperties,
+            MeterRegistry registry,
+            Clock clock) {
+        this(
+                models,
+                properties,
+                analysisProperties,
+                registry,
+                clock,
+                Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    RoutingChatModel(
+            Map<String, ChatModel> models,
+            RoutingProperties properties,
+            AnalysisProperties analysisProperties,
+            MeterRegistry registry,
+            Clock clock,
+            ExecutorService executor) {
+        if (models.isEmpty()) {
+            throw new IllegalStateException("Routing needs at least one chat provider.");
+        }
+        this.properties = properties;
+        this.executor = executor;
+        models.forEach(
+                (name, model) ->
+                        routes.add(
+                                new Route(
+                                        name,
+                                        model,
+                                        new TokenEstimator(analysisProperties, name),
+                                        analysisProperties.maxInFlightFor(name),
+                                        new Semaphore(analysisProperties.maxInFlightFor(name)),
+                                        registry,
+                                        new ProviderHealth(
+                                                name,
+                                                properties.getWindow(),
+                                                properties.getMinimumCalls(),
+                                                properties.getFailureRateThreshold(),
+                                                properties.getOpenDuration(),
+                                                clock))));
+    }
+
+    /** Health of every provider in configured order. */
+    public Map<String, ProviderHealth> health() {
+        Map<String, ProviderHealth> health = new LinkedHashMap<>();
+        routes.forEach(route -> health.put(route.name, route.health));
+        return health;
+    }
+
+    /** Calls currently holding a slot of {@code provider}, hedges included. */
+    public int inFlight(String provider) {
+        return routes.stream()
+                .filter(route -> route.name.equals(provider))
+                .mapToInt(route -> route.maxInFlight() - route.slots.availablePermits())
+                .sum();
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        List<Route> candidates = candidates(prompt.getContents());
+        Prompt request = new Prompt(prompt.getInstructions());
+        CompletionService<ChatResponse> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<ChatResponse>, Attempt> inFlight = new HashMap<>();
+        AtomicBoolean settled = new AtomicBoolean();
+        RuntimeException lastFailure = null;
+        int next = 0;
+        boolean hedged = !properties.isHedge();
+        try {
+            next = submitNext(completion, inFlight, candidates, next, request, settled);
+            while (!inFlight.isEmpty()) {
+                Future<ChatResponse> done;
+                if (!hedged && next < candidates.size()) {
+                    Route primary = inFlight.values().iterator().next().route();
+                    done = completion.poll(hedgeDelay(primary).toMillis(), TimeUnit.MILLISECONDS);
+                    if (done == null) {
+                        hedged = true;
+                        traceAttempt(primary, "hedged");
+                        logger.info(
+                                "Hedging slow call to {} with {}",
+                                primary.name,
+                                candidates.get(next).name);
+                        next = submitNext(completion, inFlight, candidates, next, request, settled);
+                        continue;
+                    }
+                } else {
+                    done = completion.take();
+                }
+                Route route = inFlight.remove(done).route();
+                try {
+                    ChatResponse response = done.get();
+                    settled.set(true);
+                    inFlight.forEach(RoutingChatModel::cancel);
+                    traceAttempt(route, "success");
+                    return response;
+                } catch (ExecutionException e) {
+                    lastFailure = asRuntimeException(e.getCause());
+                    traceAttempt(route, "error");
+                    logger.warn(
+                            "Chat provider {} failed: {}", route.name, lastFailure.getMessage());
+                    if (inFlight.isEmpty()) {
+                        next = submitNext(completion, inFlight, candidates, next, request, settled);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            settled.set(true);
+            inFlight.forEach(RoutingChatModel::cancel);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a chat provider.", e);
+        }
+        throw lastFailure != null ? lastFailure : exhausted(candidates);
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        List<Route> candidates = candidates(prompt.getContents());
+        return stream(new Prompt(prompt.getInstructions()), candidates, 0, null);
+    }
+
+    private Flux<ChatResponse> stream(
+            Prompt request, List<Route> candidates, int index, Throwable lastFailure) {
+        if (index >= candidates.size()) {
+            return Flux.error(lastFailure != null ? lastFailure : exhausted(candidates));
+        }
+        Route route = candidates.get(index);
+        return Flux.defer(
+                () -> {
+                    if (!route.tryAcquire()) {
+                        return stream(request, candidates, index + 1, lastFailure);
+                    }
+                    long start = System.nanoTime();
+                    AtomicBoolean emitted = new AtomicBoolean();
+                    return route.model.stream(request)
+                            .doOnNext(
+                                    response -> {
+                                        if (emitted.compareAndSet(false, true)) {
+                                            route.recordSuccess("stream", start);
+                                        }
+                                    })
+                            .doOnComplete(
+                                    () -> {
+                                        if (emitted.compareAndSet(false, true)) {
+                                            route.recordSuccess("stream", start);
+                                        }
+                                    })
+                            .doOnCancel(route.health::release)
+                            .doFinally(signal -> route.slots.release())
+                            .onErrorResume(
+                                    e -> {
+                                        if (emitted.get()) {
+                                            return Flux.error(e);
+                                        }
+                                        route.health.recordFailure();
+                                        route.time("stream", "error", start);
+                                        logger.warn(
+                                                "Chat provider {} failed: {}",
+                                                route.name,
+                                                e.getMessage());
+                                        return stream(request, candidates, index + 1, e);
+                                    });
+                });
+    }
+
+    /**
+     * Providers that can take a prompt of this size, the local provider first for small prompts and
+     * the others by expected latency.
+     */
+    private List<Route> candidates(String contents) {
+        List<Route> candidates = new ArrayList<>();
+        Route local = null;
+        for (Route route : routes) {
+            int tokens = route.tokenEstimator.estimate(contents);
+            if (!route.health.isAvailable() || tokens > route.tokenEstimator.maxPromptTokens()) {
+                continue;
+            }
+            if (route.name.equalsIgnoreCase(properties.getLocalProvider())
+                    && tokens <= properties.getLocalMaxTokens()) {
+                local = route;
+            } else {
+                candidates.add(route);
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(this::expectedLatencyMillis));
+        if (local != null) {
+            candidates.addFirst(local);
+        }
+        if (candidates.isEmpty()) {
+            throw unavailable(routes);
+        }
+        return candidates;
+    }
+
+    private double expectedLatencyMillis(Route route) {
+        Duration median = route.health.latencyPercentile(50);
+        double latency =
+                median == null || route.health.calls() < properties.getMinimumCalls()
+                        ? properties.getHedgeDelay().toMillis()
+                        : median.toMillis();
+        return latency / Math.max(MIN_SUCCESS_RATE, 1 - route.health.errorRate());
+    }
+
+    /** The provider's p95 once it has enough samples, the configured delay before. */
+    private Duration hedgeDelay(Route route) {
+        Duration p95 = route.health.latencyPercentile(95);
+        if (p95 == null || route.health.calls() < properties.getMinimumCalls()) {
+            return properties.getHedgeDelay();
+        }
+        return p95.compareTo(properties.getMinHedgeDelay()) < 0
+                ? properties.getMinHedgeDelay()
+                : p95;
+    }
+
+    /**
+     * Submits the next candidate with a free slot whose circuit admits a call; returns the new
+     * index.
+     */
+    private int submitNext(
+            CompletionService<ChatResponse> completion,
+            Map<Future<ChatResponse>, Attempt> inFlight,
+            List<Route> candidates,
+            int next,
+            Prompt request,
+            AtomicBoolean settled) {
+        while (next < candidates.size()) {
+            Route route = candidates.get(next++);
+            if (route.tryAcquire()) {
+                Attempt attempt = new Attempt(route, new AtomicBoolean());
+                inFlight.put(
+                        completion.submit(
+                                () -> {
+                                    if (!attempt.started().compareAndSet(false, true)) {
+                                        throw new CancellationException();
+                                    }
+                                    return route.call(request, settled);
+                                }),
+                        attempt);
+                return next;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Cancels a losing call. A call that never started releases its slot and circuit claim here, so
+     * a cancelled half-open trial does not keep the circuit waiting for it.
+     */
+    private static void cancel(Future<ChatResponse> future, Attempt attempt) {
+        future.cancel(true);
+        if (attempt.started().compareAndSet(false, true)) {
+            attempt.route().health.release();
+            attempt.route().slots.release();
+        }
+    }
+
+    /** Stops the calls still running for hedges that lost. */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static void traceAttempt(Route route, String outcome) {
+        AnalysisTrace.current()
+                .ifPresent(trace -> trace.recordProviderAttempt(route.name, outcome));
+    }
+
+    /** Busy when a candidate was skipped for lack of a slot, unavailable otherwise. */
+    private static RuntimeException exhausted(List<Route> candidates) {
+        if (candidates.stream().anyMatch(route -> route.slots.availablePermits() == 0)) {
+            return new LlmBusyException(
+                    "Every chat provider for the prompt is at its in-flight limit; retry later.");
+        }
+        return unavailable(candidates);
+    }
+
+    private static IllegalStateException unavailable(List<Route> routes) {
+        List<String> open =
+                routes.stream()
+                        .filter(route -> route.health.state() != ProviderHealth.State.CLOSED)
+                        .map(route -> route.name)
+                        .toList();
+        return new IllegalStateException(
+                "No chat provider available for the prompt"
+                        + (open.isEmpty() ? "" : "; open circuits: " + String.join(", ", open)));
+    }
+
+    private static RuntimeException asRuntimeException(Throwable cause) {
+        return cause instanceof RuntimeException runtime
+                ? runtime
+                : new IllegalStateException("Chat provider call failed.", cause);
+    }
+
+    private static Duration elapsedSince(long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos);
+    }
+
+    /** A submitted call; {@code started} is claimed by the call when it runs or by its cancel. */
+    private record Attempt(Route route, AtomicBoolean started) {}
+
+    private record Route(
+            String name,
+            ChatModel model,
+            TokenEstimator tokenEstimator,
+            int maxInFlight,
+            Semaphore slots,
+            MeterRegistry registry,
+            ProviderHealth health) {
+
+        /** Claims a slot and a call from the circuit; both are released when the call ends. */
+        boolean tryAcquire() {
+            if (!slots.tryAcquire()) {
+                return false;
+            }
+            if (!health.tryAcquire()) {
+                slots.release();
+                return false;
+            }
+            return true;
+        }
+
+        /** Calls the provider; failures after the call was {@code settled} are not counted. */
+        ChatResponse call(Prompt request, AtomicBoolean settled) {
+            long start = System.nanoTime();
+            try {
+                ChatResponse response = model.call(request);
+                recordSuccess("call", start);
+                return response;
+            } catch (RuntimeException e) {
+                if (settled.get()) {
+                    health.release();
+                    time("call", "cancelled", start);
+                } else {
+                    health.recordFailure();
+                    time("call", "error", start);
+                }
+                throw e;
+            } finally {
+                slots.release();
+            }
+        }
+
+        void recordSuccess(String type, long startNanos) {
+            health.recordSuccess(elapsedSince(startNanos));
+            time(type, "success", startNanos);
+        }
+
+        /** Time to the answer, or to the first response of a stream, of this provider. */
+        void time(String type, String outcome, long startNanos) {
+            Timer.builder("loganalyser.llm.provider.call")
+                    .description("Model call latency per routed provider, hedged calls included")
+                    .tag("provider", name)
+                    .tag("type", type)
+                    .tag("outcome", outcome)
+                    .register(registry)
+                    .record(Duration.ofNanos(System.nanoTime() - startNanos));
+        }
+    }
+}
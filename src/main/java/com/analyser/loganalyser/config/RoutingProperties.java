@@ -0,0 +1,121 @@
+package com.analyser.loganalyser.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Settings of the routing chat model used with {@code ai.provider=routing}. */
+@ConfigurationProperties(prefix = "ai.routing")
+public class RoutingProperties {
+
+    /** Providers to keep live, in order of preference while no latency is known. */
+    private List<String> providers = new ArrayList<>(List.of("openai", "google", "ollama"));
+
+    /** Calls per provider kept for latency percentiles and error rates. */
+    private int window = 50;
+
+    /** Calls in the window before the error rate can open a circuit or hedging adapts. */
+    private int minimumCalls = 5;
+
+    /** Error rate of the window at which a provider's circuit opens. */
+    private double failureRateThreshold = 0.5;
+
+    /** Time an open circuit rejects calls before a single trial call is let through. */
+    private Duration openDuration = Duration.ofSeconds(30);
+
+    /** Whether a slow call is raced against the next provider. */
+    private boolean hedge = true;
+
+    /** Hedge delay until a provider has {@code minimum-calls} samples; then its p95 is used. */
+    private Duration hedgeDelay = Duration.ofSeconds(10);
+
+    /** Lower bound of the adaptive hedge delay. */
+    private Duration minHedgeDelay = Duration.ofSeconds(1);
+
+    /** Provider tried first for prompts of at most {@code local-max-tokens}. */
+    private String localProvider = "ollama";
+
+    /** Largest prompt, in estimated tokens, that prefers {@code local-provider}. */
+    private int localMaxTokens = 2_000;
+
+    public List<String> getProviders() {
+        return providers;
+    }
+
+    public void setProviders(List<String> providers) {
+        this.providers = providers;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public void setWindow(int window) {
+        this.window = window;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public void setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public void setFailureRateThreshold(double failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+
+    public void setOpenDuration(Duration openDuration) {
+        this.openDuration = openDuration;
+    }
+
+    public boolean isHedge() {
+        return hedge;
+    }
+
+    public void setHedge(boolean hedge) {
+        this.hedge = hedge;
+    }
+
+    public Duration getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    public void setHedgeDelay(Duration hedgeDelay) {
+        this.hedgeDelay = hedgeDelay;
+    }
+
+    public Duration getMinHedgeDelay() {
+        return minHedgeDelay;
+    }
+
+    public void setMinHedgeDelay(Duration minHedgeDelay) {
+        this.minHedgeDelay = minHedgeDelay;
+    }
+
+    public String getLocalProvider() {
+        return localProvider;
+    }
+
+    public void setLocalProvider(String localProvider) {
+        this.localProvider = localProvider;
+    }
+
+    public int getLocalMaxTokens() {
+        return localMaxTokens;
+    }
+
+    public void setLocalMaxTokens(int localMaxTokens) {
+        this.localMaxTokens = localMaxTokens;
+    }
+}
@@ -1,26 +1,40 @@
 package com.analyser.loganalyser.controller;
 
-import com.analyser.loganalyser.model.LogAnalysisRequest;
 import com.analyser.loganalyser.model.agent.AgentCard;
 import com.analyser.loganalyser.model.agent.AgentInvokeRequest;
 import com.analyser.loganalyser.model.agent.AgentInvokeResponse;
+import com.analyser.loganalyser.model.job.AnalysisJobStatus;
+import com.analyser.loganalyser.service.AnalysisJobService;
+import com.analyser.loganalyser.service.AnalysisTrace;
+import com.analyser.loganalyser.service.AnalysisTracer;
 import com.analyser.loganalyser.service.LogAnalysisService;
+import java.net.URI;
 import java.util.List;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 
 @RestController
 @RequestMapping("/api/agent")
 public class AgentController {
 
     private final LogAnalysisService logAnalysisService;
+    private final AnalysisJobService analysisJobService;
+    private final AnalysisTracer analysisTracer;
 
-    public AgentController(LogAnalysisService logAnalysisService) {
+    public AgentController(
+            LogAnalysisService logAnalysisService,
+            AnalysisJobService analysisJobService,
+            AnalysisTracer analysisTracer) {
         this.logAnalysisService = logAnalysisService;
+        this.analysisJobService = analysisJobService;
+        this.analysisTracer = analysisTracer;
     }
 
     @GetMapping("/card")
@@ -33,19 +47,31 @@ public class AgentController {
         return ResponseEntity.ok(buildCard());
     }
 
+    /** With {@code X-Analysis-Trace: true} the response also carries the request's timing trace. */
     @PostMapping("/analyze")
-    public ResponseEntity<AgentInvokeResponse> analyze(@RequestBody AgentInvokeRequest request) {
-        String analysis =
-                logAnalysisService.processLogs(
-                        new LogAnalysisRequest(
-                                request.logs(),
-                                request.query(),
-                                request.repoLink(),
-                                request.logLevel(),
-                                request.days(),
-                                request.applicationName(),
-                                request.environment()));
-        return ResponseEntity.ok(new AgentInvokeResponse(analysis));
+    public ResponseEntity<AgentInvokeResponse> analyze(
+            @RequestBody AgentInvokeRequest request,
+            @RequestHeader(value = AnalysisTrace.HEADER, defaultValue = "false") boolean trace) {
+        AnalysisTracer.Traced traced =
+                analysisTracer.run(
+                        trace,
+                        () -> logAnalysisService.processLogs(request.toLogAnalysisRequest()));
+        return ResponseEntity.ok(new AgentInvokeResponse(traced.analysis(), traced.trace()));
+    }
+
+    /** Streams the analysis table row by row as Server-Sent Events. */
+    @PostMapping(value = "/analyze/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<String> analyzeStream(@RequestBody AgentInvokeRequest request) {
+        return logAnalysisService.streamLogs(request.toLogAnalysisRequest());
+    }
+
+    /** Starts the analysis as a background job; poll or subscribe via {@code /api/jobs/{id}}. */
+    @PostMapping("/analyze/async")
+    public ResponseEntity<AnalysisJobStatus> analyzeAsync(@RequestBody AgentInvokeRequest request) {
+        AnalysisJobStatus job =
+                analysisJobService.submit(
+                        () -> logAnalysisService.processLogs(request.toLogAnalysisRequest()));
+        return ResponseEntity.accepted().location(URI.create("/api/jobs/" + job.jobId())).body(job);
     }
 
     private AgentCard buildCard() {
@@ -0,0 +1,49 @@
+package com.analyser.loganalyser.controller;
+
+import com.analyser.loganalyser.model.history.AnalysisHistoryEntry;
+import com.analyser.loganalyser.model.history.AnalysisHistoryQuery;
+import com.analyser.loganalyser.service.AnalysisHistoryStore;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/history")
+public class AnalysisHistoryController {
+
+    private final AnalysisHistoryStore historyStore;
+
+    public AnalysisHistoryController(AnalysisHistoryStore historyStore) {
+        this.historyStore = historyStore;
+    }
+
+    /** Past analyses matching every given filter, newest first, without the analysis text. */
+    @GetMapping
+    public ResponseEntity<List<AnalysisHistoryEntry>> search(
+            @RequestParam(required = false) String applicationName,
+            @RequestParam(required = false) String env,
+            @RequestParam(required = false) String fingerprint,
+            @RequestParam(required = false) String exception,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                    Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                    Instant to,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(
+                historyStore.query(
+                        new AnalysisHistoryQuery(
+                                applicationName, env, fingerprint, exception, from, to, limit)));
+    }
+
+    /** One past analysis including its table. */
+    @GetMapping("/{id}")
+    public ResponseEntity<AnalysisHistoryEntry> get(@PathVariable String id) {
+        return ResponseEntity.of(historyStore.get(id));
+    }
+}
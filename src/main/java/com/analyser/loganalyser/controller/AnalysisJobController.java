@@ -0,0 +1,51 @@
+package com.analyser.loganalyser.controller;
+
+import com.analyser.loganalyser.model.agent.AgentInvokeRequest;
+import com.analyser.loganalyser.model.job.AnalysisJobStatus;
+import com.analyser.loganalyser.service.AnalysisJobService;
+import com.analyser.loganalyser.service.LogAnalysisService;
+import java.net.URI;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class AnalysisJobController {
+
+    private final AnalysisJobService analysisJobService;
+    private final LogAnalysisService logAnalysisService;
+
+    public AnalysisJobController(
+            AnalysisJobService analysisJobService, LogAnalysisService logAnalysisService) {
+        this.analysisJobService = analysisJobService;
+        this.logAnalysisService = logAnalysisService;
+    }
+
+    /** Submit an analysis job; returns immediately with the job id. */
+    @PostMapping
+    public ResponseEntity<AnalysisJobStatus> submit(@RequestBody AgentInvokeRequest request) {
+        AnalysisJobStatus job =
+                analysisJobService.submit(
+                        () -> logAnalysisService.processLogs(request.toLogAnalysisRequest()));
+        return ResponseEntity.accepted().location(URI.create("/api/jobs/" + job.jobId())).body(job);
+    }
+
+    /** Poll the status (and result once finished) of a job. */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<AnalysisJobStatus> status(@PathVariable String jobId) {
+        return ResponseEntity.of(analysisJobService.status(jobId));
+    }
+
+    /** Subscribe to job status changes as Server-Sent Events ({@code status} events). */
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> events(@PathVariable String jobId) {
+        return ResponseEntity.of(analysisJobService.subscribe(jobId));
+    }
+}
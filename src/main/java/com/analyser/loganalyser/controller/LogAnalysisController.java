@@ -1,50 +1,243 @@
 package com.analyser.loganalyser.controller;
 
+import com.analyser.loganalyser.config.LogProperties;
 import com.analyser.loganalyser.model.LogAnalysisRequest;
+import com.analyser.loganalyser.model.job.AnalysisJobStatus;
+import com.analyser.loganalyser.service.AnalysisJobService;
+import com.analyser.loganalyser.service.AnalysisTrace;
+import com.analyser.loganalyser.service.AnalysisTracer;
 import com.analyser.loganalyser.service.LogAnalysisService;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.function.Supplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 @RestController
 @RequestMapping("/api/logs")
 public class LogAnalysisController {
 
+    private static final String SERVER_TIMING = "Server-Timing";
+
     private final LogAnalysisService logService;
+    private final AnalysisJobService analysisJobService;
+    private final LogProperties logProperties;
+    private final AnalysisTracer analysisTracer;
 
     // Spring injects the service automatically
-    public LogAnalysisController(LogAnalysisService logService) {
+    public LogAnalysisController(
+            LogAnalysisService logService,
+            AnalysisJobService analysisJobService,
+            LogProperties logProperties,
+            AnalysisTracer analysisTracer) {
         this.logService = logService;
+        this.analysisJobService = analysisJobService;
+        this.logProperties = logProperties;
+        this.analysisTracer = analysisTracer;
     }
 
     /** Analyze raw log text sent in the request body */
     @PostMapping("/search-and-analyze-env")
-    public ResponseEntity<String> searchAndAnalyzeEnv(
+    public ResponseEntity<?> searchAndAnalyzeEnv(
             @RequestParam(defaultValue = "TST") String env,
             @RequestParam(defaultValue = "Find critical errors") String query,
             @RequestParam(required = false) String repoLink,
             @RequestParam(required = false) String logLevel,
             @RequestParam(required = false) Integer days,
-            @RequestParam(required = false) String applicationName) {
-        String analysis =
-                logService.processLogs(
-                        new LogAnalysisRequest(
-                                null, query, repoLink, logLevel, days, applicationName, env));
-        return ResponseEntity.ok(analysis);
+            @RequestParam(required = false) String applicationName,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String mode,
+            @RequestHeader(value = AnalysisTrace.HEADER, defaultValue = "false") boolean trace) {
+        return respond(
+                trace,
+                () ->
+                        logService.processLogs(
+                                new LogAnalysisRequest(
+                                        null,
+                                        query,
+                                        repoLink,
+                                        logLevel,
+                                        days,
+                                        applicationName,
+                                        env,
+                                        filter,
+                                        mode)));
+    }
+
+    /**
+     * Analyze several environments in parallel. Defaults to every environment configured in {@code
+     * log.env-urls}; the merged table has an additional Environments column.
+     */
+    @PostMapping("/search-and-analyze-envs")
+    public ResponseEntity<?> searchAndAnalyzeEnvs(
+            @RequestParam(required = false) List<String> envs,
+            @RequestParam(defaultValue = "Find critical errors") String query,
+            @RequestParam(required = false) String repoLink,
+            @RequestParam(required = false) String logLevel,
+            @RequestParam(required = false) Integer days,
+            @RequestParam(required = false) String applicationName,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String mode,
+            @RequestHeader(value = AnalysisTrace.HEADER, defaultValue = "false") boolean trace) {
+        List<String> environments =
+                (envs == null || envs.isEmpty()) && logProperties.getEnvUrls() != null
+                        ? List.copyOf(logProperties.getEnvUrls().keySet())
+                        : envs;
+        return respond(
+                trace,
+                () ->
+                        logService.processEnvironments(
+                                new LogAnalysisRequest(
+                                        null,
+                                        query,
+                                        repoLink,
+                                        logLevel,
+                                        days,
+                                        applicationName,
+                                        null,
+                                        filter,
+                                        mode),
+                                environments));
     }
 
-    /** Search and analyze logs from ELK/VectorStore based on a query */
+    /**
+     * Analyze raw log text streamed in the request body. The body is read line by line (gzip aware)
+     * instead of being buffered as a single String.
+     */
     @PostMapping("/search-and-analyze-raw")
-    public ResponseEntity<String> searchAndAnalyzeRaw(
-            @RequestBody String logData,
+    public ResponseEntity<?> searchAndAnalyzeRaw(
+            InputStream logData,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false)
+                    String contentEncoding,
             @RequestParam(defaultValue = "Find critical errors") String query,
             @RequestParam(required = false) String repoLink,
             @RequestParam(required = false) String logLevel,
             @RequestParam(required = false) Integer days,
-            @RequestParam(required = false) String applicationName) {
-        String analysis =
-                logService.processLogs(
-                        new LogAnalysisRequest(
-                                logData, query, repoLink, logLevel, days, applicationName, null));
-        return ResponseEntity.ok(analysis);
+            @RequestParam(required = false) String applicationName,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String mode,
+            @RequestHeader(value = AnalysisTrace.HEADER, defaultValue = "false") boolean trace) {
+        return respond(
+                trace,
+                () ->
+                        logService.processLogStream(
+                                new LogAnalysisRequest(
+                                        null,
+                                        query,
+                                        repoLink,
+                                        logLevel,
+                                        days,
+                                        applicationName,
+                                        null,
+                                        filter,
+                                        mode),
+                                logData,
+                                contentEncoding));
+    }
+
+    /** Same as {@code /search-and-analyze-env} but runs as a background job */
+    @PostMapping("/search-and-analyze-env/async")
+    public ResponseEntity<AnalysisJobStatus> searchAndAnalyzeEnvAsync(
+            @RequestParam(defaultValue = "TST") String env,
+            @RequestParam(defaultValue = "Find critical errors") String query,
+            @RequestParam(required = false) String repoLink,
+            @RequestParam(required = false) String logLevel,
+            @RequestParam(required = false) Integer days,
+            @RequestParam(required = false) String applicationName,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String mode) {
+        LogAnalysisRequest request =
+                new LogAnalysisRequest(
+                        null, query, repoLink, logLevel, days, applicationName, env, filter, mode);
+        return accepted(analysisJobService.submit(() -> logService.processLogs(request)));
+    }
+
+    /**
+     * Same as {@code /search-and-analyze-raw} but runs as a background job. The body is ingested
+     * before the response is returned; only the analysis runs asynchronously.
+     */
+    @PostMapping("/search-and-analyze-raw/async")
+    public ResponseEntity<AnalysisJobStatus> searchAndAnalyzeRawAsync(
+            InputStream logData,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false)
+                    String contentEncoding,
+            @RequestParam(defaultValue = "Find critical errors") String query,
+            @RequestParam(required = false) String repoLink,
+            @RequestParam(required = false) String logLevel,
+            @RequestParam(required = false) Integer days,
+            @RequestParam(required = false) String applicationName,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String mode) {
+        LogAnalysisRequest request =
+                new LogAnalysisRequest(
+                        null, query, repoLink, logLevel, days, applicationName, null, filter, mode);
+        String logs = logService.ingestLogStream(request, logData, contentEncoding);
+        return accepted(
+                analysisJobService.submit(() -> logService.processIngestedLogs(request, logs)));
+    }
+
+    /** Same as {@code /search-and-analyze-env} but streams table rows as Server-Sent Events */
+    @PostMapping(
+            value = "/search-and-analyze-env/stream",
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<String> searchAndAnalyzeEnvStream(
+            @RequestParam(defaultValue = "TST") String env,
+            @RequestParam(defaultValue = "Find critical errors") String query,
+            @RequestParam(required = false) String repoLink,
+            @RequestParam(required = false) String logLevel,
+            @RequestParam(required = false) Integer days,
+            @RequestParam(required = false) String applicationName,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String mode) {
+        return logService.streamLogs(
+                new LogAnalysisRequest(
+                        null, query, repoLink, logLevel, days, applicationName, env, filter, mode));
+    }
+
+    /** Same as {@code /search-and-analyze-raw} but streams table rows as Server-Sent Events */
+    @PostMapping(
+            value = "/search-and-analyze-raw/stream",
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<String> searchAndAnalyzeRawStream(
+            InputStream logData,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false)
+                    String contentEncoding,
+            @RequestParam(defaultValue = "Find critical errors") String query,
+            @RequestParam(required = false) String repoLink,
+            @RequestParam(required = false) String logLevel,
+            @RequestParam(required = false) Integer days,
+            @RequestParam(required = false) String applicationName,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String mode) {
+        LogAnalysisRequest request =
+                new LogAnalysisRequest(
+                        null, query, repoLink, logLevel, days, applicationName, null, filter, mode);
+        return logService.streamIngestedLogs(
+                request, logService.ingestLogStream(request, logData, contentEncoding));
+    }
+
+    /**
+     * Returns the analysis as is or, when the request asked for a trace, a JSON body with the
+     * analysis and its timing trace. Headers only carry the trace id ({@code X-Analysis-Trace}) and
+     * the stage totals ({@code Server-Timing}), which stay small whatever the trace holds.
+     */
+    private ResponseEntity<?> respond(boolean trace, Supplier<String> analysis) {
+        AnalysisTracer.Traced traced = analysisTracer.run(trace, analysis);
+        if (traced.trace() == null) {
+            return ResponseEntity.ok(traced.analysis());
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(AnalysisTrace.HEADER, traced.trace().traceId())
+                .header(SERVER_TIMING, traced.trace().serverTiming())
+                .body(traced);
+    }
+
+    private static ResponseEntity<AnalysisJobStatus> accepted(AnalysisJobStatus job) {
+        return ResponseEntity.accepted().location(URI.create("/api/jobs/" + job.jobId())).body(job);
     }
 }
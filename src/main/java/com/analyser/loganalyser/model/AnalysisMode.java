@@ -0,0 +1,28 @@
+package com.analyser.loganalyser.model;
+
+import java.util.Locale;
+
+/**
+ * How a request is analyzed: {@code LLM} sends the logs to the model, {@code LOCAL} returns the
+ * table built by {@code ExceptionExtractor} without a model call and {@code SEEDED} sends the
+ * extracted table along with the logs for the model to verify and complete.
+ */
+public enum AnalysisMode {
+    LLM,
+    LOCAL,
+    SEEDED;
+
+    /** Parses a request value case-insensitively; {@code null} or blank means {@link #LLM}. */
+    public static AnalysisMode of(String value) {
+        if (value == null || value.isBlank()) {
+            return LLM;
+        }
+        for (AnalysisMode mode : values()) {
+            if (mode.name().equals(value.trim().toUpperCase(Locale.ROOT))) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException(
+                "Unknown analysis mode: " + value + ". Use llm, local or seeded.");
+    }
+}
@@ -0,0 +1,4 @@
+package com.analyser.loganalyser.model;
+
+public record AnalysisTableRow(
+        String exception, String impactedClass, String details, String remediation) {}
@@ -0,0 +1,73 @@
+package com.analyser.loganalyser.model;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Timing breakdown of one analysis request: stage durations, bytes in and out, estimated tokens,
+ * the provider that answered and how many provider attempts failed or were hedged.
+ */
+public record AnalysisTraceReport(
+        String traceId,
+        Instant startedAt,
+        double totalMs,
+        List<StageTiming> stages,
+        List<LlmCall> llmCalls,
+        List<ProviderAttempt> providerAttempts,
+        String provider,
+        int retries,
+        long bytesIn,
+        long bytesOut,
+        long promptTokens,
+        long responseTokens,
+        List<String> results) {
+
+    public record StageTiming(String stage, double durationMs, boolean success) {}
+
+    public record LlmCall(
+            String provider,
+            String type,
+            double durationMs,
+            boolean success,
+            long promptTokens,
+            long responseTokens) {}
+
+    /**
+     * One provider tried by the router; outcome is {@code success}, {@code error} or {@code
+     * hedged}.
+     */
+    public record ProviderAttempt(String provider, String outcome) {}
+
+    /**
+     * The stage durations as a {@code Server-Timing} header value, summed per stage, followed by
+     * the model calls and the total.
+     */
+    public String serverTiming() {
+        StringBuilder timing = new StringBuilder();
+        stages.stream()
+                .map(StageTiming::stage)
+                .distinct()
+                .forEach(
+                        stage ->
+                                append(
+                                        timing,
+                                        stage,
+                                        stages.stream()
+                                                .filter(s -> s.stage().equals(stage))
+                                                .mapToDouble(StageTiming::durationMs)
+                                                .sum()));
+        if (!llmCalls.isEmpty()) {
+            append(timing, "llm", llmCalls.stream().mapToDouble(LlmCall::durationMs).sum());
+        }
+        append(timing, "total", totalMs);
+        return timing.toString();
+    }
+
+    private static void append(StringBuilder timing, String name, double millis) {
+        if (!timing.isEmpty()) {
+            timing.append(", ");
+        }
+        timing.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.1f", millis));
+    }
+}
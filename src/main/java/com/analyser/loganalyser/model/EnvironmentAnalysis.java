@@ -0,0 +1,4 @@
+package com.analyser.loganalyser.model;
+
+/** Analysis table of one environment together with the deduplicated logs it was built from. */
+public record EnvironmentAnalysis(String environment, String logs, String analysis) {}
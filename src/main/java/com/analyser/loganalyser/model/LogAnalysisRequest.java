@@ -1,5 +1,13 @@
 package com.analyser.loganalyser.model;
 
+import java.nio.file.Path;
+
+/**
+ * Analysis parameters. {@code filter} holds optional {@code ;}-separated field and regex terms
+ * applied to the logs before prompt construction (see {@code LogFilter}); {@code mode} selects the
+ * {@link AnalysisMode} and defaults to {@code llm}. {@code repoPath} is set internally once {@code
+ * repoLink} has been cloned and is never bound from client input.
+ */
 public record LogAnalysisRequest(
         String rawLogs,
         String query,
@@ -7,4 +15,78 @@ public record LogAnalysisRequest(
         String logLevel,
         Integer days,
         String applicationName,
-        String env) {}
+        String env,
+        String filter,
+        String mode,
+        Path repoPath) {
+
+    public LogAnalysisRequest(
+            String rawLogs,
+            String query,
+            String repoLink,
+            String logLevel,
+            Integer days,
+            String applicationName,
+            String env) {
+        this(rawLogs, query, repoLink, logLevel, days, applicationName, env, null, null, null);
+    }
+
+    public LogAnalysisRequest(
+            String rawLogs,
+            String query,
+            String repoLink,
+            String logLevel,
+            Integer days,
+            String applicationName,
+            String env,
+            String filter) {
+        this(rawLogs, query, repoLink, logLevel, days, applicationName, env, filter, null, null);
+    }
+
+    public LogAnalysisRequest(
+            String rawLogs,
+            String query,
+            String repoLink,
+            String logLevel,
+            Integer days,
+            String applicationName,
+            String env,
+            String filter,
+            String mode) {
+        this(rawLogs, query, repoLink, logLevel, days, applicationName, env, filter, mode, null);
+    }
+
+    public AnalysisMode analysisMode() {
+        return AnalysisMode.of(mode);
+    }
+
+    /** Copy of this request targeting {@code env}. */
+    public LogAnalysisRequest forEnvironment(String env) {
+        return new LogAnalysisRequest(
+                rawLogs,
+                query,
+                repoLink,
+                logLevel,
+                days,
+                applicationName,
+                env,
+                filter,
+                mode,
+                repoPath);
+    }
+
+    /** Copy of this request pointing at the resolved repository context. */
+    public LogAnalysisRequest withRepository(String repoLink, Path repoPath) {
+        return new LogAnalysisRequest(
+                rawLogs,
+                query,
+                repoLink,
+                logLevel,
+                days,
+                applicationName,
+                env,
+                filter,
+                mode,
+                repoPath);
+    }
+}
@@ -1,5 +1,7 @@
 package com.analyser.loganalyser.model.agent;
 
+import com.analyser.loganalyser.model.LogAnalysisRequest;
+
 public record AgentInvokeRequest(
         String logs,
         String query,
@@ -7,4 +9,12 @@ public record AgentInvokeRequest(
         String logLevel,
         Integer days,
         String applicationName,
-        String environment) {}
+        String environment,
+        String filter,
+        String mode) {
+
+    public LogAnalysisRequest toLogAnalysisRequest() {
+        return new LogAnalysisRequest(
+                logs, query, repoLink, logLevel, days, applicationName, environment, filter, mode);
+    }
+}
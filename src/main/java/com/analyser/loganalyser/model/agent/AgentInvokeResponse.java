@@ -1,3 +1,13 @@
 package com.analyser.loganalyser.model.agent;
 
-public record AgentInvokeResponse(String analysis) {}
+import com.analyser.loganalyser.model.AnalysisTraceReport;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/** The analysis, plus its timing trace when the request sent {@code X-Analysis-Trace: true}. */
+public record AgentInvokeResponse(
+        String analysis, @JsonInclude(JsonInclude.Include.NON_NULL) AnalysisTraceReport trace) {
+
+    public AgentInvokeResponse(String analysis) {
+        this(analysis, null);
+    }
+}
@@ -0,0 +1,33 @@
+package com.analyser.loganalyser.model.history;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One stored analysis. {@code fingerprint} identifies the set of exceptions in the table, the same
+ * way alerts are deduplicated; {@code exceptions} lists them as {@code Exception in Class}. Query
+ * results leave {@code analysis} out; it is loaded when a single entry is requested.
+ */
+public record AnalysisHistoryEntry(
+        String id,
+        Instant recordedAt,
+        String applicationName,
+        String environment,
+        String fingerprint,
+        String origin,
+        List<String> exceptions,
+        @JsonInclude(JsonInclude.Include.NON_NULL) String analysis) {
+
+    public AnalysisHistoryEntry withoutAnalysis() {
+        return new AnalysisHistoryEntry(
+                id,
+                recordedAt,
+                applicationName,
+                environment,
+                fingerprint,
+                origin,
+                exceptions,
+                null);
+    }
+}
@@ -0,0 +1,16 @@
+package com.analyser.loganalyser.model.history;
+
+import java.time.Instant;
+
+/**
+ * Filters of a history lookup; {@code null} fields match everything. {@code exception} matches
+ * entries with an exception or class containing it, ignoring case.
+ */
+public record AnalysisHistoryQuery(
+        String applicationName,
+        String environment,
+        String fingerprint,
+        String exception,
+        Instant from,
+        Instant to,
+        int limit) {}
@@ -0,0 +1,12 @@
+package com.analyser.loganalyser.model.job;
+
+import java.time.Instant;
+
+public record AnalysisJobStatus(
+        String jobId,
+        JobState state,
+        Instant submittedAt,
+        Instant startedAt,
+        Instant completedAt,
+        String analysis,
+        String error) {}
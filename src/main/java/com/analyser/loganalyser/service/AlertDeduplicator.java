@@ -0,0 +1,269 @@
+package com.analyser.loganalyser.service;
+
+import com.analyser.loganalyser.model.AnalysisTableRow;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Suppresses repeated alerts. Alerts are keyed on the fingerprint of the exceptions in the analysis
+ * table plus application and environment; once an alert for a key is delivered, further alerts for
+ * that key are suppressed for {@code app.alerts.dedup.window}. Suppressed alerts are counted and
+ * either reported with the next delivered alert for the key or, in digest mode, drained
+ * periodically into one summary. An admitted alert that could not be delivered is {@linkplain
+ * #revoke(String, String, Admission) revoked}, so it does not suppress the ones that follow.
+ */
+@Component
+public class AlertDeduplicator {
+
+    private static final String UNKNOWN = "unknown";
+
+    private final AnalysisTableMerger tableMerger;
+    private final Duration window;
+    private final boolean digestEnabled;
+    private final Clock clock;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicLong deliveries = new AtomicLong();
+
+    @Autowired
+    public AlertDeduplicator(
+            AnalysisTableMerger tableMerger,
+            @Value("${app.alerts.dedup.window:15m}") Duration window,
+            @Value("${app.alerts.dedup.digest.enabled:false}") boolean digestEnabled) {
+        this(tableMerger, window, digestEnabled, Clock.systemUTC());
+    }
+
+    public AlertDeduplicator(
+            AnalysisTableMerger tableMerger, Duration window, boolean digestEnabled, Clock clock) {
+        this.tableMerger = tableMerger;
+        this.window = window;
+        this.digestEnabled = digestEnabled;
+        this.clock = clock;
+    }
+
+    /**
+     * Records an alert and decides whether it should be delivered.
+     *
+     * @return the admission decision, including how many alerts for the same key were suppressed
+     *     since the previous delivery when not in digest mode
+     */
+    public Admission admit(String applicationName, String environment, String analysis) {
+        Instant now = clock.instant();
+        evictIdle(now);
+        String fingerprint = fingerprint(analysis);
+        String key = orUnknown(applicationName) + "|" + orUnknown(environment) + "|" + fingerprint;
+        Admission[] admission = new Admission[1];
+        windows.compute(
+                key,
+                (k, current) -> {
+                    if (current == null || !now.isBefore(current.lastDelivered.plus(window))) {
+                        long suppressed = current == null || digestEnabled ? 0 : current.count;
+                        long delivery = deliveries.incrementAndGet();
+                        admission[0] = new Admission(true, fingerprint, suppressed, delivery);
+                        Window next =
+                                new Window(
+                                        orUnknown(applicationName),
+                                        orUnknown(environment),
+                                        fingerprint,
+                                        summary(analysis),
+                                        now,
+                                        delivery);
+                        if (current != null && digestEnabled) {
+                            next.carry(current);
+                        }
+                        return next;
+                    }
+                    current.suppress(now);
+                    admission[0] = new Admission(false, fingerprint, current.count, 0);
+                    return current;
+                });
+        return admission[0];
+    }
+
+    /**
+     * Undoes a delivering admission whose alert was not delivered: the next alert for the key is
+     * delivered again and reports the alerts suppressed in the meantime. Does nothing if a later
+     * admission has already replaced it.
+     */
+    public void revoke(String applicationName, String environment, Admission admission) {
+        if (!admission.deliver()) {
+            return;
+        }
+        String key =
+                orUnknown(applicationName)
+                        + "|"
+                        + orUnknown(environment)
+                        + "|"
+                        + admission.fingerprint();
+        windows.computeIfPresent(
+                key,
+                (k, current) -> {
+                    if (current.delivery != admission.delivery()) {
+                        return current;
+                    }
+                    Window undelivered =
+                            new Window(
+                                    current.applicationName,
+                                    current.environment,
+                                    current.fingerprint,
+                                    current.summary,
+                                    Instant.MIN,
+                                    0);
+                    undelivered.carry(current);
+                    if (!digestEnabled) {
+                        undelivered.count += admission.suppressed();
+                    }
+                    return undelivered;
+                });
+    }
+
+    public boolean digestEnabled() {
+        return digestEnabled;
+    }
+
+    /** Returns alerts suppressed since the last digest and resets their counters. */
+    public List<SuppressedAlerts> drainSuppressed() {
+        List<SuppressedAlerts> drained = new ArrayList<>();
+        windows.values()
+                .forEach(
+                        w -> {
+                            synchronized (w) {
+                                if (w.count > 0) {
+                                    drained.add(w.snapshot());
+                                    w.reset();
+                                }
+                            }
+                        });
+        return drained;
+    }
+
+    /**
+     * Fingerprint of the distinct exception/class pairs in {@code analysis}, independent of row
+     * order, details and variable tokens. Falls back to the masked text for unstructured results.
+     */
+    public String fingerprint(String analysis) {
+        List<AnalysisTableRow> rows = exceptionRows(analysis);
+        if (rows.isEmpty()) {
+            return LogDeduplicator.fingerprint(Objects.toString(analysis, ""));
+        }
+        return LogDeduplicator.fingerprint(
+                rows.stream()
+                        .map(AnalysisTableMerger::key)
+                        .distinct()
+                        .sorted()
+                        .collect(Collectors.joining("\n")));
+    }
+
+    private String summary(String analysis) {
+        List<AnalysisTableRow> rows = exceptionRows(analysis);
+        if (rows.isEmpty()) {
+            return "unstructured analysis";
+        }
+        return rows.stream()
+                .map(row -> row.exception() + " in " + row.impactedClass())
+                .distinct()
+                .collect(Collectors.joining(", "));
+    }
+
+    private List<AnalysisTableRow> exceptionRows(String analysis) {
+        if (analysis == null) {
+            return List.of();
+        }
+        return tableMerger.parse(analysis).stream()
+                .filter(row -> !AnalysisTableMerger.isNoExceptionRow(row))
+                .toList();
+    }
+
+    private void evictIdle(Instant now) {
+        windows.values().removeIf(w -> w.count == 0 && !now.isBefore(w.lastDelivered.plus(window)));
+    }
+
+    private static String orUnknown(String value) {
+        return value == null || value.isBlank() ? UNKNOWN : value.trim();
+    }
+
+    /**
+     * Outcome of {@link #admit(String, String, String)}; {@code delivery} identifies a delivering
+     * admission for {@link #revoke(String, String, Admission)} and is 0 for a suppressed alert.
+     */
+    public record Admission(boolean deliver, String fingerprint, long suppressed, long delivery) {}
+
+    /** Alerts suppressed for one key since the last digest. */
+    public record SuppressedAlerts(
+            String applicationName,
+            String environment,
+            String fingerprint,
+            String summary,
+            long count,
+            Instant firstSuppressed,
+            Instant lastSuppressed) {}
+
+    private static final class Window {
+
+        private final String applicationName;
+        private final String environment;
+        private final String fingerprint;
+        private final String summary;
+        private final Instant lastDelivered;
+        private final long delivery;
+        private long count;
+        private Instant firstSuppressed;
+        private Instant lastSuppressed;
+
+        Window(
+                String applicationName,
+                String environment,
+                String fingerprint,
+                String summary,
+                Instant lastDelivered,
+                long delivery) {
+            this.applicationName = applicationName;
+            this.environment = environment;
+            this.fingerprint = fingerprint;
+            this.summary = summary;
+            this.lastDelivered = lastDelivered;
+            this.delivery = delivery;
+        }
+
+        synchronized void suppress(Instant now) {
+            if (count == 0) {
+                firstSuppressed = now;
+            }
+            count++;
+            lastSuppressed = now;
+        }
+
+        synchronized void carry(Window previous) {
+            count = previous.count;
+            firstSuppressed = previous.firstSuppressed;
+            lastSuppressed = previous.lastSuppressed;
+        }
+
+        void reset() {
+            count = 0;
+            firstSuppressed = null;
+            lastSuppressed = null;
+        }
+
+        SuppressedAlerts snapshot() {
+            return new SuppressedAlerts(
+                    applicationName,
+                    environment,
+                    fingerprint,
+                    summary,
+                    count,
+                    firstSuppressed,
+                    lastSuppressed);
+        }
+    }
+}
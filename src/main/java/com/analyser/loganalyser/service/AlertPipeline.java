@@ -0,0 +1,409 @@
+package com.analyser.loganalyser.service;
+
+import com.analyser.loganalyser.model.AnalysisTableRow;
+import com.analyser.loganalyser.model.LogAnalysisRequest;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Generates and delivers email alerts off the request path. Repeated alerts are filtered by {@link
+ * AlertDeduplicator} before they are queued. Alerts wait in a bounded queue that is drained by
+ * {@code app.alerts.workers} virtual threads. When the queue is full, {@link
+ * #submit(LogAnalysisRequest, String, String)} blocks for at most {@code
+ * app.alerts.enqueue-timeout}; alerts that still cannot be queued, or that fail {@code
+ * app.alerts.max-attempts} times, are written to the dead-letter directory instead of being lost.
+ * In digest mode suppressed alerts are summarized every {@code app.alerts.dedup.digest.interval}.
+ * On shutdown the workers stop taking alerts and get {@code app.alerts.shutdown-grace} to finish
+ * the ones they hold; queued alerts and any still held after the grace period are dead-lettered.
+ *
+ * <p>By default the email is rendered locally from {@code email-alert.st}; with {@code
+ * app.alerts.mode=llm} the model writes it instead.
+ */
+@Service
+public class AlertPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertPipeline.class);
+    private static final String ALERT_SUBJECT = "Log Analysis Error Alert";
+    private static final String DIGEST_SUBJECT = "Log Analysis Suppressed Alerts Digest";
+    private static final DateTimeFormatter FILE_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS");
+    private static final DateTimeFormatter ALERT_DATE =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String SUBJECT_PREFIX = "Subject:";
+    private static final String UNKNOWN = "unknown";
+    private static final String LLM_MODE = "llm";
+    private static final String SHUT_DOWN = "Application shut down";
+    private static final long POLL_MILLIS = 200;
+
+    private final LlmClient llmClient;
+    private final LogAnalysisPromptBuilder promptBuilder;
+    private final PromptTemplateService promptTemplateService;
+    private final EmailAlertService emailAlertService;
+    private final AlertDeduplicator alertDeduplicator;
+    private final AnalysisTableMerger tableMerger;
+    private final AnalysisMetrics metrics;
+    private final boolean llmMode;
+    private final BlockingQueue<Alert> queue;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final int workerCount;
+    private final Duration digestInterval;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration enqueueTimeout;
+    private final Path deadLetterDir;
+    private final Duration shutdownGrace;
+    private final Set<Alert> inFlight = Collections.newSetFromMap(new IdentityHashMap<>());
+    private volatile boolean stopping;
+    private ScheduledExecutorService digestScheduler;
+
+    public AlertPipeline(
+            LlmClient llmClient,
+            LogAnalysisPromptBuilder promptBuilder,
+            PromptTemplateService promptTemplateService,
+            EmailAlertService emailAlertService,
+            AlertDeduplicator alertDeduplicator,
+            AnalysisTableMerger tableMerger,
+            AnalysisMetrics metrics,
+            @Value("${app.alerts.mode:template}") String mode,
+            @Value("${app.alerts.queue-capacity:100}") int queueCapacity,
+            @Value("${app.alerts.workers:1}") int workerCount,
+            @Value("${app.alerts.max-attempts:3}") int maxAttempts,
+            @Value("${app.alerts.retry-backoff:2s}") Duration retryBackoff,
+            @Value("${app.alerts.enqueue-timeout:100ms}") Duration enqueueTimeout,
+            @Value("${app.alerts.dead-letter-dir:target/email/dead-letter}") Path deadLetterDir,
+            @Value("${app.alerts.dedup.digest.interval:15m}") Duration digestInterval,
+            @Value("${app.alerts.shutdown-grace:10s}") Duration shutdownGrace) {
+        this.llmClient = llmClient;
+        this.promptBuilder = promptBuilder;
+        this.promptTemplateService = promptTemplateService;
+        this.emailAlertService = emailAlertService;
+        this.alertDeduplicator = alertDeduplicator;
+        this.tableMerger = tableMerger;
+        this.metrics = metrics;
+        this.llmMode = LLM_MODE.equalsIgnoreCase(mode);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoff = retryBackoff;
+        this.enqueueTimeout = enqueueTimeout;
+        this.deadLetterDir = deadLetterDir;
+        this.workerCount = Math.max(1, workerCount);
+        this.digestInterval = digestInterval;
+        this.shutdownGrace = shutdownGrace;
+    }
+
+    /** Starts the workers and, in digest mode, the digest schedule. */
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::drain);
+        }
+        if (alertDeduplicator.digestEnabled()) {
+            digestScheduler =
+                    Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().factory());
+            digestScheduler.scheduleAtFixedRate(
+                    this::submitDigest,
+                    digestInterval.toMillis(),
+                    digestInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Queues an alert for {@code analysis} unless an alert with the same fingerprint was delivered
+     * for the request's application and environment within the suppression window.
+     *
+     * @return {@code false} if the queue stayed full and the alert was dead-lettered
+     */
+    public boolean submit(LogAnalysisRequest request, String analysis, String guardrails) {
+        AlertDeduplicator.Admission admission =
+                alertDeduplicator.admit(request.applicationName(), request.env(), analysis);
+        if (!admission.deliver()) {
+            logger.info(
+                    "Suppressed duplicate alert {} ({} since last delivery)",
+                    admission.fingerprint(),
+                    admission.suppressed());
+            return true;
+        }
+        return enqueue(
+                new Alert(
+                        ALERT_SUBJECT,
+                        analysis,
+                        guardrails,
+                        request.applicationName(),
+                        request.env(),
+                        admission,
+                        false,
+                        Instant.now()));
+    }
+
+    /** Number of alerts waiting to be processed. */
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Stops taking alerts, waits up to the shutdown grace period for the workers to finish the
+     * alerts they hold, then interrupts them and dead-letters every alert not delivered.
+     */
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        if (digestScheduler != null) {
+            digestScheduler.shutdownNow();
+        }
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(shutdownGrace.toMillis(), TimeUnit.MILLISECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        List<Alert> remaining = new ArrayList<>();
+        synchronized (inFlight) {
+            remaining.addAll(inFlight);
+            inFlight.clear();
+        }
+        queue.drainTo(remaining);
+        remaining.forEach(alert -> deadLetter(alert, 0, SHUT_DOWN));
+    }
+
+    /** Queues one summary of all alerts suppressed since the previous digest. */
+    void submitDigest() {
+        List<AlertDeduplicator.SuppressedAlerts> suppressed = alertDeduplicator.drainSuppressed();
+        if (suppressed.isEmpty()) {
+            return;
+        }
+        StringBuilder digest = new StringBuilder("Alerts suppressed since the previous digest:\n");
+        for (AlertDeduplicator.SuppressedAlerts entry : suppressed) {
+            digest.append(
+                    String.format(
+                            "- %s / %s: %s (%dx, %s to %s, fingerprint %s)%n",
+                            entry.applicationName(),
+                            entry.environment(),
+                            entry.summary(),
+                            entry.count(),
+                            entry.firstSuppressed(),
+                            entry.lastSuppressed(),
+                            entry.fingerprint()));
+        }
+        enqueue(
+                new Alert(
+                        DIGEST_SUBJECT,
+                        digest.toString(),
+                        null,
+                        null,
+                        null,
+                        null,
+                        true,
+                        Instant.now()));
+    }
+
+    private boolean enqueue(Alert alert) {
+        try {
+            if (queue.offer(alert, enqueueTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.warn("Alert queue is full, writing alert to dead-letter directory");
+        deadLetter(alert, 0, "Alert queue full");
+        return false;
+    }
+
+    private void drain() {
+        try {
+            while (!stopping) {
+                Alert alert = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (alert != null) {
+                    hold(alert);
+                    process(alert);
+                }
+            }
+        } catch (InterruptedException e) {
+            // the alert being processed stays held and is dead-lettered by shutdown()
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void hold(Alert alert) {
+        synchronized (inFlight) {
+            inFlight.add(alert);
+        }
+    }
+
+    /** {@code false} if shutdown already took the alert over. */
+    private boolean release(Alert alert) {
+        synchronized (inFlight) {
+            return inFlight.remove(alert);
+        }
+    }
+
+    private void process(Alert alert) throws InterruptedException {
+        String lastError = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            Timer.Sample sample = metrics.start();
+            try {
+                deliver(alert);
+                metrics.stop(sample, AnalysisMetrics.Stage.EMAIL, true);
+                release(alert);
+                return;
+            } catch (IOException | RuntimeException e) {
+                metrics.stop(sample, AnalysisMetrics.Stage.EMAIL, false);
+                lastError = e.getMessage();
+                logger.warn("Alert attempt {}/{} failed: {}", attempt, maxAttempts, lastError);
+            }
+            if (attempt < maxAttempts) {
+                Thread.sleep(retryBackoff.multipliedBy(attempt).toMillis());
+            }
+        }
+        if (release(alert)) {
+            deadLetter(alert, maxAttempts, lastError);
+        }
+    }
+
+    private void deliver(Alert alert) throws IOException {
+        if (alert.digest()) {
+            emailAlertService.deliver(alert.subject(), alert.content());
+        } else if (llmMode) {
+            String emailPrompt =
+                    promptBuilder.buildEmailPrompt(
+                            promptTemplateService.emailTemplate(),
+                            alert.content() + suppressedNote(alert));
+            emailAlertService.deliver(
+                    alert.subject(), llmClient.call(alert.guardrails(), emailPrompt));
+        } else {
+            String rendered =
+                    promptTemplateService.renderEmailAlert(
+                            orUnknown(alert.applicationName()),
+                            orUnknown(alert.environment()),
+                            LocalDateTime.now().format(ALERT_DATE),
+                            errorDetails(alert.content()) + suppressedNote(alert));
+            deliverRendered(alert.subject(), rendered);
+        }
+    }
+
+    /** Uses the template's own {@code Subject:} line, if present, as the email subject. */
+    private void deliverRendered(String defaultSubject, String rendered) throws IOException {
+        int firstLineEnd = rendered.indexOf('\n');
+        if (rendered.startsWith(SUBJECT_PREFIX) && firstLineEnd > 0) {
+            emailAlertService.deliver(
+                    rendered.substring(SUBJECT_PREFIX.length(), firstLineEnd).strip(),
+                    rendered.substring(firstLineEnd + 1).stripLeading());
+        } else {
+            emailAlertService.deliver(defaultSubject, rendered);
+        }
+    }
+
+    private String errorDetails(String analysis) {
+        List<AnalysisTableRow> rows =
+                tableMerger.parse(analysis).stream()
+                        .filter(row -> !AnalysisTableMerger.isNoExceptionRow(row))
+                        .toList();
+        if (rows.isEmpty()) {
+            return analysis;
+        }
+        StringBuilder details = new StringBuilder();
+        for (AnalysisTableRow row : rows) {
+            details.append("- ")
+                    .append(row.exception())
+                    .append(" in ")
+                    .append(row.impactedClass())
+                    .append(": ")
+                    .append(row.details())
+                    .append("\n  Remediation: ")
+                    .append(row.remediation())
+                    .append('\n');
+        }
+        return details.toString().stripTrailing();
+    }
+
+    private static String suppressedNote(Alert alert) {
+        if (alert.suppressed() == 0) {
+            return "";
+        }
+        return "\n\n"
+                + alert.suppressed()
+                + " similar alerts were suppressed since the previous notification.";
+    }
+
+    private static String orUnknown(String value) {
+        return value == null || value.isBlank() ? UNKNOWN : value;
+    }
+
+    private void deadLetter(Alert alert, int attempts, String reason) {
+        if (alert.admission() != null) {
+            // an alert that was never delivered must not suppress the ones that follow
+            alertDeduplicator.revoke(
+                    alert.applicationName(), alert.environment(), alert.admission());
+        }
+        Path file =
+                deadLetterDir.resolve(
+                        "alert_"
+                                + LocalDateTime.now().format(FILE_TIMESTAMP)
+                                + "_"
+                                + UUID.randomUUID().toString().substring(0, 8)
+                                + ".txt");
+        try {
+            Files.createDirectories(deadLetterDir);
+            Files.writeString(
+                    file,
+                    "Created: "
+                            + alert.createdAt()
+                            + "\nAttempts: "
+                            + attempts
+                            + "\nReason: "
+                            + reason
+                            + "\nSubject: "
+                            + alert.subject()
+                            + "\nContent:\n"
+                            + alert.content(),
+                    StandardCharsets.UTF_8);
+            logger.info("Alert dead-lettered to: {}", file);
+        } catch (IOException e) {
+            logger.error("Unable to dead-letter alert: {}", e.getMessage(), e);
+        }
+    }
+
+    private record Alert(
+            String subject,
+            String content,
+            String guardrails,
+            String applicationName,
+            String environment,
+            AlertDeduplicator.Admission admission,
+            boolean digest,
+            Instant createdAt) {
+
+        long suppressed() {
+            return admission == null ? 0 : admission.suppressed();
+        }
+    }
+}
@@ -0,0 +1,615 @@
+package com.analyser.loganalyser.service;
+
+import com.analyser.loganalyser.model.AnalysisTableRow;
+import com.analyser.loganalyser.model.history.AnalysisHistoryEntry;
+import com.analyser.loganalyser.model.history.AnalysisHistoryQuery;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Append-only store of past analyses with an in-memory index. Every entry is appended as one JSON
+ * line to the current segment file under {@code app.history.dir}; a new segment is started once the
+ * current one reaches {@code app.history.segment-size} and on every restart. The index maps
+ * application, environment, exception fingerprint and id to each entry's position in its segment
+ * and keeps entries in time order, so a query only reads the lines it returns. It is rebuilt from
+ * the segments on startup; a torn last line is skipped.
+ *
+ * <p>Every {@code app.history.compaction-interval} the segments are rewritten without entries older
+ * than {@code app.history.retention} and without all but the newest {@code
+ * app.history.keep-per-fingerprint} entries per application, environment and fingerprint; small
+ * segments are merged on the way.
+ */
+@Component
+public class AnalysisHistoryStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisHistoryStore.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".ndjson";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String UNKNOWN = "unknown";
+    private static final int MAX_LIMIT = 500;
+
+    private final AlertDeduplicator alertDeduplicator;
+    private final AnalysisTableMerger tableMerger;
+    private final Path dir;
+    private final long segmentBytes;
+    private final Duration retention;
+    private final int keepPerFingerprint;
+    private final Clock clock;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Path> segments = new ArrayList<>();
+    private Index index = new Index();
+    private long nextSegment = 1;
+    private FileChannel active;
+    private Path activePath;
+    private long activeSize;
+    private Duration compactionInterval = Duration.ZERO;
+    private ScheduledExecutorService compactionScheduler;
+
+    @Autowired
+    public AnalysisHistoryStore(
+            AlertDeduplicator alertDeduplicator,
+            AnalysisTableMerger tableMerger,
+            @Value("${app.history.enabled:true}") boolean enabled,
+            @Value("${app.history.dir:target/analysis-history}") Path dir,
+            @Value("${app.history.segment-size:8MB}") DataSize segmentSize,
+            @Value("${app.history.retention:30d}") Duration retention,
+            @Value("${app.history.keep-per-fingerprint:20}") int keepPerFingerprint,
+            @Value("${app.history.compaction-interval:1h}") Duration compactionInterval) {
+        this(
+                alertDeduplicator,
+                tableMerger,
+                enabled ? dir : null,
+                segmentSize.toBytes(),
+                retention,
+                keepPerFingerprint,
+                Clock.systemUTC());
+        this.compactionInterval = compactionInterval;
+    }
+
+    /** Stores nothing when {@code dir} is {@code null}. */
+    public AnalysisHistoryStore(
+            AlertDeduplicator alertDeduplicator,
+            AnalysisTableMerger tableMerger,
+            Path dir,
+            long segmentBytes,
+            Duration retention,
+            int keepPerFingerprint,
+            Clock clock) {
+        this.alertDeduplicator = alertDeduplicator;
+        this.tableMerger = tableMerger;
+        this.dir = dir == null ? null : dir.toAbsolutePath().normalize();
+        this.segmentBytes = Math.max(1, segmentBytes);
+        this.retention = retention;
+        this.keepPerFingerprint = Math.max(1, keepPerFingerprint);
+        this.clock = clock;
+        load();
+    }
+
+    /** Where an entry's line is: segment, byte offset and length including the newline. */
+    private record Located(AnalysisHistoryEntry entry, Path segment, long offset, int length) {}
+
+    /** Entries in time order plus lookups by id and by lower-cased key. */
+    private static final class Index {
+
+        private final List<Located> timeline = new ArrayList<>();
+        private final Map<String, Located> byId = new HashMap<>();
+        private final Map<String, List<Located>> byApplication = new HashMap<>();
+        private final Map<String, List<Located>> byEnvironment = new HashMap<>();
+        private final Map<String, List<Located>> byFingerprint = new HashMap<>();
+
+        /** Skips an id already indexed, e.g. left behind by an interrupted compaction. */
+        void add(Located located) {
+            AnalysisHistoryEntry entry = located.entry();
+            if (byId.putIfAbsent(entry.id(), located) != null) {
+                return;
+            }
+            timeline.add(located);
+            byApplication
+                    .computeIfAbsent(key(entry.applicationName()), k -> new ArrayList<>())
+                    .add(located);
+            byEnvironment
+                    .computeIfAbsent(key(entry.environment()), k -> new ArrayList<>())
+                    .add(located);
+            byFingerprint
+                    .computeIfAbsent(key(entry.fingerprint()), k -> new ArrayList<>())
+                    .add(located);
+        }
+    }
+
+    /**
+     * Appends an analysis; blank results are not stored.
+     *
+     * @return the stored entry, or empty if history is disabled or the write failed
+     */
+    public Optional<AnalysisHistoryEntry> append(
+            String applicationName, String environment, String origin, String analysis) {
+        if (dir == null || analysis == null || analysis.isBlank()) {
+            return Optional.empty();
+        }
+        AnalysisHistoryEntry entry =
+                new AnalysisHistoryEntry(
+                        UUID.randomUUID().toString(),
+                        clock.instant(),
+                        orUnknown(applicationName),
+                        orUnknown(environment),
+                        alertDeduplicator.fingerprint(analysis),
+                        origin,
+                        exceptions(analysis),
+                        analysis);
+        byte[] line =
+                (JsonMapper.shared().writeValueAsString(entry) + "\n")
+                        .getBytes(StandardCharsets.UTF_8);
+        lock.writeLock().lock();
+        try {
+            FileChannel channel = activeChannel(line.length);
+            long offset = activeSize;
+            writeFully(channel, ByteBuffer.wrap(line));
+            activeSize += line.length;
+            index.add(new Located(entry.withoutAnalysis(), activePath, offset, line.length));
+            return Optional.of(entry);
+        } catch (IOException e) {
+            logger.warn("Could not append analysis to history: {}", e.getMessage());
+            closeActive(); // a partly written line must not be followed by the next entry
+            return Optional.empty();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Entries matching {@code query}, newest first, without their analysis text. At most {@code
+     * query.limit()} entries are returned, capped at {@value #MAX_LIMIT}.
+     */
+    public List<AnalysisHistoryEntry> query(AnalysisHistoryQuery query) {
+        int limit = Math.clamp(query.limit(), 1, MAX_LIMIT);
+        String exception =
+                query.exception() == null || query.exception().isBlank()
+                        ? null
+                        : query.exception().toLowerCase(Locale.ROOT);
+        List<AnalysisHistoryEntry> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<Located> candidates = candidates(query);
+            for (int i = candidates.size() - 1; i >= 0 && matches.size() < limit; i--) {
+                AnalysisHistoryEntry entry = candidates.get(i).entry();
+                if (query.to() != null && entry.recordedAt().isAfter(query.to())) {
+                    continue;
+                }
+                if (query.from() != null && entry.recordedAt().isBefore(query.from())) {
+                    break;
+                }
+                if (matches(entry, query, exception)) {
+                    matches.add(entry);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    /** The entry with {@code id}, including its analysis text. */
+    public Optional<AnalysisHistoryEntry> get(String id) {
+        lock.readLock().lock();
+        try {
+            Located located = index.byId.get(id);
+            if (located == null) {
+                return Optional.empty();
+            }
+            return Optional.of(parse(read(located), 0, located.length()));
+        } catch (IOException | JacksonException e) {
+            logger.warn("Could not read history entry {}: {}", id, e.getMessage());
+            return Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.timeline.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int segmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops expired and surplus entries and merges segments by rewriting the live entries into new
+     * segments. On failure the old segments and index are kept.
+     *
+     * @return the number of entries removed
+     */
+    public int compact() {
+        if (dir == null) {
+            return 0;
+        }
+        lock.writeLock().lock();
+        try {
+            closeActive();
+            List<Located> live = liveEntries();
+            int removed = index.timeline.size() - live.size();
+            if (removed == 0 && segments.size() <= segmentsNeeded(live)) {
+                return 0;
+            }
+            rewrite(live);
+            logger.info(
+                    "Compacted analysis history: removed {} entries, {} entries in {} segments",
+                    removed,
+                    index.timeline.size(),
+                    segments.size());
+            return removed;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not compact analysis history: {}", e.getMessage());
+            return 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Schedules compaction every {@code app.history.compaction-interval}, if positive. */
+    @PostConstruct
+    public void start() {
+        if (dir == null || !compactionInterval.isPositive()) {
+            return;
+        }
+        compactionScheduler =
+                Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().factory());
+        compactionScheduler.scheduleWithFixedDelay(
+                this::compact,
+                compactionInterval.toMillis(),
+                compactionInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (compactionScheduler != null) {
+            compactionScheduler.shutdownNow();
+        }
+        lock.writeLock().lock();
+        try {
+            closeActive();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() {
+        if (dir == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(dir);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(dir)) {
+                files = listing.sorted().toList();
+            }
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    loadSegment(file);
+                    nextSegment = Math.max(nextSegment, sequence(name) + 1);
+                }
+            }
+            logger.info(
+                    "Loaded {} history entries from {} segments in {}",
+                    index.timeline.size(),
+                    segments.size(),
+                    dir);
+        } catch (IOException e) {
+            logger.warn("Could not load analysis history from {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private void loadSegment(Path segment) throws IOException {
+        byte[] bytes = Files.readAllBytes(segment);
+        segments.add(segment);
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            int length = i + 1 - start;
+            try {
+                index.add(
+                        new Located(
+                                parse(bytes, start, length - 1).withoutAnalysis(),
+                                segment,
+                                start,
+                                length));
+            } catch (JacksonException e) {
+                logger.warn("Skipping unreadable history entry in {} at {}", segment, start);
+            }
+            start = i + 1;
+        }
+        if (start < bytes.length) {
+            logger.warn("Skipping incomplete history entry at the end of {}", segment);
+        }
+    }
+
+    /** The shortest index list that covers the query's key filters. */
+    private List<Located> candidates(AnalysisHistoryQuery query) {
+        List<Located> candidates = index.timeline;
+        candidates = shorter(candidates, lookup(index.byApplication, query.applicationName()));
+        candidates = shorter(candidates, lookup(index.byEnvironment, query.environment()));
+        return shorter(candidates, lookup(index.byFingerprint, query.fingerprint()));
+    }
+
+    private static List<Located> shorter(List<Located> current, List<Located> keyed) {
+        return keyed != null && keyed.size() < current.size() ? keyed : current;
+    }
+
+    private static List<Located> lookup(Map<String, List<Located>> byKey, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return byKey.getOrDefault(key(value), List.of());
+    }
+
+    private static boolean matches(
+            AnalysisHistoryEntry entry, AnalysisHistoryQuery query, String exception) {
+        return sameKey(query.applicationName(), entry.applicationName())
+                && sameKey(query.environment(), entry.environment())
+                && sameKey(query.fingerprint(), entry.fingerprint())
+                && (exception == null
+                        || entry.exceptions().stream()
+                                .anyMatch(e -> e.toLowerCase(Locale.ROOT).contains(exception)));
+    }
+
+    private static boolean sameKey(String wanted, String actual) {
+        return wanted == null || wanted.isBlank() || key(wanted).equals(key(actual));
+    }
+
+    /** Entries within the retention, at most {@code keepPerFingerprint} per key, oldest first. */
+    private List<Located> liveEntries() {
+        Instant cutoff = clock.instant().minus(retention);
+        Map<String, Integer> kept = new HashMap<>();
+        List<Located> live = new ArrayList<>();
+        for (int i = index.timeline.size() - 1; i >= 0; i--) {
+            Located located = index.timeline.get(i);
+            AnalysisHistoryEntry entry = located.entry();
+            if (entry.recordedAt().isBefore(cutoff)) {
+                continue;
+            }
+            String key =
+                    key(entry.applicationName())
+                            + "|"
+                            + key(entry.environment())
+                            + "|"
+                            + entry.fingerprint();
+            if (kept.merge(key, 1, Integer::sum) <= keepPerFingerprint) {
+                live.add(located);
+            }
+        }
+        return live.reversed();
+    }
+
+    /** How many segments {@link #rewrite(List)} fills with {@code live}. */
+    private int segmentsNeeded(List<Located> live) {
+        int needed = 0;
+        long size = 0;
+        for (Located located : live) {
+            if (needed == 0 || (size > 0 && size + located.length() > segmentBytes)) {
+                needed++;
+                size = 0;
+            }
+            size += located.length();
+        }
+        return needed;
+    }
+
+    /** Writes {@code live} into fresh segments, then swaps them in for the old ones. */
+    private void rewrite(List<Located> live) throws IOException {
+        Index rewritten = new Index();
+        List<Path> written = new ArrayList<>();
+        Map<Path, FileChannel> sources = new HashMap<>();
+        FileChannel out = null;
+        long outSize = 0;
+        try {
+            for (Located located : live) {
+                if (out == null || (outSize > 0 && outSize + located.length() > segmentBytes)) {
+                    if (out != null) {
+                        out.close();
+                    }
+                    written.add(segmentPath(nextSegment++));
+                    out =
+                            FileChannel.open(
+                                    temp(written.getLast()),
+                                    StandardOpenOption.CREATE_NEW,
+                                    StandardOpenOption.WRITE);
+                    outSize = 0;
+                }
+                ByteBuffer line = ByteBuffer.allocate(located.length());
+                readFully(
+                        sources.computeIfAbsent(located.segment(), AnalysisHistoryStore::openRead),
+                        line,
+                        located.offset());
+                writeFully(out, line.flip());
+                rewritten.add(
+                        new Located(located.entry(), written.getLast(), outSize, located.length()));
+                outSize += located.length();
+            }
+            if (out != null) {
+                out.force(true);
+                out.close();
+                out = null;
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Path path : written) {
+                Files.deleteIfExists(temp(path));
+            }
+            throw e;
+        } finally {
+            if (out != null) {
+                out.close();
+            }
+            for (FileChannel source : sources.values()) {
+                source.close();
+            }
+        }
+        for (Path path : written) {
+            Files.move(temp(path), path, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Set<Path> kept = new HashSet<>(written);
+        for (Path old : segments) {
+            if (!kept.contains(old)) {
+                Files.deleteIfExists(old);
+            }
+        }
+        segments.clear();
+        segments.addAll(written);
+        index = rewritten;
+    }
+
+    private FileChannel activeChannel(int needed) throws IOException {
+        if (active != null && activeSize > 0 && activeSize + needed > segmentBytes) {
+            closeActive();
+        }
+        if (active == null) {
+            Files.createDirectories(dir);
+            activePath = segmentPath(nextSegment++);
+            active =
+                    FileChannel.open(
+                            activePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            activeSize = 0;
+            segments.add(activePath);
+        }
+        return active;
+    }
+
+    private void closeActive() {
+        if (active == null) {
+            return;
+        }
+        try {
+            active.close();
+        } catch (IOException e) {
+            logger.warn("Could not close history segment {}: {}", activePath, e.getMessage());
+        }
+        active = null;
+        activePath = null;
+    }
+
+    private byte[] read(Located located) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(located.length());
+        try (FileChannel channel = openRead(located.segment())) {
+            readFully(channel, buffer, located.offset());
+        }
+        return buffer.array();
+    }
+
+    private List<String> exceptions(String analysis) {
+        return tableMerger.parse(analysis).stream()
+                .filter(row -> !AnalysisTableMerger.isNoExceptionRow(row))
+                .map(AnalysisHistoryStore::describe)
+                .distinct()
+                .toList();
+    }
+
+    private static String describe(AnalysisTableRow row) {
+        return row.exception() + " in " + row.impactedClass();
+    }
+
+    private static AnalysisHistoryEntry parse(byte[] bytes, int offset, int length) {
+        return JsonMapper.shared().readValue(bytes, offset, length, AnalysisHistoryEntry.class);
+    }
+
+    private Path segmentPath(long sequence) {
+        return dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+
+    private static Path temp(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + TEMP_SUFFIX);
+    }
+
+    private static long sequence(String segmentName) {
+        try {
+            return Long.parseLong(
+                    segmentName.substring(
+                            SEGMENT_PREFIX.length(),
+                            segmentName.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static FileChannel openRead(Path segment) {
+        try {
+            return FileChannel.open(segment, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("History segment ended before the entry did.");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static String key(String value) {
+        return value == null ? UNKNOWN : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String orUnknown(String value) {
+        return value == null || value.isBlank() ? UNKNOWN : value.trim();
+    }
+}
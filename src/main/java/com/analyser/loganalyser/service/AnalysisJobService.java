@@ -0,0 +1,191 @@
+package com.analyser.loganalyser.service;
+
+import com.analyser.loganalyser.model.job.AnalysisJobStatus;
+import com.analyser.loganalyser.model.job.JobState;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Runs analyses asynchronously so request threads return immediately with a job id. Jobs execute on
+ * virtual threads; at most {@code app.jobs.max-concurrent} run at once and at most {@code
+ * app.jobs.max-queued} may wait, beyond which submissions are rejected. Clients poll {@link
+ * #status(String)} or subscribe to Server-Sent Events via {@link #subscribe(String)}.
+ */
+@Service
+public class AnalysisJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisJobService.class);
+    private static final String STATUS_EVENT = "status";
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingJobs = new AtomicInteger();
+    private final Semaphore runPermits;
+    private final int maxPending;
+    private final Duration retention;
+    private final Duration sseTimeout;
+
+    public AnalysisJobService(
+            @Value("${app.jobs.max-concurrent:8}") int maxConcurrent,
+            @Value("${app.jobs.max-queued:100}") int maxQueued,
+            @Value("${app.jobs.retention:1h}") Duration retention,
+            @Value("${app.jobs.sse-timeout:10m}") Duration sseTimeout) {
+        this.runPermits = new Semaphore(maxConcurrent, true);
+        this.maxPending = maxConcurrent + maxQueued;
+        this.retention = retention;
+        this.sseTimeout = sseTimeout;
+    }
+
+    /**
+     * Queues {@code analysis} for asynchronous execution.
+     *
+     * @throws JobQueueFullException if the configured number of pending jobs is reached
+     */
+    public AnalysisJobStatus submit(Supplier<String> analysis) {
+        evictExpiredJobs();
+        if (pendingJobs.incrementAndGet() > maxPending) {
+            pendingJobs.decrementAndGet();
+            throw new JobQueueFullException(
+                    "Analysis job queue is full. Retry later or use the synchronous endpoint.");
+        }
+        Job job = new Job(UUID.randomUUID().toString());
+        jobs.put(job.id, job);
+        AnalysisJobStatus accepted = job.snapshot();
+        executor.execute(() -> run(job, analysis));
+        return accepted;
+    }
+
+    public Optional<AnalysisJobStatus> status(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::snapshot);
+    }
+
+    /** Opens an SSE stream that emits the job status now and again on every state change. */
+    public Optional<SseEmitter> subscribe(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        SseEmitter emitter = new SseEmitter(sseTimeout.toMillis());
+        job.listeners.add(emitter);
+        emitter.onCompletion(() -> job.listeners.remove(emitter));
+        emitter.onTimeout(() -> job.listeners.remove(emitter));
+        emitter.onError(e -> job.listeners.remove(emitter));
+        AnalysisJobStatus snapshot = job.snapshot();
+        send(job, emitter, snapshot);
+        if (snapshot.state().isTerminal()) {
+            emitter.complete();
+        }
+        return Optional.of(emitter);
+    }
+
+    /** Number of accepted jobs that have not finished yet. */
+    public int pendingJobs() {
+        return pendingJobs.get();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(Job job, Supplier<String> analysis) {
+        try {
+            runPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(job, null, "Job was interrupted before it started.");
+            return;
+        }
+        String result = null;
+        String error = null;
+        try {
+            job.startedAt = Instant.now();
+            job.state = JobState.RUNNING;
+            publish(job);
+            result = analysis.get();
+        } catch (RuntimeException e) {
+            logger.warn("Analysis job {} failed: {}", job.id, e.getMessage());
+            error = failureMessage(e);
+        } catch (Error e) {
+            logger.error("Analysis job {} failed", job.id, e);
+            error = failureMessage(e);
+            throw e;
+        } finally {
+            runPermits.release();
+            finish(job, result, error);
+        }
+    }
+
+    private static String failureMessage(Throwable failure) {
+        return failure.getMessage() != null
+                ? failure.getMessage()
+                : failure.getClass().getSimpleName();
+    }
+
+    private void finish(Job job, String analysis, String error) {
+        job.analysis = analysis;
+        job.error = error;
+        job.completedAt = Instant.now();
+        job.state = error == null ? JobState.SUCCEEDED : JobState.FAILED;
+        pendingJobs.decrementAndGet();
+        publish(job);
+        job.listeners.forEach(SseEmitter::complete);
+    }
+
+    private void publish(Job job) {
+        AnalysisJobStatus snapshot = job.snapshot();
+        job.listeners.forEach(emitter -> send(job, emitter, snapshot));
+    }
+
+    private void send(Job job, SseEmitter emitter, AnalysisJobStatus snapshot) {
+        try {
+            emitter.send(SseEmitter.event().name(STATUS_EVENT).data(snapshot));
+        } catch (IOException | IllegalStateException e) {
+            job.listeners.remove(emitter);
+        }
+    }
+
+    private void evictExpiredJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(cutoff));
+    }
+
+    private static final class Job {
+
+        private final String id;
+        private final Instant submittedAt = Instant.now();
+        private final List<SseEmitter> listeners = new CopyOnWriteArrayList<>();
+        private volatile JobState state = JobState.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant completedAt;
+        private volatile String analysis;
+        private volatile String error;
+
+        Job(String id) {
+            this.id = id;
+        }
+
+        AnalysisJobStatus snapshot() {
+            return new AnalysisJobStatus(
+                    id, state, submittedAt, startedAt, completedAt, analysis, error);
+        }
+    }
+}
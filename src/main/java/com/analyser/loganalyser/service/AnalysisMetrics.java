@@ -0,0 +1,168 @@
+package com.analyser.loganalyser.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Locale;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters of the analysis pipeline, exposed through Actuator ({@code /actuator/prometheus}):
+ *
+ * <ul>
+ *   <li>{@code loganalyser.stage}: time per {@link Stage}, tagged with the outcome
+ *   <li>{@code loganalyser.llm.call}: time per model call, tagged with provider, call or stream and
+ *       outcome; with {@code ai.provider=routing} the provider tag is {@code routing} and the
+ *       routed providers are timed by {@code RoutingChatModel}
+ *   <li>{@code loganalyser.llm.tokens}: estimated prompt and response tokens per model call
+ *   <li>{@code loganalyser.input.size}: bytes of logs per request, tagged with their source
+ *   <li>{@code loganalyser.analysis.results}: results by origin (model, cache, local, fallback)
+ * </ul>
+ *
+ * Cache, queue and bulkhead gauges are bound in {@code MetricsConfig}. Every recording is also
+ * added to the request's {@link AnalysisTrace} when the request is traced.
+ */
+@Component
+public class AnalysisMetrics {
+
+    /** Timed steps of an analysis. */
+    public enum Stage {
+        FETCH,
+        INGEST,
+        CLONE,
+        PROMPT,
+        HISTORY,
+        SAVE,
+        EMAIL;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final String SUCCESS = "success";
+    private static final String ERROR = "error";
+
+    private final MeterRegistry registry;
+    private final TokenEstimator tokenEstimator;
+    private final String provider;
+
+    public AnalysisMetrics(
+            MeterRegistry registry,
+            TokenEstimator tokenEstimator,
+            @Value("${ai.provider:ollama}") String provider) {
+        this.registry = registry;
+        this.tokenEstimator = tokenEstimator;
+        this.provider = provider.toLowerCase(Locale.ROOT);
+    }
+
+    /** Runs {@code work} and records its duration under {@code stage}. */
+    public <T> T time(Stage stage, Supplier<T> work) {
+        Timer.Sample sample = Timer.start(registry);
+        boolean success = false;
+        try {
+            T result = work.get();
+            success = true;
+            return result;
+        } finally {
+            stop(sample, stage, success);
+        }
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void stop(Timer.Sample sample, Stage stage, boolean success) {
+        long nanos =
+                sample.stop(
+                        Timer.builder("loganalyser.stage")
+                                .description("Time spent in a stage of the analysis pipeline")
+                                .tag("stage", stage.tag())
+                                .tag("outcome", success ? SUCCESS : ERROR)
+                                .register(registry));
+        AnalysisTrace.current().ifPresent(trace -> trace.recordStage(stage, nanos, success));
+    }
+
+    /** Records one model round-trip; tokens are estimated from the prompt and answer text. */
+    public void recordLlmCall(
+            Timer.Sample sample,
+            String type,
+            boolean success,
+            String systemPrompt,
+            String userPrompt,
+            CharSequence response) {
+        long nanos =
+                sample.stop(
+                        Timer.builder("loganalyser.llm.call")
+                                .description("Model call latency")
+                                .tag("provider", provider)
+                                .tag("type", type)
+                                .tag("outcome", success ? SUCCESS : ERROR)
+                                .register(registry));
+        int promptTokens =
+                tokenEstimator.estimate(systemPrompt) + tokenEstimator.estimate(userPrompt);
+        tokens("prompt").record(promptTokens);
+        int responseTokens = success ? tokenEstimator.estimate(response) : 0;
+        if (success) {
+            tokens("response").record(responseTokens);
+        }
+        AnalysisTrace.current()
+                .ifPresent(
+                        trace ->
+                                trace.recordLlmCall(
+                                        provider,
+                                        type,
+                                        nanos,
+                                        success,
+                                        promptTokens,
+                                        responseTokens));
+    }
+
+    /** Records the size of the logs a request brought in ({@code raw}, {@code stream}, ...). */
+    public void recordInputSize(String source, long bytes) {
+        DistributionSummary.builder("loganalyser.input.size")
+                .description("Size of the logs received or fetched per request")
+                .baseUnit("bytes")
+                .tag("source", source)
+                .register(registry)
+                .record(bytes);
+        AnalysisTrace.current().ifPresent(trace -> trace.recordInput(bytes));
+    }
+
+    /** Counts a returned analysis by where it came from. */
+    public void recordResult(String origin) {
+        registry.counter("loganalyser.analysis.results", "origin", origin).increment();
+        AnalysisTrace.current().ifPresent(trace -> trace.recordResult(origin));
+    }
+
+    /** Length of {@code text} in UTF-8 without encoding it. */
+    public static long utf8Length(CharSequence text) {
+        long bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private DistributionSummary tokens(String type) {
+        return DistributionSummary.builder("loganalyser.llm.tokens")
+                .description("Estimated tokens per model call")
+                .baseUnit("tokens")
+                .tag("provider", provider)
+                .tag("type", type)
+                .register(registry);
+    }
+}
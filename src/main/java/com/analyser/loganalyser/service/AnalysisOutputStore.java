@@ -1,29 +1,49 @@
 package com.analyser.loganalyser.service;
 
+import com.analyser.loganalyser.model.AnalysisTraceReport;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
 
 @Component
 public class AnalysisOutputStore {
 
     private static final Logger logger = LoggerFactory.getLogger(AnalysisOutputStore.class);
     private static final String LOG_OUTPUT_DIR = "target/log_analysis_output";
+    private static final String OUTPUT_SUFFIX = ".txt";
+    private static final String TRACE_SUFFIX = ".trace.json";
 
-    public void save(String output) {
+    private final Path outputDir;
+
+    @Autowired
+    public AnalysisOutputStore() {
+        this(Paths.get(LOG_OUTPUT_DIR));
+    }
+
+    public AnalysisOutputStore(Path outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    /** Writes the output to a new timestamped file; returns it, or {@code null} on failure. */
+    public Path save(String output) {
         try {
-            Files.createDirectories(Paths.get(LOG_OUTPUT_DIR));
+            Files.createDirectories(outputDir);
             LocalDateTime now = LocalDateTime.now();
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS");
             String fileName =
-                    String.format("%s/analysis_%s.txt", LOG_OUTPUT_DIR, now.format(formatter));
+                    String.format(
+                            "%s/analysis_%s%s", outputDir, now.format(formatter), OUTPUT_SUFFIX);
 
             try (FileWriter writer = new FileWriter(fileName, StandardCharsets.UTF_8)) {
                 writer.write("Log Analysis Output\n");
@@ -32,10 +52,33 @@ public class AnalysisOutputStore {
                 writer.write(output);
             }
             logger.info("Analysis output saved to: {}", fileName);
+            return Paths.get(fileName);
         } catch (IOException e) {
             if (logger.isErrorEnabled()) {
                 logger.error("Error saving output to file: {}", e.getMessage(), e);
             }
+            return null;
+        }
+    }
+
+    /** Writes {@code trace} as JSON next to an output file written by {@link #save(String)}. */
+    public Path saveTrace(Path outputFile, AnalysisTraceReport trace) {
+        String name = outputFile.getFileName().toString();
+        if (name.endsWith(OUTPUT_SUFFIX)) {
+            name = name.substring(0, name.length() - OUTPUT_SUFFIX.length());
+        }
+        Path traceFile = outputFile.resolveSibling(name + TRACE_SUFFIX);
+        try {
+            Files.writeString(
+                    traceFile,
+                    JsonMapper.shared().writerWithDefaultPrettyPrinter().writeValueAsString(trace));
+            logger.info("Analysis trace saved to: {}", traceFile);
+            return traceFile;
+        } catch (IOException | JacksonException e) {
+            if (logger.isErrorEnabled()) {
+                logger.error("Error saving trace to file: {}", e.getMessage(), e);
+            }
+            return null;
         }
     }
 }
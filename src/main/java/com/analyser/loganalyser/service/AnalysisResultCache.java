@@ -0,0 +1,318 @@
+package com.analyser.loganalyser.service;
+
+import com.analyser.loganalyser.config.AiConfig;
+import com.analyser.loganalyser.model.LogAnalysisRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Content-addressed cache of analysis tables. Keys are SHA-256 digests of the normalized logs, the
+ * request fields that shape the prompt, the guardrails template and the configured provider/model.
+ * Entries are evicted by size (LRU) and TTL; an optional on-disk tier survives restarts. The disk
+ * tier is swept at startup and every {@code app.cache.disk.sweep-interval}: expired files are
+ * deleted, then the oldest files until the tier fits in {@code app.cache.disk.max-size}.
+ */
+@Component
+public class AnalysisResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisResultCache.class);
+    private static final String ENTRY_SUFFIX = ".txt";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final String modelIdentity;
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Path diskDir;
+    private final long maxDiskBytes;
+    private final Duration sweepInterval;
+    private final Clock clock;
+    private final Map<String, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong diskBytes = new AtomicLong();
+    private ScheduledExecutorService sweepScheduler;
+
+    @Autowired
+    public AnalysisResultCache(
+            Environment env,
+            @Value("${app.cache.max-entries:500}") int maxEntries,
+            @Value("${app.cache.ttl:30m}") Duration ttl,
+            @Value("${app.cache.disk.enabled:false}") boolean diskEnabled,
+            @Value("${app.cache.disk.dir:target/analysis-cache}") String diskDir,
+            @Value("${app.cache.disk.max-size:100MB}") DataSize maxDiskSize,
+            @Value("${app.cache.disk.sweep-interval:10m}") Duration sweepInterval) {
+        this(
+                env,
+                maxEntries,
+                ttl,
+                diskEnabled ? Paths.get(diskDir) : null,
+                maxDiskSize.toBytes(),
+                sweepInterval,
+                Clock.systemUTC());
+    }
+
+    public AnalysisResultCache(
+            Environment env,
+            int maxEntries,
+            Duration ttl,
+            Path diskDir,
+            long maxDiskBytes,
+            Duration sweepInterval,
+            Clock clock) {
+        String provider = env.getProperty("ai.provider", "ollama");
+        this.modelIdentity = provider + "/" + AiConfig.resolveModelName(env, provider);
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.diskDir = diskDir == null ? null : diskDir.toAbsolutePath().normalize();
+        this.maxDiskBytes = Math.max(0, maxDiskBytes);
+        this.sweepInterval = sweepInterval;
+        this.clock = clock;
+        this.entries =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                        boolean evict = size() > AnalysisResultCache.this.maxEntries;
+                        if (evict) {
+                            evictions.incrementAndGet();
+                        }
+                        return evict;
+                    }
+                };
+    }
+
+    /** Sweeps the disk tier now and, with a positive sweep interval, on a schedule. */
+    @PostConstruct
+    public void start() {
+        if (diskDir == null) {
+            return;
+        }
+        sweepDisk();
+        if (sweepInterval != null && sweepInterval.isPositive()) {
+            sweepScheduler =
+                    Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().factory());
+            sweepScheduler.scheduleWithFixedDelay(
+                    this::sweepDisk,
+                    sweepInterval.toMillis(),
+                    sweepInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (sweepScheduler != null) {
+            sweepScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Deletes expired and leftover temporary files of the disk tier, then the least recently
+     * written files until it fits in the size limit; returns the number of cached entries deleted.
+     */
+    public synchronized int sweepDisk() {
+        if (diskDir == null || !Files.isDirectory(diskDir)) {
+            return 0;
+        }
+        long expiredBefore = clock.millis() - ttl.toMillis();
+        List<DiskEntry> live = new ArrayList<>();
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(diskDir)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                boolean entry = name.endsWith(ENTRY_SUFFIX);
+                if (!entry && !name.endsWith(TEMP_SUFFIX)) {
+                    continue;
+                }
+                BasicFileAttributes attributes =
+                        Files.readAttributes(file, BasicFileAttributes.class);
+                long modified = attributes.lastModifiedTime().toMillis();
+                if (modified <= expiredBefore) {
+                    if (Files.deleteIfExists(file) && entry) {
+                        deleted++;
+                    }
+                } else if (entry) {
+                    live.add(new DiskEntry(file, modified, attributes.size()));
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not sweep analysis cache {}: {}", diskDir, e.getMessage());
+            return deleted;
+        }
+        long total = live.stream().mapToLong(DiskEntry::bytes).sum();
+        live.sort(Comparator.comparingLong(DiskEntry::modified));
+        for (DiskEntry entry : live) {
+            if (total <= maxDiskBytes) {
+                break;
+            }
+            try {
+                if (Files.deleteIfExists(entry.file())) {
+                    deleted++;
+                }
+                total -= entry.bytes();
+            } catch (IOException e) {
+                logger.warn(
+                        "Could not delete cached analysis {}: {}", entry.file(), e.getMessage());
+            }
+        }
+        diskBytes.set(total);
+        evictions.addAndGet(deleted);
+        if (deleted > 0) {
+            logger.info("Swept {} cached analyses from {}", deleted, diskDir);
+        }
+        return deleted;
+    }
+
+    /** Computes the cache key for an analysis of {@code normalizedLogs}. */
+    public String key(LogAnalysisRequest request, String normalizedLogs, String guardrails) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part :
+                    new String[] {
+                        modelIdentity,
+                        guardrails,
+                        request.query(),
+                        request.logLevel(),
+                        request.applicationName(),
+                        request.days() == null ? null : request.days().toString(),
+                        request.repoLink(),
+                        request.filter(),
+                        request.analysisMode().name(),
+                        normalizedLogs
+                    }) {
+                byte[] bytes = part == null ? new byte[0] : part.getBytes(StandardCharsets.UTF_8);
+                digest.update(Integer.toString(part == null ? -1 : bytes.length).getBytes());
+                digest.update((byte) ':');
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    public Optional<String> get(String key) {
+        long now = clock.millis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt() > now) {
+                    hits.incrementAndGet();
+                    return Optional.of(entry.value());
+                }
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+        }
+        Optional<String> fromDisk = readFromDisk(key, now);
+        if (fromDisk.isPresent()) {
+            diskHits.incrementAndGet();
+            hits.incrementAndGet();
+            synchronized (entries) {
+                entries.put(key, new Entry(fromDisk.get(), now + ttl.toMillis()));
+            }
+            return fromDisk;
+        }
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    public void put(String key, String value) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new Entry(value, clock.millis() + ttl.toMillis()));
+        }
+        writeToDisk(key, value);
+    }
+
+    public CacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheStats(hits.get(), diskHits.get(), misses.get(), evictions.get(), size);
+    }
+
+    private Optional<String> readFromDisk(String key, long now) {
+        if (diskDir == null) {
+            return Optional.empty();
+        }
+        Path file = diskDir.resolve(key + ENTRY_SUFFIX);
+        try {
+            if (!Files.isRegularFile(file)) {
+                return Optional.empty();
+            }
+            if (Files.getLastModifiedTime(file).toMillis() + ttl.toMillis() <= now) {
+                Files.deleteIfExists(file);
+                evictions.incrementAndGet();
+                return Optional.empty();
+            }
+            return Optional.of(Files.readString(file, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.warn("Could not read cached analysis {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void writeToDisk(String key, String value) {
+        if (diskDir == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(diskDir);
+            Path temp = Files.createTempFile(diskDir, key, TEMP_SUFFIX);
+            Files.writeString(temp, value, StandardCharsets.UTF_8);
+            long written = Files.size(temp);
+            Files.move(
+                    temp,
+                    diskDir.resolve(key + ENTRY_SUFFIX),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            if (diskBytes.addAndGet(written) > maxDiskBytes) {
+                sweepDisk();
+            }
+        } catch (IOException e) {
+            logger.warn("Could not write cached analysis {}: {}", key, e.getMessage());
+        }
+    }
+
+    /** Hit/miss counters since startup. {@code hits} includes {@code diskHits}. */
+    public record CacheStats(long hits, long diskHits, long misses, long evictions, int size) {}
+
+    private record Entry(String value, long expiresAt) {}
+
+    private record DiskEntry(Path file, long modified, long bytes) {}
+}
@@ -0,0 +1,221 @@
+package com.analyser.loganalyser.service;
+
+import com.analyser.loganalyser.model.AnalysisTableRow;
+import com.analyser.loganalyser.model.EnvironmentAnalysis;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+
+/**
+ * Parses and renders the {@code Exception | Impacted Class | Details of Exception | Remediation of
+ * Code} markdown table required by {@code templates/guardrails.st}.
+ */
+@Component
+public class AnalysisTableMerger {
+
+    public static final String HEADER =
+            "| Exception | Impacted Class | Details of Exception | Remediation of Code |";
+    public static final String SEPARATOR = "|---|---|---|---|";
+    public static final String ENVIRONMENTS_HEADER =
+            "| Exception | Impacted Class | Details of Exception | Remediation of Code"
+                    + " | Environments |";
+    public static final String ENVIRONMENTS_SEPARATOR = "|---|---|---|---|---|";
+    public static final AnalysisTableRow NO_EXCEPTION_ROW =
+            new AnalysisTableRow(
+                    "No critical exception found",
+                    "N/A",
+                    "No ERROR/Exception entries detected in provided logs",
+                    "Continue monitoring and add alert thresholds");
+
+    private static final int COLUMN_COUNT = 4;
+
+    /** Extracts the data rows of every markdown table in {@code markdown}. */
+    public List<AnalysisTableRow> parse(String markdown) {
+        List<AnalysisTableRow> rows = new ArrayList<>();
+        if (markdown == null) {
+            return rows;
+        }
+        for (String line : markdown.split("\\R")) {
+            String trimmed = line.trim();
+            if (!trimmed.startsWith("|")) {
+                continue;
+            }
+            List<String> cells = splitCells(trimmed);
+            if (cells.isEmpty() || isSeparator(cells) || isHeader(cells)) {
+                continue;
+            }
+            while (cells.size() < COLUMN_COUNT) {
+                cells.add("");
+            }
+            if (cells.size() > COLUMN_COUNT) {
+                String remediation =
+                        String.join(" | ", cells.subList(COLUMN_COUNT - 1, cells.size()));
+                cells = new ArrayList<>(cells.subList(0, COLUMN_COUNT - 1));
+                cells.add(remediation);
+            }
+            rows.add(new AnalysisTableRow(cells.get(0), cells.get(1), cells.get(2), cells.get(3)));
+        }
+        return rows;
+    }
+
+    /**
+     * Merges the tables of several partial analyses into one deduplicated table. Rows are keyed by
+     * exception and impacted class; the first occurrence wins. The "no critical exception" row is
+     * only kept when no other row exists.
+     */
+    public String merge(Collection<String> partialTables) {
+        Map<String, AnalysisTableRow> unique = new LinkedHashMap<>();
+        for (String table : partialTables) {
+            for (AnalysisTableRow row : parse(table)) {
+                unique.putIfAbsent(key(row), row);
+            }
+        }
+        List<AnalysisTableRow> rows = new ArrayList<>(unique.values());
+        if (rows.size() > 1) {
+            rows.removeIf(AnalysisTableMerger::isNoExceptionRow);
+        }
+        if (rows.isEmpty()) {
+            rows.add(NO_EXCEPTION_ROW);
+        }
+        return render(rows);
+    }
+
+    /**
+     * Merges per-environment tables into one table with an additional {@code Environments} column.
+     * For every row it lists the environments that reported it with the number of matching log
+     * entries there, e.g. {@code prd: 42, tst: 3}. Failed environments are listed below the table.
+     */
+    public String mergeEnvironments(
+            List<EnvironmentAnalysis> analyses, Map<String, String> failures) {
+        Map<String, AnalysisTableRow> unique = new LinkedHashMap<>();
+        Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+        for (EnvironmentAnalysis analysis : analyses) {
+            for (AnalysisTableRow row : parse(analysis.analysis())) {
+                if (isNoExceptionRow(row)) {
+                    continue;
+                }
+                String key = key(row);
+                unique.putIfAbsent(key, row);
+                long occurrences =
+                        LogDeduplicator.countOccurrences(
+                                analysis.logs(), simpleName(row.exception()));
+                counts.computeIfAbsent(key, k -> new LinkedHashMap<>())
+                        .merge(analysis.environment(), Math.max(1, occurrences), Math::max);
+            }
+        }
+        StringBuilder table =
+                new StringBuilder(ENVIRONMENTS_HEADER).append('\n').append(ENVIRONMENTS_SEPARATOR);
+        if (unique.isEmpty()) {
+            String analyzed =
+                    analyses.stream()
+                            .map(EnvironmentAnalysis::environment)
+                            .collect(Collectors.joining(", "));
+            table.append('\n').append(renderRow(NO_EXCEPTION_ROW, analyzed));
+        }
+        unique.forEach(
+                (key, row) -> {
+                    String environments =
+                            counts.get(key).entrySet().stream()
+                                    .map(e -> e.getKey() + ": " + e.getValue())
+                                    .collect(Collectors.joining(", "));
+                    table.append('\n').append(renderRow(row, environments));
+                });
+        if (!failures.isEmpty()) {
+            table.append("\n\nAnalysis failed for environments: ")
+                    .append(
+                            failures.entrySet().stream()
+                                    .map(e -> e.getKey() + " (" + e.getValue() + ")")
+                                    .collect(Collectors.joining(", ")));
+        }
+        return table.toString();
+    }
+
+    public String render(List<AnalysisTableRow> rows) {
+        StringBuilder table = new StringBuilder(HEADER).append('\n').append(SEPARATOR);
+        for (AnalysisTableRow row : rows) {
+            table.append('\n').append(renderRow(row));
+        }
+        return table.toString();
+    }
+
+    public String renderRow(AnalysisTableRow row) {
+        return "| "
+                + escape(row.exception())
+                + " | "
+                + escape(row.impactedClass())
+                + " | "
+                + escape(row.details())
+                + " | "
+                + escape(row.remediation())
+                + " |";
+    }
+
+    private String renderRow(AnalysisTableRow row, String environments) {
+        return renderRow(row) + " " + escape(environments) + " |";
+    }
+
+    /** {@code java.lang.IllegalStateException: boom} becomes {@code IllegalStateException}. */
+    private static String simpleName(String exception) {
+        String name = exception.strip();
+        int end = 0;
+        while (end < name.length()
+                && (Character.isJavaIdentifierPart(name.charAt(end)) || name.charAt(end) == '.')) {
+            end++;
+        }
+        name = name.substring(0, end);
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    public static String key(AnalysisTableRow row) {
+        return normalize(row.exception()) + "|" + normalize(row.impactedClass());
+    }
+
+    public static boolean isNoExceptionRow(AnalysisTableRow row) {
+        return normalize(row.exception()).startsWith("no critical exception");
+    }
+
+    private static List<String> splitCells(String line) {
+        String body = line.substring(1);
+        if (body.endsWith("|")) {
+            body = body.substring(0, body.length() - 1);
+        }
+        List<String> cells = new ArrayList<>();
+        for (String cell : body.split("(?<!\\\\)\\|", -1)) {
+            cells.add(cell.trim().replace("\\|", "|"));
+        }
+        return cells;
+    }
+
+    private static boolean isSeparator(List<String> cells) {
+        return cells.stream().allMatch(cell -> cell.matches(":?-{1,}:?"));
+    }
+
+    private static boolean isHeader(List<String> cells) {
+        return "exception".equals(normalize(cells.get(0)))
+                && cells.size() > 1
+                && "impacted class".equals(normalize(cells.get(1)));
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("`", "")
+                .replace("*", "")
+                .replaceAll("\\s+", " ")
+                .trim()
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\r", " ").replace("\n", " ").replace("|", "\\|");
+    }
+}
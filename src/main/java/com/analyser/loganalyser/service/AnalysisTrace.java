@@ -0,0 +1,177 @@
+package com.analyser.loganalyser.service;
+
+import com.analyser.loganalyser.model.AnalysisTraceReport;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the timings of one traced request. The trace is bound to the request thread between
+ * {@link #start()} and {@link #close()}; work handed to other threads carries it along through
+ * {@link #wrap(Callable)}. {@link AnalysisMetrics} and the routing model record into the current
+ * trace, if any, next to their meters.
+ */
+public final class AnalysisTrace implements AutoCloseable {
+
+    /** Request header that turns tracing on, and response header carrying the trace id. */
+    public static final String HEADER = "X-Analysis-Trace";
+
+    private static final ThreadLocal<AnalysisTrace> CURRENT = new ThreadLocal<>();
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String traceId = UUID.randomUUID().toString();
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final List<AnalysisTraceReport.StageTiming> stages = new CopyOnWriteArrayList<>();
+    private final List<AnalysisTraceReport.LlmCall> llmCalls = new CopyOnWriteArrayList<>();
+    private final List<AnalysisTraceReport.ProviderAttempt> attempts = new CopyOnWriteArrayList<>();
+    private final List<String> results = new CopyOnWriteArrayList<>();
+    private final List<Path> outputFiles = new CopyOnWriteArrayList<>();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AnalysisTrace previous;
+
+    private AnalysisTrace(AnalysisTrace previous) {
+        this.previous = previous;
+    }
+
+    /** Starts a trace on the current thread. */
+    public static AnalysisTrace start() {
+        AnalysisTrace trace = new AnalysisTrace(CURRENT.get());
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    public static Optional<AnalysisTrace> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /** Runs {@code task} with the caller's trace, so a trace follows work onto other threads. */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        AnalysisTrace trace = CURRENT.get();
+        if (trace == null) {
+            return task;
+        }
+        return () -> {
+            AnalysisTrace outer = CURRENT.get();
+            CURRENT.set(trace);
+            try {
+                return task.call();
+            } finally {
+                restore(outer);
+            }
+        };
+    }
+
+    public String traceId() {
+        return traceId;
+    }
+
+    public void recordStage(AnalysisMetrics.Stage stage, long nanos, boolean success) {
+        stages.add(new AnalysisTraceReport.StageTiming(stage.tag(), millis(nanos), success));
+    }
+
+    public void recordLlmCall(
+            String provider,
+            String type,
+            long nanos,
+            boolean success,
+            long promptTokens,
+            long responseTokens) {
+        llmCalls.add(
+                new AnalysisTraceReport.LlmCall(
+                        provider, type, millis(nanos), success, promptTokens, responseTokens));
+    }
+
+    /** Records a provider the router sent the prompt to. */
+    public void recordProviderAttempt(String provider, String outcome) {
+        attempts.add(new AnalysisTraceReport.ProviderAttempt(provider, outcome));
+    }
+
+    public void recordInput(long bytes) {
+        bytesIn.addAndGet(bytes);
+    }
+
+    public void recordResult(String origin) {
+        results.add(origin);
+    }
+
+    /** Records a file the output was saved to, so the trace can be stored next to it. */
+    public void recordOutputFile(Path file) {
+        outputFiles.add(file);
+    }
+
+    public List<Path> outputFiles() {
+        return List.copyOf(outputFiles);
+    }
+
+    /** Snapshot of the trace; {@code output} is the response body the request returns. */
+    public AnalysisTraceReport report(String output) {
+        List<AnalysisTraceReport.LlmCall> calls = List.copyOf(llmCalls);
+        List<AnalysisTraceReport.ProviderAttempt> tried = List.copyOf(attempts);
+        int retries =
+                (int)
+                        tried.stream()
+                                .filter(attempt -> !"success".equals(attempt.outcome()))
+                                .count();
+        return new AnalysisTraceReport(
+                traceId,
+                startedAt,
+                millis(System.nanoTime() - startNanos),
+                List.copyOf(stages),
+                calls,
+                tried,
+                provider(calls, tried),
+                retries,
+                bytesIn.get(),
+                output == null ? 0 : AnalysisMetrics.utf8Length(output),
+                calls.stream().mapToLong(AnalysisTraceReport.LlmCall::promptTokens).sum(),
+                calls.stream().mapToLong(AnalysisTraceReport.LlmCall::responseTokens).sum(),
+                List.copyOf(results));
+    }
+
+    /** Unbinds the trace from the current thread. */
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            restore(previous);
+        }
+    }
+
+    /** The providers that answered, preferring what the router reports over the configured one. */
+    private static String provider(
+            List<AnalysisTraceReport.LlmCall> calls,
+            List<AnalysisTraceReport.ProviderAttempt> attempts) {
+        List<String> providers = new ArrayList<>();
+        attempts.stream()
+                .filter(attempt -> "success".equals(attempt.outcome()))
+                .map(AnalysisTraceReport.ProviderAttempt::provider)
+                .distinct()
+                .forEach(providers::add);
+        if (providers.isEmpty()) {
+            calls.stream()
+                    .filter(AnalysisTraceReport.LlmCall::success)
+                    .map(AnalysisTraceReport.LlmCall::provider)
+                    .distinct()
+                    .forEach(providers::add);
+        }
+        return providers.isEmpty() ? null : String.join(",", providers);
+    }
+
+    private static void restore(AnalysisTrace trace) {
+        if (trace == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(trace);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,41 @@
+package com.analyser.loganalyser.service;
+
+import com.analyser.loganalyser.model.AnalysisTraceReport;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs an analysis under an {@link AnalysisTrace} when the caller asked for one and stores the
+ * finished trace next to every output file the analysis saved.
+ */
+@Component
+public class AnalysisTracer {
+
+    private final AnalysisOutputStore analysisOutputStore;
+
+    public AnalysisTracer(AnalysisOutputStore analysisOutputStore) {
+        this.analysisOutputStore = analysisOutputStore;
+    }
+
+    /**
+     * An analysis and its trace; the trace is {@code null} when tracing was not requested. Also the
+     * JSON body of traced {@code /api/logs} responses.
+     */
+    public record Traced(String analysis, AnalysisTraceReport trace) {}
+
+    public Traced run(boolean enabled, Supplier<String> analysis) {
+        if (!enabled) {
+            return new Traced(analysis.get(), null);
+        }
+        String result;
+        AnalysisTrace trace = AnalysisTrace.start();
+        try {
+            result = analysis.get();
+        } finally {
+            trace.close();
+        }
+        AnalysisTraceReport report = trace.report(result);
+        trace.outputFiles().forEach(file -> analysisOutputStore.saveTrace(file, report));
+        return new Traced(result, report);
+    }
+}
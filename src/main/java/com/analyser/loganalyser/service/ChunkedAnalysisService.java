@@ -0,0 +1,219 @@
+package com.analyser.loganalyser.service;
+
+import com.analyser.loganalyser.config.AnalysisProperties;
+import com.analyser.loganalyser.model.LogAnalysisRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Map-reduce analysis for inputs that do not fit a single prompt. Logs are split into
+ * token-budgeted chunks on entry boundaries, each chunk is analyzed concurrently (at most the
+ * provider's configured parallelism per request), and the partial tables are merged into one
+ * deduplicated table. Across requests the chunk calls are limited only by the {@link LlmBulkhead},
+ * so a burst of large inputs is rejected with {@link LlmBusyException} rather than queued without
+ * bound. Chunks are capped at three quarters of the model's prompt budget so the instructions and
+ * source snippets fit next to them.
+ */
+@Service
+public class ChunkedAnalysisService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedAnalysisService.class);
+
+    private final LlmClient llmClient;
+    private final LogAnalysisPromptBuilder promptBuilder;
+    private final AnalysisTableMerger tableMerger;
+    private final TokenEstimator tokenEstimator;
+    private final int chunkMaxTokens;
+    private final int parallelism;
+
+    public ChunkedAnalysisService(
+            LlmClient llmClient,
+            LogAnalysisPromptBuilder promptBuilder,
+            AnalysisTableMerger tableMerger,
+            AnalysisProperties analysisProperties,
+            TokenEstimator tokenEstimator,
+            @Value("${ai.provider:ollama}") String provider) {
+        this.llmClient = llmClient;
+        this.promptBuilder = promptBuilder;
+        this.tableMerger = tableMerger;
+        this.tokenEstimator = tokenEstimator;
+        this.chunkMaxTokens =
+                Math.max(
+                        1,
+                        Math.min(
+                                analysisProperties.getChunkMaxTokens(),
+                                tokenEstimator.maxPromptTokens() * 3 / 4));
+        this.parallelism = Math.max(1, analysisProperties.parallelismFor(provider));
+    }
+
+    public String analyze(LogAnalysisRequest request, String logs, String guardrails) {
+        List<String> chunks = split(logs);
+        if (chunks.size() == 1) {
+            return llmClient.call(guardrails, promptBuilder.buildAnalysisPrompt(request, logs));
+        }
+
+        logger.info("Analyzing logs in {} chunks", chunks.size());
+        List<String> partialTables = new ArrayList<>();
+        try (ExecutorService executor =
+                Executors.newFixedThreadPool(
+                        Math.min(parallelism, chunks.size()), Thread.ofVirtual().factory())) {
+            List<Future<String>> futures = new ArrayList<>();
+            for (String chunk : chunks) {
+                futures.add(
+                        executor.submit(
+                                AnalysisTrace.wrap(
+                                        () ->
+                                                llmClient.call(
+                                                        guardrails,
+                                                        promptBuilder.buildAnalysisPrompt(
+                                                                request, chunk)))));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    partialTables.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    // A table missing a chunk's rows would pass for a complete analysis and be
+                    // cached, so one failed chunk fails the whole analysis.
+                    logger.warn(
+                            "Chunk {} of {} failed: {}",
+                            i + 1,
+                            futures.size(),
+                            e.getCause().getMessage());
+                    futures.forEach(future -> future.cancel(true));
+                    throw asRuntimeException(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Chunked analysis was interrupted.", e);
+        }
+
+        return tableMerger.merge(partialTables);
+    }
+
+    /**
+     * Streams the merged table: the header first, then each deduplicated data row as soon as a
+     * chunk's model output completes that row. The "no critical exception" row is only emitted at
+     * the end when no other row was produced.
+     */
+    public Flux<String> stream(LogAnalysisRequest request, String logs, String guardrails) {
+        List<String> chunks = split(logs);
+        Set<String> seenRows = ConcurrentHashMap.newKeySet();
+        Flux<String> rows =
+                Flux.fromIterable(chunks)
+                        .flatMap(
+                                chunk ->
+                                        lines(
+                                                llmClient.stream(
+                                                        guardrails,
+                                                        promptBuilder.buildAnalysisPrompt(
+                                                                request, chunk))),
+                                parallelism)
+                        .concatMapIterable(tableMerger::parse)
+                        .filter(
+                                row ->
+                                        !AnalysisTableMerger.isNoExceptionRow(row)
+                                                && seenRows.add(AnalysisTableMerger.key(row)))
+                        .map(tableMerger::renderRow);
+        Flux<String> fallbackRow =
+                Flux.defer(
+                        () ->
+                                seenRows.isEmpty()
+                                        ? Flux.just(
+                                                tableMerger.renderRow(
+                                                        AnalysisTableMerger.NO_EXCEPTION_ROW))
+                                        : Flux.empty());
+        return Flux.concat(
+                Flux.just(AnalysisTableMerger.HEADER, AnalysisTableMerger.SEPARATOR),
+                rows,
+                fallbackRow);
+    }
+
+    /** Re-chunks a token stream into complete lines. */
+    static Flux<String> lines(Flux<String> tokens) {
+        return Flux.defer(
+                () -> {
+                    StringBuilder pending = new StringBuilder();
+                    return tokens.concatMapIterable(
+                                    token -> {
+                                        pending.append(token);
+                                        List<String> complete = new ArrayList<>();
+                                        int newline;
+                                        while ((newline = pending.indexOf("\n")) >= 0) {
+                                            complete.add(pending.substring(0, newline));
+                                            pending.delete(0, newline + 1);
+                                        }
+                                        return complete;
+                                    })
+                            .concatWith(
+                                    Mono.fromSupplier(pending::toString)
+                                            .filter(rest -> !rest.isBlank()));
+                });
+    }
+
+    /**
+     * Splits logs into chunks of at most the configured budget. Continuation lines (stack frames,
+     * {@code Caused by:}) stay with the entry they belong to; a single entry larger than the budget
+     * becomes its own chunk.
+     */
+    public List<String> split(String logs) {
+        List<String> chunks = new ArrayList<>();
+        if (tokenEstimator.estimate(logs) <= chunkMaxTokens) {
+            chunks.add(logs);
+            return chunks;
+        }
+        StringBuilder chunk = new StringBuilder();
+        StringBuilder entry = new StringBuilder();
+        int[] chunkTokens = {0};
+        for (String line : logs.split("\\R")) {
+            if (!LogDeduplicator.isContinuation(line) && !entry.isEmpty()) {
+                appendEntry(chunks, chunk, chunkTokens, entry);
+                entry.setLength(0);
+            }
+            if (!entry.isEmpty()) {
+                entry.append('\n');
+            }
+            entry.append(line);
+        }
+        if (!entry.isEmpty()) {
+            appendEntry(chunks, chunk, chunkTokens, entry);
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk.toString());
+        }
+        return chunks;
+    }
+
+    private void appendEntry(
+            List<String> chunks, StringBuilder chunk, int[] chunkTokens, StringBuilder entry) {
+        int entryTokens = tokenEstimator.estimate(entry) + 1;
+        if (!chunk.isEmpty() && chunkTokens[0] + entryTokens > chunkMaxTokens) {
+            chunks.add(chunk.toString());
+            chunk.setLength(0);
+            chunkTokens[0] = 0;
+        }
+        if (!chunk.isEmpty()) {
+            chunk.append('\n');
+        }
+        chunk.append(entry);
+        chunkTokens[0] += entryTokens;
+    }
+
+    private static RuntimeException asRuntimeException(Throwable cause) {
+        return cause instanceof RuntimeException runtime
+                ? runtime
+                : new IllegalStateException("Chunk analysis failed.", cause);
+    }
+}
@@ -1,12 +1,13 @@
 package com.analyser.loganalyser.service;
 
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -18,24 +19,39 @@ public class EmailAlertService {
     private static final String EMAIL_OUTPUT_DIR = "target/email";
 
     public void sendEmailAlert(String subject, String body) {
-        logger.info("Sending email alert with subject: {}", subject);
         try {
-            Files.createDirectories(Paths.get(EMAIL_OUTPUT_DIR + "/email"));
-            LocalDateTime now = LocalDateTime.now();
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS");
-            String emailFileName =
-                    String.format("%s/email/email_%s.txt", EMAIL_OUTPUT_DIR, now.format(formatter));
-
-            try (FileWriter writer = new FileWriter(emailFileName, StandardCharsets.UTF_8)) {
-                writer.write("Subject: " + subject + "\n");
-                writer.write("Body:\n" + body);
-            }
-            logger.info("Email content saved to: {}", emailFileName);
+            deliver(subject, body);
         } catch (IOException e) {
             if (logger.isErrorEnabled()) {
                 logger.error("Error saving email to file: {}", e.getMessage(), e);
             }
         }
+    }
+
+    /**
+     * Writes the alert and propagates I/O failures, so callers such as {@link AlertPipeline} can
+     * retry delivery.
+     */
+    public void deliver(String subject, String body) throws IOException {
+        logger.info("Sending email alert with subject: {}", subject);
+        Files.createDirectories(Paths.get(EMAIL_OUTPUT_DIR + "/email"));
+        LocalDateTime now = LocalDateTime.now();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS");
+        // several workers can deliver within the same millisecond, so the name gets a random
+        // suffix and an existing file is never overwritten
+        String emailFileName =
+                String.format(
+                        "%s/email/email_%s_%s.txt",
+                        EMAIL_OUTPUT_DIR,
+                        now.format(formatter),
+                        UUID.randomUUID().toString().substring(0, 8));
+
+        Files.writeString(
+                Paths.get(emailFileName),
+                "Subject: " + subject + "\nBody:\n" + body,
+                StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE_NEW);
+        logger.info("Email content saved to: {}", emailFileName);
         logger.info("Email alert sent successfully.");
     }
 }
@@ -2,9 +2,12 @@ package com.analyser.loganalyser.service;
 
 import com.analyser.loganalyser.config.LogProperties;
 import java.util.Map;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+/** Returns canned log lines; the default until {@code log.fetcher=http} is configured. */
 @Component
+@ConditionalOnProperty(name = "log.fetcher", havingValue = "mock", matchIfMissing = true)
 public class EnvApiLogFetcher implements LogFetcher {
 
     private final LogProperties logProperties;
@@ -0,0 +1,379 @@
+package com.analyser.loganalyser.service;
+
+import com.analyser.loganalyser.model.AnalysisTableRow;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the guardrails table from the logs without a model call. Exception types ({@code
+ * ...Exception}, {@code ...Error}) are read from entry heads and {@code Caused by:} lines; the root
+ * cause of each entry is reported against the first application frame of its stack trace (or the
+ * {@code at} clause of the line, or the entry's service). ERROR/FATAL entries that name no type are
+ * reported as logged errors. Rows are deduplicated by exception and impacted class, counted with
+ * the {@code [Nx ...]} multiplicities of deduplicated logs and ordered by occurrences.
+ */
+@Component
+public class ExceptionExtractor {
+
+    private static final Pattern EXCEPTION_TYPE =
+            Pattern.compile(
+                    "(?<![\\w$.])((?:[a-z_][\\w$]*\\.)*[A-Z][\\w$]*(?:Exception|Error))\\b");
+    private static final Pattern FRAME =
+            Pattern.compile("\\bat\\s+(?:[\\w.$@-]*/)*((?:[\\w$]+\\.)+)([\\w$<>]+)\\(([^)]*)\\)");
+    private static final Pattern ERROR_LEVEL = Pattern.compile("\\b(ERROR|FATAL|SEVERE)\\b");
+    private static final Pattern SERVICE =
+            Pattern.compile("(?:^|\\s)(?:service|app|application)=([^\\s,;]+)");
+    private static final Pattern SECRET =
+            Pattern.compile(
+                    "(?i)\\b(password|passwd|secret|token|api[-_]?key|authorization)(\\s*[=:]\\s*)(?:bearer\\s+)?[^\\s,;]+");
+    private static final List<String> JDK_PACKAGES =
+            List.of("java.", "javax.", "jdk.", "sun.", "com.sun.");
+    private static final int MAX_MESSAGE_LENGTH = 200;
+    private static final String UNKNOWN = "Unknown";
+
+    /** Remediation hints keyed by a fragment of the exception's simple name, first match wins. */
+    private static final Map<String, String> REMEDIATIONS = new LinkedHashMap<>();
+
+    static {
+        REMEDIATIONS.put(
+                "NullPointer",
+                "Guard the null value dereferenced in %s with a null check, Optional or validated"
+                        + " input");
+        REMEDIATIONS.put(
+                "Deadlock",
+                "Acquire rows in a consistent order, keep transactions short and retry the"
+                        + " transaction in %s");
+        REMEDIATIONS.put(
+                "Timeout",
+                "Set explicit timeouts with bounded retries and backoff for the remote call in %s"
+                        + " and check the health of the dependency");
+        REMEDIATIONS.put(
+                "Connect",
+                "Check connectivity and connection pool sizing of the dependency used by %s; retry"
+                        + " with backoff");
+        REMEDIATIONS.put(
+                "Parse",
+                "Validate input before parsing in %s and reject malformed payloads with a clear"
+                        + " error");
+        REMEDIATIONS.put(
+                "NumberFormat",
+                "Validate numeric input before parsing in %s and reject malformed values");
+        REMEDIATIONS.put(
+                "HttpServerError",
+                "Handle 5xx responses of the remote service in %s with retries for transient"
+                        + " failures and a fallback");
+        REMEDIATIONS.put(
+                "HttpClientError",
+                "Fix the request sent by %s or handle the 4xx response of the remote service");
+        REMEDIATIONS.put(
+                "OutOfMemory",
+                "Capture a heap dump, bound caches and buffers in %s and size the heap for the"
+                        + " workload");
+        REMEDIATIONS.put("StackOverflow", "Remove the unbounded recursion in %s");
+        REMEDIATIONS.put(
+                "IllegalArgument", "Validate the arguments passed to %s at the calling site");
+        REMEDIATIONS.put("IllegalState", "Check the object's lifecycle state before calling %s");
+        REMEDIATIONS.put("ClassCast", "Check the runtime type before casting in %s");
+        REMEDIATIONS.put("IndexOutOfBounds", "Check index bounds before access in %s");
+        REMEDIATIONS.put(
+                "ConcurrentModification",
+                "Do not modify the collection while iterating in %s; use an iterator or a"
+                        + " concurrent collection");
+        REMEDIATIONS.put("SQL", "Review the failing query and connection pool settings used by %s");
+        REMEDIATIONS.put("DataAccess", "Review the failing query and transaction handling in %s");
+    }
+
+    private final AnalysisTableMerger tableMerger;
+
+    public ExceptionExtractor(AnalysisTableMerger tableMerger) {
+        this.tableMerger = tableMerger;
+    }
+
+    /** Renders the extracted rows as the guardrails markdown table. */
+    public String table(String logs) {
+        List<AnalysisTableRow> rows = extract(logs);
+        return tableMerger.render(
+                rows.isEmpty() ? List.of(AnalysisTableMerger.NO_EXCEPTION_ROW) : rows);
+    }
+
+    /** Distinct exceptions of {@code logs}, most frequent first; empty if there are none. */
+    public List<AnalysisTableRow> extract(String logs) {
+        Map<String, Finding> findings = new LinkedHashMap<>();
+        if (logs == null || logs.isBlank()) {
+            return List.of();
+        }
+        Finding pendingLoggedError = null;
+        for (List<String> entry : entries(logs)) {
+            Finding finding = inspect(entry);
+            if (finding == null) {
+                pendingLoggedError = null;
+                continue;
+            }
+            if (finding.typed && finding.bareHead && pendingLoggedError != null) {
+                // "ERROR failed to ..." followed by the exception on its own line: one failure
+                finding.count = Math.max(finding.count, pendingLoggedError.count);
+                if (UNKNOWN.equals(finding.impactedClass)) {
+                    finding.impactedClass = pendingLoggedError.impactedClass;
+                }
+                forget(findings, pendingLoggedError);
+            }
+            pendingLoggedError = finding.typed ? null : finding;
+            findings.merge(finding.key(), finding, Finding::add);
+        }
+        List<Finding> ordered = new ArrayList<>(findings.values());
+        ordered.sort(Comparator.comparingLong((Finding f) -> f.count).reversed());
+        return ordered.stream().map(Finding::toRow).toList();
+    }
+
+    private static void forget(Map<String, Finding> findings, Finding loggedError) {
+        Finding merged = findings.get(loggedError.key());
+        if (merged == null) {
+            return;
+        }
+        merged.count -= loggedError.count;
+        if (merged.count <= 0) {
+            findings.remove(loggedError.key());
+        }
+    }
+
+    private static Finding inspect(List<String> entry) {
+        String head = entry.getFirst();
+        long count = LogDeduplicator.multiplicity(head);
+        String rootType = null;
+        String rootMessage = null;
+        String wrapperType = null;
+        boolean bareHead = false;
+        List<String> rootFrames = new ArrayList<>();
+        List<String> allFrames = new ArrayList<>();
+
+        Matcher headType = EXCEPTION_TYPE.matcher(head);
+        if (headType.find()) {
+            rootType = headType.group(1);
+            rootMessage = messageAfter(head, headType.end(), simpleName(rootType));
+            bareHead = headType.start() == 0;
+            Matcher inline = FRAME.matcher(head);
+            if (inline.find(headType.end())) {
+                rootFrames.add(head.substring(inline.start()));
+                allFrames.add(head.substring(inline.start()));
+            }
+        }
+        for (String line : entry.subList(1, entry.size())) {
+            String trimmed = line.strip();
+            if (trimmed.startsWith("at ")) {
+                rootFrames.add(trimmed);
+                allFrames.add(trimmed);
+                continue;
+            }
+            if (!trimmed.startsWith("Caused by:")) {
+                continue;
+            }
+            Matcher cause = EXCEPTION_TYPE.matcher(trimmed);
+            if (cause.find()) {
+                if (wrapperType == null) {
+                    wrapperType = rootType;
+                }
+                rootType = cause.group(1);
+                rootMessage = messageAfter(trimmed, cause.end(), simpleName(rootType));
+                rootFrames.clear();
+            }
+        }
+
+        String service = service(head);
+        if (rootType == null) {
+            Matcher level = ERROR_LEVEL.matcher(head);
+            if (!level.find()) {
+                return null;
+            }
+            Finding finding =
+                    new Finding("Logged " + level.group(1), service, loggedMessage(head), count);
+            finding.typed = false;
+            finding.remediation =
+                    "Investigate the failure logged by "
+                            + (UNKNOWN.equals(service) ? "the application" : service)
+                            + "; log the underlying exception with its stack trace";
+            return finding;
+        }
+
+        String frame = applicationFrame(rootFrames);
+        if (frame == null) {
+            frame = applicationFrame(allFrames);
+        }
+        String exception = simpleName(rootType);
+        String impactedClass = service;
+        String location = null;
+        if (frame != null) {
+            Matcher parts = FRAME.matcher(frame);
+            if (parts.find()) {
+                String qualifier = parts.group(1);
+                impactedClass = qualifier.substring(0, qualifier.length() - 1);
+                location = parts.group(2) + "(" + parts.group(3) + ")";
+            }
+        }
+        Finding finding = new Finding(exception, impactedClass, rootMessage, count);
+        finding.bareHead = bareHead;
+        finding.location = location;
+        if (wrapperType != null && !simpleName(wrapperType).equals(exception)) {
+            finding.wrapper = simpleName(wrapperType);
+        }
+        finding.remediation = remediation(exception, impactedClass, location);
+        return finding;
+    }
+
+    private static List<List<String>> entries(String logs) {
+        List<List<String>> entries = new ArrayList<>();
+        List<String> lines = null;
+        for (String line : logs.split("\\R")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (lines == null || !LogDeduplicator.isContinuation(line)) {
+                lines = new ArrayList<>();
+                entries.add(lines);
+            }
+            lines.add(line);
+        }
+        return entries;
+    }
+
+    private static String applicationFrame(List<String> frames) {
+        for (String frame : frames) {
+            Matcher matcher = FRAME.matcher(frame);
+            if (matcher.find() && !isJdk(matcher.group(1))) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isJdk(String qualifier) {
+        for (String prefix : JDK_PACKAGES) {
+            if (qualifier.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Text after the exception type: the {@code : message}, or the rest of the line. */
+    private static String messageAfter(String line, int end, String exception) {
+        String rest = line.substring(end);
+        Matcher frame = FRAME.matcher(rest);
+        if (frame.find()) {
+            rest = rest.substring(0, frame.start());
+        }
+        rest = rest.strip();
+        if (rest.startsWith(":")) {
+            return shorten(rest.substring(1).strip());
+        }
+        return rest.isEmpty() ? "" : shorten(exception + " " + rest);
+    }
+
+    /** Message of a typeless entry without timestamps, counts, levels and key=value fields. */
+    private static String loggedMessage(String head) {
+        StringBuilder message = new StringBuilder();
+        String text = head;
+        if (text.startsWith("[") && LogDeduplicator.multiplicity(text) > 1) {
+            int close = text.indexOf("] ");
+            text = close < 0 ? text : text.substring(close + 2);
+        }
+        for (String token : text.split("\\s+")) {
+            String bare = token.endsWith(":") ? token.substring(0, token.length() - 1) : token;
+            if (bare.isEmpty()
+                    || bare.contains("=")
+                    || bare.equals("-")
+                    || ERROR_LEVEL.matcher(bare).matches()
+                    || Character.isDigit(bare.charAt(0))
+                    || (bare.startsWith("[") && bare.endsWith("]"))) {
+                continue;
+            }
+            if (!message.isEmpty()) {
+                message.append(' ');
+            }
+            message.append(token);
+        }
+        return shorten(message.toString());
+    }
+
+    private static String service(String head) {
+        Matcher matcher = SERVICE.matcher(head);
+        return matcher.find() ? matcher.group(1) : UNKNOWN;
+    }
+
+    private static String remediation(String exception, String impactedClass, String location) {
+        String target =
+                UNKNOWN.equals(impactedClass)
+                        ? "the failing code"
+                        : impactedClass.substring(impactedClass.lastIndexOf('.') + 1)
+                                + (location == null
+                                        ? ""
+                                        : "." + location.substring(0, location.indexOf('(')));
+        for (Map.Entry<String, String> hint : REMEDIATIONS.entrySet()) {
+            if (exception.contains(hint.getKey())) {
+                return String.format(hint.getValue(), target);
+            }
+        }
+        return "Handle " + exception + " in " + target + " and add error handling around the call";
+    }
+
+    private static String simpleName(String type) {
+        return type.substring(type.lastIndexOf('.') + 1);
+    }
+
+    private static String shorten(String message) {
+        String redacted = SECRET.matcher(message).replaceAll("$1$2[REDACTED]");
+        return redacted.length() <= MAX_MESSAGE_LENGTH
+                ? redacted
+                : redacted.substring(0, MAX_MESSAGE_LENGTH - 3) + "...";
+    }
+
+    private static final class Finding {
+
+        private final String exception;
+        private final String message;
+        private String impactedClass;
+        private String location;
+        private String wrapper;
+        private String remediation;
+        private boolean typed = true;
+        private boolean bareHead;
+        private long count;
+
+        Finding(String exception, String impactedClass, String message, long count) {
+            this.exception = exception;
+            this.impactedClass = impactedClass;
+            this.message = message;
+            this.count = count;
+        }
+
+        String key() {
+            return AnalysisTableMerger.key(new AnalysisTableRow(exception, impactedClass, "", ""));
+        }
+
+        /** Merges a later occurrence into the first one, which keeps its message. */
+        Finding add(Finding other) {
+            count += other.count;
+            return this;
+        }
+
+        AnalysisTableRow toRow() {
+            StringBuilder details =
+                    new StringBuilder(message.isEmpty() ? exception + " thrown" : message);
+            if (location != null) {
+                details.append(" at ").append(location);
+            }
+            if (wrapper != null) {
+                details.append(", wrapped in ").append(wrapper);
+            }
+            if (count > 1) {
+                details.append(" (").append(count).append(" occurrences)");
+            }
+            return new AnalysisTableRow(exception, impactedClass, details.toString(), remediation);
+        }
+    }
+}
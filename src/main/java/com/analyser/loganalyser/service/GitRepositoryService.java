@@ -1,25 +1,167 @@
 package com.analyser.loganalyser.service;
 
+import jakarta.annotation.PostConstruct;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
+/**
+ * Keeps one shallow clone per repository, keyed by the normalized repo URL. A cached clone is
+ * refreshed with an incremental {@code git fetch} at most once per {@code
+ * app.repo-clone.refresh-interval}; concurrent requests for the same repository share a single
+ * clone or fetch. Clones are evicted least recently used first once more than {@code
+ * app.repo-clone.max-repos} are cached or their total size exceeds {@code app.repo-clone.max-disk};
+ * a clone held by a {@link Lease} is never evicted. Clones left in the base directory by an earlier
+ * run are picked up at startup and count towards the limits; anything else there is deleted.
+ */
 @Service
 public class GitRepositoryService {
 
+    private static final Logger logger = LoggerFactory.getLogger(GitRepositoryService.class);
     private static final Duration CLONE_TIMEOUT = Duration.ofMinutes(2);
+    private static final String FILE_SCHEME = "file://";
+
     private final Path repoBaseDir;
+    private final Duration refreshInterval;
+    private final int maxRepos;
+    private final long maxDiskBytes;
+    private final boolean allowFileUrls;
+    private final Clock clock;
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, CachedRepo> repos = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Integer> leases = new HashMap<>();
+
+    @Autowired
+    public GitRepositoryService(
+            @Value("${app.repo-clone.base-dir:target/cloned-repos}") String repoBaseDir,
+            @Value("${app.repo-clone.refresh-interval:5m}") Duration refreshInterval,
+            @Value("${app.repo-clone.max-repos:20}") int maxRepos,
+            @Value("${app.repo-clone.max-disk:2GB}") DataSize maxDisk,
+            @Value("${app.repo-clone.allow-file-urls:false}") boolean allowFileUrls) {
+        this(
+                Paths.get(repoBaseDir),
+                refreshInterval,
+                maxRepos,
+                maxDisk.toBytes(),
+                allowFileUrls,
+                Clock.systemUTC());
+    }
 
     public GitRepositoryService(
-            @Value("${app.repo-clone.base-dir:target/cloned-repos}") String repoBaseDir) {
-        this.repoBaseDir = Paths.get(repoBaseDir).toAbsolutePath().normalize();
+            Path repoBaseDir,
+            Duration refreshInterval,
+            int maxRepos,
+            long maxDiskBytes,
+            boolean allowFileUrls,
+            Clock clock) {
+        this.repoBaseDir = repoBaseDir.toAbsolutePath().normalize();
+        this.refreshInterval = refreshInterval;
+        this.maxRepos = maxRepos;
+        this.maxDiskBytes = maxDiskBytes;
+        this.allowFileUrls = allowFileUrls;
+        this.clock = clock;
+    }
+
+    /** Keeps a repository's clone from being evicted until it is closed. */
+    @FunctionalInterface
+    public interface Lease extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Leases the clone of {@code repoLink}, whether or not it is cloned yet, so that it stays on
+     * disk while a request reads from it. Links that are not git repositories get a no-op lease.
+     */
+    public Lease lease(String repoLink) {
+        if (repoLink == null || !looksLikeGitRepoLink(repoLink)) {
+            return () -> {};
+        }
+        String key = normalizeRepoLink(repoLink);
+        synchronized (repos) {
+            leases.merge(key, 1, Integer::sum);
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                synchronized (repos) {
+                    leases.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+                }
+                // a clone kept past the limits by this lease goes now
+                evict(null);
+            }
+        };
+    }
+
+    /**
+     * Registers the clones an earlier run left in the base directory, least recently modified
+     * first, and deletes directories that are not a clone of the repository their name belongs to
+     * (e.g. interrupted clones). The limits are applied right away.
+     */
+    @PostConstruct
+    public void loadExistingClones() {
+        if (!Files.isDirectory(repoBaseDir)) {
+            return;
+        }
+        List<Path> dirs;
+        try (Stream<Path> children = Files.list(repoBaseDir)) {
+            dirs =
+                    children.filter(Files::isDirectory)
+                            .sorted(Comparator.comparing(GitRepositoryService::lastModified))
+                            .toList();
+        } catch (IOException e) {
+            logger.warn("Unable to list cached clones in {}: {}", repoBaseDir, e.getMessage());
+            return;
+        }
+        for (Path dir : dirs) {
+            Optional<String> originUrl = originUrl(dir);
+            String key = originUrl.map(GitRepositoryService::normalizeRepoLink).orElse(null);
+            if (key != null
+                    && dir.getFileName().toString().equals(folderName(key, originUrl.get()))) {
+                synchronized (repos) {
+                    repos.put(key, new CachedRepo(dir, Instant.EPOCH, directorySize(dir)));
+                }
+                continue;
+            }
+            try {
+                deleteRecursively(dir);
+                logger.info("Deleted leftover clone directory {}", dir);
+            } catch (IOException e) {
+                logger.warn(
+                        "Unable to delete leftover clone directory {}: {}", dir, e.getMessage());
+            }
+        }
+        logger.info("Found {} cached clones in {}", repos.size(), repoBaseDir);
+        evict(null);
     }
 
     public String cloneRepositoryIfApplicable(String repoLink) {
@@ -30,36 +172,179 @@ public class GitRepositoryService {
             return repoLink;
         }
 
-        Path cloneDir = buildClonePath(repoLink.trim());
+        Path cloneDir = checkout(repoLink.trim());
+        return repoLink.trim() + " (cloned to " + cloneDir + ")";
+    }
+
+    /**
+     * Returns the local clone of {@code repoLink}, cloning or fetching as needed. Callers asking
+     * for the same repository concurrently wait for one shared git invocation.
+     */
+    public Path checkout(String repoLink) {
+        String key = normalizeRepoLink(repoLink);
+        CompletableFuture<Path> own = new CompletableFuture<>();
+        CompletableFuture<Path> shared = inFlight.putIfAbsent(key, own);
+        if (shared != null) {
+            return join(shared);
+        }
+        try {
+            own.complete(sync(key, repoLink));
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, own);
+        }
+        return join(own);
+    }
+
+    /** Local clone of {@code repoLink} if it is currently cached, without running git. */
+    public Optional<Path> cachedClone(String repoLink) {
+        if (repoLink == null || !looksLikeGitRepoLink(repoLink)) {
+            return Optional.empty();
+        }
+        CachedRepo cached;
+        synchronized (repos) {
+            cached = repos.get(normalizeRepoLink(repoLink));
+        }
+        return Optional.ofNullable(cached)
+                .map(CachedRepo::dir)
+                .filter(dir -> Files.isDirectory(dir.resolve(".git")));
+    }
+
+    /**
+     * Normalizes scheme and host case, {@code git@host:path} shorthand, trailing slashes and the
+     * {@code .git} suffix so equivalent links share one clone.
+     */
+    public static String normalizeRepoLink(String repoLink) {
+        String link = repoLink.trim().replace('\\', '/');
+        if (link.startsWith("git@")) {
+            link = "ssh://" + link.replaceFirst(":", "/");
+        }
+        int schemeEnd = link.indexOf("://");
+        String scheme = schemeEnd < 0 ? "" : link.substring(0, schemeEnd).toLowerCase(Locale.ROOT);
+        String rest = schemeEnd < 0 ? link : link.substring(schemeEnd + 3);
+        int pathStart = rest.indexOf('/');
+        String host = pathStart < 0 ? rest : rest.substring(0, pathStart);
+        String path = pathStart < 0 ? "" : rest.substring(pathStart);
+        int userEnd = host.lastIndexOf('@');
+        host = host.substring(userEnd + 1).toLowerCase(Locale.ROOT);
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        if (path.endsWith(".git")) {
+            path = path.substring(0, path.length() - 4);
+        }
+        if (scheme.equals("http")) {
+            scheme = "https";
+        }
+        return scheme + "://" + host + path;
+    }
+
+    private Path sync(String key, String repoLink) {
+        Path cloneDir = repoBaseDir.resolve(folderName(key, repoLink));
+        CachedRepo cached;
+        synchronized (repos) {
+            cached = repos.get(key);
+        }
+        Instant now = clock.instant();
+        if (cached != null && Files.isDirectory(cloneDir.resolve(".git"))) {
+            if (now.isBefore(cached.lastFetched.plus(refreshInterval))) {
+                return cloneDir;
+            }
+            if (!fetch(cloneDir)) {
+                logger.warn("Fetch failed for {}, using cached clone", repoLink);
+            }
+        } else if (Files.isDirectory(cloneDir.resolve(".git"))) {
+            if (!fetch(cloneDir)) {
+                logger.warn("Fetch failed for {}, using clone left by a previous run", repoLink);
+            }
+        } else {
+            clone(repoLink, cloneDir);
+        }
+        synchronized (repos) {
+            repos.put(key, new CachedRepo(cloneDir, now, directorySize(cloneDir)));
+        }
+        evict(key);
+        return cloneDir;
+    }
+
+    private void clone(String repoLink, Path cloneDir) {
         try {
             Files.createDirectories(repoBaseDir);
+            deleteRecursively(cloneDir);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(
+                    "Unable to prepare clone directory " + cloneDir + ".", e);
+        }
+        int exitCode = runGit("clone", "--depth", "1", "--", repoLink, cloneDir.toString());
+        if (exitCode != 0) {
+            throw new IllegalArgumentException("Git clone failed for repo link: " + repoLink);
+        }
+        logger.info("Cloned {} into {}", repoLink, cloneDir);
+    }
+
+    private boolean fetch(Path cloneDir) {
+        String dir = cloneDir.toString();
+        if (runGit("-C", dir, "fetch", "--depth", "1", "origin") != 0) {
+            return false;
+        }
+        return runGit("-C", dir, "reset", "--hard", "FETCH_HEAD") == 0;
+    }
+
+    private int runGit(String... args) {
+        List<String> command = new ArrayList<>(args.length + 1);
+        command.add("git");
+        command.addAll(List.of(args));
+        try {
             Process process =
-                    new ProcessBuilder(
-                                    "git",
-                                    "clone",
-                                    "--depth",
-                                    "1",
-                                    repoLink.trim(),
-                                    cloneDir.toString())
+                    new ProcessBuilder(command)
                             .redirectErrorStream(true)
+                            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
                             .start();
             boolean finished = process.waitFor(CLONE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
             if (!finished) {
                 process.destroyForcibly();
                 throw new IllegalArgumentException(
-                        "Git clone timed out after " + CLONE_TIMEOUT.toSeconds() + " seconds.");
-            }
-            if (process.exitValue() != 0) {
-                throw new IllegalArgumentException(
-                        "Git clone failed for repo link: " + repoLink.trim());
+                        "Git "
+                                + args[0]
+                                + " timed out after "
+                                + CLONE_TIMEOUT.toSeconds()
+                                + " seconds.");
             }
-            return repoLink.trim() + " (cloned to " + cloneDir.toAbsolutePath() + ")";
+            return process.exitValue();
         } catch (IOException e) {
             throw new IllegalArgumentException(
-                    "Unable to run git clone. Ensure git is installed and accessible.", e);
+                    "Unable to run git. Ensure git is installed and accessible.", e);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            throw new IllegalArgumentException("Git clone was interrupted.", e);
+            throw new IllegalArgumentException("Git command was interrupted.", e);
+        }
+    }
+
+    private void evict(String currentKey) {
+        List<CachedRepo> evicted = new ArrayList<>();
+        synchronized (repos) {
+            long totalBytes = repos.values().stream().mapToLong(CachedRepo::sizeBytes).sum();
+            var iterator = repos.entrySet().iterator();
+            while (iterator.hasNext() && (repos.size() > maxRepos || totalBytes > maxDiskBytes)) {
+                var entry = iterator.next();
+                if (entry.getKey().equals(currentKey)
+                        || inFlight.containsKey(entry.getKey())
+                        || leases.containsKey(entry.getKey())) {
+                    continue;
+                }
+                totalBytes -= entry.getValue().sizeBytes();
+                evicted.add(entry.getValue());
+                iterator.remove();
+            }
+        }
+        for (CachedRepo repo : evicted) {
+            try {
+                deleteRecursively(repo.dir());
+                logger.info("Evicted cached clone {}", repo.dir());
+            } catch (IOException e) {
+                logger.warn("Unable to delete cached clone {}: {}", repo.dir(), e.getMessage());
+            }
         }
     }
 
@@ -68,15 +353,15 @@ public class GitRepositoryService {
         return normalized.startsWith("https://")
                 || normalized.startsWith("http://")
                 || normalized.startsWith("ssh://")
-                || normalized.startsWith("git@");
+                || normalized.startsWith("git@")
+                || (allowFileUrls && normalized.startsWith(FILE_SCHEME));
     }
 
-    private Path buildClonePath(String repoLink) {
-        String folderName = sanitizeRepoFolderName(repoLink) + "-" + Instant.now().toEpochMilli();
-        return repoBaseDir.resolve(folderName);
+    private static String folderName(String key, String repoLink) {
+        return sanitizeRepoFolderName(repoLink) + "-" + sha256(key).substring(0, 12);
     }
 
-    private String sanitizeRepoFolderName(String repoLink) {
+    private static String sanitizeRepoFolderName(String repoLink) {
         String[] parts = repoLink.replace('\\', '/').split("/");
         String candidate = parts.length == 0 ? "repo" : parts[parts.length - 1];
         if (candidate.endsWith(".git")) {
@@ -85,4 +370,87 @@ public class GitRepositoryService {
         String sanitized = candidate.replaceAll("[^a-zA-Z0-9._-]", "_");
         return sanitized.isBlank() ? "repo" : sanitized;
     }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    /** The {@code origin} URL in a clone's {@code .git/config}, without running git. */
+    private static Optional<String> originUrl(Path dir) {
+        Path config = dir.resolve(".git").resolve("config");
+        if (!Files.isRegularFile(config)) {
+            return Optional.empty();
+        }
+        try {
+            boolean origin = false;
+            for (String line : Files.readAllLines(config, StandardCharsets.UTF_8)) {
+                String trimmed = line.trim();
+                if (trimmed.startsWith("[")) {
+                    origin = trimmed.equals("[remote \"origin\"]");
+                } else if (origin && trimmed.startsWith("url")) {
+                    int equals = trimmed.indexOf('=');
+                    if (equals > 0) {
+                        return Optional.of(trimmed.substring(equals + 1).trim());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to read {}: {}", config, e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    private static long lastModified(Path dir) {
+        try {
+            return Files.getLastModifiedTime(dir).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long directorySize(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile)
+                    .mapToLong(
+                            file -> {
+                                try {
+                                    return Files.size(file);
+                                } catch (IOException e) {
+                                    return 0;
+                                }
+                            })
+                    .sum();
+        } catch (IOException | UncheckedIOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static Path join(CompletableFuture<Path> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record CachedRepo(Path dir, Instant lastFetched, long sizeBytes) {}
 }
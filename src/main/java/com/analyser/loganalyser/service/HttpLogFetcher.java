@@ -0,0 +1,452 @@
+package com.analyser.loganalyser.service;
+
+import com.analyser.loganalyser.config.LogProperties;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Fetches logs from {@code <env-url>/api/logs} over a shared keep-alive {@link HttpClient}. Pages
+ * are requested with {@code limit} and {@code cursor} parameters until the response carries no
+ * {@value #NEXT_CURSOR_HEADER} header. Each page is decoded (gzip, NDJSON or plain text) while it
+ * is read and pages are only requested as the consumer of {@link #streamLogs} pulls lines. Page
+ * requests per environment are limited by {@code log.http.max-concurrency}. {@code
+ * log.http.request-timeout} bounds both the wait for the response headers and every read of the
+ * body, so a stalled page fails instead of holding its permit forever.
+ */
+@Component
+@ConditionalOnProperty(name = "log.fetcher", havingValue = "http")
+public class HttpLogFetcher implements LogFetcher {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpLogFetcher.class);
+    private static final String NDJSON = "application/x-ndjson";
+    private static final List<String> TIMESTAMP_FIELDS = List.of("timestamp", "@timestamp", "time");
+    private static final List<String> LEVEL_FIELDS = List.of("level", "severity");
+    private static final List<String> APPLICATION_FIELDS = List.of("app", "application", "service");
+    private static final List<String> MESSAGE_FIELDS = List.of("message", "msg");
+    private static final List<String> STACK_TRACE_FIELDS =
+            List.of("stackTrace", "stack_trace", "exception");
+
+    private final LogProperties logProperties;
+    private final ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService readDeadlines =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().factory());
+    private final HttpClient httpClient;
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+    public HttpLogFetcher(LogProperties logProperties) {
+        this.logProperties = logProperties;
+        this.httpClient =
+                HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(logProperties.getHttp().getConnectTimeout())
+                        .followRedirects(HttpClient.Redirect.NORMAL)
+                        .executor(clientExecutor)
+                        .build();
+    }
+
+    @PreDestroy
+    public void close() {
+        httpClient.shutdownNow();
+        clientExecutor.shutdownNow();
+        readDeadlines.shutdownNow();
+    }
+
+    @Override
+    public String fetchLogs(String env, Integer days, String logLevel, String applicationName) {
+        try (Stream<String> lines = streamLogs(env, days, logLevel, applicationName)) {
+            return lines.collect(Collectors.joining("\n"));
+        }
+    }
+
+    /**
+     * Pulls pages only as the stream is consumed, so at most one page is open at a time and nothing
+     * is buffered beyond the current line. Closing the stream aborts the open response.
+     */
+    @Override
+    public Stream<String> streamLogs(
+            String env, Integer days, String logLevel, String applicationName) {
+        PageCursor cursor = new PageCursor(env, baseUrl(env), days, logLevel, applicationName);
+        return StreamSupport.stream(
+                        Spliterators.spliteratorUnknownSize(
+                                cursor, Spliterator.ORDERED | Spliterator.NONNULL),
+                        false)
+                .onClose(cursor::close);
+    }
+
+    /**
+     * Iterates over the lines of all pages. A page is requested when the previous one is exhausted;
+     * its per-environment permit is held until the page is fully read or closed.
+     */
+    private final class PageCursor implements Iterator<String>, AutoCloseable {
+
+        private final String env;
+        private final String baseUrl;
+        private final Integer days;
+        private final String logLevel;
+        private final String applicationName;
+        private BufferedReader page;
+        private Semaphore pagePermits;
+        private String nextCursor;
+        private int pages;
+        private long lines;
+        private String nextLine;
+        private boolean exhausted;
+
+        PageCursor(
+                String env, String baseUrl, Integer days, String logLevel, String applicationName) {
+            this.env = env;
+            this.baseUrl = baseUrl;
+            this.days = days;
+            this.logLevel = logLevel;
+            this.applicationName = applicationName;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextLine == null && !exhausted) {
+                if (page == null && !openNextPage()) {
+                    exhausted = true;
+                    logger.info("Fetched {} log lines from '{}' in {} pages", lines, env, pages);
+                    break;
+                }
+                String line = readLine();
+                if (line == null) {
+                    closePage();
+                } else if (!line.isBlank()) {
+                    nextLine = toLogLine(line);
+                    lines++;
+                }
+            }
+            return nextLine != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String line = nextLine;
+            nextLine = null;
+            return line;
+        }
+
+        @Override
+        public void close() {
+            exhausted = true;
+            closePage();
+        }
+
+        private boolean openNextPage() {
+            if (pages > 0 && (nextCursor == null || nextCursor.isBlank())) {
+                return false;
+            }
+            int maxPages = logProperties.getHttp().getMaxPages();
+            if (pages == maxPages) {
+                logger.warn("Stopped fetching logs from '{}' after {} pages", env, maxPages);
+                return false;
+            }
+            URI uri = pageUri(baseUrl, days, logLevel, applicationName, nextCursor);
+            pagePermits = acquire(env);
+            try {
+                HttpResponse<InputStream> response = send(env, uri);
+                nextCursor = response.headers().firstValue(NEXT_CURSOR_HEADER).orElse(null);
+                InputStream body =
+                        new DeadlineInputStream(
+                                response.body(), logProperties.getHttp().requestTimeoutFor(env));
+                page =
+                        new BufferedReader(
+                                new InputStreamReader(
+                                        decode(body, response), StandardCharsets.UTF_8));
+                pages++;
+                return true;
+            } catch (IOException e) {
+                closePage();
+                throw new LogFetchException(
+                        "Unable to fetch logs from environment '" + env + "': " + e.getMessage(),
+                        e);
+            } catch (RuntimeException e) {
+                closePage();
+                throw e;
+            }
+        }
+
+        private String readLine() {
+            try {
+                return page.readLine();
+            } catch (IOException e) {
+                close();
+                throw new LogFetchException(
+                        "Unable to read logs from environment '" + env + "': " + e.getMessage(), e);
+            }
+        }
+
+        private void closePage() {
+            if (page != null) {
+                try {
+                    page.close();
+                } catch (IOException e) {
+                    logger.debug("Error closing log page of '{}': {}", env, e.getMessage());
+                }
+                page = null;
+            }
+            if (pagePermits != null) {
+                pagePermits.release();
+                pagePermits = null;
+            }
+        }
+    }
+
+    /**
+     * Closes the response body when a single read blocks longer than the request timeout. Closing
+     * the JDK response stream cancels the exchange and wakes the blocked read, which then fails
+     * instead of reporting a truncated page as complete.
+     */
+    private final class DeadlineInputStream extends FilterInputStream {
+
+        private final Duration timeout;
+        private volatile boolean timedOut;
+
+        DeadlineInputStream(InputStream body, Duration timeout) {
+            super(body);
+            this.timeout = timeout;
+        }
+
+        @Override
+        public int read() throws IOException {
+            ScheduledFuture<?> deadline = schedule();
+            try {
+                return checked(super.read());
+            } catch (IOException e) {
+                throw timedOut ? timeoutException() : e;
+            } finally {
+                deadline.cancel(false);
+            }
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            ScheduledFuture<?> deadline = schedule();
+            try {
+                return checked(in.read(buffer, offset, length));
+            } catch (IOException e) {
+                throw timedOut ? timeoutException() : e;
+            } finally {
+                deadline.cancel(false);
+            }
+        }
+
+        private ScheduledFuture<?> schedule() {
+            return readDeadlines.schedule(this::expire, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        private int checked(int read) throws IOException {
+            if (timedOut) {
+                throw timeoutException();
+            }
+            return read;
+        }
+
+        private IOException timeoutException() {
+            return new IOException("No log data received within " + timeout);
+        }
+
+        private void expire() {
+            timedOut = true;
+            try {
+                in.close();
+            } catch (IOException e) {
+                logger.debug("Error aborting stalled log page: {}", e.getMessage());
+            }
+        }
+    }
+
+    private Semaphore acquire(String env) {
+        Duration timeout = logProperties.getHttp().requestTimeoutFor(env);
+        Semaphore envPermits =
+                permits.computeIfAbsent(
+                        env,
+                        key -> new Semaphore(logProperties.getHttp().maxConcurrencyFor(key), true));
+        try {
+            if (!envPermits.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new LogFetchException(
+                        "Too many concurrent log requests for environment '" + env + "'.");
+            }
+            return envPermits;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LogFetchException("Interrupted while waiting to fetch logs.", e);
+        }
+    }
+
+    private HttpResponse<InputStream> send(String env, URI uri) throws IOException {
+        HttpRequest request =
+                HttpRequest.newBuilder(uri)
+                        .timeout(logProperties.getHttp().requestTimeoutFor(env))
+                        .header("Accept", NDJSON + ", text/plain")
+                        .header("Accept-Encoding", "gzip")
+                        .GET()
+                        .build();
+        try {
+            HttpResponse<InputStream> response =
+                    httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() / 100 != 2) {
+                response.body().close();
+                throw new LogFetchException(
+                        "Log API of environment '"
+                                + env
+                                + "' responded with HTTP "
+                                + response.statusCode()
+                                + ".");
+            }
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LogFetchException("Interrupted while fetching logs.", e);
+        }
+    }
+
+    private static InputStream decode(InputStream body, HttpResponse<?> response)
+            throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("");
+        if (encoding.toLowerCase(Locale.ROOT).contains("gzip")) {
+            return new GZIPInputStream(body);
+        }
+        return body;
+    }
+
+    /**
+     * Renders an NDJSON record as {@code timestamp level [application] message}, followed by its
+     * stack trace. Lines that are not JSON objects are returned unchanged.
+     */
+    static String toLogLine(String line) {
+        String trimmed = line.strip();
+        if (!trimmed.startsWith("{")) {
+            return line;
+        }
+        JsonNode record;
+        try {
+            record = JsonMapper.shared().readTree(trimmed);
+        } catch (JacksonException e) {
+            return line;
+        }
+        if (!record.isObject()) {
+            return line;
+        }
+        StringBuilder rendered = new StringBuilder();
+        appendField(rendered, record, TIMESTAMP_FIELDS, "", "");
+        appendField(rendered, record, LEVEL_FIELDS, "", "");
+        appendField(rendered, record, APPLICATION_FIELDS, "[", "]");
+        appendField(rendered, record, MESSAGE_FIELDS, "", "");
+        if (rendered.isEmpty()) {
+            return trimmed;
+        }
+        String stackTrace = firstText(record, STACK_TRACE_FIELDS);
+        if (stackTrace != null) {
+            rendered.append('\n').append(stackTrace.stripTrailing());
+        }
+        return rendered.toString();
+    }
+
+    private static void appendField(
+            StringBuilder rendered,
+            JsonNode record,
+            List<String> names,
+            String prefix,
+            String suffix) {
+        String value = firstText(record, names);
+        if (value == null) {
+            return;
+        }
+        if (!rendered.isEmpty()) {
+            rendered.append(' ');
+        }
+        rendered.append(prefix).append(value).append(suffix);
+    }
+
+    private static String firstText(JsonNode record, List<String> names) {
+        for (String name : names) {
+            JsonNode value = record.get(name);
+            if (value != null && !value.isNull()) {
+                String text = value.isValueNode() ? value.asString() : value.toString();
+                if (!text.isBlank()) {
+                    return text;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String baseUrl(String env) {
+        Map<String, String> envUrls = logProperties.getEnvUrls();
+        String baseUrl = envUrls == null ? null : envUrls.get(env);
+        if (baseUrl == null || baseUrl.isBlank()) {
+            throw new IllegalArgumentException("Unknown environment: " + env);
+        }
+        return baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    private URI pageUri(
+            String baseUrl, Integer days, String logLevel, String applicationName, String cursor) {
+        StringBuilder uri =
+                new StringBuilder(baseUrl)
+                        .append("/api/logs?days=")
+                        .append(days != null ? days : 1)
+                        .append("&limit=")
+                        .append(logProperties.getHttp().getPageSize());
+        appendParameter(uri, "level", filter(logLevel));
+        appendParameter(uri, "app", filter(applicationName));
+        appendParameter(uri, "cursor", cursor);
+        return URI.create(uri.toString());
+    }
+
+    private static String filter(String value) {
+        return "All".equalsIgnoreCase(value) ? null : value;
+    }
+
+    private static void appendParameter(StringBuilder uri, String name, String value) {
+        if (value != null && !value.isBlank()) {
+            uri.append('&')
+                    .append(name)
+                    .append('=')
+                    .append(URLEncoder.encode(value.trim(), StandardCharsets.UTF_8));
+        }
+    }
+}
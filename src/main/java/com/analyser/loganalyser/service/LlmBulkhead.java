@@ -0,0 +1,148 @@
+package com.analyser.loganalyser.service;
+
+import com.analyser.loganalyser.config.AnalysisProperties;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Limits the model calls of all requests together. At most {@code
+ * analysis.max-in-flight.<provider>} calls run at once and at most {@code
+ * analysis.max-queued-calls} wait up to {@code analysis.queue-timeout} for a slot; any other call
+ * is rejected at once with {@link LlmBusyException} instead of piling up provider retries.
+ * Identical prompts that are already in flight are not sent again: the callers share the first
+ * call's result.
+ */
+@Component
+public class LlmBulkhead {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmBulkhead.class);
+
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final Duration queueTimeout;
+    private final Map<PromptKey, CompletableFuture<String>> calls = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public LlmBulkhead(
+            AnalysisProperties analysisProperties,
+            @Value("${ai.provider:ollama}") String provider) {
+        this.maxInFlight = analysisProperties.maxInFlightFor(provider);
+        this.permits = new Semaphore(maxInFlight, true);
+        this.maxQueued = Math.max(0, analysisProperties.getMaxQueuedCalls());
+        this.queueTimeout = analysisProperties.getQueueTimeout();
+    }
+
+    private record PromptKey(String systemPrompt, String userPrompt) {}
+
+    /**
+     * Runs {@code call} within the limits, or joins the identical call already in flight.
+     *
+     * @throws LlmBusyException if no slot becomes free in time
+     */
+    public String call(String systemPrompt, String userPrompt, Supplier<String> call) {
+        PromptKey key = new PromptKey(systemPrompt, userPrompt);
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> existing = calls.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtime
+                        ? runtime
+                        : new IllegalStateException("Model call failed.", e.getCause());
+            }
+        }
+        try {
+            acquire();
+            try {
+                String result = call.get();
+                mine.complete(result);
+                return result;
+            } finally {
+                permits.release();
+            }
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, mine);
+        }
+    }
+
+    /** Holds a slot from subscription until {@code stream} terminates or is cancelled. */
+    public <T> Flux<T> stream(Supplier<Flux<T>> stream) {
+        return Flux.using(
+                        () -> {
+                            acquire();
+                            return permits;
+                        },
+                        slot -> stream.get(),
+                        Semaphore::release)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public int maxInFlight() {
+        return maxInFlight;
+    }
+
+    public int inFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    public int queued() {
+        return queued.get();
+    }
+
+    public long rejected() {
+        return rejected.get();
+    }
+
+    public long coalesced() {
+        return coalesced.get();
+    }
+
+    private void acquire() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            throw reject("Too many model calls are waiting; retry later.");
+        }
+        try {
+            if (!permits.tryAcquire(queueTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw reject(
+                        "No model call slot became free within " + queueTimeout + "; retry later.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a model call slot.", e);
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    private LlmBusyException reject(String message) {
+        rejected.incrementAndGet();
+        logger.warn("Rejected model call: {} ({} in flight)", message, inFlight());
+        return new LlmBusyException(message);
+    }
+}
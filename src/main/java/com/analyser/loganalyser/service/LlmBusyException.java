@@ -0,0 +1,15 @@
+package com.analyser.loganalyser.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** Raised when a model call cannot get a slot because the provider's bulkhead is saturated. */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class LlmBusyException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public LlmBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,91 @@
+package com.analyser.loganalyser.service;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * Single entry point for prompt round-trips against the configured {@link ChatClient}. Every call
+ * passes through the {@link LlmBulkhead} and is recorded in {@link AnalysisMetrics}.
+ */
+@Component
+public class LlmClient {
+
+    private final ChatClient chatClient;
+    private final LlmBulkhead bulkhead;
+    private final AnalysisMetrics metrics;
+
+    public LlmClient(ChatClient chatClient, LlmBulkhead bulkhead, AnalysisMetrics metrics) {
+        this.chatClient = chatClient;
+        this.bulkhead = bulkhead;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @throws LlmBusyException if the bulkhead has no slot for the call
+     */
+    public String call(String systemPrompt, String userPrompt) {
+        return bulkhead.call(
+                systemPrompt,
+                userPrompt,
+                () -> {
+                    Timer.Sample sample = metrics.start();
+                    String response = null;
+                    boolean success = false;
+                    try {
+                        response =
+                                (systemPrompt != null && !systemPrompt.isBlank())
+                                        ? chatClient
+                                                .prompt()
+                                                .system(systemPrompt)
+                                                .user(userPrompt)
+                                                .call()
+                                                .content()
+                                        : chatClient.prompt().user(userPrompt).call().content();
+                        success = true;
+                        return response;
+                    } finally {
+                        metrics.recordLlmCall(
+                                sample, "call", success, systemPrompt, userPrompt, response);
+                    }
+                });
+    }
+
+    /** Streams the response content as it is generated, holding a bulkhead slot meanwhile. */
+    public Flux<String> stream(String systemPrompt, String userPrompt) {
+        return bulkhead.stream(
+                () -> {
+                    Timer.Sample sample = metrics.start();
+                    StringBuilder response = new StringBuilder();
+                    Flux<String> content =
+                            (systemPrompt != null && !systemPrompt.isBlank())
+                                    ? chatClient
+                                            .prompt()
+                                            .system(systemPrompt)
+                                            .user(userPrompt)
+                                            .stream()
+                                            .content()
+                                    : chatClient.prompt().user(userPrompt).stream().content();
+                    return content.doOnNext(response::append)
+                            .doOnComplete(
+                                    () ->
+                                            metrics.recordLlmCall(
+                                                    sample,
+                                                    "stream",
+                                                    true,
+                                                    systemPrompt,
+                                                    userPrompt,
+                                                    response))
+                            .doOnError(
+                                    e ->
+                                            metrics.recordLlmCall(
+                                                    sample,
+                                                    "stream",
+                                                    false,
+                                                    systemPrompt,
+                                                    userPrompt,
+                                                    response));
+                });
+    }
+}
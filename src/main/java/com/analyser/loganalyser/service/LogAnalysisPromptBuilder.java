@@ -1,12 +1,55 @@
 package com.analyser.loganalyser.service;
 
+import com.analyser.loganalyser.model.AnalysisMode;
 import com.analyser.loganalyser.model.LogAnalysisRequest;
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+/**
+ * Builds the analysis prompt within the provider's prompt budget ({@link
+ * TokenEstimator#maxPromptTokens()}). Source snippets are only added if the logs fit next to them;
+ * logs that do not fit are trimmed by {@link LogTrimmer}, which reports what it elided. In {@link
+ * AnalysisMode#SEEDED} mode the table extracted by {@link ExceptionExtractor} is included for the
+ * model to verify and complete; it comes before the source snippets, which are dropped first, and
+ * its rows are capped if the logs would otherwise get less than half of the budget.
+ */
 @Component
 public class LogAnalysisPromptBuilder {
 
+    private static final Logger logger = LoggerFactory.getLogger(LogAnalysisPromptBuilder.class);
+    private static final String SOURCE_CONTEXT_INTRO =
+            " Use the following source code around the referenced stack frames"
+                    + " (the referenced line is marked with >) for the remediation:\n";
+    private static final String SEED_INTRO =
+            " These exceptions were extracted from the logs without a model; verify them, add"
+                    + " missing ones and improve the remediation:\n";
+
+    private final SourceContextIndex sourceContextIndex;
+    private final TokenEstimator tokenEstimator;
+    private final ExceptionExtractor exceptionExtractor;
+    private final LogTrimmer logTrimmer;
+    private final AnalysisMetrics metrics;
+
+    public LogAnalysisPromptBuilder(
+            SourceContextIndex sourceContextIndex,
+            TokenEstimator tokenEstimator,
+            ExceptionExtractor exceptionExtractor,
+            AnalysisMetrics metrics) {
+        this.sourceContextIndex = sourceContextIndex;
+        this.tokenEstimator = tokenEstimator;
+        this.exceptionExtractor = exceptionExtractor;
+        this.logTrimmer = new LogTrimmer(tokenEstimator);
+        this.metrics = metrics;
+    }
+
     public String buildAnalysisPrompt(LogAnalysisRequest request, String logsToProcess) {
+        return metrics.time(
+                AnalysisMetrics.Stage.PROMPT, () -> buildPrompt(request, logsToProcess));
+    }
+
+    private String buildPrompt(LogAnalysisRequest request, String logsToProcess) {
         StringBuilder prompt = new StringBuilder();
         if (request.query() != null && !request.query().isEmpty()) {
             prompt.append(request.query()).append(" ");
@@ -40,10 +83,85 @@ public class LogAnalysisPromptBuilder {
                 "Avoid duplicate errors and Provide the output in a consistent tabular format with the following columns: Exception, Impacted Class, Details of Exception, Remediation of Code.");
         prompt.append(
                 " Return only the markdown table and rows. Do not return validation summaries, rule checks, headings, bullet points, or JSON.");
-        prompt.append(": ").append(logsToProcess);
+        int instructionsLength = prompt.length();
+        int budget = logBudget(prompt);
+        int logTokens = tokenEstimator.estimate(logsToProcess);
+        String seedTable = "";
+        int seedTokens = 0;
+        if (request.analysisMode() == AnalysisMode.SEEDED) {
+            int seedBudget =
+                    Math.max(budget - logTokens, budget / 2)
+                            - tokenEstimator.estimate(SEED_INTRO)
+                            - 1;
+            seedTable = capRows(exceptionExtractor.table(logsToProcess), seedBudget);
+            if (!seedTable.isEmpty()) {
+                seedTokens = tokenEstimator.estimate(SEED_INTRO + seedTable) + 1;
+            }
+        }
+        String sourceContext = sourceContextIndex.snippets(request.repoPath(), logsToProcess);
+        if (!sourceContext.isEmpty()) {
+            int sourceTokens = tokenEstimator.estimate(SOURCE_CONTEXT_INTRO + sourceContext) + 1;
+            if (logTokens + seedTokens + sourceTokens <= budget) {
+                prompt.append(SOURCE_CONTEXT_INTRO).append(sourceContext);
+            } else {
+                logger.info("Omitting source context, the logs need the whole prompt budget");
+            }
+        }
+        if (!seedTable.isEmpty()) {
+            prompt.append(SEED_INTRO).append(seedTable).append('\n');
+        }
+        if (prompt.length() > instructionsLength) {
+            prompt.append("Logs");
+            budget = logBudget(prompt);
+        }
+        LogTrimmer.TrimmedLogs logs = logTrimmer.trim(logsToProcess, budget);
+        if (logs.trimmed()) {
+            logger.info(
+                    "Trimmed logs to {} prompt tokens: elided {} entries ({}), about {} tokens",
+                    tokenEstimator.maxPromptTokens(),
+                    logs.elidedEntries(),
+                    logs.elidedLevels(),
+                    logs.elidedTokens());
+        }
+        prompt.append(": ").append(logs.logs());
         return prompt.toString();
     }
 
+    /**
+     * The header and as many leading rows of the markdown {@code table} as fit in {@code budget}
+     * tokens; empty if not even one row fits. Rows are ordered most frequent first.
+     */
+    private String capRows(String table, int budget) {
+        if (tokenEstimator.estimate(table) <= budget) {
+            return table;
+        }
+        String[] lines = table.split("\n");
+        int headerLines = Math.min(2, lines.length);
+        int tokens = 0;
+        int kept = 0;
+        for (int i = 0; i < lines.length; i++) {
+            tokens += tokenEstimator.estimate(lines[i]) + 1;
+            if (tokens > budget) {
+                break;
+            }
+            kept++;
+        }
+        if (kept <= headerLines) {
+            logger.info("Omitting the seeded table, the logs need the whole prompt budget");
+            return "";
+        }
+        logger.info(
+                "Capped the seeded table to {} of {} rows to fit the prompt budget",
+                kept - headerLines,
+                lines.length - headerLines);
+        return String.join("\n", Arrays.asList(lines).subList(0, kept));
+    }
+
+    /** Tokens left for the logs after the instructions and the {@code ": "} separator. */
+    private int logBudget(CharSequence instructions) {
+        return tokenEstimator.maxPromptTokens() - tokenEstimator.estimate(instructions) - 1;
+    }
+
     public String buildEmailPrompt(String emailTemplateContent, String analysis) {
         StringBuilder emailPrompt = new StringBuilder();
         emailPrompt.append("Use the following email template for the alert:\n");
@@ -1,37 +1,92 @@
 package com.analyser.loganalyser.service;
 
+import com.analyser.loganalyser.model.AnalysisMode;
+import com.analyser.loganalyser.model.EnvironmentAnalysis;
 import com.analyser.loganalyser.model.LogAnalysisRequest;
-import org.springframework.ai.chat.client.ChatClient;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @Service
 public class LogAnalysisService {
 
+    private static final Logger logger = LoggerFactory.getLogger(LogAnalysisService.class);
+
     private static final int MAX_LOG_LENGTH = 1_000_000;
     private static final int MAX_QUERY_LENGTH = 100_000;
-    private final LogAnalysisPromptBuilder promptBuilder;
+    private static final String FALLBACK_NOTE =
+            "\n\nThe model was unavailable; exceptions were extracted locally from the logs.";
     private final LogFetcher logFetcher;
     private final GitRepositoryService gitRepositoryService;
-    private final EmailAlertService emailAlertService;
+    private final AlertPipeline alertPipeline;
     private final AnalysisOutputStore analysisOutputStore;
     private final PromptTemplateService promptTemplateService;
-    private final ChatClient chatClient;
+    private final LogStreamIngestor logStreamIngestor;
+    private final LogDeduplicator logDeduplicator;
+    private final AnalysisResultCache analysisResultCache;
+    private final ChunkedAnalysisService chunkedAnalysisService;
+    private final AnalysisTableMerger tableMerger;
+    private final StructuredLogParser structuredLogParser;
+    private final LogFilterFactory logFilterFactory;
+    private final ExceptionExtractor exceptionExtractor;
+    private final AnalysisMetrics metrics;
+    private final AnalysisHistoryStore historyStore;
+    private final boolean fallbackOnError;
 
     public LogAnalysisService(
-            ChatClient chatClient,
-            LogAnalysisPromptBuilder promptBuilder,
             LogFetcher logFetcher,
             GitRepositoryService gitRepositoryService,
-            EmailAlertService emailAlertService,
+            AlertPipeline alertPipeline,
             AnalysisOutputStore analysisOutputStore,
-            PromptTemplateService promptTemplateService) {
-        this.chatClient = chatClient;
-        this.promptBuilder = promptBuilder;
+            PromptTemplateService promptTemplateService,
+            LogStreamIngestor logStreamIngestor,
+            ChunkedAnalysisService chunkedAnalysisService,
+            LogDeduplicator logDeduplicator,
+            AnalysisResultCache analysisResultCache,
+            AnalysisTableMerger tableMerger,
+            StructuredLogParser structuredLogParser,
+            LogFilterFactory logFilterFactory,
+            ExceptionExtractor exceptionExtractor,
+            AnalysisMetrics metrics,
+            AnalysisHistoryStore historyStore,
+            @Value("${app.local-analysis.fallback-on-error:true}") boolean fallbackOnError) {
         this.logFetcher = logFetcher;
         this.gitRepositoryService = gitRepositoryService;
-        this.emailAlertService = emailAlertService;
+        this.alertPipeline = alertPipeline;
         this.analysisOutputStore = analysisOutputStore;
         this.promptTemplateService = promptTemplateService;
+        this.logStreamIngestor = logStreamIngestor;
+        this.chunkedAnalysisService = chunkedAnalysisService;
+        this.logDeduplicator = logDeduplicator;
+        this.analysisResultCache = analysisResultCache;
+        this.tableMerger = tableMerger;
+        this.structuredLogParser = structuredLogParser;
+        this.logFilterFactory = logFilterFactory;
+        this.exceptionExtractor = exceptionExtractor;
+        this.metrics = metrics;
+        this.historyStore = historyStore;
+        this.fallbackOnError = fallbackOnError;
     }
 
     public String processLogs(String rawLogs) {
@@ -39,15 +94,143 @@ public class LogAnalysisService {
     }
 
     public String processLogs(LogAnalysisRequest request) {
-        String logsToProcess = request.rawLogs();
+        return analyze(request, resolveLogs(request));
+    }
+
+    /**
+     * Fetches and analyzes several environments concurrently on virtual threads and merges the
+     * results into one table with per-environment occurrence counts. Environments that fail are
+     * reported below the table; the call only fails if every environment does.
+     */
+    public String processEnvironments(LogAnalysisRequest request, List<String> environments) {
+        List<String> envs =
+                environments == null
+                        ? List.of()
+                        : environments.stream()
+                                .filter(env -> env != null && !env.isBlank())
+                                .map(String::trim)
+                                .distinct()
+                                .toList();
+        if (envs.isEmpty()) {
+            throw new IllegalArgumentException("At least one environment is required.");
+        }
+        validateQuery(request);
+
+        Map<String, Future<EnvironmentAnalysis>> futures = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String env : envs) {
+                LogAnalysisRequest envRequest = request.forEnvironment(env);
+                futures.put(
+                        env,
+                        executor.submit(
+                                AnalysisTrace.wrap(
+                                        () -> {
+                                            String logs = fetchLogs(envRequest);
+                                            return new EnvironmentAnalysis(
+                                                    env, logs, analyze(envRequest, logs));
+                                        })));
+            }
+        }
+
+        List<EnvironmentAnalysis> analyses = new ArrayList<>();
+        Map<String, String> failures = new LinkedHashMap<>();
+        RuntimeException firstFailure = null;
+        for (Map.Entry<String, Future<EnvironmentAnalysis>> entry : futures.entrySet()) {
+            try {
+                analyses.add(entry.getValue().get());
+            } catch (ExecutionException e) {
+                RuntimeException cause =
+                        e.getCause() instanceof RuntimeException runtime
+                                ? runtime
+                                : new IllegalStateException(e.getCause());
+                logger.warn(
+                        "Analysis of environment {} failed: {}",
+                        entry.getKey(),
+                        cause.getMessage());
+                failures.put(entry.getKey(), cause.getMessage());
+                if (firstFailure == null) {
+                    firstFailure = cause;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while analyzing environments.", e);
+            }
+        }
+        if (analyses.isEmpty()) {
+            throw firstFailure;
+        }
+        return tableMerger.mergeEnvironments(analyses, failures);
+    }
+
+    /**
+     * Streams the analysis table row by row as the model produces it. The header is emitted first,
+     * followed by deduplicated data rows; the complete table is saved, cached and alerted on once
+     * the stream finishes.
+     */
+    public Flux<String> streamLogs(LogAnalysisRequest request) {
+        return streamAnalysis(request, resolveLogs(request));
+    }
+
+    /** Streaming counterpart of {@link #processIngestedLogs(LogAnalysisRequest, String)}. */
+    public Flux<String> streamIngestedLogs(LogAnalysisRequest request, String ingestedLogs) {
+        if (ingestedLogs == null || ingestedLogs.isBlank()) {
+            throw new IllegalArgumentException("No logs available to analyze.");
+        }
+        return streamAnalysis(request, ingestedLogs);
+    }
+
+    /**
+     * Analyzes logs read incrementally from {@code logStream}. The stream is consumed line by line
+     * into a bounded buffer, so the raw log length limit does not apply to this path.
+     */
+    public String processLogStream(
+            LogAnalysisRequest request, InputStream logStream, String contentEncoding) {
+        return processIngestedLogs(request, ingestLogStream(request, logStream, contentEncoding));
+    }
+
+    /**
+     * Reads, filters and deduplicates {@code logStream} into a bounded buffer without analyzing it,
+     * e.g. to hand the logs to an asynchronous job after the request body has been consumed.
+     */
+    public String ingestLogStream(
+            LogAnalysisRequest request, InputStream logStream, String contentEncoding) {
+        LogFilter filter = logFilterFactory.forRawLogs(request);
+        CountingInputStream counted = new CountingInputStream(logStream);
+        try {
+            String logs =
+                    metrics.time(
+                            AnalysisMetrics.Stage.INGEST,
+                            () -> ingest(counted, contentEncoding, filter));
+            return requireMatches(filter, logs);
+        } finally {
+            metrics.recordInputSize("stream", counted.bytes);
+        }
+    }
+
+    private String ingest(InputStream logStream, String contentEncoding, LogFilter filter) {
+        try {
+            return logStreamIngestor.ingest(logStream, contentEncoding, filter).logs();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read log stream.", e);
+        }
+    }
+
+    /**
+     * Analyzes logs previously returned by {@link #ingestLogStream(LogAnalysisRequest, InputStream,
+     * String)}.
+     */
+    public String processIngestedLogs(LogAnalysisRequest request, String ingestedLogs) {
+        if (ingestedLogs == null || ingestedLogs.isBlank()) {
+            throw new IllegalArgumentException("No logs available to analyze.");
+        }
+        return analyze(request, ingestedLogs);
+    }
+
+    private String resolveLogs(LogAnalysisRequest request) {
         if (request.env() != null && !request.env().trim().isEmpty()) {
-            logsToProcess =
-                    logFetcher.fetchLogs(
-                            request.env(),
-                            request.days(),
-                            request.logLevel(),
-                            request.applicationName());
+            return fetchLogs(request);
         }
+        String logsToProcess = request.rawLogs();
         if (logsToProcess == null || logsToProcess.isBlank()) {
             throw new IllegalArgumentException("No logs available to analyze.");
         }
@@ -56,46 +239,250 @@ public class LogAnalysisService {
             throw new IllegalArgumentException(
                     "Raw logs length exceeds the limit of " + MAX_LOG_LENGTH + " characters.");
         }
+        metrics.recordInputSize("raw", AnalysisMetrics.utf8Length(logsToProcess));
+        LogFilter filter = logFilterFactory.forRawLogs(request);
+        String filtered = requireMatches(filter, filter.apply(logsToProcess));
+        return structuredLogParser.summarize(filtered) + logDeduplicator.deduplicate(filtered);
+    }
+
+    /**
+     * Consumes the environment's log stream into the bounded, deduplicating buffer, so the fetched
+     * window never has to fit in memory as a whole. Entries rejected by the request's filter are
+     * dropped before they are buffered.
+     */
+    private String fetchLogs(LogAnalysisRequest request) {
+        LogFilter filter = logFilterFactory.forFetchedLogs(request);
+        LongAdder bytes = new LongAdder();
+        LogStreamIngestor.IngestedLogs ingested =
+                metrics.time(
+                        AnalysisMetrics.Stage.FETCH, () -> ingestFetched(request, filter, bytes));
+        metrics.recordInputSize("fetch", bytes.sum());
+        if (ingested.linesRead() == 0 && filter.rejectedEntries() == 0) {
+            throw new IllegalArgumentException("No logs available to analyze.");
+        }
+        return requireMatches(filter, ingested.logs());
+    }
 
+    private LogStreamIngestor.IngestedLogs ingestFetched(
+            LogAnalysisRequest request, LogFilter filter, LongAdder bytes) {
+        try (Stream<String> lines =
+                logFetcher.streamLogs(
+                        request.env(),
+                        request.days(),
+                        request.logLevel(),
+                        request.applicationName())) {
+            return logStreamIngestor.ingest(
+                    lines.flatMap(String::lines)
+                            .peek(line -> bytes.add(AnalysisMetrics.utf8Length(line) + 1))
+                            .filter(filter));
+        }
+    }
+
+    private static String requireMatches(LogFilter filter, String logs) {
+        if (!filter.isEmpty()) {
+            logger.info(
+                    "Log filter kept {} entries and dropped {}",
+                    filter.acceptedEntries(),
+                    filter.rejectedEntries());
+        }
+        if (logs.isBlank()) {
+            throw new IllegalArgumentException(
+                    filter.rejectedEntries() > 0
+                            ? "No log entries match the requested filters."
+                            : "No logs available to analyze.");
+        }
+        return logs;
+    }
+
+    private String analyze(LogAnalysisRequest request, String logsToProcess) {
+        validateQuery(request);
+        String guardrails = promptTemplateService.guardrailsTemplate();
+        String cacheKey = analysisResultCache.key(request, logsToProcess, guardrails);
+        Optional<String> cached = analysisResultCache.get(cacheKey);
+        if (cached.isPresent()) {
+            logger.info("Returning cached analysis for key {}", cacheKey);
+            metrics.recordResult("cache");
+            return cached.get();
+        }
+
+        if (request.analysisMode() == AnalysisMode.LOCAL) {
+            String result = exceptionExtractor.table(logsToProcess);
+            metrics.recordResult("local");
+            complete(request, cacheKey, guardrails, result, "local");
+            return result;
+        }
+        String result;
+        try (GitRepositoryService.Lease lease = gitRepositoryService.lease(request.repoLink())) {
+            LogAnalysisRequest withContext = withRepositoryContext(request);
+            try {
+                result = chunkedAnalysisService.analyze(withContext, logsToProcess, guardrails);
+            } catch (RuntimeException e) {
+                // an overloaded bulkhead answers 429 so clients back off instead of getting a
+                // fallback table that would be saved, recorded and alerted on
+                if (!fallbackOnError || e instanceof LlmBusyException) {
+                    throw e;
+                }
+                logger.warn(
+                        "Analysis failed, falling back to local extraction: {}", e.getMessage());
+                result = exceptionExtractor.table(logsToProcess) + FALLBACK_NOTE;
+                metrics.recordResult("fallback");
+                complete(request, null, guardrails, result, "fallback");
+                return result;
+            }
+        }
+        metrics.recordResult("model");
+        complete(request, cacheKey, guardrails, result, "model");
+        return result;
+    }
+
+    private Flux<String> streamAnalysis(LogAnalysisRequest request, String logsToProcess) {
+        validateQuery(request);
+        String guardrails = promptTemplateService.guardrailsTemplate();
+        String cacheKey = analysisResultCache.key(request, logsToProcess, guardrails);
+        Optional<String> cached = analysisResultCache.get(cacheKey);
+        if (cached.isPresent()) {
+            logger.info("Streaming cached analysis for key {}", cacheKey);
+            metrics.recordResult("cache");
+            return Flux.fromStream(cached.get().lines());
+        }
+
+        List<String> rows = new CopyOnWriteArrayList<>();
+        boolean[] fellBack = {false};
+        Flux<String> table;
+        if (request.analysisMode() == AnalysisMode.LOCAL) {
+            table = Flux.fromStream(exceptionExtractor.table(logsToProcess).lines());
+        } else {
+            // the clone stays leased until the stream terminates or is cancelled
+            GitRepositoryService.Lease lease = gitRepositoryService.lease(request.repoLink());
+            LogAnalysisRequest withContext;
+            try {
+                withContext = withRepositoryContext(request);
+            } catch (RuntimeException e) {
+                lease.close();
+                throw e;
+            }
+            table =
+                    Flux.defer(
+                                    () ->
+                                            chunkedAnalysisService.stream(
+                                                    withContext, logsToProcess, guardrails))
+                            .doFinally(signal -> lease.close());
+            if (fallbackOnError) {
+                table =
+                        table.onErrorResume(
+                                e -> !(e instanceof LlmBusyException),
+                                e -> {
+                                    logger.warn(
+                                            "Streaming analysis failed, falling back to local"
+                                                    + " extraction: {}",
+                                            e.getMessage());
+                                    fellBack[0] = true;
+                                    return Flux.fromStream(
+                                            (exceptionExtractor.table(logsToProcess)
+                                                            + FALLBACK_NOTE)
+                                                    .lines()
+                                                    .filter(line -> !rows.contains(line)));
+                                });
+            }
+        }
+        String origin = request.analysisMode() == AnalysisMode.LOCAL ? "local" : "model";
+        Mono<String> completion =
+                Mono.<String>fromRunnable(
+                                () -> {
+                                    String resultOrigin = fellBack[0] ? "fallback" : origin;
+                                    metrics.recordResult(resultOrigin);
+                                    complete(
+                                            request,
+                                            fellBack[0] ? null : cacheKey,
+                                            guardrails,
+                                            String.join("\n", rows),
+                                            resultOrigin);
+                                })
+                        .subscribeOn(Schedulers.boundedElastic());
+        return table.doOnNext(rows::add).concatWith(completion);
+    }
+
+    private void validateQuery(LogAnalysisRequest request) {
+        request.analysisMode(); // rejects unknown modes before logs are fetched
         if (request.query() != null && request.query().length() > MAX_QUERY_LENGTH) {
             throw new IllegalArgumentException(
                     "Query length exceeds the limit of " + MAX_QUERY_LENGTH + " characters.");
         }
+    }
 
-        String repoContext = gitRepositoryService.cloneRepositoryIfApplicable(request.repoLink());
-        LogAnalysisRequest promptRequest =
-                new LogAnalysisRequest(
-                        request.rawLogs(),
-                        request.query(),
-                        repoContext,
-                        request.logLevel(),
-                        request.days(),
-                        request.applicationName(),
-                        request.env());
+    private LogAnalysisRequest withRepositoryContext(LogAnalysisRequest request) {
+        String repoContext =
+                request.repoLink() == null || request.repoLink().isBlank()
+                        ? gitRepositoryService.cloneRepositoryIfApplicable(request.repoLink())
+                        : metrics.time(
+                                AnalysisMetrics.Stage.CLONE,
+                                () ->
+                                        gitRepositoryService.cloneRepositoryIfApplicable(
+                                                request.repoLink()));
+        return request.withRepository(
+                repoContext, gitRepositoryService.cachedClone(request.repoLink()).orElse(null));
+    }
 
-        String guardrails = promptTemplateService.guardrailsTemplate();
-        String prompt = promptBuilder.buildAnalysisPrompt(promptRequest, logsToProcess);
-        String result =
-                (guardrails != null && !guardrails.isBlank())
-                        ? chatClient.prompt().system(guardrails).user(prompt).call().content()
-                        : chatClient.prompt().user(prompt).call().content();
+    /**
+     * Caches, saves, records in the history and alerts on a result; fallback results pass no cache
+     * key.
+     */
+    private void complete(
+            LogAnalysisRequest request,
+            String cacheKey,
+            String guardrails,
+            String result,
+            String origin) {
+        if (cacheKey != null) {
+            analysisResultCache.put(cacheKey, result);
+        }
 
-        analysisOutputStore.save(result);
+        metrics.time(
+                AnalysisMetrics.Stage.HISTORY,
+                () ->
+                        historyStore.append(
+                                request.applicationName(), request.env(), origin, result));
+        Path outputFile =
+                metrics.time(AnalysisMetrics.Stage.SAVE, () -> analysisOutputStore.save(result));
+        if (outputFile != null) {
+            AnalysisTrace.current().ifPresent(trace -> trace.recordOutputFile(outputFile));
+        }
 
         if (result != null && (result.contains("ERROR") || result.contains("Exception"))) {
-            String emailPrompt =
-                    promptBuilder.buildEmailPrompt(promptTemplateService.emailTemplate(), result);
-            String emailResult =
-                    (guardrails != null && !guardrails.isBlank())
-                            ? chatClient
-                                    .prompt()
-                                    .system(guardrails)
-                                    .user(emailPrompt)
-                                    .call()
-                                    .content()
-                            : chatClient.prompt().user(emailPrompt).call().content();
-            emailAlertService.sendEmailAlert("Log Analysis Error Alert", emailResult);
+            alertPipeline.submit(request, result, guardrails);
+        }
+    }
+
+    /** Counts the bytes read from the request body, before any gzip decoding. */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long bytes;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                bytes += read;
+            }
+            return read;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
         }
-        return result;
     }
 }
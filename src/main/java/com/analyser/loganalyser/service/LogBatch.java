@@ -0,0 +1,632 @@
+package com.analyser.loganalyser.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar representation of parsed log lines. Line bytes are kept once in a shared buffer; the
+ * level, service, node and environment columns are dictionary encoded and timestamps, latencies and
+ * HTTP status codes are primitive arrays, so a batch of a million lines holds no per-line objects.
+ * Missing values are {@link #MISSING} (codes, latency, status) or {@link #NO_TIMESTAMP}.
+ */
+public final class LogBatch {
+
+    public static final int MISSING = -1;
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final byte[] data;
+    private final boolean retainsText;
+    private final int size;
+    private final int[] lineStarts;
+    private final int[] lineEnds;
+    private final int[] messageStarts;
+    private final long[] timestamps;
+    private final int[] latencies;
+    private final int[] statuses;
+    private final int[] levels;
+    private final int[] services;
+    private final int[] nodes;
+    private final int[] environments;
+    private final int structuredRows;
+    private final long droppedRows;
+    private final Dictionary levelDictionary;
+    private final Dictionary serviceDictionary;
+    private final Dictionary nodeDictionary;
+    private final Dictionary environmentDictionary;
+
+    private LogBatch(Builder builder) {
+        this.size = builder.size;
+        this.retainsText = builder.retainText;
+        this.data = retainsText ? Arrays.copyOf(builder.data, builder.dataLength) : new byte[0];
+        this.lineStarts = Arrays.copyOf(builder.lineStarts, size);
+        this.lineEnds = Arrays.copyOf(builder.lineEnds, size);
+        this.messageStarts = Arrays.copyOf(builder.messageStarts, size);
+        this.timestamps = Arrays.copyOf(builder.timestamps, size);
+        this.latencies = Arrays.copyOf(builder.latencies, size);
+        this.statuses = Arrays.copyOf(builder.statuses, size);
+        this.levels = Arrays.copyOf(builder.levels, size);
+        this.services = Arrays.copyOf(builder.services, size);
+        this.nodes = Arrays.copyOf(builder.nodes, size);
+        this.environments = Arrays.copyOf(builder.environments, size);
+        this.structuredRows = builder.structuredRows;
+        this.droppedRows = builder.droppedRows;
+        this.levelDictionary = builder.levelDictionary;
+        this.serviceDictionary = builder.serviceDictionary;
+        this.nodeDictionary = builder.nodeDictionary;
+        this.environmentDictionary = builder.environmentDictionary;
+    }
+
+    /** Builder that keeps line text so {@link #line} and {@link #message} can be decoded. */
+    public static Builder builder(int maxRows) {
+        return new Builder(maxRows, true);
+    }
+
+    /** Builder that only keeps the columns; line bytes are parsed in a reused scratch buffer. */
+    public static Builder columnsBuilder(int maxRows) {
+        return new Builder(maxRows, false);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Rows whose {@code key=value} fields named a service ({@code service}, {@code app}, ...). */
+    public int structuredRows() {
+        return structuredRows;
+    }
+
+    /** Rows not added because the builder's row limit was reached. */
+    public long droppedRows() {
+        return droppedRows;
+    }
+
+    /** {@code true} if most rows are {@code key=value} structured. */
+    public boolean isStructured() {
+        return size > 0 && structuredRows * 2 >= size;
+    }
+
+    public long timestamp(int row) {
+        return timestamps[row];
+    }
+
+    public int latencyMs(int row) {
+        return latencies[row];
+    }
+
+    public int status(int row) {
+        return statuses[row];
+    }
+
+    public int levelCode(int row) {
+        return levels[row];
+    }
+
+    public int serviceCode(int row) {
+        return services[row];
+    }
+
+    public int nodeCode(int row) {
+        return nodes[row];
+    }
+
+    public int environmentCode(int row) {
+        return environments[row];
+    }
+
+    public String level(int row) {
+        return levelDictionary.value(levels[row]);
+    }
+
+    public String service(int row) {
+        return serviceDictionary.value(services[row]);
+    }
+
+    public String node(int row) {
+        return nodeDictionary.value(nodes[row]);
+    }
+
+    public String environment(int row) {
+        return environmentDictionary.value(environments[row]);
+    }
+
+    public List<String> levelDictionary() {
+        return levelDictionary.values();
+    }
+
+    public List<String> serviceDictionary() {
+        return serviceDictionary.values();
+    }
+
+    /** Dictionary code of {@code level} (case-insensitive), or {@link #MISSING}. */
+    public int levelCodeOf(String level) {
+        return levelDictionary.codeOfIgnoreCase(level);
+    }
+
+    /** Dictionary code of {@code service} (case-insensitive), or {@link #MISSING}. */
+    public int serviceCodeOf(String service) {
+        return serviceDictionary.codeOfIgnoreCase(service);
+    }
+
+    /** Decodes the full line; allocates, so use it only for rows that are kept. */
+    public String line(int row) {
+        requireText();
+        return new String(
+                data, lineStarts[row], lineEnds[row] - lineStarts[row], StandardCharsets.UTF_8);
+    }
+
+    /** Free text after the leading timestamp and {@code key=value} fields. */
+    public String message(int row) {
+        requireText();
+        return new String(
+                data,
+                messageStarts[row],
+                lineEnds[row] - messageStarts[row],
+                StandardCharsets.UTF_8);
+    }
+
+    private void requireText() {
+        if (!retainsText) {
+            throw new IllegalStateException("Batch was built without line text.");
+        }
+    }
+
+    /**
+     * Appends lines and parses them in place with a single byte scan per line: no regular
+     * expressions and no per-line objects besides growing the column arrays.
+     */
+    public static final class Builder {
+
+        private static final int INITIAL_ROWS = 1024;
+
+        private final int maxRows;
+        private final boolean retainText;
+        private byte[] data = new byte[64 * 1024];
+        private int dataLength;
+        private int size;
+        private int structuredRows;
+        private long droppedRows;
+        private int[] lineStarts = new int[INITIAL_ROWS];
+        private int[] lineEnds = new int[INITIAL_ROWS];
+        private int[] messageStarts = new int[INITIAL_ROWS];
+        private long[] timestamps = new long[INITIAL_ROWS];
+        private int[] latencies = new int[INITIAL_ROWS];
+        private int[] statuses = new int[INITIAL_ROWS];
+        private int[] levels = new int[INITIAL_ROWS];
+        private int[] services = new int[INITIAL_ROWS];
+        private int[] nodes = new int[INITIAL_ROWS];
+        private int[] environments = new int[INITIAL_ROWS];
+        private final Dictionary levelDictionary = new Dictionary();
+        private final Dictionary serviceDictionary = new Dictionary();
+        private final Dictionary nodeDictionary = new Dictionary();
+        private final Dictionary environmentDictionary = new Dictionary();
+
+        private Builder(int maxRows, boolean retainText) {
+            this.maxRows = maxRows;
+            this.retainText = retainText;
+        }
+
+        /** Adds every line of {@code buffer[offset, offset + length)}. */
+        public Builder addLines(byte[] buffer, int offset, int length) {
+            int end = offset + length;
+            int lineStart = offset;
+            for (int i = offset; i < end; i++) {
+                if (buffer[i] == '\n') {
+                    addLine(buffer, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart < end) {
+                addLine(buffer, lineStart, end);
+            }
+            return this;
+        }
+
+        /** Adds one line given as bytes; a trailing carriage return is ignored. */
+        public Builder addLine(byte[] buffer, int start, int end) {
+            if (end > start && buffer[end - 1] == '\r') {
+                end--;
+            }
+            if (end == start) {
+                return this;
+            }
+            if (size == maxRows) {
+                droppedRows++;
+                return this;
+            }
+            ensureData(end - start);
+            System.arraycopy(buffer, start, data, dataLength, end - start);
+            parse(dataLength, dataLength + end - start);
+            if (retainText) {
+                dataLength += end - start;
+            }
+            return this;
+        }
+
+        /** Adds one line given as text, encoding it into the shared buffer. */
+        public Builder addLine(String line) {
+            if (line.isEmpty()) {
+                return this;
+            }
+            if (size == maxRows) {
+                droppedRows++;
+                return this;
+            }
+            int start = dataLength;
+            int length = line.length();
+            ensureData(length);
+            int position = start;
+            for (int i = 0; i < length; i++) {
+                char c = line.charAt(i);
+                if (c >= 0x80) {
+                    byte[] encoded = line.substring(i).getBytes(StandardCharsets.UTF_8);
+                    ensureData(position - dataLength + encoded.length);
+                    System.arraycopy(encoded, 0, data, position, encoded.length);
+                    position += encoded.length;
+                    break;
+                }
+                data[position++] = (byte) c;
+            }
+            int end = position;
+            if (end > start && data[end - 1] == '\r') {
+                end--;
+            }
+            parse(start, end);
+            if (retainText) {
+                dataLength = position;
+            }
+            return this;
+        }
+
+        public LogBatch build() {
+            return new LogBatch(this);
+        }
+
+        private void parse(int start, int end) {
+            ensureRows();
+            int row = size++;
+            lineStarts[row] = start;
+            lineEnds[row] = end;
+            timestamps[row] = NO_TIMESTAMP;
+            latencies[row] = MISSING;
+            statuses[row] = MISSING;
+            levels[row] = MISSING;
+            services[row] = MISSING;
+            nodes[row] = MISSING;
+            environments[row] = MISSING;
+
+            int position = skipSpaces(start, end);
+            int timestampEnd = Timestamps.parse(data, position, end, timestamps, row);
+            if (timestampEnd > position) {
+                position = skipSpaces(timestampEnd, end);
+            }
+            boolean structured = false;
+            while (position < end) {
+                int tokenEnd = position;
+                int equals = -1;
+                while (tokenEnd < end && data[tokenEnd] != ' ' && data[tokenEnd] != '\t') {
+                    if (equals < 0 && data[tokenEnd] == '=') {
+                        equals = tokenEnd;
+                    }
+                    tokenEnd++;
+                }
+                if (equals <= position) {
+                    if (levels[row] == MISSING && isLevel(position, tokenEnd)) {
+                        levels[row] = levelDictionary.code(data, position, tokenEnd);
+                        position = skipSpaces(tokenEnd, end);
+                        continue;
+                    }
+                    break;
+                }
+                structured = true;
+                field(row, position, equals, equals + 1, tokenEnd);
+                position = skipSpaces(tokenEnd, end);
+            }
+            messageStarts[row] = position;
+            if (structured && services[row] != MISSING) {
+                structuredRows++;
+            }
+        }
+
+        private void field(int row, int keyStart, int keyEnd, int valueStart, int valueEnd) {
+            switch (keyEnd - keyStart) {
+                case 3 -> {
+                    if (keyEquals(keyStart, "env")) {
+                        environments[row] = environmentDictionary.code(data, valueStart, valueEnd);
+                    } else if (keyEquals(keyStart, "app")) {
+                        services[row] = serviceDictionary.code(data, valueStart, valueEnd);
+                    }
+                }
+                case 4 -> {
+                    if (keyEquals(keyStart, "node")) {
+                        nodes[row] = nodeDictionary.code(data, valueStart, valueEnd);
+                    }
+                }
+                case 5 -> {
+                    if (keyEquals(keyStart, "level")) {
+                        levels[row] = levelDictionary.code(data, valueStart, valueEnd);
+                    }
+                }
+                case 6 -> {
+                    if (keyEquals(keyStart, "status")) {
+                        statuses[row] = parseInt(valueStart, valueEnd);
+                    }
+                }
+                case 7 -> {
+                    if (keyEquals(keyStart, "service")) {
+                        services[row] = serviceDictionary.code(data, valueStart, valueEnd);
+                    }
+                }
+                case 9 -> {
+                    if (keyEquals(keyStart, "latencyMs")) {
+                        latencies[row] = parseInt(valueStart, valueEnd);
+                    }
+                }
+                case 11 -> {
+                    if (keyEquals(keyStart, "application")) {
+                        services[row] = serviceDictionary.code(data, valueStart, valueEnd);
+                    }
+                }
+                default -> {
+                    // not a column
+                }
+            }
+        }
+
+        private boolean keyEquals(int start, String key) {
+            for (int i = 0; i < key.length(); i++) {
+                if (data[start + i] != key.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isLevel(int start, int end) {
+            int length = end - start;
+            if (length < 4 || length > 5) {
+                return false;
+            }
+            for (String level : Levels.NAMES) {
+                if (level.length() == length && keyEquals(start, level)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int parseInt(int start, int end) {
+            if (start == end || end - start > 9) {
+                return MISSING;
+            }
+            int value = 0;
+            for (int i = start; i < end; i++) {
+                int digit = data[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return MISSING;
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        private int skipSpaces(int position, int end) {
+            while (position < end && (data[position] == ' ' || data[position] == '\t')) {
+                position++;
+            }
+            return position;
+        }
+
+        private void ensureData(int additional) {
+            if (dataLength + additional > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, dataLength + additional));
+            }
+        }
+
+        private void ensureRows() {
+            if (size < lineStarts.length) {
+                return;
+            }
+            int capacity = lineStarts.length * 2;
+            lineStarts = Arrays.copyOf(lineStarts, capacity);
+            lineEnds = Arrays.copyOf(lineEnds, capacity);
+            messageStarts = Arrays.copyOf(messageStarts, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            latencies = Arrays.copyOf(latencies, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            levels = Arrays.copyOf(levels, capacity);
+            services = Arrays.copyOf(services, capacity);
+            nodes = Arrays.copyOf(nodes, capacity);
+            environments = Arrays.copyOf(environments, capacity);
+        }
+    }
+
+    /** Well-known level names recognized as a bare token after the timestamp. */
+    static final class Levels {
+
+        static final List<String> NAMES =
+                List.of("TRACE", "DEBUG", "INFO", "WARN", "ERROR", "FATAL");
+
+        private Levels() {}
+    }
+
+    /**
+     * Byte-level parser for {@code yyyy-MM-ddTHH:mm:ss[.SSS][Z|±HH:mm]} and {@code yyyy-MM-dd
+     * HH:mm:ss[.SSS]} (UTC assumed).
+     */
+    static final class Timestamps {
+
+        private Timestamps() {}
+
+        /**
+         * Stores epoch millis in {@code target[row]} and returns the end offset, or {@code start}.
+         */
+        static int parse(byte[] data, int start, int end, long[] target, int row) {
+            if (end - start < 19
+                    || data[start + 4] != '-'
+                    || data[start + 7] != '-'
+                    || (data[start + 10] != 'T' && data[start + 10] != ' ')
+                    || data[start + 13] != ':'
+                    || data[start + 16] != ':') {
+                return start;
+            }
+            int year = digits(data, start, 4);
+            int month = digits(data, start + 5, 2);
+            int day = digits(data, start + 8, 2);
+            int hour = digits(data, start + 11, 2);
+            int minute = digits(data, start + 14, 2);
+            int second = digits(data, start + 17, 2);
+            if (year < 0
+                    || month < 1
+                    || month > 12
+                    || day < 1
+                    || day > 31
+                    || hour < 0
+                    || hour > 23
+                    || minute < 0
+                    || minute > 59
+                    || second < 0
+                    || second > 60) {
+                return start;
+            }
+            int position = start + 19;
+            int millis = 0;
+            if (position < end && (data[position] == '.' || data[position] == ',')) {
+                position++;
+                int scale = 100;
+                while (position < end && data[position] >= '0' && data[position] <= '9') {
+                    millis += (data[position] - '0') * scale;
+                    scale /= 10;
+                    position++;
+                }
+            }
+            int offsetSeconds = 0;
+            if (position < end && data[position] == 'Z') {
+                position++;
+            } else if (position + 6 <= end
+                    && (data[position] == '+' || data[position] == '-')
+                    && data[position + 3] == ':') {
+                int offsetHours = digits(data, position + 1, 2);
+                int offsetMinutes = digits(data, position + 4, 2);
+                if (offsetHours >= 0 && offsetMinutes >= 0) {
+                    offsetSeconds = offsetHours * 3600 + offsetMinutes * 60;
+                    if (data[position] == '-') {
+                        offsetSeconds = -offsetSeconds;
+                    }
+                    position += 6;
+                }
+            }
+            long epochSeconds =
+                    daysFromCivil(year, month, day) * 86_400L
+                            + hour * 3_600L
+                            + minute * 60L
+                            + second
+                            - offsetSeconds;
+            target[row] = epochSeconds * 1_000 + millis;
+            return position;
+        }
+
+        static String format(long epochMillis) {
+            return Instant.ofEpochMilli(epochMillis).toString();
+        }
+
+        private static int digits(byte[] data, int start, int count) {
+            int value = 0;
+            for (int i = start; i < start + count; i++) {
+                int digit = data[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return -1;
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        /** Days since 1970-01-01 of a proleptic Gregorian date (H. Hinnant's algorithm). */
+        private static long daysFromCivil(int year, int month, int day) {
+            int y = month <= 2 ? year - 1 : year;
+            int era = Math.floorDiv(y, 400);
+            int yearOfEra = y - era * 400;
+            int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+            int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+            return era * 146_097L + dayOfEra - 719_468;
+        }
+    }
+
+    /** Open-addressing dictionary from byte ranges to dense codes; Strings are created once. */
+    static final class Dictionary {
+
+        private final List<String> values = new ArrayList<>();
+        private final List<byte[]> keys = new ArrayList<>();
+        private int[] table = new int[64];
+
+        Dictionary() {
+            Arrays.fill(table, MISSING);
+        }
+
+        int code(byte[] data, int start, int end) {
+            int hash = hash(data, start, end);
+            int mask = table.length - 1;
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                int code = table[slot];
+                if (code == MISSING) {
+                    byte[] key = Arrays.copyOfRange(data, start, end);
+                    keys.add(key);
+                    values.add(new String(key, StandardCharsets.UTF_8));
+                    table[slot] = keys.size() - 1;
+                    if (keys.size() * 2 > table.length) {
+                        rehash();
+                    }
+                    return keys.size() - 1;
+                }
+                if (Arrays.equals(keys.get(code), 0, keys.get(code).length, data, start, end)) {
+                    return code;
+                }
+            }
+        }
+
+        String value(int code) {
+            return code == MISSING ? null : values.get(code);
+        }
+
+        List<String> values() {
+            return List.copyOf(values);
+        }
+
+        int codeOfIgnoreCase(String value) {
+            if (value == null) {
+                return MISSING;
+            }
+            for (int i = 0; i < values.size(); i++) {
+                if (values.get(i).equalsIgnoreCase(value.trim())) {
+                    return i;
+                }
+            }
+            return MISSING;
+        }
+
+        private void rehash() {
+            table = new int[table.length * 2];
+            Arrays.fill(table, MISSING);
+            int mask = table.length - 1;
+            for (int code = 0; code < keys.size(); code++) {
+                byte[] key = keys.get(code);
+                int slot = hash(key, 0, key.length) & mask;
+                while (table[slot] != MISSING) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = code;
+            }
+        }
+
+        private static int hash(byte[] data, int start, int end) {
+            int hash = 1;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + data[i];
+            }
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.analyser.loganalyser.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Collapses repeated log entries before prompt construction. Each entry (a line plus its stack
+ * trace continuation lines) is reduced to a template by masking variable tokens such as numbers,
+ * timestamps, UUIDs and trace/span ids. Entries sharing a template fingerprint are emitted once
+ * with an occurrence count and first/last-seen timestamps.
+ */
+@Component
+public class LogDeduplicator {
+
+    private static final Pattern LEADING_TIMESTAMP =
+            Pattern.compile(
+                    "^\\[?(\\d{4}-\\d{2}-\\d{2}[T ]\\d{2}:\\d{2}:\\d{2}(?:[.,]\\d{1,9})?(?:Z|[+-]\\d{2}:?\\d{2})?)");
+    private static final Pattern UUID =
+            Pattern.compile(
+                    "\\p{XDigit}{8}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{12}");
+    private static final String VARIABLE_PLACEHOLDER = "<*>";
+    private static final String MASKED_UUID = "<*>-<*>-<*>-<*>-<*>";
+    private static final int UUID_LENGTH = 36;
+    private static final int MIN_HEX_ID_LENGTH = 8;
+    private static final int MAX_ENTRY_LINES = 200;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int maxGroups;
+
+    public LogDeduplicator(@Value("${app.dedup.max-groups:10000}") int maxGroups) {
+        this.maxGroups = maxGroups;
+    }
+
+    /** Deduplicates a complete log text. */
+    public String deduplicate(String logs) {
+        Aggregator aggregator = newAggregator();
+        logs.lines().forEach(aggregator);
+        return aggregator.render();
+    }
+
+    /** Creates a line consumer that aggregates entries incrementally, e.g. while streaming. */
+    public Aggregator newAggregator() {
+        return new Aggregator(maxGroups);
+    }
+
+    /**
+     * Replaces variable tokens with {@code <*>}: UUIDs, tokens starting with a digit (numbers,
+     * durations such as {@code 3000ms}, timestamp parts) and hexadecimal tokens of at least eight
+     * characters. Identifiers that start with a letter ({@code S3Exception}, {@code Http2}) and
+     * HTTP status codes after a {@code status} or {@code code} key are kept, so different errors do
+     * not collapse into one. Separators are kept, so ids and timestamps reduce to stable shapes
+     * regardless of their values.
+     */
+    public static String mask(String text) {
+        StringBuilder masked = new StringBuilder(text.length());
+        Matcher uuid = UUID.matcher(text);
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                masked.append(c);
+                i++;
+                continue;
+            }
+            if (i + UUID_LENGTH <= length
+                    && uuid.region(i, i + UUID_LENGTH).lookingAt()
+                    && (i + UUID_LENGTH == length
+                            || !Character.isLetterOrDigit(text.charAt(i + UUID_LENGTH)))) {
+                masked.append(MASKED_UUID);
+                i += UUID_LENGTH;
+                continue;
+            }
+            int start = i;
+            boolean allDigits = true;
+            boolean allHex = true;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                char t = text.charAt(i);
+                boolean digit = t >= '0' && t <= '9';
+                allDigits &= digit;
+                allHex &= digit || (t >= 'a' && t <= 'f') || (t >= 'A' && t <= 'F');
+                i++;
+            }
+            boolean leadingDigit = Character.isDigit(text.charAt(start));
+            boolean hexId = allHex && i - start >= MIN_HEX_ID_LENGTH;
+            if ((leadingDigit || hexId) && !(allDigits && isStatusCode(text, start, i))) {
+                masked.append(VARIABLE_PLACEHOLDER);
+            } else {
+                masked.append(text, start, i);
+            }
+        }
+        return masked.toString();
+    }
+
+    /**
+     * Whether the digits at {@code [start, end)} are an HTTP status following a {@code status} or
+     * {@code code} key, e.g. {@code status=404} or {@code statusCode: 500}.
+     */
+    private static boolean isStatusCode(String text, int start, int end) {
+        if (end - start != 3 || text.charAt(start) < '1' || text.charAt(start) > '5') {
+            return false;
+        }
+        int keyEnd = start;
+        while (keyEnd > 0 && " =:\"".indexOf(text.charAt(keyEnd - 1)) >= 0) {
+            keyEnd--;
+        }
+        if (keyEnd == start) {
+            return false;
+        }
+        int keyStart = keyEnd;
+        while (keyStart > 0 && Character.isLetter(text.charAt(keyStart - 1))) {
+            keyStart--;
+        }
+        String key = text.substring(keyStart, keyEnd).toLowerCase(Locale.ROOT);
+        return key.endsWith("status") || key.endsWith("code");
+    }
+
+    /** Stable 64-bit FNV-1a fingerprint of the masked entry, rendered as hex. */
+    public static String fingerprint(String entry) {
+        String masked = mask(entry);
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < masked.length(); i++) {
+            hash ^= masked.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return Long.toHexString(hash);
+    }
+
+    /**
+     * Counts the log entries in deduplicated {@code logs} that mention {@code token}, expanding
+     * collapsed groups by their {@code [Nx ...]} multiplicity.
+     */
+    public static long countOccurrences(String logs, String token) {
+        if (logs == null || token == null || token.isBlank()) {
+            return 0;
+        }
+        long total = 0;
+        long multiplicity = 1;
+        boolean counted = false;
+        for (String line : logs.split("\\R")) {
+            if (!isContinuation(line)) {
+                multiplicity = multiplicity(line);
+                counted = false;
+            }
+            if (!counted && line.contains(token)) {
+                total += multiplicity;
+                counted = true;
+            }
+        }
+        return total;
+    }
+
+    static long multiplicity(String line) {
+        if (!line.startsWith("[")) {
+            return 1;
+        }
+        int end = line.indexOf('x');
+        if (end <= 1) {
+            return 1;
+        }
+        try {
+            return Long.parseLong(line.substring(1, end));
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    /** Whether a line or entry looks like an error or a stack trace frame. */
+    static boolean isErrorRelevant(String line) {
+        String trimmed = line.stripLeading();
+        return line.contains("ERROR")
+                || line.contains("FATAL")
+                || line.contains("Exception")
+                || line.contains("Error:")
+                || trimmed.startsWith("at ")
+                || trimmed.startsWith("Caused by:");
+    }
+
+    static boolean isContinuation(String line) {
+        if (line.isEmpty()) {
+            return false;
+        }
+        return Character.isWhitespace(line.charAt(0))
+                || line.startsWith("Caused by:")
+                || line.startsWith("... ");
+    }
+
+    /**
+     * Incremental, bounded aggregation of log entries by fingerprint. The first half of {@code
+     * maxGroups} admits any new pattern; the rest is kept for errors and stack traces, so a flood
+     * of distinct INFO lines cannot crowd out an error that shows up late.
+     */
+    public static final class Aggregator implements Consumer<String> {
+
+        private final int maxGroups;
+        private final Map<String, Group> groups = new LinkedHashMap<>();
+        private final List<String> pendingEntry = new ArrayList<>();
+        private long entries;
+        private long overflowEntries;
+
+        private Aggregator(int maxGroups) {
+            this.maxGroups = maxGroups;
+        }
+
+        @Override
+        public void accept(String line) {
+            if (!isContinuation(line) && !pendingEntry.isEmpty()) {
+                flush();
+            }
+            if (pendingEntry.size() < MAX_ENTRY_LINES) {
+                pendingEntry.add(line);
+            }
+        }
+
+        /** Number of entries seen so far, including duplicates. */
+        public long entries() {
+            return entries + (pendingEntry.isEmpty() ? 0 : 1);
+        }
+
+        public int distinctEntries() {
+            return groups.size() + (pendingEntry.isEmpty() ? 0 : 1);
+        }
+
+        /** Renders one line (or stack trace block) per distinct entry in first-seen order. */
+        public String render() {
+            return String.join("\n", renderEntries());
+        }
+
+        public List<String> renderEntries() {
+            flush();
+            List<String> rendered = new ArrayList<>(groups.size() + 1);
+            for (Group group : groups.values()) {
+                rendered.add(group.render());
+            }
+            if (overflowEntries > 0) {
+                rendered.add(
+                        "["
+                                + overflowEntries
+                                + " entries omitted after "
+                                + maxGroups
+                                + " distinct patterns]");
+            }
+            return rendered;
+        }
+
+        private void flush() {
+            if (pendingEntry.isEmpty()) {
+                return;
+            }
+            String entry = String.join("\n", pendingEntry);
+            pendingEntry.clear();
+            entries++;
+            if (entry.isBlank()) {
+                return;
+            }
+            String timestamp = leadingTimestamp(entry);
+            String key = fingerprint(entry);
+            Group group = groups.get(key);
+            if (group != null) {
+                group.record(timestamp);
+            } else if (groups.size() < maxGroups / 2
+                    || (groups.size() < maxGroups && isErrorRelevant(entry))) {
+                groups.put(key, new Group(entry, timestamp));
+            } else {
+                overflowEntries++;
+            }
+        }
+
+        private static String leadingTimestamp(String entry) {
+            Matcher matcher = LEADING_TIMESTAMP.matcher(entry);
+            return matcher.find() ? matcher.group(1) : null;
+        }
+    }
+
+    private static final class Group {
+
+        private final String representative;
+        private long count = 1;
+        private String firstSeen;
+        private String lastSeen;
+
+        Group(String representative, String timestamp) {
+            this.representative = representative;
+            this.firstSeen = timestamp;
+            this.lastSeen = timestamp;
+        }
+
+        void record(String timestamp) {
+            count++;
+            if (timestamp == null) {
+                return;
+            }
+            if (firstSeen == null || timestamp.compareTo(firstSeen) < 0) {
+                firstSeen = timestamp;
+            }
+            if (lastSeen == null || timestamp.compareTo(lastSeen) > 0) {
+                lastSeen = timestamp;
+            }
+        }
+
+        String render() {
+            if (count == 1) {
+                return representative;
+            }
+            StringBuilder prefix = new StringBuilder("[").append(count).append("x");
+            if (firstSeen != null) {
+                prefix.append(", first seen ")
+                        .append(firstSeen)
+                        .append(", last seen ")
+                        .append(lastSeen);
+            }
+            return prefix.append("] ").append(representative).toString();
+        }
+    }
+}
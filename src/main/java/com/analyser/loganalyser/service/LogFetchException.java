@@ -0,0 +1,19 @@
+package com.analyser.loganalyser.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** Raised when logs cannot be retrieved from an environment's log API. */
+@ResponseStatus(HttpStatus.BAD_GATEWAY)
+public class LogFetchException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public LogFetchException(String message) {
+        super(message);
+    }
+
+    public LogFetchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,6 +1,20 @@
 package com.analyser.loganalyser.service;
 
+import java.util.stream.Stream;
+
 @FunctionalInterface
 public interface LogFetcher {
     String fetchLogs(String env, Integer days, String logLevel, String applicationName);
+
+    /**
+     * Returns the log lines lazily. Callers must close the stream, e.g. with try-with-resources;
+     * closing it before the end cancels the remaining fetch. The default splits {@link #fetchLogs};
+     * implementations backed by a remote source should override it so the window never has to be
+     * held in memory.
+     */
+    default Stream<String> streamLogs(
+            String env, Integer days, String logLevel, String applicationName) {
+        String logs = fetchLogs(env, days, logLevel, applicationName);
+        return logs == null ? Stream.empty() : logs.lines();
+    }
 }
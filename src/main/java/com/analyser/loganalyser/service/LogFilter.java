@@ -0,0 +1,442 @@
+package com.analyser.loganalyser.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Line predicate applying a request's level, application and time window plus optional field and
+ * regex terms to log entries. Stack trace continuation lines share the decision of their entry's
+ * first line, so instances are stateful and must see the lines of one stream in order.
+ *
+ * <p>Request criteria are lenient: an entry without a detectable level, application or timestamp is
+ * kept. Explicit filter terms are strict: an entry lacking the field does not match. Lines are
+ * pre-checked with plain substring searches so entries that cannot match (e.g. {@code level=INFO}
+ * lines when {@code ERROR} was requested) are rejected without being tokenized.
+ */
+public final class LogFilter implements Predicate<String> {
+
+    /** Keeps every line. */
+    public static final LogFilter NONE = new LogFilter(-1, null, LogBatch.NO_TIMESTAMP, List.of());
+
+    static final List<String> SEVERITIES =
+            List.of("TRACE", "DEBUG", "INFO", "WARN", "ERROR", "FATAL");
+
+    private static final int TIMESTAMP_SCRATCH = 40;
+
+    private final int minSeverity;
+    private final String application;
+    private final long notBefore;
+    private final List<Term> terms;
+    private final byte[] scratch = new byte[TIMESTAMP_SCRATCH];
+    private final long[] timestamp = new long[1];
+    private boolean keepCurrentEntry = true;
+    private long acceptedEntries;
+    private long rejectedEntries;
+
+    private LogFilter(int minSeverity, String application, long notBefore, List<Term> terms) {
+        this.minSeverity = minSeverity;
+        this.application = application;
+        this.notBefore = notBefore;
+        this.terms = terms;
+    }
+
+    /**
+     * @param level minimum severity ({@code WARN} keeps WARN, ERROR and FATAL); {@code null},
+     *     {@code All} or an unknown level disables the criterion
+     * @param application service/application name; {@code null} or {@code All} disables it
+     * @param notBefore epoch millis of the oldest entry to keep, or {@link LogBatch#NO_TIMESTAMP}
+     * @param filter {@code ;}-separated terms: {@code key=value}, {@code key!=value}, {@code
+     *     key>n}, {@code key>=n}, {@code key<n}, {@code key<=n} or {@code /regex/}
+     * @throws IllegalArgumentException if {@code filter} contains an invalid term
+     */
+    public static LogFilter of(String level, String application, long notBefore, String filter) {
+        int minSeverity = severity(level);
+        String app =
+                application == null
+                                || application.isBlank()
+                                || "All".equalsIgnoreCase(application.trim())
+                        ? null
+                        : application.trim();
+        List<Term> terms = parseTerms(filter);
+        if (minSeverity < 0
+                && app == null
+                && notBefore == LogBatch.NO_TIMESTAMP
+                && terms.isEmpty()) {
+            return NONE;
+        }
+        return new LogFilter(minSeverity, app, notBefore, terms);
+    }
+
+    /** {@code true} if this filter keeps every line. */
+    public boolean isEmpty() {
+        return this == NONE;
+    }
+
+    public long acceptedEntries() {
+        return acceptedEntries;
+    }
+
+    public long rejectedEntries() {
+        return rejectedEntries;
+    }
+
+    @Override
+    public boolean test(String line) {
+        if (this == NONE || line.isEmpty()) {
+            return true;
+        }
+        if (LogDeduplicator.isContinuation(line)) {
+            return keepCurrentEntry;
+        }
+        keepCurrentEntry = matches(line);
+        if (keepCurrentEntry) {
+            acceptedEntries++;
+        } else {
+            rejectedEntries++;
+        }
+        return keepCurrentEntry;
+    }
+
+    /** Keeps the matching entries of {@code logs}, preserving line order. */
+    public String apply(String logs) {
+        if (this == NONE) {
+            return logs;
+        }
+        StringBuilder kept = new StringBuilder();
+        int start = 0;
+        int length = logs.length();
+        while (start <= length) {
+            int end = logs.indexOf('\n', start);
+            if (end < 0) {
+                end = length;
+            }
+            int lineEnd = end > start && logs.charAt(end - 1) == '\r' ? end - 1 : end;
+            String line = logs.substring(start, lineEnd);
+            if (test(line) && !line.isEmpty()) {
+                if (!kept.isEmpty()) {
+                    kept.append('\n');
+                }
+                kept.append(line);
+            }
+            start = end + 1;
+        }
+        return kept.toString();
+    }
+
+    private boolean matches(String line) {
+        if (!quickCheck(line)) {
+            return false;
+        }
+        ParsedLine parsed = parse(line);
+        if (minSeverity >= 0 && parsed.severity >= 0 && parsed.severity < minSeverity) {
+            return false;
+        }
+        if (application != null
+                && parsed.application != null
+                && !application.equalsIgnoreCase(parsed.application)) {
+            return false;
+        }
+        if (notBefore != LogBatch.NO_TIMESTAMP
+                && parsed.timestamp != LogBatch.NO_TIMESTAMP
+                && parsed.timestamp < notBefore) {
+            return false;
+        }
+        for (Term term : terms) {
+            if (!term.matches(line, parsed)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rejects lines that mention only severities below the minimum, where one of them sits in a
+     * level position: {@code level=INFO} or the token right after the timestamp. A lower severity
+     * word elsewhere (e.g. in an exception message) is left to the full parse.
+     */
+    private boolean quickCheck(String line) {
+        if (minSeverity < 0) {
+            return true;
+        }
+        int firstToken = -1;
+        boolean lowerSeverityAsLevel = false;
+        for (int severity = 0; severity < SEVERITIES.size(); severity++) {
+            String word = SEVERITIES.get(severity);
+            if (!line.contains(word)) {
+                continue;
+            }
+            if (severity >= minSeverity) {
+                return true;
+            }
+            if (!lowerSeverityAsLevel) {
+                if (firstToken < 0) {
+                    firstToken = firstTokenAfterTimestamp(line);
+                }
+                lowerSeverityAsLevel =
+                        isLevelAt(line, firstToken, word)
+                                || (firstToken < line.length()
+                                        && line.charAt(firstToken) == '['
+                                        && isLevelAt(line, firstToken + 1, word))
+                                || isLevelAt(line, levelValueStart(line, word), word);
+            }
+        }
+        return !lowerSeverityAsLevel;
+    }
+
+    private int firstTokenAfterTimestamp(String line) {
+        int position = parseTimestamp(line);
+        while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    /** Start of {@code word} in a {@code level=word} field, or -1. */
+    private static int levelValueStart(String line, String word) {
+        int index = line.indexOf("level=" + word);
+        return index < 0 ? -1 : index + "level=".length();
+    }
+
+    /** Whether {@code word} starts at {@code start} and ends at a token boundary. */
+    private static boolean isLevelAt(String line, int start, String word) {
+        if (start < 0 || !line.startsWith(word, start)) {
+            return false;
+        }
+        int end = start + word.length();
+        if (end == line.length()) {
+            return true;
+        }
+        char next = line.charAt(end);
+        return Character.isWhitespace(next) || next == ':' || next == ']';
+    }
+
+    /** Parses the leading timestamp into {@code timestamp[0]}; returns the position after it. */
+    private int parseTimestamp(String line) {
+        int length = line.length();
+        int ascii = 0;
+        while (ascii < Math.min(length, TIMESTAMP_SCRATCH) && line.charAt(ascii) < 0x80) {
+            scratch[ascii] = (byte) line.charAt(ascii);
+            ascii++;
+        }
+        timestamp[0] = LogBatch.NO_TIMESTAMP;
+        return LogBatch.Timestamps.parse(scratch, 0, ascii, timestamp, 0);
+    }
+
+    /**
+     * Tokenizes the leading timestamp, {@code key=value} fields, a bare level token (optionally
+     * followed by {@code :} or wrapped in brackets) and a bracketed application name, stopping at
+     * the first token of free text.
+     */
+    private ParsedLine parse(String line) {
+        ParsedLine parsed = new ParsedLine(line);
+        int length = line.length();
+        int position = parseTimestamp(line);
+        parsed.timestamp = timestamp[0];
+        while (position < length) {
+            while (position < length && Character.isWhitespace(line.charAt(position))) {
+                position++;
+            }
+            int tokenEnd = position;
+            int equals = -1;
+            while (tokenEnd < length && !Character.isWhitespace(line.charAt(tokenEnd))) {
+                if (equals < 0 && line.charAt(tokenEnd) == '=') {
+                    equals = tokenEnd;
+                }
+                tokenEnd++;
+            }
+            if (tokenEnd == position) {
+                break;
+            }
+            if (equals > position) {
+                parsed.addField(position, equals, tokenEnd);
+            } else {
+                int severity = parsed.severity < 0 ? severityToken(line, position, tokenEnd) : -1;
+                if (severity >= 0) {
+                    parsed.severity = severity;
+                } else if (parsed.application == null
+                        && line.charAt(position) == '['
+                        && line.charAt(tokenEnd - 1) == ']'
+                        && tokenEnd - position > 2) {
+                    parsed.application = line.substring(position + 1, tokenEnd - 1);
+                } else {
+                    break;
+                }
+            }
+            position = tokenEnd;
+        }
+        return parsed;
+    }
+
+    private static int severityToken(String line, int start, int end) {
+        if (line.charAt(start) == '[' && end - start > 2 && line.charAt(end - 1) == ']') {
+            start++;
+            end--;
+        }
+        if (end > start && line.charAt(end - 1) == ':') {
+            end--;
+        }
+        return severity(line.substring(start, end));
+    }
+
+    /** Index in {@link #SEVERITIES}, or -1 for {@code null}, {@code All} and unknown levels. */
+    static int severity(String level) {
+        if (level == null) {
+            return -1;
+        }
+        String normalized = level.trim().toUpperCase(Locale.ROOT);
+        return switch (normalized) {
+            case "WARNING" -> SEVERITIES.indexOf("WARN");
+            case "SEVERE", "CRITICAL" -> SEVERITIES.indexOf("FATAL");
+            default -> SEVERITIES.indexOf(normalized);
+        };
+    }
+
+    private static List<Term> parseTerms(String filter) {
+        if (filter == null || filter.isBlank()) {
+            return List.of();
+        }
+        List<Term> terms = new ArrayList<>();
+        for (String raw : filter.split(";")) {
+            String term = raw.trim();
+            if (term.isEmpty()) {
+                continue;
+            }
+            if (term.length() > 2 && term.startsWith("/") && term.endsWith("/")) {
+                try {
+                    terms.add(new RegexTerm(Pattern.compile(term.substring(1, term.length() - 1))));
+                } catch (PatternSyntaxException e) {
+                    throw new IllegalArgumentException("Invalid filter pattern: " + term, e);
+                }
+                continue;
+            }
+            terms.add(FieldTerm.parse(term));
+        }
+        return terms;
+    }
+
+    private sealed interface Term permits FieldTerm, RegexTerm {
+
+        boolean matches(String line, ParsedLine parsed);
+    }
+
+    private record RegexTerm(Pattern pattern) implements Term {
+
+        @Override
+        public boolean matches(String line, ParsedLine parsed) {
+            return pattern.matcher(line).find();
+        }
+    }
+
+    private record FieldTerm(String key, String operator, String value, long number)
+            implements Term {
+
+        private static final List<String> OPERATORS = List.of("!=", ">=", "<=", "=", ">", "<");
+
+        static FieldTerm parse(String term) {
+            for (String operator : OPERATORS) {
+                int index = term.indexOf(operator);
+                if (index <= 0) {
+                    continue;
+                }
+                String key = term.substring(0, index).trim();
+                String value = term.substring(index + operator.length()).trim();
+                if (key.isEmpty() || value.isEmpty() || !key.chars().allMatch(FieldTerm::isKey)) {
+                    break;
+                }
+                long number = Long.MIN_VALUE;
+                if (operator.startsWith(">") || operator.startsWith("<")) {
+                    try {
+                        number = Long.parseLong(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException(
+                                "Filter term needs a numeric value: " + term, e);
+                    }
+                }
+                return new FieldTerm(key, operator, value, number);
+            }
+            throw new IllegalArgumentException("Invalid filter term: " + term);
+        }
+
+        @Override
+        public boolean matches(String line, ParsedLine parsed) {
+            String actual = parsed.field(key);
+            if (actual == null) {
+                return false;
+            }
+            return switch (operator) {
+                case "=" -> actual.equalsIgnoreCase(value);
+                case "!=" -> !actual.equalsIgnoreCase(value);
+                default -> compare(actual);
+            };
+        }
+
+        private boolean compare(String actual) {
+            long parsed;
+            try {
+                parsed = Long.parseLong(actual);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            return switch (operator) {
+                case ">" -> parsed > number;
+                case ">=" -> parsed >= number;
+                case "<" -> parsed < number;
+                default -> parsed <= number;
+            };
+        }
+
+        private static boolean isKey(int c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c == '@';
+        }
+    }
+
+    /** Fields of one line, kept as offsets until a term asks for them. */
+    private static final class ParsedLine {
+
+        private final String line;
+        private int[] fields = new int[12];
+        private int fieldCount;
+        private long timestamp = LogBatch.NO_TIMESTAMP;
+        private int severity = -1;
+        private String application;
+
+        ParsedLine(String line) {
+            this.line = line;
+        }
+
+        void addField(int keyStart, int equals, int valueEnd) {
+            if (fieldCount * 3 == fields.length) {
+                fields = Arrays.copyOf(fields, fields.length * 2);
+            }
+            fields[fieldCount * 3] = keyStart;
+            fields[fieldCount * 3 + 1] = equals;
+            fields[fieldCount * 3 + 2] = valueEnd;
+            fieldCount++;
+            int keyLength = equals - keyStart;
+            if (keyLength == 5 && line.startsWith("level", keyStart)
+                    || keyLength == 8 && line.startsWith("severity", keyStart)) {
+                severity = severity(line.substring(equals + 1, valueEnd));
+            } else if (keyLength == 7 && line.startsWith("service", keyStart)
+                    || keyLength == 3 && line.startsWith("app", keyStart)
+                    || keyLength == 11 && line.startsWith("application", keyStart)) {
+                application = line.substring(equals + 1, valueEnd);
+            }
+        }
+
+        String field(String key) {
+            for (int i = 0; i < fieldCount; i++) {
+                int keyStart = fields[i * 3];
+                int equals = fields[i * 3 + 1];
+                if (equals - keyStart == key.length() && line.startsWith(key, keyStart)) {
+                    return line.substring(equals + 1, fields[i * 3 + 2]);
+                }
+            }
+            return null;
+        }
+    }
+}
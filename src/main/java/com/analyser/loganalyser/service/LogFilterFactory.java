@@ -0,0 +1,44 @@
+package com.analyser.loganalyser.service;
+
+import com.analyser.loganalyser.model.LogAnalysisRequest;
+import java.time.Clock;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the {@link LogFilter} of a request. Raw logs are filtered by level, application, the last
+ * {@code days} relative to now and the request's filter terms; logs fetched from an environment
+ * skip the time window because the log API already applies {@code days}.
+ */
+@Component
+public class LogFilterFactory {
+
+    private final Clock clock;
+
+    @Autowired
+    public LogFilterFactory() {
+        this(Clock.systemUTC());
+    }
+
+    public LogFilterFactory(Clock clock) {
+        this.clock = clock;
+    }
+
+    public LogFilter forRawLogs(LogAnalysisRequest request) {
+        long notBefore =
+                request.days() == null || request.days() <= 0
+                        ? LogBatch.NO_TIMESTAMP
+                        : clock.millis() - Duration.ofDays(request.days()).toMillis();
+        return LogFilter.of(
+                request.logLevel(), request.applicationName(), notBefore, request.filter());
+    }
+
+    public LogFilter forFetchedLogs(LogAnalysisRequest request) {
+        return LogFilter.of(
+                request.logLevel(),
+                request.applicationName(),
+                LogBatch.NO_TIMESTAMP,
+                request.filter());
+    }
+}
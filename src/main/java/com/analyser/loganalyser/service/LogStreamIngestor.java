@@ -0,0 +1,237 @@
+package com.analyser.loganalyser.service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads log content from an {@link InputStream} line by line without materializing the whole
+ * payload. Gzip bodies are detected from the {@code Content-Encoding} header or the gzip magic
+ * bytes and decoded on the fly. Lines are deduplicated by {@link LogDeduplicator} as they arrive
+ * and, when they are {@code key=value} structured, also aggregated by {@link StructuredLogParser}
+ * into a summary that is placed ahead of the retained entries.
+ */
+@Component
+public class LogStreamIngestor {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogStreamIngestor.class);
+    private static final int GZIP_MAGIC_FIRST = 0x1f;
+    private static final int GZIP_MAGIC_SECOND = 0x8b;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final LogDeduplicator logDeduplicator;
+    private final StructuredLogParser structuredLogParser;
+    private final int maxBufferedChars;
+    private final int maxLineLength;
+
+    public LogStreamIngestor(
+            LogDeduplicator logDeduplicator,
+            StructuredLogParser structuredLogParser,
+            @Value("${app.ingest.max-buffered-chars:1000000}") int maxBufferedChars,
+            @Value("${app.ingest.max-line-length:16384}") int maxLineLength) {
+        this.logDeduplicator = logDeduplicator;
+        this.structuredLogParser = structuredLogParser;
+        this.maxBufferedChars = maxBufferedChars;
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Ingests the stream, collapses duplicate entries and keeps the result in a bounded buffer.
+     * Once half of the buffer is used only error-relevant entries are retained, so late failures in
+     * large dumps still reach the analysis.
+     */
+    public IngestedLogs ingest(InputStream in, String contentEncoding) throws IOException {
+        return ingest(in, contentEncoding, LogFilter.NONE);
+    }
+
+    /**
+     * Same as {@link #ingest(InputStream, String)}, dropping lines rejected by {@code filter}
+     * before they are deduplicated or buffered.
+     */
+    public IngestedLogs ingest(InputStream in, String contentEncoding, LogFilter filter)
+            throws IOException {
+        LogDeduplicator.Aggregator aggregator = logDeduplicator.newAggregator();
+        LogBatch.Builder columns = structuredLogParser.newColumnsBuilder();
+        Consumer<String> sink = aggregator.andThen(columns::addLine);
+        long linesRead =
+                ingest(
+                        in,
+                        contentEncoding,
+                        line -> {
+                            if (filter.test(line)) {
+                                sink.accept(line);
+                            }
+                        });
+        return buffer(aggregator, columns.build(), linesRead);
+    }
+
+    /**
+     * Same as {@link #ingest(InputStream, String)} for already decoded lines, such as those of
+     * {@link LogFetcher#streamLogs}. Elements may span several lines. The stream is consumed but
+     * not closed.
+     */
+    public IngestedLogs ingest(Stream<String> lines) {
+        LogDeduplicator.Aggregator aggregator = logDeduplicator.newAggregator();
+        LogBatch.Builder columns = structuredLogParser.newColumnsBuilder();
+        long[] linesRead = {0};
+        lines.flatMap(String::lines)
+                .forEach(
+                        line -> {
+                            String truncated = truncate(line);
+                            aggregator.accept(truncated);
+                            columns.addLine(truncated);
+                            linesRead[0]++;
+                        });
+        return buffer(aggregator, columns.build(), linesRead[0]);
+    }
+
+    private IngestedLogs buffer(
+            LogDeduplicator.Aggregator aggregator, LogBatch batch, long linesRead) {
+        BoundedLogBuffer buffer = new BoundedLogBuffer(maxBufferedChars);
+        aggregator.renderEntries().forEach(buffer);
+        logger.info(
+                "Ingested {} lines from stream as {} distinct entries, retained {}, dropped {}",
+                linesRead,
+                aggregator.distinctEntries(),
+                buffer.retainedLines(),
+                buffer.droppedLines());
+        String summary = structuredLogParser.summarize(batch);
+        return new IngestedLogs(summary + buffer.content(), linesRead, buffer.droppedLines());
+    }
+
+    /**
+     * Pushes each line of the (optionally gzip encoded) stream to {@code lineConsumer}. Lines
+     * longer than the configured maximum are truncated so a single malformed line cannot exhaust
+     * the heap.
+     *
+     * @return number of lines read
+     */
+    public long ingest(InputStream in, String contentEncoding, Consumer<String> lineConsumer)
+            throws IOException {
+        try (Reader reader =
+                new InputStreamReader(decode(in, contentEncoding), StandardCharsets.UTF_8)) {
+            char[] chunk = new char[READ_BUFFER_SIZE];
+            StringBuilder line = new StringBuilder();
+            boolean truncated = false;
+            boolean pendingCarriageReturn = false;
+            long lines = 0;
+            int read;
+            while ((read = reader.read(chunk)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    char c = chunk[i];
+                    if (pendingCarriageReturn) {
+                        pendingCarriageReturn = false;
+                        if (c == '\n') {
+                            continue;
+                        }
+                    }
+                    if (c == '\n' || c == '\r') {
+                        pendingCarriageReturn = c == '\r';
+                        lineConsumer.accept(line.toString());
+                        lines++;
+                        line.setLength(0);
+                        truncated = false;
+                    } else if (line.length() < maxLineLength) {
+                        line.append(c);
+                    } else if (!truncated) {
+                        line.append(" [truncated]");
+                        truncated = true;
+                    }
+                }
+            }
+            if (!line.isEmpty()) {
+                lineConsumer.accept(line.toString());
+                lines++;
+            }
+            return lines;
+        }
+    }
+
+    private String truncate(String line) {
+        return line.length() <= maxLineLength
+                ? line
+                : line.substring(0, maxLineLength) + " [truncated]";
+    }
+
+    private InputStream decode(InputStream in, String contentEncoding) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, READ_BUFFER_SIZE);
+        if (contentEncoding != null && contentEncoding.toLowerCase(Locale.ROOT).contains("gzip")) {
+            return new GZIPInputStream(buffered, READ_BUFFER_SIZE);
+        }
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        if (first == GZIP_MAGIC_FIRST && second == GZIP_MAGIC_SECOND) {
+            return new GZIPInputStream(buffered, READ_BUFFER_SIZE);
+        }
+        return buffered;
+    }
+
+    /** Result of a bounded ingestion. */
+    public record IngestedLogs(String logs, long linesRead, long linesDropped) {}
+
+    /**
+     * Line sink with a fixed character budget. The first half of the budget accepts every line; the
+     * remainder only accepts lines that look like errors or stack trace frames.
+     */
+    static final class BoundedLogBuffer implements Consumer<String> {
+
+        private final int maxChars;
+        private final StringBuilder content = new StringBuilder();
+        private long retainedLines;
+        private long droppedLines;
+
+        BoundedLogBuffer(int maxChars) {
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        public void accept(String line) {
+            int required = line.length() + 1;
+            boolean withinGeneralBudget = content.length() + required <= maxChars / 2;
+            boolean withinTotalBudget = content.length() + required <= maxChars;
+            if (withinGeneralBudget
+                    || (withinTotalBudget && LogDeduplicator.isErrorRelevant(line))) {
+                if (!content.isEmpty()) {
+                    content.append('\n');
+                }
+                content.append(line);
+                retainedLines++;
+            } else {
+                droppedLines++;
+            }
+        }
+
+        String content() {
+            if (droppedLines == 0) {
+                return content.toString();
+            }
+            return content
+                    + "\n["
+                    + droppedLines
+                    + " entries omitted during streaming ingestion to stay within "
+                    + maxChars
+                    + " characters]";
+        }
+
+        long retainedLines() {
+            return retainedLines;
+        }
+
+        long droppedLines() {
+            return droppedLines;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.analyser.loganalyser.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fits log entries into a token budget. Entries are ranked (summaries and notices, then errors with
+ * stack traces, other errors and collapsed {@code [Nx ...]} exemplars, warnings, other entries and
+ * finally debug/trace entries) and taken greedily in rank order; oversized stack traces are cut to
+ * their first frames and {@code Caused by:} lines. Kept entries stay in their original order and a
+ * note reports what was elided.
+ */
+public final class LogTrimmer {
+
+    private static final int MAX_KEPT_FRAMES = 8;
+    private static final int NOTE_TOKENS = 64;
+
+    private final TokenEstimator tokenEstimator;
+
+    public LogTrimmer(TokenEstimator tokenEstimator) {
+        this.tokenEstimator = tokenEstimator;
+    }
+
+    /** Result of fitting logs into a budget. */
+    public record TrimmedLogs(
+            String logs,
+            int keptEntries,
+            int elidedEntries,
+            int elidedTokens,
+            String elidedLevels) {
+
+        public boolean trimmed() {
+            return elidedEntries > 0 || elidedTokens > 0;
+        }
+    }
+
+    public TrimmedLogs trim(String logs, int maxTokens) {
+        int totalTokens = tokenEstimator.estimate(logs);
+        List<Entry> entries = entries(logs);
+        if (totalTokens <= maxTokens) {
+            return new TrimmedLogs(logs, entries.size(), 0, 0, "");
+        }
+
+        List<Entry> ranked = new ArrayList<>(entries);
+        ranked.sort(Comparator.comparingInt(Entry::rank).reversed().thenComparingInt(Entry::index));
+        int budget = Math.max(0, maxTokens - NOTE_TOKENS);
+        int used = 0;
+        for (Entry entry : ranked) {
+            for (String candidate : entry.candidates()) {
+                int tokens = tokenEstimator.estimate(candidate) + 1;
+                if (used + tokens <= budget) {
+                    entry.kept = candidate;
+                    used += tokens;
+                    break;
+                }
+            }
+        }
+
+        StringBuilder kept = new StringBuilder();
+        Map<String, Integer> elidedByLevel = new LinkedHashMap<>();
+        int keptEntries = 0;
+        int elidedEntries = 0;
+        int elidedTokens = 0;
+        int shortenedEntries = 0;
+        for (Entry entry : entries) {
+            if (entry.kept == null) {
+                elidedEntries++;
+                elidedTokens += tokenEstimator.estimate(entry.text);
+                elidedByLevel.merge(entry.level(), 1, Integer::sum);
+                continue;
+            }
+            if (entry.kept.length() < entry.text.length()) {
+                shortenedEntries++;
+                elidedTokens +=
+                        tokenEstimator.estimate(entry.text) - tokenEstimator.estimate(entry.kept);
+            }
+            if (!kept.isEmpty()) {
+                kept.append('\n');
+            }
+            kept.append(entry.kept);
+            keptEntries++;
+        }
+        String levels = levels(elidedByLevel);
+        kept.append(kept.isEmpty() ? "" : "\n")
+                .append("[Elided to fit the model context: ")
+                .append(elidedEntries)
+                .append(" entries")
+                .append(levels.isEmpty() ? "" : " (" + levels + ")")
+                .append(", shortened ")
+                .append(shortenedEntries)
+                .append(" stack traces, about ")
+                .append(elidedTokens)
+                .append(" tokens]");
+        return new TrimmedLogs(kept.toString(), keptEntries, elidedEntries, elidedTokens, levels);
+    }
+
+    private static String levels(Map<String, Integer> elidedByLevel) {
+        StringBuilder levels = new StringBuilder();
+        elidedByLevel.forEach(
+                (level, count) -> {
+                    if (!levels.isEmpty()) {
+                        levels.append(", ");
+                    }
+                    levels.append(level).append('=').append(count);
+                });
+        return levels.toString();
+    }
+
+    private static List<Entry> entries(String logs) {
+        List<Entry> entries = new ArrayList<>();
+        List<String> lines = new ArrayList<>();
+        for (String line : logs.split("\\R")) {
+            if (!LogDeduplicator.isContinuation(line) && !lines.isEmpty()) {
+                entries.add(new Entry(entries.size(), lines));
+                lines = new ArrayList<>();
+            }
+            lines.add(line);
+        }
+        if (!lines.isEmpty()) {
+            entries.add(new Entry(entries.size(), lines));
+        }
+        return entries;
+    }
+
+    private static final class Entry {
+
+        private final int index;
+        private final List<String> lines;
+        private final String text;
+        private final String level;
+        private final int rank;
+        private String kept;
+
+        Entry(int index, List<String> lines) {
+            this.index = index;
+            this.lines = lines;
+            this.text = String.join("\n", lines);
+            String head = lines.getFirst();
+            this.level = levelOf(head);
+            this.rank = rankOf(head, level, lines.size() > 1);
+        }
+
+        int index() {
+            return index;
+        }
+
+        int rank() {
+            return rank;
+        }
+
+        String level() {
+            return level;
+        }
+
+        /** Full entry, then its head with the first frames and causes, then the head alone. */
+        List<String> candidates() {
+            if (lines.size() == 1) {
+                return List.of(text);
+            }
+            List<String> shortened = new ArrayList<>();
+            shortened.add(lines.getFirst());
+            int frames = 0;
+            int skipped = 0;
+            for (String line : lines.subList(1, lines.size())) {
+                if (line.startsWith("Caused by:") || frames < MAX_KEPT_FRAMES) {
+                    shortened.add(line);
+                    frames++;
+                } else {
+                    skipped++;
+                }
+            }
+            if (skipped == 0) {
+                return List.of(text, lines.getFirst());
+            }
+            shortened.add("\t... " + skipped + " lines elided");
+            return List.of(text, String.join("\n", shortened), lines.getFirst());
+        }
+
+        private static String levelOf(String head) {
+            for (String level : List.of("FATAL", "ERROR", "WARN", "INFO", "DEBUG", "TRACE")) {
+                if (head.contains(level)) {
+                    return level;
+                }
+            }
+            return head.contains("Exception") || head.contains("Error:") ? "ERROR" : "OTHER";
+        }
+
+        private static int rankOf(String head, String level, boolean hasStackTrace) {
+            int count = leadingCount(head);
+            if (head.startsWith("[Structured log summary")
+                    || head.startsWith("Levels:")
+                    || head.startsWith("| ")
+                    || (count > 0 && head.startsWith(" entries omitted", count))) {
+                return 6;
+            }
+            boolean exemplar = count > 0 && head.startsWith("x", count);
+            return switch (level) {
+                case "FATAL", "ERROR" -> hasStackTrace || exemplar ? 5 : 4;
+                case "WARN" -> exemplar ? 3 : 2;
+                case "DEBUG", "TRACE" -> 0;
+                default -> exemplar ? 2 : 1;
+            };
+        }
+
+        /** Offset after the digits of a leading {@code [N}, or 0 if the head does not start so. */
+        private static int leadingCount(String head) {
+            if (!head.startsWith("[")) {
+                return 0;
+            }
+            int end = 1;
+            while (end < head.length() && Character.isDigit(head.charAt(end))) {
+                end++;
+            }
+            return end > 1 ? end : 0;
+        }
+    }
+}
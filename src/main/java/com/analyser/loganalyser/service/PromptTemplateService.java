@@ -7,6 +7,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
+import org.stringtemplate.v4.ST;
+import org.stringtemplate.v4.STGroup;
 
 @Component
 public class PromptTemplateService {
@@ -14,13 +16,18 @@ public class PromptTemplateService {
     private static final Logger logger = LoggerFactory.getLogger(PromptTemplateService.class);
     private static final String GUARDRAILS_FILE = "templates/guardrails.st";
     private static final String EMAIL_TEMPLATE_FILE = "templates/email-alert.st";
+    private static final String EMAIL_TEMPLATE_NAME = "emailAlert";
+    private static final String EMAIL_TEMPLATE_ARGS =
+            "applicationName,environment,date,errorDetails";
 
     private final String guardrailsTemplate;
     private final String emailTemplate;
+    private final STGroup emailTemplateGroup = new STGroup('{', '}');
 
     public PromptTemplateService() {
         this.guardrailsTemplate = loadTemplate(GUARDRAILS_FILE);
         this.emailTemplate = loadTemplate(EMAIL_TEMPLATE_FILE);
+        emailTemplateGroup.defineTemplate(EMAIL_TEMPLATE_NAME, EMAIL_TEMPLATE_ARGS, emailTemplate);
     }
 
     public String guardrailsTemplate() {
@@ -31,6 +38,17 @@ public class PromptTemplateService {
         return emailTemplate;
     }
 
+    /** Fills the email template, compiled once at startup, without involving the LLM. */
+    public String renderEmailAlert(
+            String applicationName, String environment, String date, String errorDetails) {
+        ST alert = emailTemplateGroup.getInstanceOf(EMAIL_TEMPLATE_NAME);
+        alert.add("applicationName", applicationName);
+        alert.add("environment", environment);
+        alert.add("date", date);
+        alert.add("errorDetails", errorDetails);
+        return alert.render();
+    }
+
     private String loadTemplate(String classpathFile) {
         try {
             ClassPathResource resource = new ClassPathResource(classpathFile);
@@ -0,0 +1,325 @@
+package com.analyser.loganalyser.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps stack frames such as {@code at com.acme.UserService.find(UserService.java:101)} to source
+ * windows in a cloned repository. The file-name index of a clone is built on first use and cached
+ * per commit; different clones are indexed in parallel, while concurrent requests for the same
+ * clone wait for a single build. Line offsets of a file are computed only when a frame points into
+ * it, and only the requested window is read from disk.
+ */
+@Component
+public class SourceContextIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SourceContextIndex.class);
+    private static final Pattern FRAME =
+            Pattern.compile(
+                    "(?:([\\w$.]+)\\.[\\w$<>]+\\()?([\\w$-]+\\.(?:java|kt|groovy|scala)):(\\d+)");
+    private static final Set<String> SOURCE_EXTENSIONS =
+            Set.of(".java", ".kt", ".groovy", ".scala");
+    private static final Set<String> SKIPPED_DIRECTORIES =
+            Set.of(".git", "target", "build", "node_modules", ".gradle", ".idea");
+
+    private final int windowLines;
+    private final int maxSnippets;
+    private final int maxChars;
+    private final int maxIndexes;
+    private final Map<String, CompletableFuture<Index>> indexes;
+
+    public SourceContextIndex(
+            @Value("${app.source-context.window-lines:6}") int windowLines,
+            @Value("${app.source-context.max-snippets:5}") int maxSnippets,
+            @Value("${app.source-context.max-chars:8000}") int maxChars,
+            @Value("${app.source-context.max-indexes:8}") int maxIndexes) {
+        this.windowLines = windowLines;
+        this.maxSnippets = maxSnippets;
+        this.maxChars = maxChars;
+        this.maxIndexes = maxIndexes;
+        this.indexes =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(
+                            Map.Entry<String, CompletableFuture<Index>> eldest) {
+                        return size() > SourceContextIndex.this.maxIndexes;
+                    }
+                };
+    }
+
+    /**
+     * Renders the source windows around the distinct frames referenced in {@code logs}, in order of
+     * first appearance, within the configured snippet and character limits.
+     */
+    public String snippets(Path repoDir, String logs) {
+        if (repoDir == null || logs == null || !Files.isDirectory(repoDir)) {
+            return "";
+        }
+        Set<Frame> frames = frames(logs);
+        if (frames.isEmpty()) {
+            return "";
+        }
+        Index index = index(repoDir);
+        StringBuilder rendered = new StringBuilder();
+        int count = 0;
+        for (Frame frame : frames) {
+            if (count == maxSnippets) {
+                break;
+            }
+            SourceFile file = index.resolve(frame);
+            if (file == null) {
+                continue;
+            }
+            String snippet = file.window(frame.line(), windowLines);
+            if (snippet.isEmpty() || rendered.length() + snippet.length() > maxChars) {
+                continue;
+            }
+            rendered.append(snippet);
+            count++;
+        }
+        return rendered.toString();
+    }
+
+    static Set<Frame> frames(String logs) {
+        Set<Frame> frames = new LinkedHashSet<>();
+        Matcher matcher = FRAME.matcher(logs);
+        while (matcher.find()) {
+            try {
+                frames.add(
+                        new Frame(
+                                matcher.group(1),
+                                matcher.group(2),
+                                Integer.parseInt(matcher.group(3))));
+            } catch (NumberFormatException e) {
+                // line number out of range, not a real frame
+            }
+        }
+        return frames;
+    }
+
+    private Index index(Path repoDir) {
+        Path root = repoDir.toAbsolutePath().normalize();
+        String key = root + "@" + GitHead.commit(root);
+        CompletableFuture<Index> pending = new CompletableFuture<>();
+        CompletableFuture<Index> existing;
+        synchronized (indexes) {
+            existing = indexes.putIfAbsent(key, pending);
+        }
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            Index index = Index.build(root);
+            pending.complete(index);
+            return index;
+        } catch (RuntimeException e) {
+            synchronized (indexes) {
+                indexes.remove(key, pending);
+            }
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    record Frame(String qualifiedClass, String fileName, int line) {}
+
+    private static final class Index {
+
+        private final Map<String, List<SourceFile>> filesByName;
+
+        private Index(Map<String, List<SourceFile>> filesByName) {
+            this.filesByName = filesByName;
+        }
+
+        static Index build(Path root) {
+            Map<String, List<SourceFile>> filesByName = new HashMap<>();
+            try (Stream<Path> paths = Files.walk(root)) {
+                paths.filter(path -> isSource(root, path))
+                        .forEach(
+                                path ->
+                                        filesByName
+                                                .computeIfAbsent(
+                                                        path.getFileName().toString(),
+                                                        name -> new ArrayList<>())
+                                                .add(new SourceFile(root, path)));
+            } catch (IOException e) {
+                logger.warn("Unable to index repository {}: {}", root, e.getMessage());
+            }
+            logger.info("Indexed {} source file names in {}", filesByName.size(), root);
+            return new Index(filesByName);
+        }
+
+        /** Picks the file whose path best matches the frame's package, if it has one. */
+        SourceFile resolve(Frame frame) {
+            List<SourceFile> candidates = filesByName.get(frame.fileName());
+            if (candidates == null || candidates.isEmpty()) {
+                return null;
+            }
+            if (candidates.size() == 1 || frame.qualifiedClass() == null) {
+                return candidates.getFirst();
+            }
+            String qualified = frame.qualifiedClass();
+            int nested = qualified.indexOf('$');
+            if (nested >= 0) {
+                qualified = qualified.substring(0, nested);
+            }
+            int lastDot = qualified.lastIndexOf('.');
+            String packagePath =
+                    lastDot < 0 ? "" : qualified.substring(0, lastDot).replace('.', '/') + "/";
+            for (SourceFile candidate : candidates) {
+                if (candidate.relativePath().endsWith(packagePath + frame.fileName())) {
+                    return candidate;
+                }
+            }
+            return candidates.getFirst();
+        }
+
+        private static boolean isSource(Path root, Path path) {
+            String name = path.getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            if (dot < 0
+                    || !SOURCE_EXTENSIONS.contains(name.substring(dot).toLowerCase(Locale.ROOT))) {
+                return false;
+            }
+            for (Path part : root.relativize(path)) {
+                if (SKIPPED_DIRECTORIES.contains(part.toString())) {
+                    return false;
+                }
+            }
+            return Files.isRegularFile(path);
+        }
+    }
+
+    private static final class SourceFile {
+
+        private final Path path;
+        private final String relativePath;
+        private long[] lineOffsets;
+
+        SourceFile(Path root, Path path) {
+            this.path = path;
+            this.relativePath = root.relativize(path).toString().replace('\\', '/');
+        }
+
+        String relativePath() {
+            return relativePath;
+        }
+
+        /** Returns lines {@code line ± radius}, numbered, or an empty string if out of range. */
+        synchronized String window(int line, int radius) {
+            try {
+                long[] offsets = lineOffsets();
+                int lineCount = offsets.length - 1;
+                if (line < 1 || line > lineCount) {
+                    return "";
+                }
+                int first = Math.max(1, line - radius);
+                int last = Math.min(lineCount, line + radius);
+                String text = read(offsets[first - 1], offsets[last]);
+                StringBuilder window = new StringBuilder();
+                window.append("--- ")
+                        .append(relativePath)
+                        .append(" (lines ")
+                        .append(first)
+                        .append('-')
+                        .append(last)
+                        .append(") ---\n");
+                int number = first;
+                for (String sourceLine : text.split("\\R", -1)) {
+                    if (number > last) {
+                        break;
+                    }
+                    window.append(number == line ? ">" : " ")
+                            .append(number)
+                            .append(": ")
+                            .append(sourceLine)
+                            .append('\n');
+                    number++;
+                }
+                return window.toString();
+            } catch (IOException e) {
+                logger.warn("Unable to read {}: {}", path, e.getMessage());
+                return "";
+            }
+        }
+
+        /** Byte offset of the start of each line, plus the file length as the final entry. */
+        private long[] lineOffsets() throws IOException {
+            if (lineOffsets == null) {
+                byte[] content = Files.readAllBytes(path);
+                List<Long> offsets = new ArrayList<>();
+                offsets.add(0L);
+                for (int i = 0; i < content.length; i++) {
+                    if (content[i] == '\n' && i + 1 < content.length) {
+                        offsets.add((long) i + 1);
+                    }
+                }
+                offsets.add((long) content.length);
+                lineOffsets = offsets.stream().mapToLong(Long::longValue).toArray();
+            }
+            return lineOffsets;
+        }
+
+        private String read(long start, long end) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+                channel.read(buffer, start);
+                return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8)
+                        .stripTrailing();
+            }
+        }
+    }
+
+    /** Resolves the checked-out commit from {@code .git} without spawning a process. */
+    private static final class GitHead {
+
+        private static final String REF_PREFIX = "ref: ";
+
+        static String commit(Path repoDir) {
+            Path gitDir = repoDir.resolve(".git");
+            try {
+                String head = Files.readString(gitDir.resolve("HEAD")).trim();
+                if (!head.startsWith(REF_PREFIX)) {
+                    return head;
+                }
+                String ref = head.substring(REF_PREFIX.length());
+                Path refFile = gitDir.resolve(ref);
+                if (Files.isRegularFile(refFile)) {
+                    return Files.readString(refFile).trim();
+                }
+                Path packedRefs = gitDir.resolve("packed-refs");
+                if (Files.isRegularFile(packedRefs)) {
+                    for (String packed : Files.readAllLines(packedRefs)) {
+                        if (packed.endsWith(" " + ref)) {
+                            return packed.substring(0, packed.indexOf(' '));
+                        }
+                    }
+                }
+                return ref;
+            } catch (IOException e) {
+                return "unversioned";
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.analyser.loganalyser.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Parses {@code key=value} structured log lines such as {@code 2026-02-23T01:00:00.137Z env=prd
+ * node=prd-app-02 service=order-service level=INFO ... latencyMs=21 message} into a columnar {@link
+ * LogBatch} and aggregates it into a compact per-level and per-service summary, so the model sees
+ * counts and latency percentiles of the whole window instead of sampled lines.
+ */
+@Component
+public class StructuredLogParser {
+
+    private final int maxRows;
+    private final int maxServices;
+
+    public StructuredLogParser(
+            @Value("${app.structured-logs.max-rows:1000000}") int maxRows,
+            @Value("${app.structured-logs.max-services:10}") int maxServices) {
+        this.maxRows = maxRows;
+        this.maxServices = maxServices;
+    }
+
+    /** Parses every line of {@code logs}, keeping the line text. */
+    public LogBatch parse(String logs) {
+        byte[] bytes = logs.getBytes(StandardCharsets.UTF_8);
+        return LogBatch.builder(maxRows).addLines(bytes, 0, bytes.length).build();
+    }
+
+    /** Parses every line of {@code data[offset, offset + length)}, keeping the line text. */
+    public LogBatch parse(byte[] data, int offset, int length) {
+        return LogBatch.builder(maxRows).addLines(data, offset, length).build();
+    }
+
+    /** Builder for incremental ingestion that keeps only the columns, not the line text. */
+    public LogBatch.Builder newColumnsBuilder() {
+        return LogBatch.columnsBuilder(maxRows);
+    }
+
+    /** Summary of {@code logs}, or an empty string if they are not structured. */
+    public String summarize(String logs) {
+        byte[] bytes = logs.getBytes(StandardCharsets.UTF_8);
+        return summarize(newColumnsBuilder().addLines(bytes, 0, bytes.length).build());
+    }
+
+    /**
+     * Renders level counts and, for the services with the most errors, entry, error and warning
+     * counts with p50/p95/max latency. Returns an empty string for unstructured batches.
+     */
+    public String summarize(LogBatch batch) {
+        if (!batch.isStructured()) {
+            return "";
+        }
+        int size = batch.size();
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        int[] levelCounts = new int[batch.levelDictionary().size()];
+        List<String> services = batch.serviceDictionary();
+        ServiceStats[] stats = new ServiceStats[services.size()];
+        for (int code = 0; code < stats.length; code++) {
+            stats[code] = new ServiceStats(services.get(code));
+        }
+        for (int row = 0; row < size; row++) {
+            long timestamp = batch.timestamp(row);
+            if (timestamp != LogBatch.NO_TIMESTAMP) {
+                first = Math.min(first, timestamp);
+                last = Math.max(last, timestamp);
+            }
+            int level = batch.levelCode(row);
+            if (level != LogBatch.MISSING) {
+                levelCounts[level]++;
+            }
+            int service = batch.serviceCode(row);
+            if (service != LogBatch.MISSING) {
+                stats[service].count(batch.level(row), batch.latencyMs(row));
+            }
+        }
+
+        StringBuilder summary = new StringBuilder("[Structured log summary: ");
+        summary.append(size).append(" entries");
+        if (first <= last) {
+            summary.append(" from ")
+                    .append(LogBatch.Timestamps.format(first))
+                    .append(" to ")
+                    .append(LogBatch.Timestamps.format(last));
+        }
+        if (batch.droppedRows() > 0) {
+            summary.append(", ").append(batch.droppedRows()).append(" further entries not counted");
+        }
+        summary.append("]\n");
+        List<String> levels = batch.levelDictionary();
+        if (!levels.isEmpty()) {
+            summary.append("Levels:");
+            for (int code = 0; code < levels.size(); code++) {
+                summary.append(code == 0 ? " " : ", ")
+                        .append(levels.get(code))
+                        .append('=')
+                        .append(levelCounts[code]);
+            }
+            summary.append('\n');
+        }
+        if (stats.length > 0) {
+            summary.append("| Service | Entries | ERROR | WARN | p50 ms | p95 ms | max ms |\n");
+            Arrays.stream(stats)
+                    .sorted(
+                            Comparator.comparingInt(ServiceStats::errors)
+                                    .thenComparingInt(ServiceStats::entries)
+                                    .reversed())
+                    .limit(maxServices)
+                    .forEach(service -> service.appendRow(summary));
+        }
+        return summary.toString();
+    }
+
+    /** Per-service counters; latencies are kept in a growing primitive array. */
+    private static final class ServiceStats {
+
+        private final String name;
+        private int entries;
+        private int errors;
+        private int warnings;
+        private int[] latencies = new int[64];
+        private int latencyCount;
+
+        ServiceStats(String name) {
+            this.name = name;
+        }
+
+        void count(String level, int latency) {
+            entries++;
+            if ("ERROR".equals(level) || "FATAL".equals(level)) {
+                errors++;
+            } else if ("WARN".equals(level)) {
+                warnings++;
+            }
+            if (latency != LogBatch.MISSING) {
+                if (latencyCount == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, latencyCount * 2);
+                }
+                latencies[latencyCount++] = latency;
+            }
+        }
+
+        int entries() {
+            return entries;
+        }
+
+        int errors() {
+            return errors;
+        }
+
+        void appendRow(StringBuilder summary) {
+            List<String> cells = new ArrayList<>(List.of("-", "-", "-"));
+            if (latencyCount > 0) {
+                Arrays.sort(latencies, 0, latencyCount);
+                cells.set(0, String.valueOf(percentile(50)));
+                cells.set(1, String.valueOf(percentile(95)));
+                cells.set(2, String.valueOf(latencies[latencyCount - 1]));
+            }
+            summary.append("| ")
+                    .append(name)
+                    .append(" | ")
+                    .append(entries)
+                    .append(" | ")
+                    .append(errors)
+                    .append(" | ")
+                    .append(warnings)
+                    .append(" | ")
+                    .append(String.join(" | ", cells))
+                    .append(" |\n");
+        }
+
+        /** Nearest-rank percentile of the sorted latencies. */
+        private int percentile(int percent) {
+            int rank = (int) Math.ceil(percent / 100.0 * latencyCount);
+            return latencies[Math.max(0, rank - 1)];
+        }
+    }
+}
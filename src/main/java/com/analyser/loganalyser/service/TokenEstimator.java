@@ -0,0 +1,65 @@
+package com.analyser.loganalyser.service;
+
+import com.analyser.loganalyser.config.AnalysisProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Conservative token estimate for the configured provider without loading a tokenizer. Runs of
+ * ASCII letters and digits cost {@code analysis.chars-per-token.<provider>} characters per token;
+ * punctuation, line breaks and non-ASCII characters cost one token each, which matches how BPE
+ * tokenizers split timestamps, ids and stack frames in logs.
+ */
+@Component
+public class TokenEstimator {
+
+    private static final int MIN_PROMPT_TOKENS = 256;
+
+    private final double charsPerToken;
+    private final int contextWindow;
+    private final int maxPromptTokens;
+
+    public TokenEstimator(
+            AnalysisProperties analysisProperties,
+            @Value("${ai.provider:ollama}") String provider) {
+        this.charsPerToken = analysisProperties.charsPerTokenFor(provider);
+        this.contextWindow = analysisProperties.contextWindowFor(provider);
+        this.maxPromptTokens =
+                Math.max(MIN_PROMPT_TOKENS, contextWindow - analysisProperties.getReservedTokens());
+    }
+
+    public int estimate(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        long tokens = 0;
+        int run = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80 && Character.isLetterOrDigit(c)) {
+                run++;
+                continue;
+            }
+            if (run > 0) {
+                tokens += (long) Math.ceil(run / charsPerToken);
+                run = 0;
+            }
+            if (c == '\n' || (c != ' ' && c != '\t' && c != '\r')) {
+                tokens++;
+            }
+        }
+        if (run > 0) {
+            tokens += (long) Math.ceil(run / charsPerToken);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, tokens);
+    }
+
+    public int contextWindow() {
+        return contextWindow;
+    }
+
+    /** Tokens available to the user prompt: the context window minus the reserved tokens. */
+    public int maxPromptTokens() {
+        return maxPromptTokens;
+    }
+}
@@ -0,0 +1,65 @@
+package com.analyser.loganalyser.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.prompt.Prompt;
+
+class FakeChatModelTest {
+
+    private final FakeChatProperties properties = new FakeChatProperties();
+
+    @Test
+    void call_shouldAnswerWithTableAfterLatencyAndTokenTime() {
+        // Given
+        properties.setLatency(Duration.ofMillis(100));
+        properties.setLatencyJitter(Duration.ZERO);
+        properties.setTokensPerSecond(10_000);
+        properties.setResponseRows(2);
+        FakeChatModel model = new FakeChatModel(properties);
+
+        // When
+        long start = System.nanoTime();
+        String answer = model.call(new Prompt("Identify errors")).getResult().getOutput().getText();
+
+        // Then
+        assertThat(Duration.ofNanos(System.nanoTime() - start))
+                .isGreaterThanOrEqualTo(Duration.ofMillis(100));
+        assertThat(answer)
+                .startsWith("| Exception |")
+                .contains("FakeException1", "FakeException2")
+                .doesNotContain("FakeException3");
+        assertThat(model.calls()).isEqualTo(1);
+    }
+
+    @Test
+    void stream_shouldEmitAnswerInChunksOrFailAtErrorRate() {
+        // Given
+        properties.setLatency(Duration.ZERO);
+        properties.setLatencyJitter(Duration.ZERO);
+        properties.setTokensPerSecond(0);
+        FakeChatModel model = new FakeChatModel(properties);
+
+        // When
+        String streamed =
+                model.stream(new Prompt("Identify errors"))
+                        .map(response -> response.getResult().getOutput().getText())
+                        .collect(Collectors.joining())
+                        .block();
+
+        // Then
+        assertThat(streamed)
+                .isEqualTo(
+                        model.call(new Prompt("Identify errors"))
+                                .getResult()
+                                .getOutput()
+                                .getText());
+        properties.setErrorRate(1.0);
+        assertThatThrownBy(() -> model.stream(new Prompt("Identify errors")).blockLast())
+                .hasMessageContaining("503");
+        assertThat(model.failures()).isEqualTo(1);
+    }
+}
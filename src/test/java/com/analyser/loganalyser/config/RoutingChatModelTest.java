@@ -0,0 +1,304 @@
+package com.analyser.loganalyser.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.analyser.loganalyser.model.AnalysisTraceReport;
+import com.analyser.loganalyser.service.AnalysisTrace;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+class RoutingChatModelTest {
+
+    private final RoutingProperties properties = new RoutingProperties();
+    private final AnalysisProperties analysisProperties = new AnalysisProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void call_shouldFailOverAndOpenCircuitOfFailingProvider() {
+        // Given
+        properties.setMinimumCalls(1);
+        AtomicInteger openaiCalls = new AtomicInteger();
+        RoutingChatModel router =
+                router(
+                        "openai",
+                        prompt -> {
+                            openaiCalls.incrementAndGet();
+                            throw new IllegalStateException("503 from openai");
+                        },
+                        "google",
+                        prompt -> response("google"));
+
+        // When
+        List<String> answers =
+                List.of(
+                        text(router.call(prompt())),
+                        text(router.call(prompt())),
+                        text(router.call(prompt())));
+
+        // Then
+        assertThat(answers).containsOnly("google");
+        assertThat(openaiCalls).hasValue(1);
+        assertThat(router.health().get("openai").state()).isEqualTo(ProviderHealth.State.OPEN);
+        assertThat(router.health().get("google").calls()).isEqualTo(3);
+        assertThat(providerCalls("openai", "error")).isEqualTo(1);
+        assertThat(providerCalls("google", "success")).isEqualTo(3);
+    }
+
+    @Test
+    void call_shouldRecordProviderAttemptsInCurrentTrace() {
+        // Given
+        RoutingChatModel router =
+                router(
+                        "openai",
+                        prompt -> {
+                            throw new IllegalStateException("503 from openai");
+                        },
+                        "google",
+                        prompt -> response("google"));
+
+        // When
+        AnalysisTraceReport trace;
+        try (AnalysisTrace current = AnalysisTrace.start()) {
+            router.call(prompt());
+            trace = current.report("google");
+        }
+
+        // Then
+        assertThat(trace.providerAttempts())
+                .containsExactly(
+                        new AnalysisTraceReport.ProviderAttempt("openai", "error"),
+                        new AnalysisTraceReport.ProviderAttempt("google", "success"));
+        assertThat(trace.provider()).isEqualTo("google");
+        assertThat(trace.retries()).isEqualTo(1);
+    }
+
+    @Test
+    void call_shouldHedgeSlowProviderWithNextProvider() {
+        // Given
+        properties.setHedgeDelay(Duration.ofMillis(50));
+        RoutingChatModel router =
+                router(
+                        "openai",
+                        prompt -> {
+                            try {
+                                Thread.sleep(5_000);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new IllegalStateException("cancelled");
+                            }
+                            return response("openai");
+                        },
+                        "google",
+                        prompt -> response("google"));
+
+        // When
+        long start = System.nanoTime();
+        String answer = text(router.call(prompt()));
+
+        // Then
+        assertThat(answer).isEqualTo("google");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(router.health().get("openai").errorRate()).isZero();
+    }
+
+    @Test
+    void call_shouldReleaseHalfOpenTrialOfHedgeCancelledBeforeItRan() {
+        // Given
+        properties.setHedgeDelay(Duration.ofMillis(50));
+        properties.setMinimumCalls(1);
+        properties.setOpenDuration(Duration.ZERO);
+        Map<String, ChatModel> models = new LinkedHashMap<>();
+        models.put(
+                "openai",
+                prompt -> {
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return response("openai");
+                });
+        models.put("google", prompt -> response("google"));
+        PrimaryOnlyExecutor executor = new PrimaryOnlyExecutor();
+        try (RoutingChatModel router =
+                new RoutingChatModel(
+                        models,
+                        properties,
+                        analysisProperties,
+                        meterRegistry,
+                        Clock.systemUTC(),
+                        executor)) {
+            router.health().get("google").recordFailure();
+
+            // When
+            String answer = text(router.call(prompt()));
+
+            // Then
+            assertThat(answer).isEqualTo("openai");
+            assertThat(router.health().get("google").isAvailable()).isTrue();
+            assertThat(router.inFlight("google")).isZero();
+        }
+        assertThat(executor.isShutdown()).isTrue();
+    }
+
+    @Test
+    void call_shouldPreferLocalProviderForSmallPromptsOnly() {
+        // Given
+        analysisProperties.setContextWindow(Map.of("ollama", 4_096, "openai", 1_000_000));
+        properties.setLocalMaxTokens(100);
+        RoutingChatModel router =
+                router(
+                        "openai",
+                        prompt -> response("openai"),
+                        "ollama",
+                        prompt -> response("ollama"));
+
+        // When / Then
+        assertThat(text(router.call(prompt()))).isEqualTo("ollama");
+        assertThat(text(router.call(new Prompt("word ".repeat(500))))).isEqualTo("openai");
+        assertThat(text(router.call(new Prompt("word ".repeat(20_000))))).isEqualTo("openai");
+    }
+
+    @Test
+    void call_shouldHoldEachProviderToItsOwnInFlightLimit() throws Exception {
+        // Given
+        properties.setHedge(false);
+        analysisProperties.setMaxInFlight(Map.of("openai", 1, "google", 1));
+        CountDownLatch openaiEntered = new CountDownLatch(1);
+        CountDownLatch releaseOpenai = new CountDownLatch(1);
+        RoutingChatModel router =
+                router(
+                        "openai",
+                        prompt -> {
+                            openaiEntered.countDown();
+                            try {
+                                releaseOpenai.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return response("openai");
+                        },
+                        "google",
+                        prompt -> response("google"));
+        CompletableFuture<ChatResponse> first =
+                CompletableFuture.supplyAsync(() -> router.call(prompt()));
+        openaiEntered.await();
+
+        // When
+        String second = text(router.call(prompt()));
+        int openaiInFlight = router.inFlight("openai");
+        releaseOpenai.countDown();
+
+        // Then
+        assertThat(second).isEqualTo("google");
+        assertThat(openaiInFlight).isEqualTo(1);
+        assertThat(text(first.get(5, TimeUnit.SECONDS))).isEqualTo("openai");
+        assertThat(router.inFlight("openai")).isZero();
+        assertThat(router.inFlight("google")).isZero();
+    }
+
+    @Test
+    void call_shouldFailWhenEveryProviderFails() {
+        RoutingChatModel router =
+                router(
+                        "openai",
+                        prompt -> {
+                            throw new IllegalStateException("openai down");
+                        },
+                        "google",
+                        prompt -> {
+                            throw new IllegalStateException("google down");
+                        });
+
+        assertThatThrownBy(() -> router.call(prompt()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageEndingWith("down");
+    }
+
+    private RoutingChatModel router(
+            String firstName, ChatModel first, String secondName, ChatModel second) {
+        Map<String, ChatModel> models = new LinkedHashMap<>();
+        models.put(firstName, first);
+        models.put(secondName, second);
+        return new RoutingChatModel(
+                models, properties, analysisProperties, meterRegistry, Clock.systemUTC());
+    }
+
+    private long providerCalls(String provider, String outcome) {
+        return meterRegistry
+                .get("loganalyser.llm.provider.call")
+                .tag("provider", provider)
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+
+    /** Runs the first task only; later ones (the hedge) wait until they are cancelled. */
+    private static final class PrimaryOnlyExecutor extends AbstractExecutorService {
+
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile boolean shutdown;
+
+        @Override
+        public void execute(Runnable task) {
+            if (started.compareAndSet(false, true)) {
+                Thread.ofVirtual().start(task);
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return shutdown;
+        }
+    }
+
+    private static Prompt prompt() {
+        return new Prompt("Identify errors in these logs: ERROR boom");
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+
+    private static String text(ChatResponse response) {
+        return response.getResult().getOutput().getText();
+    }
+}
@@ -1,21 +1,46 @@
 package com.analyser.loganalyser.controller;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.analyser.loganalyser.config.AnalysisProperties;
+import com.analyser.loganalyser.model.AnalysisTraceReport;
 import com.analyser.loganalyser.model.LogAnalysisRequest;
 import com.analyser.loganalyser.model.agent.AgentCard;
 import com.analyser.loganalyser.model.agent.AgentInvokeRequest;
 import com.analyser.loganalyser.model.agent.AgentInvokeResponse;
+import com.analyser.loganalyser.model.job.AnalysisJobStatus;
+import com.analyser.loganalyser.model.job.JobState;
+import com.analyser.loganalyser.service.AnalysisJobService;
+import com.analyser.loganalyser.service.AnalysisMetrics;
+import com.analyser.loganalyser.service.AnalysisOutputStore;
+import com.analyser.loganalyser.service.AnalysisTrace;
+import com.analyser.loganalyser.service.AnalysisTracer;
 import com.analyser.loganalyser.service.LogAnalysisService;
+import com.analyser.loganalyser.service.TokenEstimator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.Duration;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 
 class AgentControllerTest {
 
-    private final LogAnalysisService logAnalysisService =
-            org.mockito.Mockito.mock(LogAnalysisService.class);
-    private final AgentController agentController = new AgentController(logAnalysisService);
+    private final LogAnalysisService logAnalysisService = mock(LogAnalysisService.class);
+    private final AnalysisJobService analysisJobService =
+            new AnalysisJobService(1, 1, Duration.ofMinutes(1), Duration.ofMinutes(1));
+    private final AnalysisOutputStore analysisOutputStore = mock(AnalysisOutputStore.class);
+    private final AgentController agentController =
+            new AgentController(
+                    logAnalysisService,
+                    analysisJobService,
+                    new AnalysisTracer(analysisOutputStore));
 
     @Test
     void getCard_shouldReturnAgentMetadata() {
@@ -47,11 +72,81 @@ class AgentControllerTest {
                         "ERROR",
                         2,
                         "payments",
-                        "test");
-        AgentInvokeResponse response = agentController.analyze(request).getBody();
+                        "test",
+                        null,
+                        null);
+        AgentInvokeResponse response = agentController.analyze(request, false).getBody();
         assertThat(response).isNotNull();
         assertThat(response.analysis()).isEqualTo("Analysis complete");
+        assertThat(response.trace()).isNull();
 
         verify(logAnalysisService).processLogs(logRequest);
     }
+
+    @Test
+    void analyze_shouldAttachAndStoreTraceWhenRequested() {
+        // Given
+        AnalysisMetrics metrics =
+                new AnalysisMetrics(
+                        new SimpleMeterRegistry(),
+                        new TokenEstimator(new AnalysisProperties(), "openai"),
+                        "openai");
+        Path outputFile = Path.of("target/log_analysis_output/analysis_test.txt");
+        AgentInvokeRequest request =
+                new AgentInvokeRequest(
+                        "ERROR: timeout", null, null, null, null, null, null, null, null);
+        when(logAnalysisService.processLogs(request.toLogAnalysisRequest()))
+                .thenAnswer(
+                        invocation -> {
+                            metrics.recordInputSize("raw", 14);
+                            metrics.time(AnalysisMetrics.Stage.PROMPT, () -> "prompt");
+                            metrics.recordLlmCall(
+                                    metrics.start(), "call", true, "system", "logs", "| row |");
+                            metrics.recordResult("model");
+                            AnalysisTrace.current().orElseThrow().recordOutputFile(outputFile);
+                            return "| row |";
+                        });
+
+        // When
+        AgentInvokeResponse response = agentController.analyze(request, true).getBody();
+
+        // Then
+        AnalysisTraceReport trace = response.trace();
+        assertThat(response.analysis()).isEqualTo("| row |");
+        assertThat(trace.stages())
+                .extracting(AnalysisTraceReport.StageTiming::stage)
+                .containsExactly("prompt");
+        assertThat(trace.llmCalls()).hasSize(1);
+        assertThat(trace.provider()).isEqualTo("openai");
+        assertThat(trace.retries()).isZero();
+        assertThat(trace.bytesIn()).isEqualTo(14);
+        assertThat(trace.bytesOut()).isEqualTo(7);
+        assertThat(trace.promptTokens()).isPositive();
+        assertThat(trace.results()).containsExactly("model");
+        assertThat(trace.serverTiming())
+                .startsWith("prompt;dur=")
+                .contains("llm;dur=", "total;dur=");
+        assertThat(AnalysisTrace.current()).isEmpty();
+        verify(analysisOutputStore).saveTrace(eq(outputFile), any(AnalysisTraceReport.class));
+    }
+
+    @Test
+    void analyzeAsync_shouldReturnJobIdAndCompleteInBackground() {
+        AgentInvokeRequest request =
+                new AgentInvokeRequest(
+                        "ERROR: timeout", null, null, null, null, null, null, null, null);
+        when(logAnalysisService.processLogs(request.toLogAnalysisRequest()))
+                .thenReturn("Async analysis");
+
+        ResponseEntity<AnalysisJobStatus> response = agentController.analyzeAsync(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        String jobId = response.getBody().jobId();
+        assertThat(response.getHeaders().getLocation()).hasPath("/api/jobs/" + jobId);
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> analysisJobService.status(jobId).orElseThrow().state().isTerminal());
+        AnalysisJobStatus status = analysisJobService.status(jobId).orElseThrow();
+        assertThat(status.state()).isEqualTo(JobState.SUCCEEDED);
+        assertThat(status.analysis()).isEqualTo("Async analysis");
+    }
 }
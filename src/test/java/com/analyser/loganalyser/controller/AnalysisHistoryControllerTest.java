@@ -0,0 +1,73 @@
+package com.analyser.loganalyser.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.analyser.loganalyser.model.history.AnalysisHistoryEntry;
+import com.analyser.loganalyser.model.history.AnalysisHistoryQuery;
+import com.analyser.loganalyser.service.AnalysisHistoryStore;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+class AnalysisHistoryControllerTest {
+
+    private static final AnalysisHistoryEntry ENTRY =
+            new AnalysisHistoryEntry(
+                    "entry-1",
+                    Instant.parse("2026-02-24T12:00:00Z"),
+                    "user-service",
+                    "PROD",
+                    "fp",
+                    "model",
+                    List.of("NullPointerException in UserService"),
+                    "| Exception | Impacted Class | Details of Exception | Remediation of Code |");
+
+    private final AnalysisHistoryStore historyStore = mock(AnalysisHistoryStore.class);
+    private final AnalysisHistoryController controller =
+            new AnalysisHistoryController(historyStore);
+
+    @Test
+    void search_shouldPassEveryFilterToTheStore() {
+        // Given
+        Instant from = Instant.parse("2026-02-24T00:00:00Z");
+        Instant to = Instant.parse("2026-02-25T00:00:00Z");
+        when(historyStore.query(
+                        new AnalysisHistoryQuery(
+                                "user-service", "PROD", "fp", "NullPointer", from, to, 5)))
+                .thenReturn(List.of(ENTRY.withoutAnalysis()));
+
+        // When
+        ResponseEntity<List<AnalysisHistoryEntry>> response =
+                controller.search("user-service", "PROD", "fp", "NullPointer", from, to, 5);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody())
+                .singleElement()
+                .satisfies(
+                        entry -> {
+                            assertThat(entry.id()).isEqualTo("entry-1");
+                            assertThat(entry.analysis()).isNull();
+                        });
+    }
+
+    @Test
+    void get_shouldReturnEntryWithAnalysisOrNotFound() {
+        // Given
+        when(historyStore.get("entry-1")).thenReturn(Optional.of(ENTRY));
+        when(historyStore.get("missing")).thenReturn(Optional.empty());
+
+        // When
+        ResponseEntity<AnalysisHistoryEntry> found = controller.get("entry-1");
+        ResponseEntity<AnalysisHistoryEntry> missing = controller.get("missing");
+
+        // Then
+        assertThat(found.getBody()).isEqualTo(ENTRY);
+        assertThat(missing.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+}
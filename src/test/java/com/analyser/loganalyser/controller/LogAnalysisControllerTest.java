@@ -0,0 +1,98 @@
+package com.analyser.loganalyser.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.analyser.loganalyser.config.LogProperties;
+import com.analyser.loganalyser.model.AnalysisMode;
+import com.analyser.loganalyser.model.LogAnalysisRequest;
+import com.analyser.loganalyser.service.AnalysisJobService;
+import com.analyser.loganalyser.service.AnalysisOutputStore;
+import com.analyser.loganalyser.service.AnalysisTrace;
+import com.analyser.loganalyser.service.AnalysisTracer;
+import com.analyser.loganalyser.service.LlmBusyException;
+import com.analyser.loganalyser.service.LogAnalysisService;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+class LogAnalysisControllerTest {
+
+    private final LogAnalysisService logService = mock(LogAnalysisService.class);
+    private final LogAnalysisController controller =
+            new LogAnalysisController(
+                    logService,
+                    new AnalysisJobService(1, 1, Duration.ofMinutes(1), Duration.ofMinutes(1)),
+                    new LogProperties(),
+                    new AnalysisTracer(mock(AnalysisOutputStore.class)));
+
+    @Test
+    void searchAndAnalyzeEnv_shouldPassModeToService() {
+        // Given
+        when(logService.processLogs(any(LogAnalysisRequest.class))).thenReturn("| table |");
+
+        // When
+        Object analysis =
+                controller
+                        .searchAndAnalyzeEnv(
+                                "PRD",
+                                "Find critical errors",
+                                null,
+                                null,
+                                null,
+                                null,
+                                null,
+                                "local",
+                                false)
+                        .getBody();
+
+        // Then
+        ArgumentCaptor<LogAnalysisRequest> request =
+                ArgumentCaptor.forClass(LogAnalysisRequest.class);
+        verify(logService).processLogs(request.capture());
+        assertThat(analysis).isEqualTo("| table |");
+        assertThat(request.getValue().env()).isEqualTo("PRD");
+        assertThat(request.getValue().analysisMode()).isEqualTo(AnalysisMode.LOCAL);
+    }
+
+    @Test
+    void searchAndAnalyzeRaw_shouldAnswer429WhenModelCallsAreBusy() throws Exception {
+        // Given
+        when(logService.processLogStream(any(LogAnalysisRequest.class), any(), any()))
+                .thenThrow(new LlmBusyException("Too many model calls are waiting; retry later."));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        // When / Then
+        mockMvc.perform(post("/api/logs/search-and-analyze-raw").content("ERROR boom"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void searchAndAnalyzeEnv_shouldReturnTraceInBodyAndOnlyItsIdInHeader() {
+        // Given
+        when(logService.processLogs(any(LogAnalysisRequest.class))).thenReturn("| table |");
+
+        // When
+        ResponseEntity<?> response =
+                controller.searchAndAnalyzeEnv(
+                        "PRD", "Find critical errors", null, null, null, null, null, null, true);
+
+        // Then
+        assertThat(response.getBody()).isInstanceOf(AnalysisTracer.Traced.class);
+        AnalysisTracer.Traced traced = (AnalysisTracer.Traced) response.getBody();
+        assertThat(traced.analysis()).isEqualTo("| table |");
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(response.getHeaders().getFirst(AnalysisTrace.HEADER))
+                .isEqualTo(traced.trace().traceId());
+        assertThat(response.getHeaders().getFirst("Server-Timing")).contains("total;dur=");
+    }
+}
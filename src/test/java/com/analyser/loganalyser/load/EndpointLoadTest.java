@@ -0,0 +1,116 @@
+package com.analyser.loganalyser.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.analyser.loganalyser.config.FakeChatProperties;
+import com.analyser.loganalyser.util.LogStreamGenerator;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Boots the application with {@code ai.provider=fake} and drives {@code
+ * /api/logs/search-and-analyze-raw} and {@code /api/agent/analyze} at the configured concurrency.
+ * Only runs with {@code -Dloadtest=true}; see the README for the {@code loadtest.*} and {@code
+ * ai.fake.*} settings. Every request carries different generated logs; the result cache is disabled
+ * so each one reaches the model.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"ai.provider=fake", "app.cache.max-entries=0"})
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class EndpointLoadTest {
+
+    private static final Path REPORT = Paths.get("target", "load-test", "report.md");
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+
+    @LocalServerPort private int port;
+    @Autowired private FakeChatProperties fakeProperties;
+
+    @Test
+    void endpoints_shouldSustainConfiguredLoad() throws Exception {
+        // Given
+        int concurrency = Integer.getInteger("loadtest.concurrency", 16);
+        int requests = Integer.getInteger("loadtest.requests", 200);
+        int warmup = Integer.getInteger("loadtest.warmup", 20);
+        int logChars = Integer.getInteger("loadtest.log-kb", 64) * 1024;
+        List<String> endpoints =
+                List.of(System.getProperty("loadtest.endpoints", "raw,agent").split(","));
+        LoadTestHarness harness =
+                new LoadTestHarness(Duration.parse(System.getProperty("loadtest.timeout", "PT2M")));
+        Map<String, LoadTestHarness.Scenario> scenarios = scenarios(logChars);
+
+        // When
+        List<LoadTestHarness.Report> reports = new ArrayList<>();
+        for (String endpoint : endpoints) {
+            LoadTestHarness.Scenario scenario = scenarios.get(endpoint.trim());
+            assertThat(scenario).as("loadtest.endpoints entry " + endpoint).isNotNull();
+            harness.run(scenario, concurrency, warmup);
+            reports.add(harness.run(scenario, concurrency, requests));
+        }
+
+        // Then
+        report(reports);
+        assertThat(reports).allSatisfy(report -> assertThat(report.succeeded()).isPositive());
+    }
+
+    private Map<String, LoadTestHarness.Scenario> scenarios(int logChars) {
+        Map<String, LoadTestHarness.Scenario> scenarios = new LinkedHashMap<>();
+        scenarios.put(
+                "raw",
+                new LoadTestHarness.Scenario(
+                        "POST /api/logs/search-and-analyze-raw",
+                        URI.create(
+                                "http://localhost:"
+                                        + port
+                                        + "/api/logs/search-and-analyze-raw?query=Find%20errors"),
+                        "text/plain",
+                        i -> LogStreamGenerator.generateStructuredLogs(logChars, i)));
+        scenarios.put(
+                "agent",
+                new LoadTestHarness.Scenario(
+                        "POST /api/agent/analyze",
+                        URI.create("http://localhost:" + port + "/api/agent/analyze"),
+                        "application/json",
+                        i ->
+                                JSON.writeValueAsString(
+                                        Map.of(
+                                                "logs",
+                                                LogStreamGenerator.generateStructuredLogs(
+                                                        logChars, -1 - i),
+                                                "query",
+                                                "Find errors"))));
+        return scenarios;
+    }
+
+    private void report(List<LoadTestHarness.Report> reports) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(
+                String.format(
+                        "Fake model: latency %s (+%s jitter), %s tokens/s, error rate %s; heap"
+                                + " max %d MB",
+                        fakeProperties.getLatency(),
+                        fakeProperties.getLatencyJitter(),
+                        fakeProperties.getTokensPerSecond(),
+                        fakeProperties.getErrorRate(),
+                        Runtime.getRuntime().maxMemory() >> 20));
+        lines.add("");
+        lines.addAll(LoadTestHarness.markdown(reports));
+        lines.forEach(System.out::println);
+        Files.createDirectories(REPORT.getParent());
+        Files.write(REPORT, lines);
+    }
+}
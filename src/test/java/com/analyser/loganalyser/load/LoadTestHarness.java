@@ -0,0 +1,210 @@
+package com.analyser.loganalyser.load;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Closed-loop HTTP load generator: {@code concurrency} virtual threads send requests back to back
+ * until {@code requests} have been sent, while the heap of this JVM (which hosts the application
+ * under test) is sampled. Reports latency percentiles, throughput, status counts and heap usage.
+ */
+final class LoadTestHarness {
+
+    private static final Duration HEAP_SAMPLE_INTERVAL = Duration.ofMillis(50);
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+
+    LoadTestHarness(Duration requestTimeout) {
+        this.client =
+                HttpClient.newBuilder()
+                        .executor(Executors.newVirtualThreadPerTaskExecutor())
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build();
+        this.requestTimeout = requestTimeout;
+    }
+
+    /** A request to send; {@code body} receives the request number so payloads can differ. */
+    record Scenario(String name, URI uri, String contentType, IntFunction<String> body) {}
+
+    record Report(
+            String scenario,
+            int concurrency,
+            int requests,
+            int succeeded,
+            int rejected,
+            int failed,
+            Duration elapsed,
+            Duration p50,
+            Duration p99,
+            Duration max,
+            long maxHeapBytes,
+            long gcCount,
+            Duration gcTime) {
+
+        double throughput() {
+            return requests / Math.max(0.001, elapsed.toNanos() / 1e9);
+        }
+
+        String toMarkdownRow() {
+            return String.format(
+                    Locale.ROOT,
+                    "| %s | %d | %d | %d | %d | %d | %.1f | %d | %d | %d | %d | %d | %d |",
+                    scenario,
+                    concurrency,
+                    requests,
+                    succeeded,
+                    rejected,
+                    failed,
+                    throughput(),
+                    p50.toMillis(),
+                    p99.toMillis(),
+                    max.toMillis(),
+                    maxHeapBytes >> 20,
+                    gcCount,
+                    gcTime.toMillis());
+        }
+
+        static String markdownHeader() {
+            return "| Scenario | Concurrency | Requests | 2xx | 429 | Failed | Req/s | p50 ms"
+                    + " | p99 ms | Max ms | Max heap MB | GCs | GC ms |\n"
+                    + "|---|---|---|---|---|---|---|---|---|---|---|---|---|";
+        }
+    }
+
+    /** Sends {@code requests} requests of {@code scenario} from {@code concurrency} workers. */
+    Report run(Scenario scenario, int concurrency, int requests) throws InterruptedException {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        HeapSampler heap = new HeapSampler();
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTimeMillis();
+
+        Thread sampler = Thread.ofPlatform().daemon().start(heap);
+        long start = System.nanoTime();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int worker = 0; worker < concurrency; worker++) {
+                workers.submit(
+                        () -> {
+                            for (int i = next.getAndIncrement();
+                                    i < requests;
+                                    i = next.getAndIncrement()) {
+                                // the body is generated before the clock starts
+                                HttpRequest request = request(scenario, i);
+                                long sent = System.nanoTime();
+                                int status = send(request);
+                                latencies[i] = System.nanoTime() - sent;
+                                if (status >= 200 && status < 300) {
+                                    succeeded.incrementAndGet();
+                                } else if (status == 429) {
+                                    rejected.incrementAndGet();
+                                } else {
+                                    failed.incrementAndGet();
+                                }
+                            }
+                        });
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        sampler.interrupt();
+        sampler.join();
+
+        Arrays.sort(latencies);
+        return new Report(
+                scenario.name(),
+                concurrency,
+                requests,
+                succeeded.get(),
+                rejected.get(),
+                failed.get(),
+                elapsed,
+                percentile(latencies, 50),
+                percentile(latencies, 99),
+                Duration.ofNanos(latencies.length == 0 ? 0 : latencies[latencies.length - 1]),
+                heap.maxUsed.get(),
+                gcCount() - gcCountBefore,
+                Duration.ofMillis(gcTimeMillis() - gcTimeBefore));
+    }
+
+    static List<String> markdown(List<Report> reports) {
+        List<String> lines = new ArrayList<>();
+        lines.add(Report.markdownHeader());
+        reports.forEach(report -> lines.add(report.toMarkdownRow()));
+        return lines;
+    }
+
+    private HttpRequest request(Scenario scenario, int requestNumber) {
+        return HttpRequest.newBuilder(scenario.uri())
+                .timeout(requestTimeout)
+                .header("Content-Type", scenario.contentType())
+                .POST(HttpRequest.BodyPublishers.ofString(scenario.body().apply(requestNumber)))
+                .build();
+    }
+
+    /** Returns the HTTP status, or {@code -1} if the request failed without a response. */
+    private int send(HttpRequest request) {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    static Duration percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return Duration.ZERO;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sortedNanos.length) - 1;
+        return Duration.ofNanos(sortedNanos[Math.clamp(index, 0, sortedNanos.length - 1)]);
+    }
+
+    private static long gcCount() {
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        return collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcTimeMillis() {
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        return collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    private static final class HeapSampler implements Runnable {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final AtomicLong maxUsed = new AtomicLong();
+
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                maxUsed.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(HEAP_SAMPLE_INTERVAL);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
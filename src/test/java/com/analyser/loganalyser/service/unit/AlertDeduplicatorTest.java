@@ -0,0 +1,136 @@
+package com.analyser.loganalyser.service.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.analyser.loganalyser.service.AlertDeduplicator;
+import com.analyser.loganalyser.service.AlertDeduplicator.Admission;
+import com.analyser.loganalyser.service.AlertDeduplicator.SuppressedAlerts;
+import com.analyser.loganalyser.service.AnalysisTableMerger;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AlertDeduplicatorTest {
+
+    private static final String TABLE =
+            AnalysisTableMerger.HEADER
+                    + "\n"
+                    + AnalysisTableMerger.SEPARATOR
+                    + "\n| NullPointerException | UserService | user 42 missing | add null check |"
+                    + "\n| TimeoutException | PaymentClient | took 3000ms | add retry |";
+    private static final String SAME_ERRORS_REORDERED =
+            "| TimeoutException | PaymentClient | took 4100ms | increase timeout |"
+                    + "\n| NullPointerException | UserService | user 7 missing | validate input |";
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void admit_shouldSuppressSameFingerprintWithinWindow() {
+        // Given
+        AlertDeduplicator deduplicator = deduplicator(false);
+
+        // When
+        Admission first = deduplicator.admit("UserService", "PROD", TABLE);
+        Admission repeated = deduplicator.admit("UserService", "PROD", SAME_ERRORS_REORDERED);
+        Admission otherEnv = deduplicator.admit("UserService", "TST", TABLE);
+
+        // Then
+        assertThat(first.deliver()).isTrue();
+        assertThat(repeated.deliver()).isFalse();
+        assertThat(repeated.fingerprint()).isEqualTo(first.fingerprint());
+        assertThat(otherEnv.deliver()).isTrue();
+    }
+
+    @Test
+    void admit_shouldReportSuppressedCountOnceWindowExpires() {
+        // Given
+        AlertDeduplicator deduplicator = deduplicator(false);
+        deduplicator.admit("UserService", "PROD", TABLE);
+        deduplicator.admit("UserService", "PROD", TABLE);
+        deduplicator.admit("UserService", "PROD", TABLE);
+
+        // When
+        clock.advance(Duration.ofMinutes(16));
+        Admission afterWindow = deduplicator.admit("UserService", "PROD", TABLE);
+
+        // Then
+        assertThat(afterWindow.deliver()).isTrue();
+        assertThat(afterWindow.suppressed()).isEqualTo(2);
+    }
+
+    @Test
+    void revoke_shouldDeliverNextAlertAndReportSuppressedOnes() {
+        // Given
+        AlertDeduplicator deduplicator = deduplicator(false);
+        Admission first = deduplicator.admit("UserService", "PROD", TABLE);
+        deduplicator.admit("UserService", "PROD", TABLE);
+
+        // When
+        deduplicator.revoke("UserService", "PROD", first);
+        Admission retried = deduplicator.admit("UserService", "PROD", TABLE);
+        Admission repeated = deduplicator.admit("UserService", "PROD", TABLE);
+        deduplicator.revoke("UserService", "PROD", first);
+        Admission afterStaleRevoke = deduplicator.admit("UserService", "PROD", TABLE);
+
+        // Then
+        assertThat(retried.deliver()).isTrue();
+        assertThat(retried.suppressed()).isEqualTo(1);
+        assertThat(repeated.deliver()).isFalse();
+        assertThat(afterStaleRevoke.deliver()).isFalse();
+    }
+
+    @Test
+    void drainSuppressed_shouldSummarizeSuppressedAlertsInDigestMode() {
+        // Given
+        AlertDeduplicator deduplicator = deduplicator(true);
+        deduplicator.admit("UserService", "PROD", TABLE);
+        deduplicator.admit("UserService", "PROD", TABLE);
+        clock.advance(Duration.ofMinutes(1));
+        deduplicator.admit("UserService", "PROD", TABLE);
+
+        // When
+        List<SuppressedAlerts> digest = deduplicator.drainSuppressed();
+
+        // Then
+        assertThat(digest).hasSize(1);
+        SuppressedAlerts entry = digest.getFirst();
+        assertThat(entry.count()).isEqualTo(2);
+        assertThat(entry.summary())
+                .isEqualTo(
+                        "NullPointerException in UserService, TimeoutException in PaymentClient");
+        assertThat(entry.lastSuppressed()).isAfter(entry.firstSuppressed());
+        assertThat(deduplicator.drainSuppressed()).isEmpty();
+    }
+
+    private AlertDeduplicator deduplicator(boolean digest) {
+        return new AlertDeduplicator(
+                new AnalysisTableMerger(), Duration.ofMinutes(15), digest, clock);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-02-24T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.analyser.loganalyser.service.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.analyser.loganalyser.config.AnalysisProperties;
+import com.analyser.loganalyser.model.LogAnalysisRequest;
+import com.analyser.loganalyser.service.AlertDeduplicator;
+import com.analyser.loganalyser.service.AlertPipeline;
+import com.analyser.loganalyser.service.AnalysisMetrics;
+import com.analyser.loganalyser.service.AnalysisTableMerger;
+import com.analyser.loganalyser.service.EmailAlertService;
+import com.analyser.loganalyser.service.LlmClient;
+import com.analyser.loganalyser.service.LogAnalysisPromptBuilder;
+import com.analyser.loganalyser.service.PromptTemplateService;
+import com.analyser.loganalyser.service.TokenEstimator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class AlertPipelineTest {
+
+    private static final LogAnalysisRequest REQUEST =
+            new LogAnalysisRequest(null, null, null, null, null, "UserService", "PROD");
+
+    @Mock private LlmClient llmClient;
+    @Mock private LogAnalysisPromptBuilder promptBuilder;
+    @Mock private PromptTemplateService promptTemplateService;
+    @Mock private EmailAlertService emailAlertService;
+    @TempDir private Path deadLetterDir;
+    private final AnalysisMetrics metrics =
+            new AnalysisMetrics(
+                    new SimpleMeterRegistry(),
+                    new TokenEstimator(new AnalysisProperties(), "openai"),
+                    "openai");
+    private AlertDeduplicator alertDeduplicator =
+            new AlertDeduplicator(
+                    new AnalysisTableMerger(), Duration.ZERO, false, Clock.systemUTC());
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(promptTemplateService.emailTemplate()).thenReturn("template");
+        lenient().when(promptBuilder.buildEmailPrompt(any(), anyString())).thenReturn("prompt");
+        lenient().when(llmClient.call(any(), anyString())).thenReturn("email body");
+    }
+
+    @Test
+    void submit_shouldRetryFailedDeliveryAndSucceed() throws IOException {
+        // Given
+        doThrow(new IOException("disk full"))
+                .doNothing()
+                .when(emailAlertService)
+                .deliver(anyString(), anyString());
+        AlertPipeline pipeline = pipeline(10, 3);
+
+        // When
+        boolean queued = pipeline.submit(REQUEST, "| NullPointerException |", "guardrails");
+
+        // Then
+        assertThat(queued).isTrue();
+        await().atMost(Duration.ofSeconds(5))
+                .untilAsserted(
+                        () ->
+                                verify(emailAlertService, times(2))
+                                        .deliver(anyString(), anyString()));
+        assertThat(deadLetters()).isEmpty();
+    }
+
+    @Test
+    void submit_shouldDeadLetterAfterExhaustingRetries() throws IOException {
+        // Given
+        when(llmClient.call(any(), anyString())).thenThrow(new IllegalStateException("down"));
+        AlertPipeline pipeline = pipeline(10, 2);
+
+        // When
+        pipeline.submit(REQUEST, "| TimeoutException |", "guardrails");
+
+        // Then
+        await().atMost(Duration.ofSeconds(5)).until(() -> deadLetters().size() == 1);
+        assertThat(Files.readString(deadLetters().getFirst()))
+                .contains("Attempts: 2", "Reason: down", "Content:\n| TimeoutException |");
+        verify(emailAlertService, times(0)).deliver(anyString(), anyString());
+    }
+
+    @Test
+    void submit_shouldDeadLetterWhenQueueIsFull() throws IOException {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(
+                        i -> {
+                            started.countDown();
+                            release.await();
+                            return null;
+                        })
+                .when(emailAlertService)
+                .deliver(anyString(), anyString());
+        AlertPipeline pipeline = pipeline(1, 1);
+        pipeline.submit(REQUEST, "first", "g");
+        await().atMost(Duration.ofSeconds(5)).until(() -> started.getCount() == 0);
+        pipeline.submit(REQUEST, "second", "g");
+
+        // When
+        boolean queued = pipeline.submit(REQUEST, "third", "g");
+
+        // Then
+        assertThat(queued).isFalse();
+        assertThat(pipeline.queueDepth()).isEqualTo(1);
+        assertThat(deadLetters()).hasSize(1);
+        assertThat(Files.readString(deadLetters().getFirst()))
+                .contains("Alert queue full", "third");
+        release.countDown();
+    }
+
+    private AlertPipeline pipeline(int capacity, int maxAttempts) {
+        return pipeline("llm", capacity, maxAttempts);
+    }
+
+    private AlertPipeline pipeline(String mode, int capacity, int maxAttempts) {
+        return pipeline(mode, capacity, maxAttempts, Duration.ofMillis(10), Duration.ofSeconds(5));
+    }
+
+    private AlertPipeline pipeline(
+            String mode,
+            int capacity,
+            int maxAttempts,
+            Duration retryBackoff,
+            Duration shutdownGrace) {
+        AlertPipeline pipeline =
+                new AlertPipeline(
+                        llmClient,
+                        promptBuilder,
+                        promptTemplateService,
+                        emailAlertService,
+                        alertDeduplicator,
+                        new AnalysisTableMerger(),
+                        metrics,
+                        mode,
+                        capacity,
+                        1,
+                        maxAttempts,
+                        retryBackoff,
+                        Duration.ofMillis(10),
+                        deadLetterDir,
+                        Duration.ofMinutes(15),
+                        shutdownGrace);
+        pipeline.start();
+        return pipeline;
+    }
+
+    @Test
+    void submit_shouldRenderTemplateWithoutCallingModel() throws IOException {
+        // Given
+        AlertPipeline pipeline =
+                new AlertPipeline(
+                        llmClient,
+                        promptBuilder,
+                        new PromptTemplateService(),
+                        emailAlertService,
+                        new AlertDeduplicator(
+                                new AnalysisTableMerger(), Duration.ZERO, false, Clock.systemUTC()),
+                        new AnalysisTableMerger(),
+                        metrics,
+                        "template",
+                        10,
+                        1,
+                        1,
+                        Duration.ofMillis(10),
+                        Duration.ofMillis(10),
+                        deadLetterDir,
+                        Duration.ofMinutes(15),
+                        Duration.ofSeconds(5));
+        pipeline.start();
+        ArgumentCaptor<String> subject = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+
+        // When
+        pipeline.submit(
+                REQUEST,
+                "| NullPointerException | UserService | user is null | add null check |",
+                "guardrails");
+
+        // Then
+        await().atMost(Duration.ofSeconds(5))
+                .untilAsserted(
+                        () -> verify(emailAlertService).deliver(subject.capture(), body.capture()));
+        assertThat(subject.getValue()).isEqualTo("Critical Alert - Error Detected in UserService");
+        assertThat(body.getValue())
+                .contains(
+                        "Environment: PROD",
+                        "- NullPointerException in UserService: user is null",
+                        "Remediation: add null check")
+                .doesNotContain("{");
+        verifyNoInteractions(llmClient);
+    }
+
+    @Test
+    void submit_shouldNotSuppressRepeatOfDeadLetteredAlert() throws IOException {
+        // Given
+        alertDeduplicator =
+                new AlertDeduplicator(
+                        new AnalysisTableMerger(),
+                        Duration.ofMinutes(15),
+                        false,
+                        Clock.systemUTC());
+        when(llmClient.call(any(), anyString()))
+                .thenThrow(new IllegalStateException("down"))
+                .thenReturn("email body");
+        AlertPipeline pipeline = pipeline(10, 1);
+        pipeline.submit(REQUEST, "| TimeoutException | PaymentClient | slow | retry |", "g");
+        await().atMost(Duration.ofSeconds(5)).until(() -> deadLetters().size() == 1);
+
+        // When
+        pipeline.submit(REQUEST, "| TimeoutException | PaymentClient | slow | retry |", "g");
+
+        // Then
+        await().atMost(Duration.ofSeconds(5))
+                .untilAsserted(
+                        () -> verify(emailAlertService).deliver(anyString(), eq("email body")));
+        assertThat(deadLetters()).hasSize(1);
+    }
+
+    @Test
+    void shutdown_shouldLetDeliveryInProgressFinish() throws IOException {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(
+                        i -> {
+                            started.countDown();
+                            Thread.sleep(300);
+                            return null;
+                        })
+                .when(emailAlertService)
+                .deliver(anyString(), anyString());
+        AlertPipeline pipeline = pipeline(10, 1);
+        pipeline.submit(REQUEST, "| NullPointerException |", "guardrails");
+        await().atMost(Duration.ofSeconds(5)).until(() -> started.getCount() == 0);
+
+        // When
+        pipeline.shutdown();
+
+        // Then
+        verify(emailAlertService).deliver(anyString(), anyString());
+        assertThat(deadLetters()).isEmpty();
+    }
+
+    @Test
+    void shutdown_shouldDeadLetterAlertStillInRetryBackoffAfterGracePeriod() throws IOException {
+        // Given
+        doThrow(new IOException("smtp down"))
+                .when(emailAlertService)
+                .deliver(anyString(), anyString());
+        AlertPipeline pipeline =
+                pipeline("llm", 10, 3, Duration.ofMinutes(1), Duration.ofMillis(100));
+        pipeline.submit(REQUEST, "| TimeoutException |", "guardrails");
+        await().atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> verify(emailAlertService).deliver(anyString(), anyString()));
+
+        // When
+        pipeline.shutdown();
+
+        // Then
+        assertThat(deadLetters()).hasSize(1);
+        assertThat(Files.readString(deadLetters().getFirst()))
+                .contains("Reason: Application shut down", "Content:\n| TimeoutException |");
+    }
+
+    private List<Path> deadLetters() throws IOException {
+        try (Stream<Path> files = Files.list(deadLetterDir)) {
+            return files.toList();
+        }
+    }
+}
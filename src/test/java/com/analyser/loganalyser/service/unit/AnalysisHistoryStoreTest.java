@@ -0,0 +1,194 @@
+package com.analyser.loganalyser.service.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.analyser.loganalyser.model.history.AnalysisHistoryEntry;
+import com.analyser.loganalyser.model.history.AnalysisHistoryQuery;
+import com.analyser.loganalyser.service.AlertDeduplicator;
+import com.analyser.loganalyser.service.AnalysisHistoryStore;
+import com.analyser.loganalyser.service.AnalysisTableMerger;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AnalysisHistoryStoreTest {
+
+    private static final String NPE_TABLE =
+            AnalysisTableMerger.HEADER
+                    + "\n"
+                    + AnalysisTableMerger.SEPARATOR
+                    + "\n| NullPointerException | UserService | user 42 missing | add null check |";
+    private static final String TIMEOUT_TABLE =
+            AnalysisTableMerger.HEADER
+                    + "\n"
+                    + AnalysisTableMerger.SEPARATOR
+                    + "\n| TimeoutException | PaymentClient | took 3000ms | add retry |";
+
+    @TempDir Path tempDir;
+
+    private final MutableClock clock = new MutableClock();
+    private AnalysisHistoryStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void query_shouldFilterByApplicationEnvironmentFingerprintExceptionAndTime() {
+        // Given
+        store = store(1024 * 1024, 20);
+        AnalysisHistoryEntry first = store.append("user-service", "PROD", "model", NPE_TABLE).get();
+        clock.advance(Duration.ofHours(1));
+        store.append("user-service", "TST", "model", NPE_TABLE);
+        clock.advance(Duration.ofHours(1));
+        AnalysisHistoryEntry latest =
+                store.append("payment-service", "PROD", "local", TIMEOUT_TABLE).get();
+
+        // When
+        List<AnalysisHistoryEntry> prod = store.query(query("", "prod", null, null, null));
+        List<AnalysisHistoryEntry> npe =
+                store.query(query(null, null, first.fingerprint(), null, null));
+        List<AnalysisHistoryEntry> byException =
+                store.query(query(null, null, null, "paymentclient", null));
+        List<AnalysisHistoryEntry> beforeLatest =
+                store.query(query("User-Service", null, null, null, latest.recordedAt()));
+
+        // Then
+        assertThat(prod)
+                .extracting(AnalysisHistoryEntry::id)
+                .containsExactly(latest.id(), first.id());
+        assertThat(prod).allSatisfy(entry -> assertThat(entry.analysis()).isNull());
+        assertThat(npe)
+                .hasSize(2)
+                .allSatisfy(e -> assertThat(e.applicationName()).isEqualTo("user-service"));
+        assertThat(byException).extracting(AnalysisHistoryEntry::id).containsExactly(latest.id());
+        assertThat(latest.exceptions()).containsExactly("TimeoutException in PaymentClient");
+        assertThat(beforeLatest).hasSize(2);
+        assertThat(store.get(first.id()))
+                .get()
+                .extracting(AnalysisHistoryEntry::analysis)
+                .isEqualTo(NPE_TABLE);
+    }
+
+    @Test
+    void constructor_shouldRebuildIndexFromSegmentsAndSkipTornLastLine() throws IOException {
+        // Given
+        store = store(1024 * 1024, 20);
+        AnalysisHistoryEntry stored =
+                store.append("user-service", "PROD", "model", NPE_TABLE).get();
+        store.close();
+        Path segment = segments().getFirst();
+        Files.writeString(
+                segment, "{\"id\":\"torn", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        // When
+        store = store(1024 * 1024, 20);
+        AnalysisHistoryEntry next = store.append("user-service", "PROD", "model", NPE_TABLE).get();
+
+        // Then
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.get(stored.id()))
+                .get()
+                .extracting(AnalysisHistoryEntry::analysis)
+                .isEqualTo(NPE_TABLE);
+        assertThat(store.get(next.id())).isPresent();
+        assertThat(segments()).hasSize(2);
+    }
+
+    @Test
+    void compact_shouldDropExpiredAndSurplusEntriesAndMergeSegments() throws IOException {
+        // Given
+        store = store(600, 2);
+        store.append("user-service", "PROD", "model", TIMEOUT_TABLE);
+        clock.advance(Duration.ofDays(31));
+        for (int i = 0; i < 4; i++) {
+            store.append("user-service", "PROD", "model", NPE_TABLE);
+            clock.advance(Duration.ofMinutes(1));
+        }
+        AnalysisHistoryEntry other = store.append("user-service", "TST", "model", NPE_TABLE).get();
+        int segmentsBefore = segments().size();
+
+        // When
+        int removed = store.compact();
+
+        // Then
+        assertThat(removed).isEqualTo(3);
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(segments()).hasSizeLessThan(segmentsBefore);
+        assertThat(store.query(query(null, "PROD", null, null, null))).hasSize(2);
+        assertThat(store.get(other.id()))
+                .get()
+                .extracting(AnalysisHistoryEntry::analysis)
+                .isEqualTo(NPE_TABLE);
+        store.close();
+        store = store(600, 2);
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.compact()).isZero();
+    }
+
+    private AnalysisHistoryStore store(long segmentBytes, int keepPerFingerprint) {
+        AnalysisTableMerger tableMerger = new AnalysisTableMerger();
+        return new AnalysisHistoryStore(
+                new AlertDeduplicator(tableMerger, Duration.ofMinutes(15), false, clock),
+                tableMerger,
+                tempDir,
+                segmentBytes,
+                Duration.ofDays(30),
+                keepPerFingerprint,
+                clock);
+    }
+
+    private static AnalysisHistoryQuery query(
+            String applicationName,
+            String environment,
+            String fingerprint,
+            String exception,
+            Instant to) {
+        return new AnalysisHistoryQuery(
+                applicationName, environment, fingerprint, exception, null, to, 20);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-02-24T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.analyser.loganalyser.service.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import com.analyser.loganalyser.model.job.AnalysisJobStatus;
+import com.analyser.loganalyser.model.job.JobState;
+import com.analyser.loganalyser.service.AnalysisJobService;
+import com.analyser.loganalyser.service.JobQueueFullException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+class AnalysisJobServiceTest {
+
+    private final AnalysisJobService analysisJobService =
+            new AnalysisJobService(1, 1, Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+    @Test
+    void submit_shouldRejectWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        analysisJobService.submit(() -> waitFor(release));
+        analysisJobService.submit(() -> waitFor(release));
+
+        assertThatThrownBy(() -> analysisJobService.submit(() -> "rejected"))
+                .isInstanceOf(JobQueueFullException.class);
+
+        release.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(() -> analysisJobService.pendingJobs() == 0);
+        assertThat(analysisJobService.submit(() -> "accepted").state()).isEqualTo(JobState.QUEUED);
+    }
+
+    @Test
+    void submit_shouldRecordFailure() {
+        AnalysisJobStatus job =
+                analysisJobService.submit(
+                        () -> {
+                            throw new IllegalArgumentException("No logs available to analyze.");
+                        });
+
+        await().atMost(Duration.ofSeconds(5))
+                .until(
+                        () ->
+                                analysisJobService
+                                        .status(job.jobId())
+                                        .orElseThrow()
+                                        .state()
+                                        .isTerminal());
+        AnalysisJobStatus status = analysisJobService.status(job.jobId()).orElseThrow();
+        assertThat(status.state()).isEqualTo(JobState.FAILED);
+        assertThat(status.error()).isEqualTo("No logs available to analyze.");
+        assertThat(analysisJobService.status("unknown")).isEmpty();
+    }
+
+    @Test
+    void submit_shouldMarkJobFailedAndFreeItsSlotWhenAnalysisThrowsError() {
+        AnalysisJobStatus job =
+                analysisJobService.submit(
+                        () -> {
+                            throw new StackOverflowError("recursion too deep");
+                        });
+
+        await().dontCatchUncaughtExceptions()
+                .atMost(Duration.ofSeconds(5))
+                .until(() -> analysisJobService.pendingJobs() == 0);
+        AnalysisJobStatus status = analysisJobService.status(job.jobId()).orElseThrow();
+        assertThat(status.state()).isEqualTo(JobState.FAILED);
+        assertThat(status.error()).isEqualTo("recursion too deep");
+        AnalysisJobStatus next = analysisJobService.submit(() -> "done");
+        await().dontCatchUncaughtExceptions()
+                .atMost(Duration.ofSeconds(5))
+                .until(
+                        () ->
+                                analysisJobService.status(next.jobId()).orElseThrow().state()
+                                        == JobState.SUCCEEDED);
+    }
+
+    private static String waitFor(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+}
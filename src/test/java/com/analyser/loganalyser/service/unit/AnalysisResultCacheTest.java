@@ -0,0 +1,168 @@
+package com.analyser.loganalyser.service.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.analyser.loganalyser.model.LogAnalysisRequest;
+import com.analyser.loganalyser.service.AnalysisResultCache;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+class AnalysisResultCacheTest {
+
+    private static final LogAnalysisRequest REQUEST =
+            new LogAnalysisRequest(null, "Find errors", null, "ERROR", null, "payments", null);
+
+    @TempDir Path tempDir;
+
+    @Test
+    void key_shouldDependOnProviderModelAndRequestFields() {
+        AnalysisResultCache openAi = cache(environment("openai", "gpt-4.1"), 10, null);
+        AnalysisResultCache ollama = cache(environment("ollama", "gemma:2b"), 10, null);
+
+        String key = openAi.key(REQUEST, "logs", "guardrails");
+
+        assertThat(key).isEqualTo(openAi.key(REQUEST, "logs", "guardrails"));
+        assertThat(key).isNotEqualTo(ollama.key(REQUEST, "logs", "guardrails"));
+        assertThat(key).isNotEqualTo(openAi.key(REQUEST, "other logs", "guardrails"));
+        assertThat(key)
+                .isNotEqualTo(
+                        openAi.key(
+                                new LogAnalysisRequest(
+                                        null, "Find errors", null, "WARN", null, "payments", null),
+                                "logs",
+                                "guardrails"));
+    }
+
+    @Test
+    void get_shouldEvictLeastRecentlyUsedEntryWhenFull() {
+        AnalysisResultCache cache = cache(new MockEnvironment(), 2, null);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get("a");
+        cache.put("c", "C");
+
+        assertThat(cache.get("a")).contains("A");
+        assertThat(cache.get("b")).isEmpty();
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+        assertThat(cache.stats().hits()).isEqualTo(2);
+        assertThat(cache.stats().misses()).isEqualTo(1);
+    }
+
+    @Test
+    void get_shouldExpireEntriesAfterTtl() {
+        MutableClock clock = new MutableClock();
+        AnalysisResultCache cache =
+                new AnalysisResultCache(
+                        new MockEnvironment(),
+                        10,
+                        Duration.ofMinutes(1),
+                        null,
+                        Long.MAX_VALUE,
+                        Duration.ZERO,
+                        clock);
+        cache.put("a", "A");
+
+        clock.advance(Duration.ofMinutes(2));
+
+        assertThat(cache.get("a")).isEmpty();
+    }
+
+    @Test
+    void get_shouldFallBackToDiskTier() {
+        cache(new MockEnvironment(), 10, tempDir).put("a", "A");
+
+        AnalysisResultCache restarted = cache(new MockEnvironment(), 10, tempDir);
+
+        assertThat(restarted.get("a")).contains("A");
+        assertThat(restarted.stats().diskHits()).isEqualTo(1);
+    }
+
+    @Test
+    void sweepDisk_shouldDeleteExpiredFilesThenOldestUntilWithinMaxSize() throws IOException {
+        // Given
+        AnalysisResultCache writer = cache(new MockEnvironment(), 10, tempDir);
+        writer.put("expired", "X".repeat(100));
+        writer.put("oldest", "O".repeat(100));
+        writer.put("newest", "N".repeat(100));
+        Instant now = Instant.now();
+        touch("expired", now.minus(Duration.ofMinutes(10)));
+        touch("oldest", now.minus(Duration.ofMinutes(2)));
+        touch("newest", now.minus(Duration.ofMinutes(1)));
+        AnalysisResultCache cache =
+                new AnalysisResultCache(
+                        new MockEnvironment(),
+                        10,
+                        Duration.ofMinutes(5),
+                        tempDir,
+                        150,
+                        Duration.ZERO,
+                        Clock.systemUTC());
+
+        // When
+        cache.start();
+
+        // Then
+        assertThat(cache.get("newest")).contains("N".repeat(100));
+        assertThat(cache.get("oldest")).isEmpty();
+        assertThat(cache.get("expired")).isEmpty();
+        assertThat(cache.stats().evictions()).isEqualTo(2);
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files).hasSize(1);
+        }
+    }
+
+    private void touch(String key, Instant modified) throws IOException {
+        Files.setLastModifiedTime(tempDir.resolve(key + ".txt"), FileTime.from(modified));
+    }
+
+    private static AnalysisResultCache cache(MockEnvironment env, int maxEntries, Path diskDir) {
+        return new AnalysisResultCache(
+                env,
+                maxEntries,
+                Duration.ofMinutes(5),
+                diskDir,
+                Long.MAX_VALUE,
+                Duration.ZERO,
+                Clock.systemUTC());
+    }
+
+    private static MockEnvironment environment(String provider, String model) {
+        return new MockEnvironment()
+                .withProperty("ai.provider", provider)
+                .withProperty("spring.ai." + provider + ".chat.options.model", model);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.analyser.loganalyser.service.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.analyser.loganalyser.config.AnalysisProperties;
+import com.analyser.loganalyser.model.LogAnalysisRequest;
+import com.analyser.loganalyser.service.AnalysisMetrics;
+import com.analyser.loganalyser.service.AnalysisTableMerger;
+import com.analyser.loganalyser.service.ChunkedAnalysisService;
+import com.analyser.loganalyser.service.ExceptionExtractor;
+import com.analyser.loganalyser.service.LlmBulkhead;
+import com.analyser.loganalyser.service.LlmBusyException;
+import com.analyser.loganalyser.service.LlmClient;
+import com.analyser.loganalyser.service.LogAnalysisPromptBuilder;
+import com.analyser.loganalyser.service.SourceContextIndex;
+import com.analyser.loganalyser.service.TokenEstimator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+@ExtendWith(MockitoExtension.class)
+class ChunkedAnalysisServiceTest {
+
+    private static final LogAnalysisRequest REQUEST =
+            new LogAnalysisRequest(null, null, null, null, null, null, null);
+
+    @Mock private LlmClient llmClient;
+    private ChunkedAnalysisService chunkedAnalysisService;
+
+    @BeforeEach
+    void setUp() {
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.setChunkMaxTokens(25);
+        chunkedAnalysisService = service(llmClient, properties);
+    }
+
+    @Test
+    void split_shouldKeepStackTracesWithTheirEntry() {
+        String logs =
+                "ERROR NullPointerException in handler\n"
+                        + "\tat com.example.UserService.getUser(UserService.java:101)\n"
+                        + "\tat com.example.UserController.get(UserController.java:20)\n"
+                        + "INFO request completed";
+
+        List<String> chunks = chunkedAnalysisService.split(logs);
+
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(0)).startsWith("ERROR").contains("UserController.java:20");
+        assertThat(chunks.get(1)).isEqualTo("INFO request completed");
+    }
+
+    @Test
+    void analyze_shouldMergeChunkTablesIntoSingleDeduplicatedTable() {
+        String logs = "ERROR first failure in the payment flow\n".repeat(6);
+        when(llmClient.call(any(), anyString()))
+                .thenReturn(
+                        AnalysisTableMerger.HEADER
+                                + "\n"
+                                + AnalysisTableMerger.SEPARATOR
+                                + "\n| NullPointerException | `PaymentService` | npe | add checks |"
+                                + "\n| No critical exception found | N/A | none | monitor |");
+
+        String result = chunkedAnalysisService.analyze(REQUEST, logs, "guardrails");
+
+        verify(llmClient, times(chunkedAnalysisService.split(logs).size()))
+                .call(any(), anyString());
+        assertThat(result)
+                .startsWith(AnalysisTableMerger.HEADER)
+                .doesNotContain("No critical exception found");
+        assertThat(result.lines().filter(l -> l.contains("NullPointerException"))).hasSize(1);
+    }
+
+    @Test
+    void analyze_shouldFailWholeAnalysisWhenAnyChunkFails() {
+        String logs = "ERROR first failure in the payment flow\n".repeat(6);
+        when(llmClient.call(any(), anyString()))
+                .thenReturn(
+                        AnalysisTableMerger.HEADER
+                                + "\n"
+                                + AnalysisTableMerger.SEPARATOR
+                                + "\n| NullPointerException | `PaymentService` | npe | add checks |")
+                .thenThrow(new LlmBusyException("busy"));
+
+        assertThatThrownBy(() -> chunkedAnalysisService.analyze(REQUEST, logs, "guardrails"))
+                .isInstanceOf(LlmBusyException.class);
+    }
+
+    @Test
+    void analyze_shouldRejectBurstOfChunkedAnalysesInsteadOfQueuing() throws Exception {
+        // Given
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.setChunkMaxTokens(25);
+        properties.setParallelism(Map.of("openai", 1));
+        properties.setMaxInFlight(Map.of("openai", 1));
+        properties.setMaxQueuedCalls(0);
+        LlmBulkhead bulkhead = new LlmBulkhead(properties, "openai");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LlmClient blockingClient =
+                new LlmClient(null, bulkhead, null) {
+                    @Override
+                    public String call(String systemPrompt, String userPrompt) {
+                        return bulkhead.call(
+                                systemPrompt,
+                                userPrompt,
+                                () -> {
+                                    started.countDown();
+                                    awaitQuietly(release);
+                                    return AnalysisTableMerger.HEADER
+                                            + "\n"
+                                            + AnalysisTableMerger.SEPARATOR;
+                                });
+                    }
+                };
+        ChunkedAnalysisService service = service(blockingClient, properties);
+        CompletableFuture<String> first =
+                CompletableFuture.supplyAsync(
+                        () -> service.analyze(REQUEST, chunkedLogs("first"), "guardrails"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When / Then
+        assertTimeoutPreemptively(
+                Duration.ofSeconds(5),
+                () ->
+                        assertThatThrownBy(
+                                        () ->
+                                                service.analyze(
+                                                        REQUEST,
+                                                        chunkedLogs("second"),
+                                                        "guardrails"))
+                                .isInstanceOf(LlmBusyException.class));
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).startsWith(AnalysisTableMerger.HEADER);
+        assertThat(bulkhead.rejected()).isEqualTo(1);
+    }
+
+    @Test
+    void analyze_shouldSendSmallLogsInSinglePrompt() {
+        when(llmClient.call(any(), anyString())).thenReturn("raw table");
+
+        String result = chunkedAnalysisService.analyze(REQUEST, "ERROR boom", null);
+
+        assertThat(result).isEqualTo("raw table");
+        verify(llmClient).call(any(), anyString());
+    }
+
+    @Test
+    void stream_shouldEmitHeaderThenRowsAssembledFromTokens() {
+        when(llmClient.stream(any(), anyString()))
+                .thenReturn(
+                        Flux.just(
+                                "| Exception | Impacted Class | Details of Exception | Remed",
+                                "iation of Code |\n|---|---|---|---|\n| NullPointer",
+                                "Exception | UserService | npe | add checks |\n",
+                                "| NullPointerException | UserService | again | dup |"));
+
+        List<String> rows =
+                chunkedAnalysisService.stream(REQUEST, "ERROR boom", null).collectList().block();
+
+        assertThat(rows)
+                .containsExactly(
+                        AnalysisTableMerger.HEADER,
+                        AnalysisTableMerger.SEPARATOR,
+                        "| NullPointerException | UserService | npe | add checks |");
+    }
+
+    private static ChunkedAnalysisService service(
+            LlmClient llmClient, AnalysisProperties properties) {
+        TokenEstimator tokenEstimator = new TokenEstimator(properties, "openai");
+        return new ChunkedAnalysisService(
+                llmClient,
+                new LogAnalysisPromptBuilder(
+                        new SourceContextIndex(6, 5, 8000, 8),
+                        tokenEstimator,
+                        new ExceptionExtractor(new AnalysisTableMerger()),
+                        new AnalysisMetrics(new SimpleMeterRegistry(), tokenEstimator, "openai")),
+                new AnalysisTableMerger(),
+                properties,
+                tokenEstimator,
+                "openai");
+    }
+
+    private static String chunkedLogs(String label) {
+        StringBuilder logs = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            logs.append("ERROR ").append(label).append(" failure ").append(i).append(" in flow\n");
+        }
+        return logs.toString();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void stream_shouldEmitNoExceptionRowWhenModelFindsNothing() {
+        when(llmClient.stream(any(), anyString()))
+                .thenReturn(Flux.just("| No critical exception found | N/A | none | monitor |"));
+
+        List<String> rows =
+                chunkedAnalysisService.stream(REQUEST, "INFO ok", null).collectList().block();
+
+        assertThat(rows)
+                .last()
+                .isEqualTo(
+                        new AnalysisTableMerger().renderRow(AnalysisTableMerger.NO_EXCEPTION_ROW));
+    }
+}
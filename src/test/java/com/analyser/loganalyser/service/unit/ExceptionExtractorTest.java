@@ -0,0 +1,103 @@
+package com.analyser.loganalyser.service.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.analyser.loganalyser.model.AnalysisTableRow;
+import com.analyser.loganalyser.service.AnalysisTableMerger;
+import com.analyser.loganalyser.service.ExceptionExtractor;
+import com.analyser.loganalyser.service.LogDeduplicator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+class ExceptionExtractorTest {
+
+    private final ExceptionExtractor extractor = new ExceptionExtractor(new AnalysisTableMerger());
+
+    @Test
+    void extract_shouldReportRootCauseAgainstFirstApplicationFrame() {
+        // Given
+        String logs =
+                "2026-02-23 10:05:00 ERROR Request failed\n"
+                        + "org.springframework.web.util.NestedServletException: Handler failed\n"
+                        + "\tat org.springframework.web.servlet.FrameworkServlet.service(FrameworkServlet.java:897)\n"
+                        + "Caused by: java.lang.NullPointerException: user is null\n"
+                        + "\tat java.base/java.util.Objects.requireNonNull(Objects.java:233)\n"
+                        + "\tat com.example.UserService.getUser(UserService.java:101)\n"
+                        + "\t... 12 more\n"
+                        + "2026-02-23 10:06:00 INFO request served";
+
+        // When
+        List<AnalysisTableRow> rows = extractor.extract(logs);
+
+        // Then
+        assertThat(rows)
+                .containsExactly(
+                        new AnalysisTableRow(
+                                "NullPointerException",
+                                "com.example.UserService",
+                                "user is null at getUser(UserService.java:101), wrapped in"
+                                        + " NestedServletException",
+                                "Guard the null value dereferenced in UserService.getUser with a"
+                                        + " null check, Optional or validated input"));
+    }
+
+    @Test
+    void extract_shouldCountCollapsedEntriesAndOrderByOccurrences() {
+        // Given
+        String logs =
+                new LogDeduplicator(100)
+                        .deduplicate(
+                                "2026-02-23 10:00:00 ERROR java.net.SocketTimeoutException: Read"
+                                        + " timed out service=payment-service\n"
+                                        + "2026-02-23 10:00:01 WARN slow response\n"
+                                        + "2026-02-23 10:00:02 ERROR java.lang.NullPointerException"
+                                        + " at com.example.Orders.toDto(Orders.java:118)\n"
+                                        + "2026-02-23 10:00:03 ERROR java.lang.NullPointerException"
+                                        + " at com.example.Orders.toDto(Orders.java:118)\n"
+                                        + "2026-02-23 10:00:04 ERROR service=user-service password=hunter2"
+                                        + " Login failed");
+
+        // When
+        List<AnalysisTableRow> rows = extractor.extract(logs);
+
+        // Then
+        assertThat(rows)
+                .extracting(AnalysisTableRow::exception, AnalysisTableRow::impactedClass)
+                .containsExactly(
+                        tuple("NullPointerException", "com.example.Orders"),
+                        tuple("SocketTimeoutException", "payment-service"),
+                        tuple("Logged ERROR", "user-service"));
+        assertThat(rows.getFirst().details())
+                .isEqualTo("NullPointerException thrown at toDto(Orders.java:118) (2 occurrences)");
+        assertThat(rows.get(2).details()).isEqualTo("Login failed");
+    }
+
+    @Test
+    void table_shouldExtractEveryExceptionOfDummyLog() throws IOException {
+        String logs = Files.readString(new ClassPathResource("dummy.log").getFile().toPath());
+
+        String table = extractor.table(logs);
+
+        assertThat(new AnalysisTableMerger().parse(table))
+                .extracting(AnalysisTableRow::exception)
+                .contains(
+                        "NullPointerException",
+                        "DeadlockLoserDataAccessException",
+                        "JsonParseException",
+                        "HttpServerErrorException$InternalServerError")
+                .doesNotHaveDuplicates();
+        assertThat(table).contains("| NullPointerException | com.company.order.OrderAssembler |");
+    }
+
+    @Test
+    void table_shouldReturnNoExceptionRowForCleanLogs() {
+        assertThat(extractor.table("2026-02-23 10:00:00 INFO started"))
+                .isEqualTo(
+                        new AnalysisTableMerger()
+                                .render(List.of(AnalysisTableMerger.NO_EXCEPTION_ROW)));
+    }
+}
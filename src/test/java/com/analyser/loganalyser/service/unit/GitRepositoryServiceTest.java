@@ -0,0 +1,196 @@
+package com.analyser.loganalyser.service.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.analyser.loganalyser.service.GitRepositoryService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GitRepositoryServiceTest {
+
+    @TempDir private Path tempDir;
+
+    @Test
+    void normalizeRepoLink_shouldTreatEquivalentLinksAsOneRepository() {
+        assertThat(GitRepositoryService.normalizeRepoLink("https://GitHub.com/acme/users.git/"))
+                .isEqualTo("https://github.com/acme/users");
+        assertThat(GitRepositoryService.normalizeRepoLink("http://github.com/acme/users"))
+                .isEqualTo("https://github.com/acme/users");
+        assertThat(GitRepositoryService.normalizeRepoLink("git@github.com:acme/users.git"))
+                .isEqualTo("ssh://github.com/acme/users");
+    }
+
+    @Test
+    void checkout_shouldReuseCachedCloneAndFetchNewCommits() throws Exception {
+        // Given
+        Path origin = createRepository("users", "v1");
+        GitRepositoryService service = service(Duration.ZERO, 10);
+        Path first = service.checkout("file://" + origin);
+
+        // When
+        commit(origin, "v2");
+        Path second = service.checkout("file://" + origin + ".git/");
+
+        // Then
+        assertThat(second).isEqualTo(first);
+        assertThat(Files.readString(second.resolve("README.md"))).isEqualTo("v2");
+        assertThat(cloneDirs()).hasSize(1);
+    }
+
+    @Test
+    void checkout_shouldSkipFetchWithinRefreshInterval() throws Exception {
+        // Given
+        Path origin = createRepository("users", "v1");
+        GitRepositoryService service = service(Duration.ofMinutes(5), 10);
+        Path first = service.checkout("file://" + origin);
+
+        // When
+        commit(origin, "v2");
+        Path second = service.checkout("file://" + origin);
+
+        // Then
+        assertThat(second).isEqualTo(first);
+        assertThat(Files.readString(second.resolve("README.md"))).isEqualTo("v1");
+    }
+
+    @Test
+    void checkout_shouldShareOneCloneBetweenConcurrentRequests() throws Exception {
+        // Given
+        Path origin = createRepository("users", "v1");
+        GitRepositoryService service = service(Duration.ofMinutes(5), 10);
+        Callable<Path> checkout = () -> service.checkout("file://" + origin);
+
+        // When
+        List<Path> results;
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<Future<Path>> futures =
+                    IntStream.range(0, 4).mapToObj(i -> executor.submit(checkout)).toList();
+            results = futures.stream().map(GitRepositoryServiceTest::get).toList();
+        }
+
+        // Then
+        assertThat(results).containsOnly(results.getFirst());
+        assertThat(cloneDirs()).hasSize(1);
+    }
+
+    @Test
+    void checkout_shouldEvictLeastRecentlyUsedClone() throws Exception {
+        // Given
+        Path users = createRepository("users", "v1");
+        Path orders = createRepository("orders", "v1");
+        GitRepositoryService service = service(Duration.ofMinutes(5), 1);
+        Path usersClone = service.checkout("file://" + users);
+
+        // When
+        Path ordersClone = service.checkout("file://" + orders);
+
+        // Then
+        assertThat(usersClone).doesNotExist();
+        assertThat(ordersClone.resolve("README.md")).exists();
+    }
+
+    @Test
+    void checkout_shouldNotEvictLeasedClone() throws Exception {
+        // Given
+        Path users = createRepository("users", "v1");
+        Path orders = createRepository("orders", "v1");
+        GitRepositoryService service = service(Duration.ofMinutes(5), 1);
+        Path usersClone;
+        try (GitRepositoryService.Lease lease = service.lease("file://" + users)) {
+            usersClone = service.checkout("file://" + users);
+
+            // When
+            service.checkout("file://" + orders);
+
+            // Then
+            assertThat(usersClone.resolve("README.md")).exists();
+        }
+        assertThat(usersClone).doesNotExist();
+    }
+
+    @Test
+    void loadExistingClones_shouldCountClonesOfEarlierRunAndDeleteLeftovers() throws Exception {
+        // Given
+        Path users = createRepository("users", "v1");
+        Path orders = createRepository("orders", "v1");
+        Path usersClone = service(Duration.ofMinutes(5), 10).checkout("file://" + users);
+        Path leftover = Files.createDirectories(tempDir.resolve("clones").resolve("partial-1"));
+        GitRepositoryService restarted = service(Duration.ofMinutes(5), 1);
+
+        // When
+        restarted.loadExistingClones();
+        Path ordersClone = restarted.checkout("file://" + orders);
+
+        // Then
+        assertThat(leftover).doesNotExist();
+        assertThat(usersClone).doesNotExist();
+        assertThat(cloneDirs()).containsExactly(ordersClone);
+    }
+
+    private GitRepositoryService service(Duration refreshInterval, int maxRepos) {
+        return new GitRepositoryService(
+                tempDir.resolve("clones"),
+                refreshInterval,
+                maxRepos,
+                Long.MAX_VALUE,
+                true,
+                Clock.systemUTC());
+    }
+
+    private Path createRepository(String name, String content) throws Exception {
+        Path repo = tempDir.resolve("origin").resolve(name);
+        Files.createDirectories(repo);
+        git(repo, "init", "-q");
+        commit(repo, content);
+        return repo;
+    }
+
+    private static void commit(Path repo, String content) throws Exception {
+        Files.writeString(repo.resolve("README.md"), content);
+        git(repo, "add", "README.md");
+        git(
+                repo,
+                "-c",
+                "user.name=test",
+                "-c",
+                "user.email=test@example.com",
+                "commit",
+                "-q",
+                "-m",
+                content);
+    }
+
+    private static void git(Path repo, String... args) throws Exception {
+        List<String> command =
+                Stream.concat(Stream.of("git", "-C", repo.toString()), Stream.of(args)).toList();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes());
+        assertThat(process.waitFor()).as(output).isZero();
+    }
+
+    private List<Path> cloneDirs() throws IOException {
+        try (Stream<Path> dirs = Files.list(tempDir.resolve("clones"))) {
+            return dirs.toList();
+        }
+    }
+
+    private static Path get(Future<Path> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.analyser.loganalyser.service.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import com.analyser.loganalyser.config.LogProperties;
+import com.analyser.loganalyser.service.HttpLogFetcher;
+import com.analyser.loganalyser.service.LogFetchException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HttpLogFetcherTest {
+
+    private final List<String> requestedQueries = new CopyOnWriteArrayList<>();
+    private final CountDownLatch stalled = new CountDownLatch(1);
+    private HttpServer server;
+    private HttpLogFetcher httpLogFetcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/logs", this::handleLogs);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        LogProperties logProperties = new LogProperties();
+        logProperties.setEnvUrls(
+                Map.of("tst", "http://127.0.0.1:" + server.getAddress().getPort() + "/"));
+        logProperties.getHttp().setPageSize(2);
+        logProperties.getHttp().setDefaultRequestTimeout(Duration.ofMillis(500));
+        logProperties.getHttp().setDefaultMaxConcurrency(1);
+        httpLogFetcher = new HttpLogFetcher(logProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stalled.countDown();
+        httpLogFetcher.close();
+        server.stop(0);
+    }
+
+    @Test
+    void fetchLogs_shouldPageThroughPlainAndGzipNdjsonResponses() {
+        // When
+        String logs = httpLogFetcher.fetchLogs("tst", 3, "ERROR", "User Service");
+
+        // Then
+        assertThat(logs)
+                .isEqualTo(
+                        "2026-02-24 12:00:00 ERROR UserService - Timeout\n"
+                                + "2026-02-24T12:01:00Z ERROR [user-service] NullPointerException\n"
+                                + "\tat com.acme.UserService.find(UserService.java:101)\n"
+                                + "2026-02-24T12:02:00Z WARN retrying");
+        assertThat(requestedQueries)
+                .containsExactly(
+                        "days=3&limit=2&level=ERROR&app=User+Service",
+                        "days=3&limit=2&level=ERROR&app=User+Service&cursor=page-2");
+    }
+
+    @Test
+    void streamLogs_shouldRequestNextPageOnlyWhenConsumed() {
+        // When
+        List<String> firstLine;
+        try (Stream<String> lines = httpLogFetcher.streamLogs("tst", 1, null, null)) {
+            firstLine = lines.limit(1).toList();
+        }
+
+        // Then
+        assertThat(firstLine).containsExactly("2026-02-24 12:00:00 ERROR UserService - Timeout");
+        assertThat(requestedQueries).containsExactly("days=1&limit=2");
+    }
+
+    @Test
+    void fetchLogs_shouldFailOnErrorStatusAndUnknownEnvironment() {
+        assertThatThrownBy(() -> httpLogFetcher.fetchLogs("tst", 1, "FAIL", null))
+                .isInstanceOf(LogFetchException.class)
+                .hasMessageContaining("HTTP 503");
+        assertThatThrownBy(() -> httpLogFetcher.fetchLogs("prd", 1, null, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown environment: prd");
+    }
+
+    @Test
+    void fetchLogs_shouldFailAndReleasePermitWhenPageBodyStalls() {
+        // When
+        assertTimeoutPreemptively(
+                Duration.ofSeconds(5),
+                () ->
+                        assertThatThrownBy(() -> httpLogFetcher.fetchLogs("tst", 1, "STALL", null))
+                                .isInstanceOf(LogFetchException.class)
+                                .hasMessageContaining("No log data received within PT0.5S"));
+
+        // Then
+        String logs =
+                assertTimeoutPreemptively(
+                        Duration.ofSeconds(5),
+                        () -> httpLogFetcher.fetchLogs("tst", 1, null, null));
+        assertThat(logs).startsWith("2026-02-24 12:00:00 ERROR UserService - Timeout");
+    }
+
+    private void handleLogs(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        requestedQueries.add(query);
+        if (query.contains("level=STALL")) {
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            out.write("2026-02-24 12:00:00 ERROR first line\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            try {
+                stalled.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+            return;
+        }
+        if (query.contains("level=FAIL")) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+        if (!query.contains("cursor=")) {
+            exchange.getResponseHeaders().add("X-Next-Cursor", "page-2");
+            respond(
+                    exchange,
+                    "2026-02-24 12:00:00 ERROR UserService - Timeout\n\n"
+                            .getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        String ndjson =
+                "{\"timestamp\":\"2026-02-24T12:01:00Z\",\"level\":\"ERROR\",\"app\":\"user-service\","
+                        + "\"message\":\"NullPointerException\","
+                        + "\"stackTrace\":\"\\tat com.acme.UserService.find(UserService.java:101)\\n\"}\n"
+                        + "{\"timestamp\":\"2026-02-24T12:02:00Z\",\"level\":\"WARN\",\"message\":\"retrying\"}\n";
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(ndjson.getBytes(StandardCharsets.UTF_8));
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+        exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        respond(exchange, gzipped.toByteArray());
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.analyser.loganalyser.service.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.analyser.loganalyser.config.AnalysisProperties;
+import com.analyser.loganalyser.service.LlmBulkhead;
+import com.analyser.loganalyser.service.LlmBusyException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class LlmBulkheadTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.close();
+    }
+
+    @Test
+    void call_shouldCoalesceIdenticalPromptsInFlight() throws Exception {
+        // Given
+        LlmBulkhead bulkhead = bulkhead(4, 10, Duration.ofSeconds(5));
+        AtomicInteger modelCalls = new AtomicInteger();
+        Supplier<String> slowCall =
+                () -> {
+                    modelCalls.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return "| table |";
+                };
+        Future<String> first = executor.submit(() -> bulkhead.call("system", "logs", slowCall));
+        started.await(5, TimeUnit.SECONDS);
+
+        // When
+        Future<String> second = executor.submit(() -> bulkhead.call("system", "logs", slowCall));
+        while (bulkhead.coalesced() == 0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // Then
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("| table |");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("| table |");
+        assertThat(modelCalls).hasValue(1);
+        assertThat(bulkhead.inFlight()).isZero();
+    }
+
+    @Test
+    void call_shouldRejectImmediatelyWhenQueueIsFull() throws Exception {
+        // Given
+        LlmBulkhead bulkhead = bulkhead(1, 0, Duration.ofSeconds(5));
+        executor.submit(
+                () ->
+                        bulkhead.call(
+                                "system",
+                                "first",
+                                () -> {
+                                    started.countDown();
+                                    await(release);
+                                    return "ok";
+                                }));
+        started.await(5, TimeUnit.SECONDS);
+
+        // When / Then
+        assertThatThrownBy(() -> bulkhead.call("system", "second", () -> "ok"))
+                .isInstanceOf(LlmBusyException.class)
+                .hasMessageContaining("waiting");
+        assertThat(bulkhead.rejected()).isEqualTo(1);
+        assertThat(bulkhead.inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void call_shouldRejectQueuedCallAfterTimeoutAndRunOnceSlotIsFree() throws Exception {
+        // Given
+        LlmBulkhead bulkhead = bulkhead(1, 1, Duration.ofMillis(50));
+        executor.submit(
+                () ->
+                        bulkhead.call(
+                                "system",
+                                "first",
+                                () -> {
+                                    started.countDown();
+                                    await(release);
+                                    return "ok";
+                                }));
+        started.await(5, TimeUnit.SECONDS);
+
+        // When / Then
+        assertThatThrownBy(() -> bulkhead.call("system", "second", () -> "ok"))
+                .isInstanceOf(LlmBusyException.class)
+                .hasMessageContaining("PT0.05S");
+        release.countDown();
+        while (bulkhead.inFlight() > 0) {
+            Thread.onSpinWait();
+        }
+        assertThat(bulkhead.call("system", "second", () -> "done")).isEqualTo("done");
+        assertThat(bulkhead.queued()).isZero();
+    }
+
+    private static LlmBulkhead bulkhead(int maxInFlight, int maxQueued, Duration timeout) {
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.setMaxInFlight(Map.of("openai", maxInFlight));
+        properties.setMaxQueuedCalls(maxQueued);
+        properties.setQueueTimeout(timeout);
+        return new LlmBulkhead(properties, "openai");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -4,25 +4,55 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import com.analyser.loganalyser.config.AnalysisProperties;
 import com.analyser.loganalyser.model.LogAnalysisRequest;
+import com.analyser.loganalyser.service.AlertPipeline;
+import com.analyser.loganalyser.service.AnalysisHistoryStore;
+import com.analyser.loganalyser.service.AnalysisMetrics;
 import com.analyser.loganalyser.service.AnalysisOutputStore;
-import com.analyser.loganalyser.service.EmailAlertService;
+import com.analyser.loganalyser.service.AnalysisResultCache;
+import com.analyser.loganalyser.service.AnalysisTableMerger;
+import com.analyser.loganalyser.service.ChunkedAnalysisService;
+import com.analyser.loganalyser.service.ExceptionExtractor;
 import com.analyser.loganalyser.service.GitRepositoryService;
+import com.analyser.loganalyser.service.LlmBulkhead;
+import com.analyser.loganalyser.service.LlmBusyException;
+import com.analyser.loganalyser.service.LlmClient;
 import com.analyser.loganalyser.service.LogAnalysisPromptBuilder;
 import com.analyser.loganalyser.service.LogAnalysisService;
+import com.analyser.loganalyser.service.LogDeduplicator;
 import com.analyser.loganalyser.service.LogFetcher;
+import com.analyser.loganalyser.service.LogFilterFactory;
+import com.analyser.loganalyser.service.LogStreamIngestor;
 import com.analyser.loganalyser.service.PromptTemplateService;
+import com.analyser.loganalyser.service.StructuredLogParser;
+import com.analyser.loganalyser.service.TokenEstimator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Flux;
 
 @ExtendWith(MockitoExtension.class)
 class LogAnalysisServiceTest {
@@ -30,25 +60,67 @@ class LogAnalysisServiceTest {
     @Mock private ChatClient chatClient;
     @Mock private ChatClient.ChatClientRequestSpec chatClientRequestSpec;
     @Mock private ChatClient.CallResponseSpec callResponseSpec;
+    @Mock private ChatClient.StreamResponseSpec streamResponseSpec;
     @Mock private LogAnalysisPromptBuilder promptBuilder;
-    @Mock private LogFetcher logFetcher;
+
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
+    private LogFetcher logFetcher;
+
     @Mock private GitRepositoryService gitRepositoryService;
-    @Mock private EmailAlertService emailAlertService;
+    @Mock private AlertPipeline alertPipeline;
     @Mock private AnalysisOutputStore analysisOutputStore;
+    @Mock private AnalysisHistoryStore historyStore;
     @Mock private PromptTemplateService promptTemplateService;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AnalysisMetrics metrics =
+            new AnalysisMetrics(
+                    meterRegistry,
+                    new TokenEstimator(new AnalysisProperties(), "openai"),
+                    "openai");
     private LogAnalysisService logAnalysisService;
 
     @BeforeEach
     void setUp() {
+        lenient().when(gitRepositoryService.lease(any())).thenReturn(() -> {});
+        LlmClient llmClient =
+                new LlmClient(
+                        chatClient, new LlmBulkhead(new AnalysisProperties(), "openai"), metrics);
+        LogDeduplicator logDeduplicator = new LogDeduplicator(10_000);
         logAnalysisService =
                 new LogAnalysisService(
-                        chatClient,
-                        promptBuilder,
                         logFetcher,
                         gitRepositoryService,
-                        emailAlertService,
+                        alertPipeline,
                         analysisOutputStore,
-                        promptTemplateService);
+                        promptTemplateService,
+                        new LogStreamIngestor(
+                                logDeduplicator,
+                                new StructuredLogParser(1_000_000, 10),
+                                10_000,
+                                16_384),
+                        new ChunkedAnalysisService(
+                                llmClient,
+                                promptBuilder,
+                                new AnalysisTableMerger(),
+                                new AnalysisProperties(),
+                                new TokenEstimator(new AnalysisProperties(), "openai"),
+                                "openai"),
+                        logDeduplicator,
+                        new AnalysisResultCache(
+                                new MockEnvironment(),
+                                100,
+                                Duration.ofMinutes(5),
+                                null,
+                                Long.MAX_VALUE,
+                                Duration.ZERO,
+                                Clock.systemUTC()),
+                        new AnalysisTableMerger(),
+                        new StructuredLogParser(1_000_000, 10),
+                        new LogFilterFactory(),
+                        new ExceptionExtractor(new AnalysisTableMerger()),
+                        metrics,
+                        historyStore,
+                        true);
         lenient().when(chatClient.prompt()).thenReturn(chatClientRequestSpec);
         lenient().when(chatClientRequestSpec.system(anyString())).thenReturn(chatClientRequestSpec);
         lenient().when(chatClientRequestSpec.user(anyString())).thenReturn(chatClientRequestSpec);
@@ -86,6 +158,59 @@ class LogAnalysisServiceTest {
                 .contains("Provide the output in a consistent tabular format");
     }
 
+    @Test
+    void processLogs_shouldRecordStageTimersTokensAndResultOrigin() {
+        // Given
+        when(promptBuilder.buildAnalysisPrompt(any(), anyString())).thenReturn("prompt");
+        when(promptTemplateService.guardrailsTemplate()).thenReturn("guardrails");
+        when(callResponseSpec.content()).thenReturn("| table |");
+
+        // When
+        logAnalysisService.processLogs("ERROR: Connection timeout");
+        logAnalysisService.processLogs("ERROR: Connection timeout");
+
+        // Then
+        assertThat(
+                        meterRegistry
+                                .get("loganalyser.llm.call")
+                                .tag("outcome", "success")
+                                .timer()
+                                .count())
+                .isEqualTo(1);
+        assertThat(
+                        meterRegistry
+                                .get("loganalyser.llm.tokens")
+                                .tag("type", "prompt")
+                                .summary()
+                                .totalAmount())
+                .isPositive();
+        assertThat(meterRegistry.get("loganalyser.stage").tag("stage", "save").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("loganalyser.stage").tag("stage", "history").timer().count())
+                .isEqualTo(1);
+        assertThat(
+                        meterRegistry
+                                .get("loganalyser.input.size")
+                                .tag("source", "raw")
+                                .summary()
+                                .totalAmount())
+                .isEqualTo(2 * "ERROR: Connection timeout".length());
+        assertThat(
+                        meterRegistry
+                                .get("loganalyser.analysis.results")
+                                .tag("origin", "model")
+                                .counter()
+                                .count())
+                .isEqualTo(1);
+        assertThat(
+                        meterRegistry
+                                .get("loganalyser.analysis.results")
+                                .tag("origin", "cache")
+                                .counter()
+                                .count())
+                .isEqualTo(1);
+    }
+
     @Test
     void processLogs_withRepoLink_shouldIncludeRepoLinkInPrompt() {
         // Given
@@ -141,6 +266,72 @@ class LogAnalysisServiceTest {
         assertThat(promptCaptor.getValue()).contains("Fetching logs from 'PROD' environment");
     }
 
+    @Test
+    void processLogs_withEnv_shouldConsumeAndCloseStreamedLogs() {
+        // Given
+        AtomicBoolean closed = new AtomicBoolean();
+        when(logFetcher.streamLogs("PROD", 2, null, null))
+                .thenReturn(
+                        Stream.of(
+                                        "2026-02-24 12:00:00 ERROR Timeout calling payments",
+                                        "2026-02-24 12:00:05 ERROR Timeout calling payments",
+                                        "2026-02-24 12:01:00 ERROR NullPointerException\n"
+                                                + "\tat com.acme.UserService.find(UserService.java:101)")
+                                .onClose(() -> closed.set(true)));
+        when(promptBuilder.buildAnalysisPrompt(any(), anyString()))
+                .thenAnswer(i -> "prompt: " + i.getArgument(1, String.class));
+        when(promptTemplateService.guardrailsTemplate()).thenReturn("");
+
+        // When
+        logAnalysisService.processLogs(
+                new LogAnalysisRequest(null, null, null, null, 2, null, "PROD"));
+
+        // Then
+        ArgumentCaptor<String> promptCaptor = ArgumentCaptor.forClass(String.class);
+        verify(chatClientRequestSpec).user(promptCaptor.capture());
+        assertThat(promptCaptor.getValue())
+                .contains("[2x, first seen 2026-02-24 12:00:00, last seen 2026-02-24 12:00:05]")
+                .contains("\tat com.acme.UserService.find(UserService.java:101)");
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void processEnvironments_shouldMergeTablesWithPerEnvironmentCounts() {
+        // Given
+        when(logFetcher.streamLogs("prd", null, null, null))
+                .thenReturn(
+                        Stream.of(
+                                "2026-02-24 12:00:00 ERROR NullPointerException in UserService",
+                                "2026-02-24 12:00:01 ERROR NullPointerException in UserService",
+                                "2026-02-24 12:00:02 INFO request served",
+                                "2026-02-24 12:00:03 ERROR java.lang.NullPointerException: id"));
+        when(logFetcher.streamLogs("tst", null, null, null))
+                .thenReturn(
+                        Stream.of("2026-02-24 12:00:00 ERROR NullPointerException in UserService"));
+        when(logFetcher.streamLogs("acc", null, null, null))
+                .thenThrow(new IllegalArgumentException("Unknown environment: acc"));
+        when(promptBuilder.buildAnalysisPrompt(any(), anyString())).thenReturn("prompt");
+        when(promptTemplateService.guardrailsTemplate()).thenReturn("");
+        when(callResponseSpec.content())
+                .thenReturn("| NullPointerException | UserService | npe | add null check |");
+
+        // When
+        String result =
+                logAnalysisService.processEnvironments(
+                        new LogAnalysisRequest(null, null, null, null, null, null, null),
+                        List.of("prd", "tst", " prd ", "acc"));
+
+        // Then
+        assertThat(result)
+                .isEqualTo(
+                        AnalysisTableMerger.ENVIRONMENTS_HEADER
+                                + "\n"
+                                + AnalysisTableMerger.ENVIRONMENTS_SEPARATOR
+                                + "\n| NullPointerException | UserService | npe | add null check"
+                                + " | prd: 3, tst: 1 |"
+                                + "\n\nAnalysis failed for environments: acc (Unknown environment: acc)");
+    }
+
     @Test
     void processLogs_withEnvAndFilters_shouldIncludeFiltersInMockLogs() {
         // Given
@@ -190,6 +381,228 @@ class LogAnalysisServiceTest {
                 .hasMessageContaining("Raw logs length exceeds the limit");
     }
 
+    @Test
+    void processLogStream_shouldAcceptLogsBeyondRawLengthLimit() {
+        // Given
+        String line = "2026-02-23T01:00:00.137Z level=INFO Processed request successfully\n";
+        String hugeLog = line.repeat(1_000_000 / line.length() + 10) + "ERROR: Connection timeout";
+        when(promptBuilder.buildAnalysisPrompt(any(), anyString()))
+                .thenAnswer(i -> "prompt: " + i.getArgument(1, String.class));
+        when(promptTemplateService.guardrailsTemplate()).thenReturn("");
+        when(callResponseSpec.content()).thenReturn("streamed");
+
+        // When
+        String result =
+                logAnalysisService.processLogStream(
+                        new LogAnalysisRequest(null, null, null, null, null, null, null),
+                        new ByteArrayInputStream(hugeLog.getBytes(StandardCharsets.UTF_8)),
+                        null);
+
+        // Then
+        assertThat(result).isEqualTo("streamed");
+        ArgumentCaptor<String> promptCaptor = ArgumentCaptor.forClass(String.class);
+        verify(chatClientRequestSpec).user(promptCaptor.capture());
+        assertThat(promptCaptor.getValue()).contains("ERROR: Connection timeout");
+        assertThat(promptCaptor.getValue())
+                .contains("x, first seen 2026-02-23T01:00:00.137Z")
+                .contains("Processed request successfully");
+    }
+
+    @Test
+    void processLogs_shouldCollapseRepeatedEntriesBeforeBuildingPrompt() {
+        // Given
+        String rawLogs =
+                "2026-02-23T01:00:00.137Z ERROR traceId=bafb922c31df4210 latencyMs=21 Timeout\n"
+                        + "2026-02-23T01:05:00.274Z ERROR traceId=f05ee0b201ee4a69 latencyMs=95 Timeout\n"
+                        + "2026-02-23T01:06:00.000Z INFO Cache refreshed";
+        when(promptBuilder.buildAnalysisPrompt(any(), anyString()))
+                .thenAnswer(i -> i.getArgument(1, String.class));
+        when(promptTemplateService.guardrailsTemplate()).thenReturn("");
+
+        // When
+        logAnalysisService.processLogs(rawLogs);
+
+        // Then
+        ArgumentCaptor<String> promptCaptor = ArgumentCaptor.forClass(String.class);
+        verify(chatClientRequestSpec).user(promptCaptor.capture());
+        assertThat(promptCaptor.getValue())
+                .isEqualTo(
+                        "[2x, first seen 2026-02-23T01:00:00.137Z, last seen 2026-02-23T01:05:00.274Z] "
+                                + "2026-02-23T01:00:00.137Z ERROR traceId=bafb922c31df4210 latencyMs=21 Timeout\n"
+                                + "2026-02-23T01:06:00.000Z INFO Cache refreshed");
+    }
+
+    @Test
+    void processLogs_shouldDropEntriesBelowRequestedLevelBeforeBuildingPrompt() {
+        // Given
+        String rawLogs =
+                "2026-02-23T01:00:00.137Z INFO Cache refreshed\n"
+                        + "2026-02-23T01:05:00.274Z ERROR Timeout calling payments\n"
+                        + "2026-02-23T01:06:00.000Z DEBUG Pool stats";
+        when(promptBuilder.buildAnalysisPrompt(any(), anyString()))
+                .thenAnswer(i -> i.getArgument(1, String.class));
+        when(promptTemplateService.guardrailsTemplate()).thenReturn("");
+
+        // When
+        logAnalysisService.processLogs(
+                new LogAnalysisRequest(rawLogs, null, null, "ERROR", null, null, null));
+
+        // Then
+        ArgumentCaptor<String> promptCaptor = ArgumentCaptor.forClass(String.class);
+        verify(chatClientRequestSpec).user(promptCaptor.capture());
+        assertThat(promptCaptor.getValue())
+                .isEqualTo("2026-02-23T01:05:00.274Z ERROR Timeout calling payments");
+    }
+
+    @Test
+    void processLogs_shouldRejectWhenNoEntryMatchesFilter() {
+        assertThatThrownBy(
+                        () ->
+                                logAnalysisService.processLogs(
+                                        new LogAnalysisRequest(
+                                                "2026-02-23T01:00:00.137Z INFO ok",
+                                                null,
+                                                null,
+                                                "ERROR",
+                                                null,
+                                                null,
+                                                null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("No log entries match the requested filters.");
+    }
+
+    @Test
+    void processLogs_shouldServeRepeatedAnalysisFromCache() {
+        // Given
+        when(promptBuilder.buildAnalysisPrompt(any(), anyString())).thenReturn("prompt");
+        when(promptTemplateService.guardrailsTemplate()).thenReturn("guardrails");
+        when(callResponseSpec.content()).thenReturn("cached table");
+
+        // When
+        String first = logAnalysisService.processLogs("WARN: slow response");
+        String second = logAnalysisService.processLogs("WARN: slow response");
+
+        // Then
+        assertThat(first).isEqualTo("cached table");
+        assertThat(second).isEqualTo("cached table");
+        verify(chatClientRequestSpec, times(1)).user(anyString());
+        verify(analysisOutputStore, times(1)).save("cached table");
+    }
+
+    @Test
+    void streamLogs_shouldStreamRowsAndSaveCompleteTable() {
+        // Given
+        when(promptBuilder.buildAnalysisPrompt(any(), anyString())).thenReturn("prompt");
+        when(promptTemplateService.guardrailsTemplate()).thenReturn("");
+        when(chatClientRequestSpec.stream()).thenReturn(streamResponseSpec);
+        when(streamResponseSpec.content())
+                .thenReturn(Flux.just("| TimeoutException | Gateway | slow ", "| retry |\n"));
+
+        // When
+        List<String> rows =
+                logAnalysisService
+                        .streamLogs(
+                                new LogAnalysisRequest(
+                                        "ERROR: timeout", null, null, null, null, null, null))
+                        .collectList()
+                        .block();
+
+        // Then
+        assertThat(rows)
+                .hasSize(3)
+                .last()
+                .isEqualTo("| TimeoutException | Gateway | slow | retry |");
+        verify(analysisOutputStore).save(String.join("\n", rows));
+        verify(alertPipeline).submit(any(), eq(String.join("\n", rows)), eq(""));
+    }
+
+    @Test
+    void processLogs_inLocalMode_shouldReturnExtractedTableWithoutCallingModel() {
+        // Given
+        String rawLogs =
+                "2026-02-23 10:05:00 ERROR java.lang.NullPointerException at"
+                        + " com.example.UserService.getUser(UserService.java:101)";
+        when(promptTemplateService.guardrailsTemplate()).thenReturn("guardrails");
+
+        // When
+        String result =
+                logAnalysisService.processLogs(
+                        new LogAnalysisRequest(
+                                rawLogs, null, null, null, null, null, null, null, "local"));
+
+        // Then
+        assertThat(result)
+                .startsWith(AnalysisTableMerger.HEADER)
+                .contains("| NullPointerException | com.example.UserService |");
+        verify(chatClient, never()).prompt();
+        verify(analysisOutputStore).save(result);
+        verify(historyStore).append(null, null, "local", result);
+    }
+
+    @Test
+    void processLogs_shouldFallBackToLocalExtractionWhenModelFails() {
+        // Given
+        when(promptBuilder.buildAnalysisPrompt(any(), anyString())).thenReturn("prompt");
+        when(promptTemplateService.guardrailsTemplate()).thenReturn("");
+        when(callResponseSpec.content()).thenThrow(new IllegalStateException("provider down"));
+        LogAnalysisRequest request =
+                new LogAnalysisRequest(
+                        "ERROR java.net.SocketTimeoutException: Read timed out",
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null);
+
+        // When
+        String result = logAnalysisService.processLogs(request);
+
+        // Then
+        assertThat(result)
+                .contains("| SocketTimeoutException | Unknown | Read timed out |")
+                .endsWith("exceptions were extracted locally from the logs.");
+        verify(historyStore).append(null, null, "fallback", result);
+        assertThatThrownBy(
+                        () ->
+                                logAnalysisService.processLogs(
+                                        new LogAnalysisRequest(
+                                                "ERROR boom",
+                                                null,
+                                                null,
+                                                null,
+                                                null,
+                                                null,
+                                                null,
+                                                null,
+                                                "offline")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unknown analysis mode");
+    }
+
+    @Test
+    void processLogs_shouldRejectInsteadOfFallingBackWhenBulkheadIsBusy() {
+        // Given
+        when(promptBuilder.buildAnalysisPrompt(any(), anyString())).thenReturn("prompt");
+        when(promptTemplateService.guardrailsTemplate()).thenReturn("");
+        when(callResponseSpec.content())
+                .thenThrow(new LlmBusyException("Too many model calls are waiting; retry later."));
+        LogAnalysisRequest request =
+                new LogAnalysisRequest(
+                        "ERROR java.net.SocketTimeoutException: Read timed out",
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null);
+
+        // When / Then
+        assertThatThrownBy(() -> logAnalysisService.processLogs(request))
+                .isInstanceOf(LlmBusyException.class);
+        verifyNoInteractions(historyStore, analysisOutputStore, alertPipeline);
+    }
+
     @Test
     void processLogs_shouldThrowException_whenQueryLengthExceedsLimit() {
         // Given
@@ -0,0 +1,119 @@
+package com.analyser.loganalyser.service.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.analyser.loganalyser.service.LogDeduplicator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+class LogDeduplicatorTest {
+
+    private final LogDeduplicator logDeduplicator = new LogDeduplicator(100);
+
+    @Test
+    void mask_shouldReplaceVariableTokens() {
+        String masked =
+                LogDeduplicator.mask(
+                        "2026-02-23T01:00:00.137Z traceId=bafb922c31df4210b8013393a69fe36b"
+                                + " requestId=REQ-00000001 id=123e4567-e89b-12d3-a456-426614174000");
+
+        assertThat(masked)
+                .isEqualTo(
+                        "<*>-<*>-<*>:<*>:<*>.<*> traceId=<*> requestId=REQ-<*>"
+                                + " id=<*>-<*>-<*>-<*>-<*>");
+    }
+
+    @Test
+    void mask_shouldKeepIdentifiersAndStatusCodes() {
+        // Given
+        String s3 = "ERROR S3Exception from Http2Exception handler status=404 took 120ms";
+        String other = "ERROR S3Exception from Http2Exception handler status=500 took 980ms";
+
+        // When
+        String masked = LogDeduplicator.mask(s3);
+
+        // Then
+        assertThat(masked)
+                .isEqualTo("ERROR S3Exception from Http2Exception handler status=404 took <*>");
+        assertThat(LogDeduplicator.fingerprint(s3))
+                .isNotEqualTo(LogDeduplicator.fingerprint(other));
+        assertThat(LogDeduplicator.fingerprint(s3))
+                .isEqualTo(LogDeduplicator.fingerprint(s3.replace("120ms", "75ms")));
+        assertThat(LogDeduplicator.mask("user42 code: 503 retry 3 of 5"))
+                .isEqualTo("user42 code: 503 retry <*> of <*>");
+    }
+
+    @Test
+    void deduplicate_shouldKeepStackTraceWithItsEntry() {
+        String logs =
+                "ERROR NullPointerException\n"
+                        + "\tat com.example.UserService.getUser(UserService.java:101)\n"
+                        + "ERROR NullPointerException\n"
+                        + "\tat com.example.UserService.getUser(UserService.java:101)";
+
+        assertThat(logDeduplicator.deduplicate(logs))
+                .isEqualTo(
+                        "[2x] ERROR NullPointerException\n"
+                                + "\tat com.example.UserService.getUser(UserService.java:101)");
+    }
+
+    @Test
+    void deduplicate_shouldCollapseDummyLogByOrdersOfMagnitude() throws IOException {
+        Path path = new ClassPathResource("dummy.log").getFile().toPath();
+        String logs = Files.readString(path);
+
+        String deduplicated = logDeduplicator.deduplicate(logs);
+
+        assertThat(deduplicated.lines().count()).isLessThan(logs.lines().count() / 10);
+        assertThat(deduplicated.length()).isLessThan(logs.length() / 10);
+    }
+
+    @Test
+    void aggregator_shouldKeepHalfOfMaxGroupsForErrors() {
+        // Given
+        LogDeduplicator.Aggregator aggregator = new LogDeduplicator(4).newAggregator();
+
+        // When
+        aggregator.accept("INFO cache warmed");
+        aggregator.accept("INFO request served");
+        aggregator.accept("INFO session opened");
+        aggregator.accept("WARN slow query");
+        aggregator.accept("ERROR NullPointerException in UserService");
+        aggregator.accept("\tat com.example.UserService.getUser(UserService.java:101)");
+
+        // Then
+        assertThat(aggregator.renderEntries())
+                .containsExactly(
+                        "INFO cache warmed",
+                        "INFO request served",
+                        "ERROR NullPointerException in UserService\n"
+                                + "\tat com.example.UserService.getUser(UserService.java:101)",
+                        "[2 entries omitted after 4 distinct patterns]");
+    }
+
+    @Test
+    void aggregator_shouldReportOverflowBeyondMaxGroups() {
+        LogDeduplicator.Aggregator aggregator = new LogDeduplicator(1).newAggregator();
+        aggregator.accept("ERROR first");
+        aggregator.accept("ERROR second");
+
+        assertThat(aggregator.renderEntries())
+                .containsExactly("ERROR first", "[1 entries omitted after 1 distinct patterns]");
+    }
+
+    @Test
+    void countOccurrences_shouldExpandCollapsedGroups() {
+        String logs =
+                "[12x, first seen 2026-02-24 12:00:00, last seen 2026-02-24 12:05:00] ERROR Timeout\n"
+                        + "2026-02-24 12:06:00 ERROR NullPointerException\n"
+                        + "\tat com.acme.Timeout.handle(Timeout.java:3)\n"
+                        + "2026-02-24 12:07:00 INFO done";
+
+        assertThat(LogDeduplicator.countOccurrences(logs, "Timeout")).isEqualTo(13);
+        assertThat(LogDeduplicator.countOccurrences(logs, "NullPointerException")).isEqualTo(1);
+        assertThat(LogDeduplicator.countOccurrences(logs, "")).isZero();
+    }
+}
@@ -0,0 +1,132 @@
+package com.analyser.loganalyser.service.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.analyser.loganalyser.model.LogAnalysisRequest;
+import com.analyser.loganalyser.service.LogBatch;
+import com.analyser.loganalyser.service.LogFilter;
+import com.analyser.loganalyser.service.LogFilterFactory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+class LogFilterTest {
+
+    @Test
+    void apply_shouldKeepEntriesAtOrAboveRequestedLevelWithTheirStackTraces() {
+        // Given
+        String logs =
+                "2026-02-23 10:00:00 INFO: Application started\n"
+                        + "2026-02-23 10:05:00 ERROR: NullPointerException at"
+                        + " com.example.UserService.getUser(UserService.java:101)\n"
+                        + "\tat com.example.UserController.get(UserController.java:20)\n"
+                        + "2026-02-23 10:06:00 DEBUG cache miss\n"
+                        + "\tat com.example.Cache.get(Cache.java:5)\n"
+                        + "Fetching logs from 'PROD' environment...\n"
+                        + "2026-02-23 10:10:00 WARN: Deprecated API usage detected.";
+        LogFilter filter = LogFilter.of("WARN", null, LogBatch.NO_TIMESTAMP, null);
+
+        // When
+        String filtered = filter.apply(logs);
+
+        // Then
+        assertThat(filtered)
+                .isEqualTo(
+                        "2026-02-23 10:05:00 ERROR: NullPointerException at"
+                                + " com.example.UserService.getUser(UserService.java:101)\n"
+                                + "\tat com.example.UserController.get(UserController.java:20)\n"
+                                + "Fetching logs from 'PROD' environment...\n"
+                                + "2026-02-23 10:10:00 WARN: Deprecated API usage detected.");
+        assertThat(filter.acceptedEntries()).isEqualTo(3);
+        assertThat(filter.rejectedEntries()).isEqualTo(2);
+    }
+
+    @Test
+    void apply_shouldFilterStructuredDummyLogByApplicationAndFields() throws IOException {
+        // Given
+        String logs = Files.readString(new ClassPathResource("dummy.log").getFile().toPath());
+        LogFilter filter =
+                LogFilter.of(
+                        "ERROR",
+                        "order-service",
+                        LogBatch.NO_TIMESTAMP,
+                        "region=us-west-2; /Exception/");
+
+        // When
+        String filtered = filter.apply(logs);
+
+        // Then
+        assertThat(filtered.lines())
+                .isNotEmpty()
+                .allMatch(line -> line.contains("service=order-service"))
+                .allMatch(line -> line.contains("level=ERROR"))
+                .allMatch(line -> line.contains("region=us-west-2"))
+                .allMatch(line -> line.contains("Exception"));
+        assertThat(filter.acceptedEntries() + filter.rejectedEntries()).isEqualTo(1000);
+    }
+
+    @Test
+    void apply_shouldKeepEntriesMentioningLowerSeverityOutsideLevelPosition() {
+        // Given
+        String logs =
+                "java.lang.IllegalStateException: INFO cache not initialised\n"
+                        + "2026-02-23 10:00:00 [DEBUG] cache miss\n"
+                        + "2026-02-23T01:00:00.000Z service=a level=INFO ready\n"
+                        + "2026-02-23 10:01:00 WARN: retrying after INFO timeout";
+        LogFilter filter = LogFilter.of("ERROR", null, LogBatch.NO_TIMESTAMP, null);
+
+        // When
+        String filtered = filter.apply(logs);
+
+        // Then
+        assertThat(filtered)
+                .isEqualTo("java.lang.IllegalStateException: INFO cache not initialised");
+        assertThat(filter.rejectedEntries()).isEqualTo(3);
+    }
+
+    @Test
+    void apply_shouldCompareNumericFields() {
+        String logs =
+                "2026-02-23T01:00:00.000Z service=a status=200 latencyMs=21 ok\n"
+                        + "2026-02-23T01:00:01.000Z service=a status=503 latencyMs=950 slow\n"
+                        + "2026-02-23T01:00:02.000Z service=a level=WARN retry";
+
+        assertThat(LogFilter.of(null, null, LogBatch.NO_TIMESTAMP, "latencyMs>=500").apply(logs))
+                .isEqualTo("2026-02-23T01:00:01.000Z service=a status=503 latencyMs=950 slow");
+    }
+
+    @Test
+    void forRawLogs_shouldKeepOnlyEntriesWithinRequestedDays() {
+        // Given
+        Clock clock = Clock.fixed(Instant.parse("2026-02-24T12:00:00Z"), ZoneOffset.UTC);
+        LogAnalysisRequest request = new LogAnalysisRequest(null, null, null, null, 1, null, null);
+        LogFilter filter = new LogFilterFactory(clock).forRawLogs(request);
+
+        // When
+        String filtered =
+                filter.apply(
+                        "2026-02-22T12:00:00Z ERROR old failure\n"
+                                + "2026-02-24T11:00:00Z ERROR recent failure\n"
+                                + "no timestamp here");
+
+        // Then
+        assertThat(filtered)
+                .isEqualTo("2026-02-24T11:00:00Z ERROR recent failure\nno timestamp here");
+    }
+
+    @Test
+    void of_shouldRejectInvalidTerms() {
+        assertThatThrownBy(() -> LogFilter.of(null, null, LogBatch.NO_TIMESTAMP, "status>high"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("numeric");
+        assertThatThrownBy(() -> LogFilter.of(null, null, LogBatch.NO_TIMESTAMP, "/[unclosed/"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid filter pattern");
+        assertThat(LogFilter.of("All", "All", LogBatch.NO_TIMESTAMP, " ").isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,104 @@
+package com.analyser.loganalyser.service.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.analyser.loganalyser.service.LogDeduplicator;
+import com.analyser.loganalyser.service.LogStreamIngestor;
+import com.analyser.loganalyser.service.StructuredLogParser;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+
+class LogStreamIngestorTest {
+
+    private final LogStreamIngestor ingestor =
+            new LogStreamIngestor(
+                    new LogDeduplicator(100), new StructuredLogParser(1_000, 10), 200, 40);
+
+    @Test
+    void ingest_shouldReadPlainLinesWithMixedLineEndings() throws IOException {
+        List<String> lines = new ArrayList<>();
+
+        long count =
+                ingestor.ingest(
+                        stream("INFO one\r\nWARN two\nERROR three".getBytes()), null, lines::add);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(lines).containsExactly("INFO one", "WARN two", "ERROR three");
+    }
+
+    @Test
+    void ingest_shouldDetectGzipFromMagicBytes() throws IOException {
+        List<String> lines = new ArrayList<>();
+
+        ingestor.ingest(stream(gzip("INFO one\nERROR two\n")), null, lines::add);
+
+        assertThat(lines).containsExactly("INFO one", "ERROR two");
+    }
+
+    @Test
+    void ingest_shouldTruncateOverlongLines() throws IOException {
+        List<String> lines = new ArrayList<>();
+
+        ingestor.ingest(stream("x".repeat(100).getBytes()), "identity", lines::add);
+
+        assertThat(lines)
+                .singleElement()
+                .asString()
+                .startsWith("x".repeat(40))
+                .endsWith("[truncated]");
+    }
+
+    @Test
+    void ingest_shouldKeepErrorLinesOnceGeneralBudgetIsExhausted() throws IOException {
+        StringBuilder logs = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            logs.append("INFO filler line ").append((char) ('a' + i)).append('\n');
+        }
+        logs.append("ERROR late failure\nINFO tail\n");
+
+        LogStreamIngestor.IngestedLogs ingested =
+                ingestor.ingest(stream(gzip(logs.toString())), "gzip");
+
+        assertThat(ingested.linesRead()).isEqualTo(22);
+        assertThat(ingested.linesDropped()).isPositive();
+        assertThat(ingested.logs()).contains("ERROR late failure").doesNotContain("INFO tail");
+        assertThat(ingested.logs()).contains("entries omitted during streaming ingestion");
+    }
+
+    @Test
+    void ingest_shouldPrependSummaryOfStructuredLines() throws IOException {
+        String logs =
+                "2026-02-23T01:00:00.000Z service=order-service level=INFO latencyMs=20 ok\n"
+                        + "2026-02-23T01:00:01.000Z service=order-service level=ERROR boom\n";
+
+        LogStreamIngestor structuredIngestor =
+                new LogStreamIngestor(
+                        new LogDeduplicator(100), new StructuredLogParser(1_000, 10), 1_000, 200);
+
+        LogStreamIngestor.IngestedLogs ingested =
+                structuredIngestor.ingest(stream(logs.getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(ingested.logs())
+                .startsWith("[Structured log summary: 2 entries")
+                .contains("| order-service | 2 | 1 | 0 | 20 | 20 | 20 |")
+                .contains("level=ERROR boom");
+    }
+
+    private static ByteArrayInputStream stream(byte[] bytes) {
+        return new ByteArrayInputStream(bytes);
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,134 @@
+package com.analyser.loganalyser.service.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.analyser.loganalyser.config.AnalysisProperties;
+import com.analyser.loganalyser.model.LogAnalysisRequest;
+import com.analyser.loganalyser.service.AnalysisMetrics;
+import com.analyser.loganalyser.service.AnalysisTableMerger;
+import com.analyser.loganalyser.service.ExceptionExtractor;
+import com.analyser.loganalyser.service.LogAnalysisPromptBuilder;
+import com.analyser.loganalyser.service.LogTrimmer;
+import com.analyser.loganalyser.service.SourceContextIndex;
+import com.analyser.loganalyser.service.TokenEstimator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class LogTrimmerTest {
+
+    private static final String STACK_TRACE =
+            "2026-02-23 10:05:00 ERROR NullPointerException in handler\n"
+                    + "\tat com.example.UserService.getUser(UserService.java:101)\n"
+                    + "\tat com.example.UserController.get(UserController.java:20)";
+
+    private final TokenEstimator tokenEstimator =
+            new TokenEstimator(new AnalysisProperties(), "openai");
+    private final LogTrimmer logTrimmer = new LogTrimmer(tokenEstimator);
+
+    @Test
+    void estimate_shouldCountPunctuationSeparately() {
+        assertThat(tokenEstimator.estimate("abcdefgh")).isEqualTo(2);
+        assertThat(tokenEstimator.estimate("2026-02-23T01:00:00.137Z")).isEqualTo(12);
+        assertThat(tokenEstimator.estimate("a b\nc")).isEqualTo(4);
+    }
+
+    @Test
+    void trim_shouldReturnLogsUnchangedWithinBudget() {
+        LogTrimmer.TrimmedLogs trimmed = logTrimmer.trim(STACK_TRACE, 1_000);
+
+        assertThat(trimmed.trimmed()).isFalse();
+        assertThat(trimmed.logs()).isEqualTo(STACK_TRACE);
+    }
+
+    @Test
+    void trim_shouldKeepErrorsWithStackTracesAndReportElidedEntries() {
+        // Given
+        StringBuilder logs = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            logs.append("2026-02-23 10:00:").append(i).append(" INFO request served\n");
+        }
+        logs.append(STACK_TRACE).append('\n');
+        logs.append("2026-02-23 10:06:00 WARN pool nearly exhausted");
+        int budget = tokenEstimator.estimate(STACK_TRACE) + 100;
+
+        // When
+        LogTrimmer.TrimmedLogs trimmed = logTrimmer.trim(logs.toString(), budget);
+
+        // Then
+        assertThat(trimmed.logs())
+                .contains(STACK_TRACE)
+                .contains("WARN pool nearly exhausted")
+                .endsWith("tokens]")
+                .contains("[Elided to fit the model context: " + trimmed.elidedEntries());
+        assertThat(trimmed.elidedLevels()).isEqualTo("INFO=" + trimmed.elidedEntries());
+        assertThat(trimmed.elidedEntries()).isPositive();
+        assertThat(tokenEstimator.estimate(trimmed.logs())).isLessThanOrEqualTo(budget);
+        assertThat(trimmed.logs().indexOf("INFO")).isLessThan(trimmed.logs().indexOf("ERROR"));
+    }
+
+    @Test
+    void buildAnalysisPrompt_shouldStayWithinSmallContextWindow() {
+        // Given
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.setContextWindow(Map.of("ollama", 1_200));
+        properties.setReservedTokens(200);
+        TokenEstimator ollama = new TokenEstimator(properties, "ollama");
+        LogAnalysisPromptBuilder promptBuilder =
+                new LogAnalysisPromptBuilder(
+                        new SourceContextIndex(6, 5, 8000, 8),
+                        ollama,
+                        new ExceptionExtractor(new AnalysisTableMerger()),
+                        new AnalysisMetrics(new SimpleMeterRegistry(), ollama, "ollama"));
+        String logs = (STACK_TRACE + "\n").repeat(40) + "2026-02-23 10:07:00 INFO done";
+
+        // When
+        String prompt =
+                promptBuilder.buildAnalysisPrompt(
+                        new LogAnalysisRequest(null, null, null, null, null, null, null), logs);
+
+        // Then
+        assertThat(ollama.estimate(prompt)).isLessThanOrEqualTo(ollama.maxPromptTokens());
+        assertThat(prompt).contains("NullPointerException").contains("[Elided to fit");
+    }
+
+    @Test
+    void buildAnalysisPrompt_shouldCapSeededTableRowsToLeaveRoomForLogs() {
+        // Given
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.setContextWindow(Map.of("ollama", 1_200));
+        properties.setReservedTokens(200);
+        TokenEstimator ollama = new TokenEstimator(properties, "ollama");
+        LogAnalysisPromptBuilder promptBuilder =
+                new LogAnalysisPromptBuilder(
+                        new SourceContextIndex(6, 5, 8000, 8),
+                        ollama,
+                        new ExceptionExtractor(new AnalysisTableMerger()),
+                        new AnalysisMetrics(new SimpleMeterRegistry(), ollama, "ollama"));
+        StringBuilder logs = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            logs.append("2026-02-23 10:05:00 ERROR Failure")
+                    .append(i)
+                    .append("Exception in handler\n\tat com.example.Service")
+                    .append(i)
+                    .append(".run(Service")
+                    .append(i)
+                    .append(".java:10)\n");
+        }
+
+        // When
+        String prompt =
+                promptBuilder.buildAnalysisPrompt(
+                        new LogAnalysisRequest(
+                                null, null, null, null, null, null, null, null, "seeded"),
+                        logs.toString());
+
+        // Then
+        String seeded = prompt.substring(0, prompt.indexOf("Logs: "));
+        String logPart = prompt.substring(prompt.indexOf("Logs: "));
+        assertThat(ollama.estimate(prompt)).isLessThanOrEqualTo(ollama.maxPromptTokens());
+        assertThat(seeded).contains("verify them").contains("Failure0Exception");
+        assertThat(seeded).doesNotContain("Failure59Exception");
+        assertThat(ollama.estimate(logPart)).isGreaterThanOrEqualTo(ollama.maxPromptTokens() / 3);
+    }
+}
@@ -0,0 +1,101 @@
+package com.analyser.loganalyser.service.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.analyser.loganalyser.config.AnalysisProperties;
+import com.analyser.loganalyser.model.LogAnalysisRequest;
+import com.analyser.loganalyser.service.AnalysisMetrics;
+import com.analyser.loganalyser.service.AnalysisTableMerger;
+import com.analyser.loganalyser.service.ExceptionExtractor;
+import com.analyser.loganalyser.service.LogAnalysisPromptBuilder;
+import com.analyser.loganalyser.service.SourceContextIndex;
+import com.analyser.loganalyser.service.TokenEstimator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SourceContextIndexTest {
+
+    private static final String STACK_TRACE =
+            "2026-02-24 12:00:00 ERROR Request failed\n"
+                    + "java.lang.NullPointerException: user is null\n"
+                    + "\tat com.acme.users.UserService.find(UserService.java:10)\n"
+                    + "\tat com.acme.web.UserController.get(UserController.java:99)\n";
+
+    @TempDir private Path repo;
+    private final SourceContextIndex sourceContextIndex = new SourceContextIndex(2, 5, 8000, 8);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(repo.resolve(".git"));
+        Files.writeString(repo.resolve(".git/HEAD"), "0123456789abcdef\n");
+        writeSource("src/main/java/com/acme/users/UserService.java", "users");
+        writeSource("src/main/java/com/acme/legacy/UserService.java", "legacy");
+        writeSource("target/classes/com/acme/users/UserService.java", "build output");
+    }
+
+    @Test
+    void snippets_shouldReturnWindowAroundReferencedLineOfMatchingPackage() {
+        // When
+        String snippets = sourceContextIndex.snippets(repo, STACK_TRACE);
+
+        // Then
+        assertThat(snippets)
+                .startsWith("--- src/main/java/com/acme/users/UserService.java (lines 8-12) ---")
+                .contains(" 8: users line 8", ">10: users line 10", " 12: users line 12")
+                .doesNotContain("line 7", "line 13", "legacy", "build output");
+    }
+
+    @Test
+    void snippets_shouldSkipFramesOutsideRepositoryOrFile() {
+        assertThat(
+                        sourceContextIndex.snippets(
+                                repo, "at com.acme.users.UserService.x(UserService.java:500)"))
+                .isEmpty();
+        assertThat(sourceContextIndex.snippets(repo, "at java.util.HashMap.get(HashMap.java:10)"))
+                .isEmpty();
+        assertThat(sourceContextIndex.snippets(null, STACK_TRACE)).isEmpty();
+    }
+
+    @Test
+    void buildAnalysisPrompt_shouldIncludeSourceWindowsForClonedRepository() {
+        // Given
+        LogAnalysisPromptBuilder promptBuilder =
+                new LogAnalysisPromptBuilder(
+                        sourceContextIndex,
+                        new TokenEstimator(new AnalysisProperties(), "openai"),
+                        new ExceptionExtractor(new AnalysisTableMerger()),
+                        new AnalysisMetrics(
+                                new SimpleMeterRegistry(),
+                                new TokenEstimator(new AnalysisProperties(), "openai"),
+                                "openai"));
+        LogAnalysisRequest request =
+                new LogAnalysisRequest(null, null, null, null, null, null, null)
+                        .withRepository("https://github.com/acme/users", repo);
+
+        // When
+        String prompt = promptBuilder.buildAnalysisPrompt(request, STACK_TRACE);
+
+        // Then
+        assertThat(prompt)
+                .contains("Context repository: https://github.com/acme/users")
+                .contains(">10: users line 10")
+                .endsWith("Logs: " + STACK_TRACE);
+    }
+
+    private void writeSource(String relativePath, String label) throws IOException {
+        Path file = repo.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(
+                file,
+                IntStream.rangeClosed(1, 20)
+                        .mapToObj(i -> label + " line " + i)
+                        .collect(Collectors.joining("\n", "", "\n")));
+    }
+}
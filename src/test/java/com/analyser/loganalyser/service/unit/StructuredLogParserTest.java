@@ -0,0 +1,93 @@
+package com.analyser.loganalyser.service.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.analyser.loganalyser.service.LogBatch;
+import com.analyser.loganalyser.service.StructuredLogParser;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+class StructuredLogParserTest {
+
+    private final StructuredLogParser parser = new StructuredLogParser(1_000_000, 3);
+
+    @Test
+    void parse_shouldDecodeFieldsIntoColumns() {
+        // Given
+        String logs =
+                "2026-02-23T01:00:03.425Z env=prd node=prd-app-01 service=order-service"
+                        + " level=ERROR traceId=becb status=500 latencyMs=1200"
+                        + " java.lang.IllegalStateException: boom\n"
+                        + "2026-02-24 12:00:00 WARN plain line without fields";
+
+        // When
+        LogBatch batch = parser.parse(logs);
+
+        // Then
+        assertThat(batch.size()).isEqualTo(2);
+        assertThat(batch.structuredRows()).isEqualTo(1);
+        assertThat(batch.timestamp(0))
+                .isEqualTo(Instant.parse("2026-02-23T01:00:03.425Z").toEpochMilli());
+        assertThat(batch.environment(0)).isEqualTo("prd");
+        assertThat(batch.node(0)).isEqualTo("prd-app-01");
+        assertThat(batch.service(0)).isEqualTo("order-service");
+        assertThat(batch.level(0)).isEqualTo("ERROR");
+        assertThat(batch.status(0)).isEqualTo(500);
+        assertThat(batch.latencyMs(0)).isEqualTo(1200);
+        assertThat(batch.message(0)).isEqualTo("java.lang.IllegalStateException: boom");
+        assertThat(batch.timestamp(1))
+                .isEqualTo(Instant.parse("2026-02-24T12:00:00Z").toEpochMilli());
+        assertThat(batch.level(1)).isEqualTo("WARN");
+        assertThat(batch.service(1)).isNull();
+        assertThat(batch.latencyMs(1)).isEqualTo(LogBatch.MISSING);
+        assertThat(batch.message(1)).isEqualTo("plain line without fields");
+    }
+
+    @Test
+    void parse_shouldDictionaryEncodeDummyLog() throws IOException {
+        // Given
+        Path path = new ClassPathResource("dummy.log").getFile().toPath();
+        byte[] logs = Files.readAllBytes(path);
+
+        // When
+        LogBatch batch = parser.parse(logs, 0, logs.length);
+
+        // Then
+        assertThat(batch.size()).isEqualTo(1000);
+        assertThat(batch.isStructured()).isTrue();
+        assertThat(batch.serviceDictionary()).hasSize(8);
+        assertThat(batch.levelDictionary()).containsExactlyInAnyOrder("INFO", "WARN", "ERROR");
+        int errors = 0;
+        for (int row = 0; row < batch.size(); row++) {
+            if (batch.levelCode(row) == batch.levelCodeOf("error")) {
+                errors++;
+            }
+        }
+        assertThat(errors).isEqualTo(40);
+    }
+
+    @Test
+    void summarize_shouldReportLevelsAndServiceLatencies() throws IOException {
+        // Given
+        String logs = Files.readString(new ClassPathResource("dummy.log").getFile().toPath());
+
+        // When
+        String summary = parser.summarize(logs);
+
+        // Then
+        assertThat(summary)
+                .startsWith("[Structured log summary: 1000 entries from 2026-02-23T01:00:00.137Z")
+                .contains("ERROR=40")
+                .contains("| Service | Entries | ERROR | WARN | p50 ms | p95 ms | max ms |");
+        assertThat(summary.lines().filter(line -> line.contains("-service |"))).hasSize(3);
+    }
+
+    @Test
+    void summarize_shouldSkipUnstructuredLogs() {
+        assertThat(parser.summarize("2026-02-24 12:00:00 ERROR boom\nINFO done")).isEmpty();
+    }
+}
@@ -1,7 +1,15 @@
 package com.analyser.loganalyser.util;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
@@ -41,6 +49,18 @@ public class LogStreamGenerator {
                     "Transaction rollback failed - org.springframework.transaction.TransactionSystemException",
                     "OutOfMemoryError: Java heap space - java.lang.OutOfMemoryError");
 
+    private static final List<String> SERVICES =
+            List.of(
+                    "order-service",
+                    "payment-service",
+                    "inventory-service",
+                    "catalog-service",
+                    "auth-service",
+                    "user-service",
+                    "notification-service");
+
+    private static final List<String> REGIONS = List.of("us-east-1", "us-west-2", "eu-west-1");
+
     public static void main(String[] args) {
         System.out.println("Generating log stream... Press Ctrl+C to stop.");
 
@@ -64,18 +84,113 @@ public class LogStreamGenerator {
         return String.format("%s %s %s", timestamp, level, message);
     }
 
+    /**
+     * Writes {@code dummy.log}-style {@code key=value} entries until {@code file} holds at least
+     * {@code bytes}. The same {@code seed} always yields the same file, so benchmark inputs are
+     * comparable across runs; ERROR entries carry a short stack trace.
+     */
+    public static void writeStructuredLogs(Path file, long bytes, long seed) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            appendStructuredLogs(writer, bytes, seed);
+        }
+    }
+
+    /** In-memory variant of {@link #writeStructuredLogs} of about {@code chars} characters. */
+    public static String generateStructuredLogs(int chars, long seed) {
+        StringBuilder logs = new StringBuilder(chars + 512);
+        try {
+            appendStructuredLogs(logs, chars, seed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return logs.toString();
+    }
+
+    private static void appendStructuredLogs(Appendable out, long chars, long seed)
+            throws IOException {
+        Random random = new Random(seed);
+        HexFormat hex = HexFormat.of();
+        Instant timestamp = Instant.parse("2026-02-23T01:00:00Z");
+        long written = 0;
+        for (long requestId = 1; written < chars; requestId++) {
+            timestamp = timestamp.plusMillis(1 + random.nextInt(250));
+            String entry = generateStructuredLogEntry(random, hex, timestamp, requestId);
+            out.append(entry);
+            written += entry.length();
+        }
+    }
+
+    private static String generateStructuredLogEntry(
+            Random random, HexFormat hex, Instant timestamp, long requestId) {
+        String level = getRandomLevel(random);
+        String service = SERVICES.get(random.nextInt(SERVICES.size()));
+        StringBuilder entry =
+                new StringBuilder(384)
+                        .append(timestamp)
+                        .append(" env=prd region=")
+                        .append(REGIONS.get(random.nextInt(REGIONS.size())))
+                        .append(" node=prd-app-0")
+                        .append(1 + random.nextInt(5))
+                        .append(" service=")
+                        .append(service)
+                        .append(" level=")
+                        .append(level)
+                        .append(" traceId=")
+                        .append(hex.toHexDigits(random.nextLong()))
+                        .append(hex.toHexDigits(random.nextLong()))
+                        .append(" spanId=")
+                        .append(hex.toHexDigits(random.nextLong()))
+                        .append(String.format(" requestId=REQ-%08d", requestId))
+                        .append(" thread=http-nio-8080-exec-")
+                        .append(1 + random.nextInt(50));
+        String[] message = getRandomMessage(level, random).split(" - ", 2);
+        switch (level) {
+            case "INFO" ->
+                    entry.append(" status=200 latencyMs=")
+                            .append(5 + random.nextInt(120))
+                            .append(' ')
+                            .append(message[0]);
+            case "WARN" -> entry.append(' ').append(message[0]);
+            default -> {
+                String type = message.length > 1 ? message[1] : "java.lang.RuntimeException";
+                String className = "com.example." + service.replace("-service", "") + ".Handler";
+                entry.append(" status=500 latencyMs=")
+                        .append(500 + random.nextInt(4500))
+                        .append(' ')
+                        .append(type)
+                        .append(": ")
+                        .append(message[0])
+                        .append("\n\tat ")
+                        .append(className)
+                        .append(".handle(Handler.java:")
+                        .append(20 + random.nextInt(80))
+                        .append(")\n\tat org.springframework.web.servlet.FrameworkServlet.service")
+                        .append("(FrameworkServlet.java:885)");
+            }
+        }
+        return entry.append('\n').toString();
+    }
+
     private static String getRandomLevel() {
-        int roll = RANDOM.nextInt(100);
+        return getRandomLevel(RANDOM);
+    }
+
+    private static String getRandomLevel(Random random) {
+        int roll = random.nextInt(100);
         if (roll < 70) return "INFO";
         if (roll < 90) return "WARN";
         return "ERROR";
     }
 
     private static String getRandomMessage(String level) {
+        return getRandomMessage(level, RANDOM);
+    }
+
+    private static String getRandomMessage(String level, Random random) {
         return switch (level) {
-            case "INFO" -> INFO_MESSAGES.get(RANDOM.nextInt(INFO_MESSAGES.size()));
-            case "WARN" -> WARN_MESSAGES.get(RANDOM.nextInt(WARN_MESSAGES.size()));
-            case "ERROR" -> ERROR_MESSAGES.get(RANDOM.nextInt(ERROR_MESSAGES.size()));
+            case "INFO" -> INFO_MESSAGES.get(random.nextInt(INFO_MESSAGES.size()));
+            case "WARN" -> WARN_MESSAGES.get(random.nextInt(WARN_MESSAGES.size()));
+            case "ERROR" -> ERROR_MESSAGES.get(random.nextInt(ERROR_MESSAGES.size()));
             default -> "Unknown";
         };
     }